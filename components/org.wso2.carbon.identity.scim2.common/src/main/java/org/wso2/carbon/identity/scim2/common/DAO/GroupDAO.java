@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMGroupMetadataCache;
 import org.wso2.carbon.identity.scim2.common.exceptions.IdentitySCIMException;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
 import org.wso2.carbon.user.core.UserCoreConstants;
@@ -33,6 +34,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -46,6 +49,7 @@ import java.util.Set;
 public class GroupDAO {
 
     private static final Log log = LogFactory.getLog(GroupDAO.class);
+    private static final int MAX_GROUP_NAMES_PER_QUERY = 100;
 
     /**
      * This method is deprecated.
@@ -195,6 +199,7 @@ public class GroupDAO {
                 }
                 prepStmt.executeBatch();
                 connection.commit();
+                clearGroupMetadataCache(tenantId);
 
             } catch (SQLException e) {
                 throw new IdentitySCIMException("Error when adding SCIM attributes for the group: "
@@ -285,6 +290,7 @@ public class GroupDAO {
             }
             prepStmt.executeBatch();
             connection.commit();
+            clearGroupMetadataCache(tenantId);
         } catch (SQLException e) {
             throw new IdentitySCIMException("Error when adding SCIM attributes for hybrid groups.", e);
         }
@@ -321,6 +327,7 @@ public class GroupDAO {
                     log.debug("No. of records updated for updating SCIM Group : " + return_count.length);
                 }
                 connection.commit();
+                clearGroupMetadataCache(tenantId);
 
             } catch (SQLException e) {
                 throw new IdentitySCIMException("Error updating the SCIM Group Attributes.", e);
@@ -344,6 +351,7 @@ public class GroupDAO {
 
             prepStmt.execute();
             connection.commit();
+            clearGroupMetadataCache(tenantId);
 
         } catch (SQLException e) {
             log.error("Error when executing the SQL : " + SQLQueries.DELETE_GROUP_SQL);
@@ -382,6 +390,93 @@ public class GroupDAO {
         return attributes;
     }
 
+    /**
+     * Get the SCIM attributes of the given groups. The attributes are read with a single query for each chunk of
+     * group names instead of a query per group.
+     *
+     * @param tenantId   Tenant id.
+     * @param roleNames  Names of the groups.
+     * @return Map of the given group names and the SCIM attributes of the groups. Groups without SCIM attributes are
+     * not included.
+     * @throws IdentitySCIMException If an error occurred while reading the group attributes.
+     */
+    public Map<String, Map<String, String>> getSCIMGroupAttributesOfGroups(int tenantId, Collection<String> roleNames)
+            throws IdentitySCIMException {
+
+        Map<String, Map<String, String>> groupAttributes = new HashMap<>();
+        if (roleNames == null || roleNames.isEmpty()) {
+            return groupAttributes;
+        }
+        /*
+         Role names are stored with the domain, hence the results are mapped back to the given names. Given names
+         that differ only in the domain or in case can map to the same stored role name, hence all of them are kept.
+         */
+        Map<String, List<String>> storedRoleNames = new HashMap<>();
+        Map<String, List<String>> caseInsensitiveRoleNames = new HashMap<>();
+        for (String roleName : roleNames) {
+            String storedRoleName = SCIMCommonUtils.getGroupNameWithDomain(roleName);
+            storedRoleNames.computeIfAbsent(storedRoleName, k -> new ArrayList<>()).add(roleName);
+            caseInsensitiveRoleNames.computeIfAbsent(storedRoleName.toLowerCase(), k -> new ArrayList<>())
+                    .add(roleName);
+        }
+        List<String> storedRoleNameList = new ArrayList<>(storedRoleNames.keySet());
+
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            for (int start = 0; start < storedRoleNameList.size(); start += MAX_GROUP_NAMES_PER_QUERY) {
+                List<String> chunk = storedRoleNameList.subList(start,
+                        Math.min(start + MAX_GROUP_NAMES_PER_QUERY, storedRoleNameList.size()));
+                String sqlQuery = String.format(SQLQueries.GET_ATTRIBUTES_OF_GROUPS_SQL,
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")));
+                try (PreparedStatement prepStmt = connection.prepareStatement(sqlQuery)) {
+                    prepStmt.setInt(1, tenantId);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        prepStmt.setString(i + 2, chunk.get(i));
+                    }
+                    try (ResultSet rSet = prepStmt.executeQuery()) {
+                        while (rSet.next()) {
+                            if (StringUtils.isEmpty(rSet.getString(2))) {
+                                continue;
+                            }
+                            for (String roleName : resolveRequestedRoleNames(rSet.getString(1), storedRoleNames,
+                                    caseInsensitiveRoleNames)) {
+                                groupAttributes.computeIfAbsent(roleName, k -> new HashMap<>())
+                                        .put(rSet.getString(2), rSet.getString(3));
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Error when executing the SQL : " + SQLQueries.GET_ATTRIBUTES_OF_GROUPS_SQL);
+            throw new IdentitySCIMException("Error when reading the SCIM Group information from the " +
+                    "persistence store.", e);
+        }
+        return groupAttributes;
+    }
+
+    /**
+     * Resolve the requested group names of a role name returned from the persistence store. The role names can be
+     * returned in a different case if the persistence store compares role names case insensitively.
+     *
+     * @param storedRoleName           Role name returned from the persistence store.
+     * @param storedRoleNames          Map of the role names in the persistence store and the requested group names.
+     * @param caseInsensitiveRoleNames Map of the lower case role names in the persistence store and the requested
+     *                                 group names.
+     * @return Requested group names or an empty list if the role name is not requested.
+     */
+    private List<String> resolveRequestedRoleNames(String storedRoleName, Map<String, List<String>> storedRoleNames,
+                                                   Map<String, List<String>> caseInsensitiveRoleNames) {
+
+        if (storedRoleName == null) {
+            return Collections.emptyList();
+        }
+        List<String> roleNames = storedRoleNames.get(storedRoleName);
+        if (roleNames != null) {
+            return roleNames;
+        }
+        return caseInsensitiveRoleNames.getOrDefault(storedRoleName.toLowerCase(), Collections.emptyList());
+    }
+
     /**
      * Get the id of the group with the given name.
      *
@@ -462,6 +557,7 @@ public class GroupDAO {
                     log.debug("No. of records updated for updating SCIM Group : " + count);
                 }
                 connection.commit();
+                clearGroupMetadataCache(tenantId);
             } catch (SQLException e) {
                 throw new IdentitySCIMException("Error updating the SCIM Group Attributes", e);
             } finally {
@@ -595,4 +691,17 @@ public class GroupDAO {
             return roleName;
         }
     }
+
+    /**
+     * Clear the cached meta attributes of the groups and roles of the tenant once the SCIM attributes of a group of
+     * the tenant are changed.
+     *
+     * @param tenantId Tenant id.
+     */
+    private void clearGroupMetadataCache(int tenantId) {
+
+        if (SCIMCommonUtils.isGroupMetadataCacheEnabled()) {
+            SCIMGroupMetadataCache.getInstance().clearGroupMetadataByTenant(tenantId);
+        }
+    }
 }
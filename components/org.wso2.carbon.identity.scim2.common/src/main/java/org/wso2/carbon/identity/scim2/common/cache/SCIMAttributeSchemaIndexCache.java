@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * This stores the attribute schema index of the user resource type schema against tenants.
+ */
+public class SCIMAttributeSchemaIndexCache
+        extends BaseCache<SCIMAttributeSchemaIndexCacheKey, SCIMAttributeSchemaIndexCacheEntry> {
+
+    private static final String SCIM_ATTRIBUTE_SCHEMA_INDEX_CACHE = "SCIMAttributeSchemaIndexCache";
+    private static final Log log = LogFactory.getLog(SCIMAttributeSchemaIndexCache.class);
+
+    private static volatile SCIMAttributeSchemaIndexCache instance;
+
+    private SCIMAttributeSchemaIndexCache() {
+
+        super(SCIM_ATTRIBUTE_SCHEMA_INDEX_CACHE);
+    }
+
+    public static SCIMAttributeSchemaIndexCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SCIMAttributeSchemaIndexCache.class) {
+                if (instance == null) {
+                    instance = new SCIMAttributeSchemaIndexCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add the attribute schema index to cache against tenantId.
+     *
+     * @param tenantId             TenantId.
+     * @param attributeSchemaIndex Attribute schema index of the tenant.
+     */
+    public void addAttributeSchemaIndex(int tenantId, SCIMAttributeSchemaIndexCacheEntry attributeSchemaIndex) {
+
+        super.addToCache(new SCIMAttributeSchemaIndexCacheKey(tenantId), attributeSchemaIndex);
+        if (log.isDebugEnabled()) {
+            log.debug("Successfully added attribute schema index into SCIMAttributeSchemaIndexCache for the " +
+                    "tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Get the attribute schema index by tenantId.
+     *
+     * @param tenantId TenantId.
+     * @return Attribute schema index of the tenant or null if the index is not cached.
+     */
+    public SCIMAttributeSchemaIndexCacheEntry getAttributeSchemaIndexByTenant(int tenantId) {
+
+        SCIMAttributeSchemaIndexCacheEntry cacheEntry =
+                super.getValueFromCache(new SCIMAttributeSchemaIndexCacheKey(tenantId));
+        if (cacheEntry == null && log.isDebugEnabled()) {
+            log.debug("Cache entry is null for tenantId: " + tenantId);
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Clear the attribute schema index by tenantId.
+     *
+     * @param tenantId TenantId.
+     */
+    public void clearAttributeSchemaIndexByTenant(int tenantId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing SCIMAttributeSchemaIndexCache entry by the tenant with id: " + tenantId);
+        }
+        super.clearCacheEntry(new SCIMAttributeSchemaIndexCacheKey(tenantId));
+    }
+}
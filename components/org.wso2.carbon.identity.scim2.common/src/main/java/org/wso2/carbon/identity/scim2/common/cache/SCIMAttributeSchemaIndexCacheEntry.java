@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.wso2.charon3.core.schema.AttributeSchema;
+import org.wso2.charon3.core.schema.ResourceTypeSchema;
+import org.wso2.charon3.core.schema.SCIMDefinitions;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This stores the attribute schemas of a resource type schema against their attribute URIs, so that the schema of
+ * an attribute can be found without walking through the resource type schema. The attributes are indexed in the same
+ * order the resource type schema is searched, hence the first attribute found for a URI is kept.
+ */
+public class SCIMAttributeSchemaIndexCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 3184529630185240213L;
+
+    private final Map<String, AttributeSchema> attributeSchemas = new HashMap<>();
+
+    public SCIMAttributeSchemaIndexCacheEntry(ResourceTypeSchema resourceSchema) {
+
+        if (resourceSchema == null || resourceSchema.getAttributesList() == null) {
+            return;
+        }
+        for (AttributeSchema attributeSchema : resourceSchema.getAttributesList()) {
+            addAttributeSchema(attributeSchema);
+            if (!SCIMDefinitions.DataType.COMPLEX.equals(attributeSchema.getType())) {
+                continue;
+            }
+            for (AttributeSchema subAttributeSchema : getSubAttributeSchemas(attributeSchema)) {
+                addAttributeSchema(subAttributeSchema);
+                // Sub attributes of sub attributes are only valid for the extension schema.
+                if (!attributeSchema.getMultiValued() &&
+                        SCIMDefinitions.DataType.COMPLEX.equals(subAttributeSchema.getType())) {
+                    for (AttributeSchema subSubAttributeSchema : getSubAttributeSchemas(subAttributeSchema)) {
+                        addAttributeSchema(subSubAttributeSchema);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the attribute schema of the given attribute URI.
+     *
+     * @param attributeURI URI of the SCIM attribute.
+     * @return Schema of the attribute or null if there is no attribute with the given URI.
+     */
+    public AttributeSchema getAttributeSchema(String attributeURI) {
+
+        return attributeSchemas.get(attributeURI);
+    }
+
+    private void addAttributeSchema(AttributeSchema attributeSchema) {
+
+        if (attributeSchema.getURI() != null) {
+            attributeSchemas.putIfAbsent(attributeSchema.getURI(), attributeSchema);
+        }
+    }
+
+    private static List<AttributeSchema> getSubAttributeSchemas(AttributeSchema attributeSchema) {
+
+        List<AttributeSchema> subAttributeSchemas = attributeSchema.getSubAttributeSchemas();
+        return subAttributeSchemas == null ? Collections.emptyList() : subAttributeSchemas;
+    }
+}
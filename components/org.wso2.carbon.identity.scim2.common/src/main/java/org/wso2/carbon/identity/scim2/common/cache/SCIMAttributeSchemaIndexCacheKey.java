@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import java.io.Serializable;
+
+/**
+ * SCIM Attribute Schema Index Cache key. This contains tenant Id as the key.
+ */
+public class SCIMAttributeSchemaIndexCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -7238640920575326151L;
+
+    private final int tenantId;
+
+    public SCIMAttributeSchemaIndexCacheKey(int tenantId) {
+
+        this.tenantId = tenantId;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof SCIMAttributeSchemaIndexCacheKey)) {
+            return false;
+        }
+
+        SCIMAttributeSchemaIndexCacheKey that = (SCIMAttributeSchemaIndexCacheKey) o;
+        return tenantId == that.tenantId;
+    }
+
+    @Override
+    public int hashCode() {
+
+        return tenantId;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * This stores the SCIM to local claim mappings against tenants.
+ */
+public class SCIMClaimMappingsCache extends BaseCache<SCIMClaimMappingsCacheKey, SCIMClaimMappingsCacheEntry> {
+
+    private static final String SCIM_CLAIM_MAPPINGS_CACHE = "SCIMClaimMappingsCache";
+    private static final Log log = LogFactory.getLog(SCIMClaimMappingsCache.class);
+
+    private static volatile SCIMClaimMappingsCache instance;
+
+    private SCIMClaimMappingsCache() {
+
+        super(SCIM_CLAIM_MAPPINGS_CACHE);
+    }
+
+    public static SCIMClaimMappingsCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SCIMClaimMappingsCache.class) {
+                if (instance == null) {
+                    instance = new SCIMClaimMappingsCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add the claim mappings to cache against tenantId.
+     *
+     * @param tenantId      TenantId.
+     * @param claimMappings Claim mappings of the tenant.
+     */
+    public void addClaimMappings(int tenantId, SCIMClaimMappingsCacheEntry claimMappings) {
+
+        super.addToCache(new SCIMClaimMappingsCacheKey(tenantId), claimMappings);
+        if (log.isDebugEnabled()) {
+            log.debug("Successfully added SCIM claim mappings into SCIMClaimMappingsCache for the tenant: " +
+                    tenantId);
+        }
+    }
+
+    /**
+     * Get the claim mappings by tenantId.
+     *
+     * @param tenantId TenantId.
+     * @return Claim mappings of the tenant or null if the mappings are not cached.
+     */
+    public SCIMClaimMappingsCacheEntry getClaimMappingsByTenant(int tenantId) {
+
+        SCIMClaimMappingsCacheEntry cacheEntry = super.getValueFromCache(new SCIMClaimMappingsCacheKey(tenantId));
+        if (cacheEntry == null && log.isDebugEnabled()) {
+            log.debug("Cache entry is null for tenantId: " + tenantId);
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Clear the claim mappings by tenantId.
+     *
+     * @param tenantId TenantId.
+     */
+    public void clearClaimMappingsByTenant(int tenantId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing SCIMClaimMappingsCache entry by the tenant with id: " + tenantId);
+        }
+        super.clearCacheEntry(new SCIMClaimMappingsCacheKey(tenantId));
+    }
+}
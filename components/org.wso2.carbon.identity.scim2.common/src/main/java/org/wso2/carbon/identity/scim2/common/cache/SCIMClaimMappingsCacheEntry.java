@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This stores an immutable snapshot of the SCIM to local claim mappings of a tenant along with the inverse local to
+ * SCIM claim mappings. A local claim can be mapped to more than one SCIM claim, hence the inverse mappings keep a
+ * list of SCIM claims for each local claim. The local claims mapped to immutable SCIM claims are kept as well.
+ */
+public class SCIMClaimMappingsCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -4563052880546640127L;
+
+    private final Map<String, String> scimToLocalMappings;
+    private final Map<String, List<String>> localToSCIMMappings;
+    private final Set<String> immutableLocalClaims;
+
+    public SCIMClaimMappingsCacheEntry(Map<String, String> scimToLocalMappings) {
+
+        Map<String, List<String>> localToSCIMMappings = SCIMCommonUtils.buildLocalToSCIMMappings(scimToLocalMappings);
+        localToSCIMMappings.replaceAll((localClaim, scimClaims) -> Collections.unmodifiableList(scimClaims));
+
+        this.scimToLocalMappings = Collections.unmodifiableMap(new HashMap<>(scimToLocalMappings));
+        this.localToSCIMMappings = Collections.unmodifiableMap(localToSCIMMappings);
+        this.immutableLocalClaims = Collections.unmodifiableSet(
+                SCIMCommonUtils.buildImmutableLocalClaims(scimToLocalMappings));
+    }
+
+    /**
+     * Get the SCIM to local claim mappings.
+     *
+     * @return Read only map of SCIM claims and the mapped local claims.
+     */
+    public Map<String, String> getSCIMToLocalMappings() {
+
+        return scimToLocalMappings;
+    }
+
+    /**
+     * Get the local to SCIM claim mappings.
+     *
+     * @return Read only map of local claims and the SCIM claims mapped to them.
+     */
+    public Map<String, List<String>> getLocalToSCIMMappings() {
+
+        return localToSCIMMappings;
+    }
+
+    /**
+     * Get the local claims mapped to immutable SCIM claims.
+     *
+     * @return Read only set of local claims which cannot be removed from a user.
+     */
+    public Set<String> getImmutableLocalClaims() {
+
+        return immutableLocalClaims;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This stores the rendered responses of the discovery endpoints against tenants. Clearing the responses of a tenant
+ * starts a new generation of the tenant, and a response rendered in an earlier generation is never added back.
+ */
+public class SCIMDiscoveryResponseCache
+        extends BaseCache<SCIMDiscoveryResponseCacheKey, SCIMDiscoveryResponseCacheEntry> {
+
+    private static final String SCIM_DISCOVERY_RESPONSE_CACHE = "SCIMDiscoveryResponseCache";
+    private static final Log log = LogFactory.getLog(SCIMDiscoveryResponseCache.class);
+
+    private static volatile SCIMDiscoveryResponseCache instance;
+
+    private final Map<Integer, AtomicLong> tenantGenerations = new ConcurrentHashMap<>();
+
+    private SCIMDiscoveryResponseCache() {
+
+        super(SCIM_DISCOVERY_RESPONSE_CACHE);
+    }
+
+    public static SCIMDiscoveryResponseCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SCIMDiscoveryResponseCache.class) {
+                if (instance == null) {
+                    instance = new SCIMDiscoveryResponseCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the current generation of the discovery responses of a tenant. The generation is to be read before a
+     * response is rendered, and given when the response is added.
+     *
+     * @param tenantId TenantId.
+     * @return Current generation of the discovery responses of the tenant.
+     */
+    public long getGenerationByTenant(int tenantId) {
+
+        return getGeneration(tenantId).get();
+    }
+
+    /**
+     * Add the rendered response of a resource to the discovery responses of a tenant. The cached entry is not
+     * changed, instead a new entry with the existing responses and the given response replaces it. The response is
+     * not added if the discovery responses of the tenant were cleared after the given generation, as it can be stale.
+     *
+     * @param tenantId        TenantId.
+     * @param generation      Generation of the discovery responses of the tenant when the response was rendered.
+     * @param resourceKey     Key of the requested resource.
+     * @param responseBody    Rendered response body.
+     * @param eTag            Entity tag of the response body.
+     * @param responseHeaders Headers of the response.
+     */
+    public void addDiscoveryResponse(int tenantId, long generation, String resourceKey, String responseBody,
+                                     String eTag, Map<String, String> responseHeaders) {
+
+        AtomicLong currentGeneration = getGeneration(tenantId);
+        // Adding and clearing are serialized per tenant, so that neither a clear nor a response added concurrently
+        // is overwritten.
+        synchronized (currentGeneration) {
+            if (currentGeneration.get() != generation) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Discovery responses of the tenantId: " + tenantId + " were cleared after the " +
+                            "response of: " + resourceKey + " was rendered. Hence it is not added to the cache.");
+                }
+                return;
+            }
+            SCIMDiscoveryResponseCacheKey cacheKey = new SCIMDiscoveryResponseCacheKey(tenantId);
+            SCIMDiscoveryResponseCacheEntry cacheEntry = super.getValueFromCache(cacheKey);
+            if (cacheEntry == null) {
+                cacheEntry = new SCIMDiscoveryResponseCacheEntry();
+            }
+            super.addToCache(cacheKey, cacheEntry.withResponse(resourceKey, responseBody, eTag, responseHeaders));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Successfully added the response of: " + resourceKey + " into SCIMDiscoveryResponseCache for " +
+                    "the tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Get the discovery responses by tenantId.
+     *
+     * @param tenantId TenantId.
+     * @return Discovery responses of the tenant or null if the responses are not cached.
+     */
+    public SCIMDiscoveryResponseCacheEntry getDiscoveryResponsesByTenant(int tenantId) {
+
+        SCIMDiscoveryResponseCacheEntry cacheEntry =
+                super.getValueFromCache(new SCIMDiscoveryResponseCacheKey(tenantId));
+        if (cacheEntry == null && log.isDebugEnabled()) {
+            log.debug("Cache entry is null for tenantId: " + tenantId);
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Clear the discovery responses by tenantId.
+     *
+     * @param tenantId TenantId.
+     */
+    public void clearDiscoveryResponsesByTenant(int tenantId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing SCIMDiscoveryResponseCache entry by the tenant with id: " + tenantId);
+        }
+        AtomicLong currentGeneration = getGeneration(tenantId);
+        synchronized (currentGeneration) {
+            currentGeneration.incrementAndGet();
+            super.clearCacheEntry(new SCIMDiscoveryResponseCacheKey(tenantId));
+        }
+    }
+
+    private AtomicLong getGeneration(int tenantId) {
+
+        return tenantGenerations.computeIfAbsent(tenantId, k -> new AtomicLong());
+    }
+}
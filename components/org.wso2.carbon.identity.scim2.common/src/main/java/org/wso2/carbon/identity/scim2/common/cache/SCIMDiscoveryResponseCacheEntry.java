@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This stores the rendered responses of the discovery endpoints of a tenant, i.e. /Schemas, /ResourceTypes and
+ * /ServiceProviderConfig, against the key of the requested resource. The key identifies both the path of the resource
+ * and the endpoint URL the locations of the response were built with. The entry is immutable, hence a new entry is
+ * created to add a response.
+ */
+public class SCIMDiscoveryResponseCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -1873346213547170917L;
+
+    private final Map<String, String> responseBodies;
+    private final Map<String, String> eTags;
+    private final Map<String, Map<String, String>> responseHeaders;
+
+    public SCIMDiscoveryResponseCacheEntry() {
+
+        this(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    private SCIMDiscoveryResponseCacheEntry(Map<String, String> responseBodies, Map<String, String> eTags,
+                                            Map<String, Map<String, String>> responseHeaders) {
+
+        this.responseBodies = responseBodies;
+        this.eTags = eTags;
+        this.responseHeaders = responseHeaders;
+    }
+
+    /**
+     * Create a new entry with the rendered response of the given resource key added to the responses of this entry.
+     *
+     * @param resourceKey     Key of the requested resource.
+     * @param responseBody    Rendered response body.
+     * @param eTag            Entity tag of the response body.
+     * @param responseHeaders Headers of the response.
+     * @return New entry with the given response.
+     */
+    public SCIMDiscoveryResponseCacheEntry withResponse(String resourceKey, String responseBody, String eTag,
+                                                        Map<String, String> responseHeaders) {
+
+        Map<String, String> newResponseBodies = new HashMap<>(this.responseBodies);
+        newResponseBodies.put(resourceKey, responseBody);
+        Map<String, String> newETags = new HashMap<>(this.eTags);
+        newETags.put(resourceKey, eTag);
+        Map<String, Map<String, String>> newResponseHeaders = new HashMap<>(this.responseHeaders);
+        newResponseHeaders.put(resourceKey, responseHeaders == null ? Collections.emptyMap() :
+                Collections.unmodifiableMap(new HashMap<>(responseHeaders)));
+        return new SCIMDiscoveryResponseCacheEntry(Collections.unmodifiableMap(newResponseBodies),
+                Collections.unmodifiableMap(newETags), Collections.unmodifiableMap(newResponseHeaders));
+    }
+
+    /**
+     * Get the rendered response body of the given resource key.
+     *
+     * @param resourceKey Key of the requested resource.
+     * @return Response body or null if the response is not cached.
+     */
+    public String getResponseBody(String resourceKey) {
+
+        return responseBodies.get(resourceKey);
+    }
+
+    /**
+     * Get the entity tag of the response of the given resource key.
+     *
+     * @param resourceKey Key of the requested resource.
+     * @return Entity tag or null if the response is not cached.
+     */
+    public String getETag(String resourceKey) {
+
+        return eTags.get(resourceKey);
+    }
+
+    /**
+     * Get the headers of the response of the given resource key.
+     *
+     * @param resourceKey Key of the requested resource.
+     * @return Response headers or null if the response is not cached.
+     */
+    public Map<String, String> getResponseHeaders(String resourceKey) {
+
+        return responseHeaders.get(resourceKey);
+    }
+}
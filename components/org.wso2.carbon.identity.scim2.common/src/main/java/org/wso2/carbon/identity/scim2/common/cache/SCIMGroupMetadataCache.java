@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This stores the meta attributes of the groups and roles of users against tenants, so that the groups and roles
+ * shared by the users of consecutive user listings are not read again from the user store for each request. The
+ * entry of a tenant is cleared whenever a group or a role of the tenant is added, deleted or renamed. Each clear
+ * starts a new generation of the tenant, and metadata loaded in an earlier generation is never added back.
+ */
+public class SCIMGroupMetadataCache extends BaseCache<SCIMGroupMetadataCacheKey, SCIMGroupMetadataCacheEntry> {
+
+    private static final String SCIM_GROUP_METADATA_CACHE = "SCIMGroupMetadataCache";
+    private static final Log log = LogFactory.getLog(SCIMGroupMetadataCache.class);
+
+    private static volatile SCIMGroupMetadataCache instance;
+
+    private final Map<Integer, AtomicLong> tenantGenerations = new ConcurrentHashMap<>();
+
+    private SCIMGroupMetadataCache() {
+
+        super(SCIM_GROUP_METADATA_CACHE);
+    }
+
+    public static SCIMGroupMetadataCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SCIMGroupMetadataCache.class) {
+                if (instance == null) {
+                    instance = new SCIMGroupMetadataCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the group metadata of a tenant.
+     *
+     * @param tenantId TenantId.
+     * @return Group metadata of the tenant or null if the tenant does not have an entry.
+     */
+    public SCIMGroupMetadataCacheEntry getGroupMetadataByTenant(int tenantId) {
+
+        return super.getValueFromCache(new SCIMGroupMetadataCacheKey(tenantId));
+    }
+
+    /**
+     * Get the current generation of the group metadata of a tenant. The generation is to be read before the metadata
+     * is loaded from the user store, and given when the loaded metadata is added.
+     *
+     * @param tenantId TenantId.
+     * @return Current generation of the group metadata of the tenant.
+     */
+    public long getGenerationByTenant(int tenantId) {
+
+        return getGeneration(tenantId).get();
+    }
+
+    /**
+     * Add the meta attributes of groups and roles to the group metadata of a tenant. The cached entry is not changed,
+     * instead a new entry with the existing and the given groups and roles replaces it. The groups and roles are not
+     * added if the group metadata of the tenant was cleared after the given generation, as they can be stale.
+     *
+     * @param tenantId   TenantId.
+     * @param generation Generation of the group metadata of the tenant when the groups and roles were loaded.
+     * @param groups     Meta attributes of the groups, against the domain qualified group names.
+     * @param roles      Meta attributes of the roles, against the role names.
+     * @param maxSize    Maximum number of groups and of roles kept for the tenant.
+     */
+    public void addGroupMetadataByTenant(int tenantId, long generation,
+                                         Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> groups,
+                                         Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> roles, int maxSize) {
+
+        if (groups.isEmpty() && roles.isEmpty()) {
+            return;
+        }
+        AtomicLong currentGeneration = getGeneration(tenantId);
+        // Adding and clearing are serialized per tenant, so that a clear is never overwritten by a concurrent add.
+        synchronized (currentGeneration) {
+            if (currentGeneration.get() != generation) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Group metadata of the tenantId: " + tenantId + " was cleared after it was loaded. " +
+                            "Hence it is not added to the cache.");
+                }
+                return;
+            }
+            SCIMGroupMetadataCacheKey cacheKey = new SCIMGroupMetadataCacheKey(tenantId);
+            SCIMGroupMetadataCacheEntry cacheEntry = super.getValueFromCache(cacheKey);
+            if (cacheEntry == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Cache entry is null for the tenantId: " + tenantId + ". Adding a new entry.");
+                }
+                cacheEntry = new SCIMGroupMetadataCacheEntry(Collections.emptyMap(), Collections.emptyMap());
+            }
+            super.addToCache(cacheKey, cacheEntry.withGroupsAndRoles(groups, roles, maxSize));
+        }
+    }
+
+    /**
+     * Clear the group metadata by tenantId.
+     *
+     * @param tenantId TenantId.
+     */
+    public void clearGroupMetadataByTenant(int tenantId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing SCIMGroupMetadataCache entry by the tenant with id: " + tenantId);
+        }
+        AtomicLong currentGeneration = getGeneration(tenantId);
+        synchronized (currentGeneration) {
+            currentGeneration.incrementAndGet();
+            super.clearCacheEntry(new SCIMGroupMetadataCacheKey(tenantId));
+        }
+    }
+
+    private AtomicLong getGeneration(int tenantId) {
+
+        return tenantGenerations.computeIfAbsent(tenantId, k -> new AtomicLong());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This stores an immutable snapshot of the meta attributes of the groups and roles of a tenant which are returned in
+ * the groups and roles attributes of users. The number of groups and roles kept is bounded and the earliest added
+ * ones are evicted first when a new snapshot is built with more groups or roles.
+ */
+public class SCIMGroupMetadataCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 4702863941572310865L;
+
+    private final Map<String, GroupMetadata> groups;
+    private final Map<String, GroupMetadata> roles;
+
+    public SCIMGroupMetadataCacheEntry(Map<String, GroupMetadata> groups, Map<String, GroupMetadata> roles) {
+
+        this.groups = Collections.unmodifiableMap(new LinkedHashMap<>(groups));
+        this.roles = Collections.unmodifiableMap(new LinkedHashMap<>(roles));
+    }
+
+    /**
+     * Get the meta attributes of a group.
+     *
+     * @param groupName Domain qualified name of the group.
+     * @return Meta attributes of the group or null if the group is not cached.
+     */
+    public GroupMetadata getGroup(String groupName) {
+
+        return groups.get(groupName);
+    }
+
+    /**
+     * Get the meta attributes of a role.
+     *
+     * @param roleName Name of the role.
+     * @return Meta attributes of the role or null if the role is not cached.
+     */
+    public GroupMetadata getRole(String roleName) {
+
+        return roles.get(roleName);
+    }
+
+    /**
+     * Build a new entry with the groups and roles of this entry and the given groups and roles. This entry is not
+     * changed.
+     *
+     * @param addedGroups Meta attributes of the groups to be added, against the domain qualified group names.
+     * @param addedRoles  Meta attributes of the roles to be added, against the role names.
+     * @param maxSize     Maximum number of groups and of roles kept in the new entry.
+     * @return New entry with the given groups and roles.
+     */
+    public SCIMGroupMetadataCacheEntry withGroupsAndRoles(Map<String, GroupMetadata> addedGroups,
+                                                          Map<String, GroupMetadata> addedRoles, int maxSize) {
+
+        return new SCIMGroupMetadataCacheEntry(merge(groups, addedGroups, maxSize), merge(roles, addedRoles, maxSize));
+    }
+
+    private static Map<String, GroupMetadata> merge(Map<String, GroupMetadata> existing,
+                                                    Map<String, GroupMetadata> added, int maxSize) {
+
+        Map<String, GroupMetadata> merged = new LinkedHashMap<>(existing);
+        for (Map.Entry<String, GroupMetadata> entry : added.entrySet()) {
+            // Re-insert to move the group to the end, so that it is evicted last.
+            merged.remove(entry.getKey());
+            merged.put(entry.getKey(), entry.getValue());
+        }
+        Iterator<String> iterator = merged.keySet().iterator();
+        while (merged.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        return merged;
+    }
+
+    /**
+     * Meta attributes of a group or a role.
+     */
+    public static class GroupMetadata implements Serializable {
+
+        private static final long serialVersionUID = -3305874183950248016L;
+
+        private final String name;
+        private final String id;
+        private final String location;
+        private final String createdDate;
+        private final String lastModifiedDate;
+
+        public GroupMetadata(String name, String id, String location, String createdDate, String lastModifiedDate) {
+
+            this.name = name;
+            this.id = id;
+            this.location = location;
+            this.createdDate = createdDate;
+            this.lastModifiedDate = lastModifiedDate;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+
+        public String getId() {
+
+            return id;
+        }
+
+        public String getLocation() {
+
+            return location;
+        }
+
+        public String getCreatedDate() {
+
+            return createdDate;
+        }
+
+        public String getLastModifiedDate() {
+
+            return lastModifiedDate;
+        }
+    }
+}
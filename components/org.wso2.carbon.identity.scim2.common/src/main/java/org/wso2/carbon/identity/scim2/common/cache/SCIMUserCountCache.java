@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This stores the number of users of each user store domain against tenants. The counts are adjusted when users are
+ * added or deleted and are read again from the user store once they are older than the configured refresh interval.
+ * Adjusting or clearing the count of a domain starts a new generation of the domain, and a count read from the user
+ * store in an earlier generation is never added, as it can miss the added or deleted users.
+ */
+public class SCIMUserCountCache extends BaseCache<SCIMUserCountCacheKey, SCIMUserCountCacheEntry> {
+
+    private static final String SCIM_USER_COUNT_CACHE = "SCIMUserCountCache";
+    private static final Log log = LogFactory.getLog(SCIMUserCountCache.class);
+
+    private static volatile SCIMUserCountCache instance;
+
+    private final Map<SCIMUserCountCacheKey, AtomicLong> domainGenerations = new ConcurrentHashMap<>();
+
+    private SCIMUserCountCache() {
+
+        super(SCIM_USER_COUNT_CACHE);
+    }
+
+    public static SCIMUserCountCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SCIMUserCountCache.class) {
+                if (instance == null) {
+                    instance = new SCIMUserCountCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the current generation of the user count of a user store domain. The generation is to be read before the
+     * count is read from the user store, and given when the count is added.
+     *
+     * @param tenantId   TenantId.
+     * @param domainName User store domain name.
+     * @return Current generation of the user count of the domain.
+     */
+    public long getGenerationByDomain(int tenantId, String domainName) {
+
+        return getGeneration(buildCacheKey(tenantId, domainName)).get();
+    }
+
+    /**
+     * Add the user count of a user store domain to cache. The count is not added if the count of the domain was
+     * adjusted or cleared after the given generation, as users were added or deleted while it was read.
+     *
+     * @param tenantId   TenantId.
+     * @param domainName User store domain name.
+     * @param generation Generation of the user count of the domain when the count was read.
+     * @param userCount  Number of users in the domain.
+     */
+    public void addUserCount(int tenantId, String domainName, long generation, long userCount) {
+
+        SCIMUserCountCacheKey cacheKey = buildCacheKey(tenantId, domainName);
+        AtomicLong currentGeneration = getGeneration(cacheKey);
+        synchronized (currentGeneration) {
+            if (currentGeneration.get() != generation) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Users of the domain: " + domainName + " of the tenant: " + tenantId + " were " +
+                            "changed while the user count was read. Hence it is not added to the cache.");
+                }
+                return;
+            }
+            super.addToCache(cacheKey, new SCIMUserCountCacheEntry(userCount, System.currentTimeMillis()));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Added user count: " + userCount + " of the domain: " + domainName + " into " +
+                    "SCIMUserCountCache for the tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Get the cached user count of a user store domain.
+     *
+     * @param tenantId   TenantId.
+     * @param domainName User store domain name.
+     * @return Cache entry or null if the count is not cached.
+     */
+    public SCIMUserCountCacheEntry getUserCount(int tenantId, String domainName) {
+
+        return super.getValueFromCache(buildCacheKey(tenantId, domainName));
+    }
+
+    /**
+     * Adjust the cached user count of a user store domain. Nothing is done if the count is not cached, as it will be
+     * read from the user store on the next request. The time of the last refresh is kept as it is. Adjusting and
+     * clearing are serialized per domain, so that concurrent adjustments are never lost.
+     *
+     * @param tenantId   TenantId.
+     * @param domainName User store domain name.
+     * @param delta      Number of users added. Negative for deleted users.
+     */
+    public void adjustUserCount(int tenantId, String domainName, long delta) {
+
+        SCIMUserCountCacheKey cacheKey = buildCacheKey(tenantId, domainName);
+        AtomicLong currentGeneration = getGeneration(cacheKey);
+        synchronized (currentGeneration) {
+            currentGeneration.incrementAndGet();
+            SCIMUserCountCacheEntry cacheEntry = super.getValueFromCache(cacheKey);
+            if (cacheEntry == null) {
+                return;
+            }
+            long userCount = Math.max(cacheEntry.getUserCount() + delta, 0);
+            super.addToCache(cacheKey, new SCIMUserCountCacheEntry(userCount, cacheEntry.getRefreshedTime()));
+        }
+    }
+
+    /**
+     * Clear the cached user count of a user store domain.
+     *
+     * @param tenantId   TenantId.
+     * @param domainName User store domain name.
+     */
+    public void clearUserCount(int tenantId, String domainName) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing SCIMUserCountCache entry of the domain: " + domainName + " by the tenant with id: " +
+                    tenantId);
+        }
+        SCIMUserCountCacheKey cacheKey = buildCacheKey(tenantId, domainName);
+        AtomicLong currentGeneration = getGeneration(cacheKey);
+        synchronized (currentGeneration) {
+            currentGeneration.incrementAndGet();
+            super.clearCacheEntry(cacheKey);
+        }
+    }
+
+    private AtomicLong getGeneration(SCIMUserCountCacheKey cacheKey) {
+
+        return domainGenerations.computeIfAbsent(cacheKey, k -> new AtomicLong());
+    }
+
+    private SCIMUserCountCacheKey buildCacheKey(int tenantId, String domainName) {
+
+        return new SCIMUserCountCacheKey(tenantId, domainName == null ? null : domainName.toUpperCase(Locale.ENGLISH));
+    }
+}
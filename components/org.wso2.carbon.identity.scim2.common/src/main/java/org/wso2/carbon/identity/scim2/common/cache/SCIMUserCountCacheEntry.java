@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import java.io.Serializable;
+
+/**
+ * This stores the number of users in a user store domain along with the time the count was read from the user store.
+ */
+public class SCIMUserCountCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -6043255419170371843L;
+
+    private final long userCount;
+    private final long refreshedTime;
+
+    public SCIMUserCountCacheEntry(long userCount, long refreshedTime) {
+
+        this.userCount = userCount;
+        this.refreshedTime = refreshedTime;
+    }
+
+    public long getUserCount() {
+
+        return userCount;
+    }
+
+    public long getRefreshedTime() {
+
+        return refreshedTime;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
+
+/**
+ * This stores the attributes of the core, user, enterprise user and custom user schemas against tenants, so that the
+ * schemas are not built from the claims of the tenant for each request.
+ */
+public class SCIMUserSchemaCache extends BaseCache<SCIMUserSchemaCacheKey, SCIMUserSchemaCacheEntry> {
+
+    private static final String SCIM_USER_SCHEMA_CACHE = "SCIMUserSchemaCache";
+    private static final Log log = LogFactory.getLog(SCIMUserSchemaCache.class);
+
+    private static volatile SCIMUserSchemaCache instance;
+
+    private SCIMUserSchemaCache() {
+
+        super(SCIM_USER_SCHEMA_CACHE);
+    }
+
+    public static SCIMUserSchemaCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SCIMUserSchemaCache.class) {
+                if (instance == null) {
+                    instance = new SCIMUserSchemaCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add the attributes of a schema to cache against tenantId.
+     *
+     * @param tenantId      TenantId.
+     * @param schemaDialect Claim dialect of the schema.
+     * @param userSchema    Attributes of the schema.
+     */
+    public void addUserSchema(int tenantId, String schemaDialect, SCIMUserSchemaCacheEntry userSchema) {
+
+        super.addToCache(new SCIMUserSchemaCacheKey(tenantId, schemaDialect), userSchema);
+        if (log.isDebugEnabled()) {
+            log.debug("Successfully added the schema of the dialect: " + schemaDialect + " into SCIMUserSchemaCache " +
+                    "for the tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Get the attributes of a schema by tenantId.
+     *
+     * @param tenantId      TenantId.
+     * @param schemaDialect Claim dialect of the schema.
+     * @return Attributes of the schema or null if the schema is not cached.
+     */
+    public SCIMUserSchemaCacheEntry getUserSchema(int tenantId, String schemaDialect) {
+
+        SCIMUserSchemaCacheEntry cacheEntry =
+                super.getValueFromCache(new SCIMUserSchemaCacheKey(tenantId, schemaDialect));
+        if (cacheEntry == null && log.isDebugEnabled()) {
+            log.debug("Cache entry is null for the dialect: " + schemaDialect + " of the tenantId: " + tenantId);
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Clear the attributes of all the schemas by tenantId.
+     *
+     * @param tenantId TenantId.
+     */
+    public void clearUserSchemasByTenant(int tenantId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing SCIMUserSchemaCache entries by the tenant with id: " + tenantId);
+        }
+        super.clearCacheEntry(new SCIMUserSchemaCacheKey(tenantId, SCIMCommonConstants.SCIM_CORE_CLAIM_DIALECT));
+        super.clearCacheEntry(new SCIMUserSchemaCacheKey(tenantId, SCIMCommonConstants.SCIM_USER_CLAIM_DIALECT));
+        super.clearCacheEntry(new SCIMUserSchemaCacheKey(tenantId,
+                SCIMCommonConstants.SCIM_ENTERPRISE_USER_CLAIM_DIALECT));
+        super.clearCacheEntry(new SCIMUserSchemaCacheKey(tenantId, SCIMCommonUtils.getCustomSchemaURI()));
+    }
+}
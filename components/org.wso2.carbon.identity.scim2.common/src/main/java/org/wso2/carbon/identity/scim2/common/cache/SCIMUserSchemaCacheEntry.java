@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.wso2.charon3.core.attributes.Attribute;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This stores the hierarchical attributes of a SCIM user schema of a tenant, built from the claims of the claim
+ * dialect of the schema.
+ */
+public class SCIMUserSchemaCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 6359012787418540213L;
+
+    private final List<Attribute> schemaAttributes;
+
+    public SCIMUserSchemaCacheEntry(List<Attribute> schemaAttributes) {
+
+        this.schemaAttributes = Collections.unmodifiableList(new ArrayList<>(schemaAttributes));
+    }
+
+    /**
+     * Get the hierarchical attributes of the schema.
+     *
+     * @return Read only list of the schema attributes.
+     */
+    public List<Attribute> getSchemaAttributes() {
+
+        return schemaAttributes;
+    }
+}
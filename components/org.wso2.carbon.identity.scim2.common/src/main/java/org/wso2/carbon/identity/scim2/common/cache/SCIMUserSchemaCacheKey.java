@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * SCIM User Schema Cache key. This contains the tenant Id and the claim dialect of the schema as the key.
+ */
+public class SCIMUserSchemaCacheKey implements Serializable {
+
+    private static final long serialVersionUID = -2417336385026943770L;
+
+    private final int tenantId;
+    private final String schemaDialect;
+
+    public SCIMUserSchemaCacheKey(int tenantId, String schemaDialect) {
+
+        this.tenantId = tenantId;
+        this.schemaDialect = schemaDialect;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getSchemaDialect() {
+
+        return schemaDialect;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof SCIMUserSchemaCacheKey)) {
+            return false;
+        }
+
+        SCIMUserSchemaCacheKey that = (SCIMUserSchemaCacheKey) o;
+        return tenantId == that.tenantId && Objects.equals(schemaDialect, that.schemaDialect);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(tenantId, schemaDialect);
+    }
+}
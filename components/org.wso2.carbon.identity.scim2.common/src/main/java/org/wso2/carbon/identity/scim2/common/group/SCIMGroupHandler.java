@@ -38,6 +38,7 @@ import org.wso2.charon3.core.schema.SCIMConstants;
 import org.wso2.charon3.core.utils.AttributeUtil;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -234,6 +235,46 @@ public class SCIMGroupHandler {
             return group;
         }
 
+        setGroupAttributes(group, attributes);
+        return group;
+    }
+
+    /**
+     * Build the groups of the given group names with the attributes retrieved from the Identity table. The attributes
+     * of all the groups are retrieved at once.
+     *
+     * @param groupNames Names of the groups.
+     * @return Map of the group names and the groups. The groups which are not SCIM groups only have the display name.
+     * @throws IdentitySCIMException If an error occurred while retrieving the group attributes.
+     * @throws CharonException       If an error occurred while setting the group attributes.
+     * @throws BadRequestException   If an error occurred while setting the group attributes.
+     */
+    public Map<String, Group> getGroupsWithAttributes(Collection<String> groupNames)
+            throws IdentitySCIMException, CharonException, BadRequestException {
+
+        GroupDAO groupDAO = new GroupDAO();
+        Map<String, Map<String, String>> groupAttributes = groupDAO.getSCIMGroupAttributesOfGroups(tenantId,
+                groupNames);
+        Map<String, Group> groups = new HashMap<>();
+        for (String groupName : groupNames) {
+            Group group = new Group();
+            group.setDisplayName(groupName);
+            Map<String, String> attributes = groupAttributes.get(groupName);
+            if (attributes == null || attributes.isEmpty()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("The group: " + groupName + ", is not a SCIM group. Skipping..");
+                }
+            } else {
+                setGroupAttributes(group, attributes);
+            }
+            groups.put(groupName, group);
+        }
+        return groups;
+    }
+
+    private void setGroupAttributes(Group group, Map<String, String> attributes)
+            throws CharonException, BadRequestException {
+
         for (Map.Entry<String, String> entry : attributes.entrySet()) {
             if (SCIMConstants.CommonSchemaConstants.ID_URI.equals(entry.getKey())) {
                 group.setId(entry.getValue());
@@ -245,7 +286,6 @@ public class SCIMGroupHandler {
                 group.setLocation(SCIMCommonUtils.getSCIMGroupURL(group.getId()));
             }
         }
-        return group;
     }
 
     /**
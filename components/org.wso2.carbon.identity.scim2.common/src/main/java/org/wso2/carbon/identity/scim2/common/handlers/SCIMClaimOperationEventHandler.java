@@ -25,7 +25,11 @@ import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMAttributeSchemaIndexCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMClaimMappingsCache;
 import org.wso2.carbon.identity.scim2.common.cache.SCIMCustomAttributeSchemaCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMDiscoveryResponseCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMUserSchemaCache;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
 
 import static org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils.getCustomSchemaURI;
@@ -34,12 +38,15 @@ import static org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils.getCus
  * This handles the claim metadata operation related events and it will clear the SCIMCustomAttributeSchema
  * cache when the event is triggered. This depends on the local claim update, external claim on custom schema
  * related operations and deleting of the custom schema. When these relevant events are fired the cache will be
- * cleared based on the tenant and the cache will be rebuilt with the next SCIM api request.
+ * cleared based on the tenant and the cache will be rebuilt with the next SCIM api request. The SCIM claim mappings
+ * cache, the user schema cache, the attribute schema index cache and the discovery response cache of the tenant are
+ * cleared in the same way for the events on the local dialect and the SCIM dialects.
  */
 public class SCIMClaimOperationEventHandler extends AbstractEventHandler {
 
     private static final Log log = LogFactory.getLog(SCIMClaimOperationEventHandler.class);
     public static final String WSO2_CARBON_DIALECT = "http://wso2.org/claims";
+    private static final String SCIM_SCHEMA_URI_PREFIX = "urn:ietf:params:scim:schemas:";
 
     /**
      * This handles the claim related operations that are subscribed and clear the SCIMCustomAttributeSchema which
@@ -57,6 +64,18 @@ public class SCIMClaimOperationEventHandler extends AbstractEventHandler {
                     "Id: " + tenantId);
         }
 
+        String claimDialectUri =
+                (String) event.getEventProperties().get(IdentityEventConstants.EventProperty.CLAIM_DIALECT_URI);
+        String oldClaimDialectUri =
+                (String) event.getEventProperties().get(IdentityEventConstants.EventProperty.OLD_CLAIM_DIALECT_URI);
+        if (isClaimMappingsRelatedDialect(claimDialectUri) || (StringUtils.isNotBlank(oldClaimDialectUri) &&
+                isClaimMappingsRelatedDialect(oldClaimDialectUri))) {
+            SCIMClaimMappingsCache.getInstance().clearClaimMappingsByTenant(tenantId);
+            SCIMAttributeSchemaIndexCache.getInstance().clearAttributeSchemaIndexByTenant(tenantId);
+            SCIMUserSchemaCache.getInstance().clearUserSchemasByTenant(tenantId);
+            SCIMDiscoveryResponseCache.getInstance().clearDiscoveryResponsesByTenant(tenantId);
+        }
+
         if (!SCIMCommonUtils.isCustomSchemaEnabled()) {
             if (log.isDebugEnabled()) {
                 log.debug("SCIM2 Custom user schema has disabled in server level.");
@@ -64,8 +83,6 @@ public class SCIMClaimOperationEventHandler extends AbstractEventHandler {
             return;
         }
 
-        String claimDialectUri =
-                (String) event.getEventProperties().get(IdentityEventConstants.EventProperty.CLAIM_DIALECT_URI);
         if (!getCustomSchemaURI().equalsIgnoreCase(claimDialectUri) &&
                 !WSO2_CARBON_DIALECT.equalsIgnoreCase(claimDialectUri)) {
             if (log.isDebugEnabled()) {
@@ -77,8 +94,6 @@ public class SCIMClaimOperationEventHandler extends AbstractEventHandler {
             return;
         }
         // If claim dialect rename happens, then we need to check whether the custom schema has renamed to another name.
-        String oldClaimDialectUri =
-                (String) event.getEventProperties().get(IdentityEventConstants.EventProperty.OLD_CLAIM_DIALECT_URI);
         if (StringUtils.isNotBlank(oldClaimDialectUri) && !oldClaimDialectUri.equalsIgnoreCase(getCustomSchemaURI())) {
             if (log.isDebugEnabled()) {
                 log.debug("Needs to clear the cache only if the SCIM2 custom schema has changed");
@@ -89,6 +104,22 @@ public class SCIMClaimOperationEventHandler extends AbstractEventHandler {
         SCIMCustomAttributeSchemaCache.getInstance().clearSCIMCustomAttributeSchemaByTenant(tenantId);
     }
 
+    /**
+     * Check whether the given claim dialect is used to build the SCIM claim mappings. The events without a claim
+     * dialect are considered as related, as the affected dialect cannot be identified.
+     *
+     * @param claimDialectUri Claim dialect URI of the event.
+     * @return True if the SCIM claim mappings can be affected by a change in the dialect.
+     */
+    private boolean isClaimMappingsRelatedDialect(String claimDialectUri) {
+
+        if (StringUtils.isBlank(claimDialectUri) || WSO2_CARBON_DIALECT.equalsIgnoreCase(claimDialectUri) ||
+                getCustomSchemaURI().equalsIgnoreCase(claimDialectUri)) {
+            return true;
+        }
+        return claimDialectUri.startsWith(SCIM_SCHEMA_URI_PREFIX);
+    }
+
     @Override
     public String getName() {
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.impl;
+
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.charon3.core.exceptions.BadRequestException;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.objects.User;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull based iterator over the members of a page of a group. The SCIM members of a batch are built only when the
+ * batch is requested, hence only a single batch of members is held in memory at a time.
+ */
+public class GroupMemberBatchIterator {
+
+    private final SCIMUserManager scimUserManager;
+    private final List<org.wso2.carbon.user.core.common.User> coreUsers;
+    private final int batchSize;
+    private final int memberCount;
+    private int position;
+
+    GroupMemberBatchIterator(SCIMUserManager scimUserManager, List<org.wso2.carbon.user.core.common.User> coreUsers,
+                             int batchSize, int memberCount) {
+
+        this.scimUserManager = scimUserManager;
+        this.coreUsers = coreUsers;
+        this.batchSize = Math.max(batchSize, 1);
+        this.memberCount = memberCount;
+    }
+
+    /**
+     * Get the total number of members of the group.
+     *
+     * @return Total number of members.
+     */
+    public int getMemberCount() {
+
+        return memberCount;
+    }
+
+    /**
+     * Check whether there are more members to be retrieved.
+     *
+     * @return True if there are more members.
+     */
+    public boolean hasNext() {
+
+        return position < coreUsers.size();
+    }
+
+    /**
+     * Build the SCIM members of the next batch.
+     *
+     * @return SCIM members of the next batch.
+     * @throws CharonException     Error while retrieving the members.
+     * @throws BadRequestException Error while retrieving the members.
+     */
+    public List<User> nextBatch() throws CharonException, BadRequestException {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more members to be retrieved.");
+        }
+        List<org.wso2.carbon.user.core.common.User> batch =
+                coreUsers.subList(position, Math.min(position + batchSize, coreUsers.size()));
+        position += batch.size();
+        try {
+            return scimUserManager.buildGroupMembers(batch, true);
+        } catch (UserStoreException e) {
+            throw new CharonException("Error in retrieving the members of the group.", e);
+        }
+    }
+}
@@ -43,10 +43,12 @@ import org.wso2.carbon.identity.role.v2.mgt.core.util.UserIDResolver;
 import org.wso2.carbon.identity.scim2.common.internal.SCIMCommonComponentHolder;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
+import org.wso2.carbon.identity.scim2.common.utils.UserIDBatchResolver;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.constants.UserCoreClaimConstants;
 import org.wso2.charon3.core.exceptions.BadRequestException;
 import org.wso2.charon3.core.exceptions.CharonException;
 import org.wso2.charon3.core.exceptions.ConflictException;
@@ -1065,24 +1067,25 @@ public class SCIMRoleManagerV2 implements RoleV2Manager {
         Set<String> addedUsers = new HashSet<>();
         Set<String> deletedUsers = new HashSet<>();
         Set<Object> newlyAddedUsersIds = new HashSet<>();
+        Set<Object> removedUsersIds = new HashSet<>();
 
         for (PatchOperation memberOperation : memberOperations) {
             if (memberOperation.getValues() instanceof Map) {
                 Map<String, String> memberObject = (Map<String, String>) memberOperation.getValues();
-                prepareAddedRemovedUserLists(addedUsers, deletedUsers, newlyAddedUsersIds,
+                prepareAddedRemovedUserLists(addedUsers, deletedUsers, newlyAddedUsersIds, removedUsersIds,
                         memberOperation, memberObject, roleId);
             } else if (memberOperation.getValues() instanceof List) {
                 List<Map<String, String>> memberOperationValues =
                         (List<Map<String, String>>) memberOperation.getValues();
                 for (Map<String, String> memberObject : memberOperationValues) {
-                    prepareAddedRemovedUserLists(addedUsers, deletedUsers, newlyAddedUsersIds,
+                    prepareAddedRemovedUserLists(addedUsers, deletedUsers, newlyAddedUsersIds, removedUsersIds,
                             memberOperation, memberObject, roleId);
                 }
             }
         }
 
         if (isNotEmpty(addedUsers) || isNotEmpty(deletedUsers)) {
-            doUpdateUsers(addedUsers, deletedUsers, newlyAddedUsersIds, roleId);
+            doUpdateUsers(addedUsers, deletedUsers, newlyAddedUsersIds, removedUsersIds, roleId);
         }
     }
 
@@ -1148,11 +1151,13 @@ public class SCIMRoleManagerV2 implements RoleV2Manager {
     }
 
     private void doUpdateUsers(Set<String> newUserList, Set<String> deletedUserList, Set<Object> newlyAddedMemberIds,
-                               String roleId) throws CharonException, BadRequestException, ForbiddenException {
+                               Set<Object> removedMemberIds, String roleId)
+            throws CharonException, BadRequestException, ForbiddenException {
 
         // Update the role with added users and deleted users.
-        List<String> newUserIDList = getUserIDList(new ArrayList<>(newUserList), tenantDomain);
-        List<String> deletedUserIDList = getUserIDList(new ArrayList<>(deletedUserList), tenantDomain);
+        List<String> newUserIDList = getUserIDList(new ArrayList<>(newUserList), newlyAddedMemberIds, tenantDomain);
+        List<String> deletedUserIDList = getUserIDList(new ArrayList<>(deletedUserList), removedMemberIds,
+                tenantDomain);
 
         if (isNotEmpty(newUserList) && !(newlyAddedMemberIds.size() == 1 && newlyAddedMemberIds.contains(null))) {
             validateUserIds(newUserIDList, newlyAddedMemberIds);
@@ -1191,24 +1196,66 @@ public class SCIMRoleManagerV2 implements RoleV2Manager {
         return userIDResolver.getIDByName(name, tenantDomain);
     }
 
-    private List<String> getUserIDList(List<String> userList, String tenantDomain) throws CharonException,
-            BadRequestException {
+    /**
+     * Get the user IDs of the given usernames. The user IDs sent along with the members in the request are used to
+     * resolve the usernames in bulk, and only the usernames which cannot be resolved that way are looked up one by one.
+     *
+     * @param userList         Usernames of the users.
+     * @param candidateUserIds User IDs sent along with the members in the request.
+     * @param tenantDomain     Tenant domain.
+     * @return User IDs of the users.
+     * @throws BadRequestException If any of the users does not exist.
+     */
+    private List<String> getUserIDList(List<String> userList, Set<Object> candidateUserIds, String tenantDomain)
+            throws CharonException, BadRequestException {
 
         List<String> userIDList = new ArrayList<>();
+        if (userList.isEmpty()) {
+            return userIDList;
+        }
+        Map<String, String> resolvedUserIds = resolveUserIDs(userList, candidateUserIds);
+        List<String> nonExistingUsers = new ArrayList<>();
         for (String user : userList) {
+            String userId = resolvedUserIds.get(user);
+            if (userId != null) {
+                userIDList.add(userId);
+                continue;
+            }
             try {
                 userIDList.add(getUserIDByName(user, tenantDomain));
             } catch (IdentityRoleManagementException e) {
                 if (RoleConstants.Error.INVALID_REQUEST.getCode().equals(e.getErrorCode())) {
-                    throw new BadRequestException(e.getMessage(), ResponseCodeConstants.INVALID_VALUE);
+                    nonExistingUsers.add(user);
+                    continue;
                 }
                 throw new CharonException(String.format("Error occurred while getting the user id " +
                         "of the user: %s", user), e);
             }
         }
+        if (!nonExistingUsers.isEmpty()) {
+            throw new BadRequestException(String.format("A user doesn't exist with the names: %s",
+                    StringUtils.join(nonExistingUsers, ", ")), ResponseCodeConstants.INVALID_VALUE);
+        }
         return userIDList;
     }
 
+    private Map<String, String> resolveUserIDs(List<String> userList, Set<Object> candidateUserIds)
+            throws CharonException {
+
+        if (CollectionUtils.isEmpty(candidateUserIds)) {
+            return Collections.emptyMap();
+        }
+        try {
+            AbstractUserStoreManager userStoreManager =
+                    (AbstractUserStoreManager) PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm()
+                            .getUserStoreManager();
+            return new UserIDBatchResolver(userStoreManager, UserCoreClaimConstants.USERNAME_CLAIM_URI)
+                    .resolveUserIDs(userList, candidateUserIds);
+        } catch (UserStoreException e) {
+            throw new CharonException("Error occurred while resolving the user ids of the users.", e);
+        }
+    }
+
     private void prepareInitialGroupLists(Set<String> givenAddedGroupsIds, Set<String> givenRemovedGroupsIds,
                                           Set<String> givenReplacedGroupsIds, PatchOperation groupOperation,
                                           Map<String, String> groupObject) {
@@ -1268,8 +1315,9 @@ public class SCIMRoleManagerV2 implements RoleV2Manager {
     }
 
     private void prepareAddedRemovedUserLists(Set<String> addedMembers, Set<String> removedMembers,
-                                              Set<Object> newlyAddedMemberIds, PatchOperation memberOperation,
-                                              Map<String, String> memberObject, String roleId)
+                                              Set<Object> newlyAddedMemberIds, Set<Object> removedMemberIds,
+                                              PatchOperation memberOperation, Map<String, String> memberObject,
+                                              String roleId)
             throws BadRequestException, CharonException {
 
         try {
@@ -1312,6 +1360,7 @@ public class SCIMRoleManagerV2 implements RoleV2Manager {
             } else if (SCIMConstants.OperationalConstants.REMOVE.equals(memberOperation.getOperation())) {
                 addedMembers.remove(memberObject.get(SCIMConstants.RoleSchemaConstants.DISPLAY));
                 removedMembers.add(memberObject.get(SCIMConstants.RoleSchemaConstants.DISPLAY));
+                removedMemberIds.add(memberObject.get(SCIMConstants.CommonSchemaConstants.VALUE));
             }
         } catch (UserStoreException e) {
             if ("Invalid Domain Name".equals(e.getMessage())) {
@@ -29,6 +29,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpStatus;
 import org.wso2.carbon.CarbonConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
@@ -47,14 +48,23 @@ import org.wso2.carbon.identity.role.v2.mgt.core.exception.IdentityRoleManagemen
 import org.wso2.carbon.identity.role.v2.mgt.core.model.RoleBasicInfo;
 import org.wso2.carbon.identity.scim2.common.DAO.GroupDAO;
 import org.wso2.carbon.identity.scim2.common.cache.SCIMCustomAttributeSchemaCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMGroupMetadataCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMGroupMetadataCacheEntry;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMUserSchemaCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMUserSchemaCacheEntry;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMUserCountCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMUserCountCacheEntry;
 import org.wso2.carbon.identity.scim2.common.exceptions.IdentitySCIMException;
 import org.wso2.carbon.identity.scim2.common.extenstion.SCIMUserStoreErrorResolver;
 import org.wso2.carbon.identity.scim2.common.extenstion.SCIMUserStoreException;
 import org.wso2.carbon.identity.scim2.common.group.SCIMGroupHandler;
 import org.wso2.carbon.identity.scim2.common.internal.SCIMCommonComponentHolder;
 import org.wso2.carbon.identity.scim2.common.utils.AttributeMapper;
+import org.wso2.carbon.identity.scim2.common.utils.PaginationCursor;
+import org.wso2.carbon.identity.scim2.common.utils.PatchOperationClaimMapper;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
+import org.wso2.carbon.identity.scim2.common.utils.UserIDBatchResolver;
 import org.wso2.carbon.user.api.ClaimMapping;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.PaginatedUserStoreManager;
@@ -99,10 +109,7 @@ import org.wso2.charon3.core.protocol.ResponseCodeConstants;
 import org.wso2.charon3.core.schema.AttributeSchema;
 import org.wso2.charon3.core.schema.SCIMConstants;
 import org.wso2.charon3.core.schema.SCIMDefinitions;
-import org.wso2.charon3.core.schema.SCIMResourceSchemaManager;
-import org.wso2.charon3.core.schema.SCIMResourceTypeSchema;
 import org.wso2.charon3.core.utils.AttributeUtil;
-import org.wso2.charon3.core.utils.ResourceManagerUtil;
 import org.wso2.charon3.core.utils.codeutils.ExpressionNode;
 import org.wso2.charon3.core.utils.codeutils.Node;
 import org.wso2.charon3.core.utils.codeutils.OperationNode;
@@ -114,18 +121,28 @@ import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -163,6 +180,8 @@ public class SCIMUserManager implements UserManager {
     private ClaimMetadataManagementService claimMetadataManagementService;
     private String primaryIdentifierClaim;
     private static final int MAX_ITEM_LIMIT_UNLIMITED = -1;
+    private static final int MAX_USERS_PER_ROLE_QUERY = 100;
+    private static final int MAX_USERS_PER_CLAIM_QUERY = 100;
     private static final String ENABLE_PAGINATED_USER_STORE = "SCIM.EnablePaginatedUserStore";
     private static final String SERVICE_PROVIDER = "serviceProvider";
     private final String SERVICE_PROVIDER_TENANT_DOMAIN = "serviceProviderTenantDomain";
@@ -331,7 +350,7 @@ public class SCIMUserManager implements UserManager {
             }
 
             // Get Claims related to SCIM claim dialect
-            Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+            Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
 
             // Get required SCIM Claims in local claim dialect.
             List<String> requiredClaimsInLocalDialect = getRequiredClaimsInLocalDialect(scimToLocalClaimsMap,
@@ -472,7 +491,7 @@ public class SCIMUserManager implements UserManager {
                 return null;
             } else {
                 //get Claims related to SCIM claim dialect
-                Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+                Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
                 List<String> requiredClaimsInLocalDialect = getRequiredClaimsInLocalDialect(scimToLocalClaimsMap,
                         requiredAttributes);
                 //we assume (since id is unique per user) only one user exists for a given id
@@ -600,6 +619,8 @@ public class SCIMUserManager implements UserManager {
                                          String sortOrder, String domainName, Map<String, Boolean> requiredAttributes)
             throws CharonException, NotImplementedException, BadRequestException {
 
+        validateCursorPaginationParams(startIndex);
+        validateUserCursorPaginationSupported(rootNode);
         // Validate NULL value for startIndex.
         startIndex = handleStartIndexEqualsNULL(startIndex);
         if (sortBy != null || sortOrder != null) {
@@ -642,29 +663,9 @@ public class SCIMUserManager implements UserManager {
         List<User> scimUsers = new ArrayList<>();
         // Handle limit equals NULL scenario.
         limit = handleLimitEqualsNULL(limit);
-        Set<org.wso2.carbon.user.core.common.User> coreUsers;
-        long totalUsers = 0;
-        if (StringUtils.isNotEmpty(domainName)) {
-            if (canPaginate(offset, limit)) {
-                coreUsers = listUsernames(offset, limit, sortBy, sortOrder, domainName);
-                totalUsers = getTotalUsers(domainName);
-            } else {
-                coreUsers = listUsernamesUsingLegacyAPIs(domainName);
-                if (!SCIMCommonUtils.isConsiderMaxLimitForTotalResultEnabled()) {
-                    totalUsers = getTotalUsers(domainName);
-                }
-            }
-        } else {
-            if (canPaginate(offset, limit)) {
-                coreUsers = listUsernamesAcrossAllDomains(offset, limit, sortBy, sortOrder);
-                totalUsers += getTotalUsersFromAllUserStores();
-            } else {
-                coreUsers = listUsernamesAcrossAllDomainsUsingLegacyAPIs();
-                if (!SCIMCommonUtils.isConsiderMaxLimitForTotalResultEnabled()) {
-                    totalUsers += getTotalUsersFromAllUserStores();
-                }
-            }
-        }
+        Set<org.wso2.carbon.user.core.common.User> coreUsers =
+                listUsernamesOfPage(offset, limit, sortBy, sortOrder, domainName);
+        long totalUsers = getTotalUsersOfPage(offset, limit, domainName);
 
         if (coreUsers.isEmpty()) {
             if (log.isDebugEnabled()) {
@@ -686,6 +687,254 @@ public class SCIMUserManager implements UserManager {
         return getDetailedUsers(scimUsers, (int) totalUsers);
     }
 
+    /**
+     * Method to list the users of the requested page as batches. The usernames of the page are resolved upfront while
+     * the SCIM users are built only when each batch is requested, so that the caller can write a batch before the
+     * next one is built.
+     *
+     * @param startIndex         Starting index of the page
+     * @param count              Counting value
+     * @param domainName         Name of the user store. NULL to list across all user stores
+     * @param requiredAttributes Required attributes for the response
+     * @param batchSize          Number of users in a batch
+     * @return Iterator over the batches of users in the page
+     * @throws CharonException Error while listing users
+     * @throws BadRequestException
+     */
+    public UserBatchIterator listUsersInBatches(Integer startIndex, Integer count, String domainName,
+                                                Map<String, Boolean> requiredAttributes, int batchSize)
+            throws CharonException, BadRequestException {
+
+        validateCursorPaginationParams(startIndex);
+        validateUserCursorPaginationSupported(null);
+        int offset = handleStartIndexEqualsNULL(startIndex);
+        if (count != null && count == 0) {
+            return new UserBatchIterator(this, Collections.emptySet(), requiredAttributes, batchSize, 0);
+        }
+        int limit = handleLimitEqualsNULL(count);
+        Set<org.wso2.carbon.user.core.common.User> coreUsers =
+                listUsernamesOfPage(offset, limit, null, null, domainName);
+        long totalUsers = getTotalUsersOfPage(offset, limit, domainName);
+        if (totalUsers == 0) {
+            totalUsers = coreUsers.size();
+        }
+        return new UserBatchIterator(this, coreUsers, requiredAttributes, batchSize, Math.toIntExact(totalUsers));
+    }
+
+    /**
+     * Method to list the usernames of the requested page from the given user store or across all user stores.
+     *
+     * @param offset     Starting index of the count
+     * @param limit      Counting value
+     * @param sortBy     SortBy
+     * @param sortOrder  Sorting order
+     * @param domainName Name of the user store. NULL to list across all user stores
+     * @return Usernames of the page
+     * @throws CharonException Error while listing usernames
+     * @throws BadRequestException
+     */
+    private Set<org.wso2.carbon.user.core.common.User> listUsernamesOfPage(int offset, int limit, String sortBy,
+                                                                           String sortOrder, String domainName)
+            throws CharonException, BadRequestException {
+
+        if (isCursorPaginationRequested() && isPaginatedUserStoreAvailable()) {
+            return listUsernamesWithCursor(limit, sortBy, sortOrder, domainName);
+        } else if (StringUtils.isNotEmpty(domainName)) {
+            if (canPaginate(offset, limit)) {
+                return listUsernames(offset, limit, sortBy, sortOrder, domainName);
+            }
+            return listUsernamesUsingLegacyAPIs(domainName);
+        } else {
+            if (canPaginate(offset, limit)) {
+                return listUsernamesAcrossAllDomains(offset, limit, sortBy, sortOrder);
+            }
+            return listUsernamesAcrossAllDomainsUsingLegacyAPIs();
+        }
+    }
+
+    /**
+     * Method to get the total number of users to be returned along with a page of the users listing.
+     *
+     * @param offset     Starting index of the count
+     * @param limit      Counting value
+     * @param domainName Name of the user store. NULL to count across all user stores
+     * @return Total number of users. 0 if the total cannot be counted
+     * @throws CharonException Error while counting users
+     */
+    private long getTotalUsersOfPage(int offset, int limit, String domainName) throws CharonException {
+
+        boolean isPaginatedListing = (isCursorPaginationRequested() && isPaginatedUserStoreAvailable()) ||
+                canPaginate(offset, limit);
+        if (!isPaginatedListing && SCIMCommonUtils.isConsiderMaxLimitForTotalResultEnabled()) {
+            return 0;
+        }
+        if (StringUtils.isNotEmpty(domainName)) {
+            return getTotalUsers(domainName);
+        }
+        return getTotalUsersFromAllUserStores();
+    }
+
+    /**
+     * Check whether cursor based pagination is requested for the current request.
+     *
+     * @return True if a cursor is available in the request.
+     */
+    private boolean isCursorPaginationRequested() {
+
+        return SCIMCommonUtils.getThreadLocalPaginationCursor() != null;
+    }
+
+    /**
+     * Validate that the index based pagination is not used along with cursor based pagination.
+     *
+     * @param startIndex Start index in the request.
+     * @throws BadRequestException If both start index and cursor are used.
+     */
+    private void validateCursorPaginationParams(Integer startIndex) throws BadRequestException {
+
+        if (isCursorPaginationRequested() && startIndex != null && startIndex != 1) {
+            throw new BadRequestException("startIndex and cursor cannot be used together.",
+                    ResponseCodeConstants.INVALID_VALUE);
+        }
+    }
+
+    /**
+     * Validate that cursor based pagination is supported for listing the users with the given filter. The cursor
+     * is rejected instead of being ignored, as the full list would be returned otherwise.
+     *
+     * @param rootNode Filter in the request. NULL when the users are listed without a filter.
+     * @throws BadRequestException If a cursor is used where cursor based pagination is not supported.
+     */
+    private void validateUserCursorPaginationSupported(Node rootNode) throws BadRequestException {
+
+        if (!isCursorPaginationRequested()) {
+            return;
+        }
+        if (!isPaginatedUserStoreAvailable()) {
+            throw new BadRequestException("Cursor based pagination is not supported by the user stores.",
+                    ResponseCodeConstants.INVALID_VALUE);
+        }
+        if (rootNode instanceof OperationNode || (rootNode instanceof ExpressionNode &&
+                SCIMConstants.UserSchemaConstants.GROUP_URI.equals(((ExpressionNode) rootNode).getAttributeValue()))) {
+            throw new BadRequestException("Cursor based pagination is not supported for the given filter.",
+                    ResponseCodeConstants.INVALID_VALUE);
+        }
+    }
+
+    /**
+     * Method to list paginated usernames from all user stores, or the given user store, starting from the cursor in
+     * the request.
+     *
+     * @param limit      Counting value
+     * @param sortBy     SortBy
+     * @param sortOrder  Sorting order
+     * @param domainName Name of the user store. NULL to list across all user stores
+     * @return Paginated usernames list
+     * @throws CharonException Error while listing usernames
+     * @throws BadRequestException If the cursor is invalid
+     */
+    private Set<org.wso2.carbon.user.core.common.User> listUsernamesWithCursor(int limit, String sortBy,
+                                                                               String sortOrder, String domainName)
+            throws CharonException, BadRequestException {
+
+        // Operator SW set with USERNAME and empty string to get all users.
+        ExpressionCondition condition = new ExpressionCondition(ExpressionOperation.SW.toString(),
+                ExpressionAttribute.USERNAME.toString(), "");
+        return filterUsersWithCursor(null, condition, domainName, limit, sortBy, sortOrder);
+    }
+
+    /**
+     * Method to filter users starting from the cursor in the request. Each domain is resumed from the position
+     * recorded in the cursor, so the users skipped by the previous pages are not counted again. The cursor of the
+     * next page is set to the thread local when there can be more results.
+     *
+     * @param node                     Expression node (set the value to null when method is used for list users)
+     * @param conditionForListingUsers Condition for listing users. For filtering this value should be set to NULL.
+     * @param domainName               Domain to be filtered. NULL to filter across all user stores
+     * @param limit                    Counting value
+     * @param sortBy                   SortBy
+     * @param sortOrder                Sort order
+     * @return Users of the page
+     * @throws CharonException Error while filtering the users of a domain
+     * @throws BadRequestException If the cursor is invalid
+     */
+    private Set<org.wso2.carbon.user.core.common.User> filterUsersWithCursor(Node node,
+                                                                             Condition conditionForListingUsers,
+                                                                             String domainName, int limit,
+                                                                             String sortBy, String sortOrder)
+            throws CharonException, BadRequestException {
+
+        PaginationCursor cursor = PaginationCursor.decodeUsersCursor(SCIMCommonUtils.getThreadLocalPaginationCursor());
+        String[] userStoreDomainNames;
+        if (StringUtils.isNotEmpty(domainName)) {
+            if (cursor.getDomainName() != null && !domainName.equalsIgnoreCase(cursor.getDomainName())) {
+                throw new BadRequestException("The cursor does not belong to the user store domain: " + domainName,
+                        SCIMCommonConstants.INVALID_CURSOR);
+            }
+            userStoreDomainNames = new String[]{domainName};
+        } else {
+            userStoreDomainNames = getDomainNames();
+        }
+        if (limit <= 0) {
+            limit = getMaxLimit(domainName);
+        }
+
+        Set<org.wso2.carbon.user.core.common.User> users = createUserSet();
+        int domainIndex = getDomainIndexOfCursor(cursor, userStoreDomainNames);
+        int domainOffset = 1;
+        if (domainIndex < userStoreDomainNames.length &&
+                userStoreDomainNames[domainIndex].equalsIgnoreCase(cursor.getDomainName())) {
+            domainOffset = cursor.getPositionAsIndex();
+        }
+        int remaining = limit;
+        while (domainIndex < userStoreDomainNames.length) {
+            String userStoreDomainName = userStoreDomainNames[domainIndex];
+            Condition condition = getConditionForDomain(node, userStoreDomainName, conditionForListingUsers);
+            Set<org.wso2.carbon.user.core.common.User> coreUsers = filterUsernames(condition, domainOffset,
+                    remaining, sortBy, sortOrder, userStoreDomainName);
+            users.addAll(coreUsers);
+            remaining -= coreUsers.size();
+            if (remaining <= 0) {
+                // The page is full. The next page resumes from the next user of the same domain.
+                SCIMCommonUtils.setThreadLocalNextPaginationCursor(PaginationCursor.forUsers(userStoreDomainName,
+                        domainOffset + coreUsers.size()).encode());
+                return users;
+            }
+            domainIndex++;
+            domainOffset = 1;
+        }
+        return users;
+    }
+
+    /**
+     * Get the index of the domain from which the users of the page are listed. Secondary domains are listed in the
+     * order of their names, hence a cursor of a domain which is no longer available resumes from the next domain in
+     * that order, and the domains added or removed after the cursor was issued do not shift the listing.
+     *
+     * @param cursor               Users cursor in the request.
+     * @param userStoreDomainNames Domain names in the listing order.
+     * @return Index of the domain to resume the listing from.
+     */
+    private int getDomainIndexOfCursor(PaginationCursor cursor, String[] userStoreDomainNames) {
+
+        String cursorDomainName = cursor.getDomainName();
+        if (cursorDomainName == null) {
+            return 0;
+        }
+        for (int i = 0; i < userStoreDomainNames.length; i++) {
+            if (userStoreDomainNames[i].equalsIgnoreCase(cursorDomainName)) {
+                return i;
+            }
+        }
+        // The primary domain is always listed first, followed by the secondary domains sorted by name.
+        for (int i = 1; i < userStoreDomainNames.length; i++) {
+            if (userStoreDomainNames[i].compareToIgnoreCase(cursorDomainName) > 0) {
+                return i;
+            }
+        }
+        return userStoreDomainNames.length;
+    }
+
     private long getTotalUsersFromAllUserStores() throws CharonException {
 
         long totalUsers = 0;
@@ -724,13 +973,30 @@ public class SCIMUserManager implements UserManager {
             secondaryUserStoreManager = (AbstractUserStoreManager) carbonUM
                     .getSecondaryUserStoreManager(domainName);
         }
-        try {
-            if (secondaryUserStoreManager instanceof JDBCUserStoreManager) {
-                totalUsers = secondaryUserStoreManager.countUsersWithClaims(USERNAME_CLAIM, "*");
+        if (!(secondaryUserStoreManager instanceof JDBCUserStoreManager)) {
+            return totalUsers;
+        }
+        boolean isUserCountCacheEnabled = SCIMCommonUtils.isUserCountCacheEnabled();
+        long cacheGeneration = 0;
+        if (isUserCountCacheEnabled) {
+            cacheGeneration =
+                    SCIMUserCountCache.getInstance().getGenerationByDomain(carbonUM.getTenantId(), domainName);
+            SCIMUserCountCacheEntry cacheEntry =
+                    SCIMUserCountCache.getInstance().getUserCount(carbonUM.getTenantId(), domainName);
+            if (cacheEntry != null && System.currentTimeMillis() - cacheEntry.getRefreshedTime() <
+                    SCIMCommonUtils.getUserCountCacheRefreshInterval()) {
+                return cacheEntry.getUserCount();
             }
+        }
+        try {
+            totalUsers = secondaryUserStoreManager.countUsersWithClaims(USERNAME_CLAIM, "*");
         } catch (org.wso2.carbon.user.core.UserStoreException e) {
             throw resolveError(e, "Error while getting total user count in domain: " + domainName);
         }
+        if (isUserCountCacheEnabled) {
+            SCIMUserCountCache.getInstance().addUserCount(carbonUM.getTenantId(), domainName, cacheGeneration,
+                    totalUsers);
+        }
         return totalUsers;
     }
 
@@ -926,13 +1192,13 @@ public class SCIMUserManager implements UserManager {
      * @return User list with detailed attributes
      * @throws CharonException Error while retrieving users
      */
-    private List<User> getUserDetails(Set<org.wso2.carbon.user.core.common.User> coreUsers,
+    List<User> getUserDetails(Set<org.wso2.carbon.user.core.common.User> coreUsers,
                                         Map<String, Boolean> requiredAttributes)
             throws CharonException, BadRequestException {
 
         List<User> users = new ArrayList<>();
         try {
-            Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+            Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
             List<String> requiredClaims = getOnlyRequiredClaims(scimToLocalClaimsMap.keySet(), requiredAttributes);
             List<String> requiredClaimsInLocalDialect;
             if (MapUtils.isNotEmpty(scimToLocalClaimsMap)) {
@@ -1008,13 +1274,13 @@ public class SCIMUserManager implements UserManager {
             Map<String, String> claims = AttributeMapper.getClaimsMap(user);
 
             // Check if username of the updating user existing in the userstore.
+            org.wso2.carbon.user.core.common.User coreUser = getExistingCoreUser(user);
+            String oldUserName = getUserNameOfResponse(coreUser);
             try {
                 String userStoreDomainFromSP = getUserStoreDomainFromSP();
-                SCIMResourceTypeSchema schema = SCIMResourceSchemaManager.getInstance().getUserResourceSchema();
-                User oldUser = this.getUser(user.getId(), ResourceManagerUtil.getAllAttributeURIs(schema));
                 if (userStoreDomainFromSP != null && !userStoreDomainFromSP
-                        .equalsIgnoreCase(IdentityUtil.extractDomainFromName(oldUser.getUserName()))) {
-                    throw new CharonException("User :" + oldUser.getUserName() + "is not belong to user store " +
+                        .equalsIgnoreCase(coreUser.getUserStoreDomain())) {
+                    throw new CharonException("User :" + oldUserName + "is not belong to user store " +
                             userStoreDomainFromSP + "Hence user updating fail");
                 }
                 if (getUserStoreDomainFromSP() != null &&
@@ -1024,8 +1290,8 @@ public class SCIMUserManager implements UserManager {
                                     getUserStoreDomainFromSP()));
                 }
                 String username = user.getUsername();
-                String oldUsername = oldUser.getUsername();
-                if (!IdentityUtil.isUserStoreInUsernameCaseSensitive(oldUser.getUsername())) {
+                String oldUsername = oldUserName;
+                if (!IdentityUtil.isUserStoreInUsernameCaseSensitive(oldUserName)) {
                     username = username.toLowerCase();
                     oldUsername = oldUsername.toLowerCase();
                 }
@@ -1036,7 +1302,7 @@ public class SCIMUserManager implements UserManager {
                     if (!StringUtils.equals(username, oldUsername)) {
                         if (log.isDebugEnabled()) {
                             log.debug("Failing the request as attempting to modify username. Old username: "
-                                    + oldUser.getUserName() + ", new username: " + user.getUserName());
+                                    + oldUserName + ", new username: " + user.getUserName());
                         }
 
                         throw new BadRequestException("Attribute userName cannot be modified.",
@@ -1047,17 +1313,6 @@ public class SCIMUserManager implements UserManager {
                 throw new CharonException("Error retrieving User Store name. ", e);
             }
 
-            boolean isExistingUser;
-            if (StringUtils.isNotEmpty(user.getId())) {
-                isExistingUser = carbonUM.isExistingUserWithID(user.getId());
-            } else {
-                isExistingUser = carbonUM.isExistingUser(user.getUserName());
-            }
-
-            if (!isExistingUser) {
-                throw new CharonException("User name is immutable in carbon user store.");
-            }
-
             // Skip groups attribute since we map groups attribute to actual groups in ldap.
             // and do not update it as an attribute in user schema.
             claims.remove(SCIMConstants.UserSchemaConstants.GROUP_URI);
@@ -1081,7 +1336,7 @@ public class SCIMUserManager implements UserManager {
             // Resource-Type is a meta attribute of user object.
             claims.remove(SCIMConstants.CommonSchemaConstants.RESOURCE_TYPE_URI);
 
-            Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+            Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
             List<String> requiredClaims = getOnlyRequiredClaims(scimToLocalClaimsMap.keySet(), requiredAttributes);
             List<String> requiredClaimsInLocalDialect;
             if (MapUtils.isNotEmpty(scimToLocalClaimsMap)) {
@@ -1094,9 +1349,10 @@ public class SCIMUserManager implements UserManager {
                 requiredClaimsInLocalDialect = new ArrayList<>();
             }
 
-            // Get existing user claims.
-            Map<String, String> oldClaimList = carbonUM.getUserClaimValuesWithID(user.getId(),
+            // Get existing user claims. These are loaded only once and reused to build the response.
+            Map<String, String> storedClaims = carbonUM.getUserClaimValuesWithID(user.getId(),
                     requiredClaimsInLocalDialect.toArray(new String[0]), null);
+            Map<String, String> oldClaimList = new HashMap<>(storedClaims);
 
             oldClaimList.remove(LOCATION_CLAIM);
             oldClaimList.remove(LAST_MODIFIED_CLAIM);
@@ -1115,12 +1371,13 @@ public class SCIMUserManager implements UserManager {
                 carbonUM.updateCredentialByAdminWithID(user.getId(), user.getPassword());
             }
 
-            updateUserClaims(user, oldClaimList, claimValuesInLocalDialect);
+            Map<String, String> updatedClaims = updateUserClaims(user, oldClaimList, claimValuesInLocalDialect);
 
             if (log.isDebugEnabled()) {
                 log.debug("User: " + user.getUserName() + " updated through SCIM.");
             }
-            return getUser(user.getId(), requiredAttributes);
+            return getUpdatedSCIMUser(coreUser, requiredAttributes, requiredClaimsInLocalDialect, scimToLocalClaimsMap,
+                    getClaimsOfUpdatedUser(user.getPassword() != null, storedClaims, updatedClaims));
         } catch (UserStoreClientException e) {
             String errorMessage = String.format("Error while updating attributes of user. %s", e.getMessage());
             if (log.isDebugEnabled()) {
@@ -1195,16 +1452,15 @@ public class SCIMUserManager implements UserManager {
                     SCIMCommonUtils.convertSCIMtoLocalDialect(allSimpleMultiValuedClaims);
 
             // Check if username of the updating user existing in the userstore.
+            org.wso2.carbon.user.core.common.User coreUser = getExistingCoreUser(user);
+            String oldUserName = getUserNameOfResponse(coreUser);
             try {
                 String userStoreDomainFromSP = getUserStoreDomainFromSP();
-                SCIMResourceTypeSchema schema = SCIMResourceSchemaManager.getInstance().getUserResourceSchema();
-                User oldUser = this.getUser(user.getId(), ResourceManagerUtil.getAllAttributeURIs(schema));
                 if (userStoreDomainFromSP != null) {
-                    if (!userStoreDomainFromSP
-                            .equalsIgnoreCase(IdentityUtil.extractDomainFromName(oldUser.getUserName()))) {
+                    if (!userStoreDomainFromSP.equalsIgnoreCase(coreUser.getUserStoreDomain())) {
                         String errorMessage =
                                 String.format("User : %s does not belong to userstore %s. Hence user updating failed",
-                                        oldUser.getUserName(), userStoreDomainFromSP);
+                                        oldUserName, userStoreDomainFromSP);
                         throw new CharonException(errorMessage);
                     }
                     if (!UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equalsIgnoreCase(userStoreDomainFromSP)) {
@@ -1218,10 +1474,10 @@ public class SCIMUserManager implements UserManager {
                 could be modifiable. */
                 if (!(isLoginIdentifiersEnabled() && StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim()))) {
                     // This is handled here as the IS is still not capable of updating the username via SCIM.
-                    if (!StringUtils.equals(user.getUserName(), oldUser.getUserName())) {
+                    if (!StringUtils.equals(user.getUserName(), oldUserName)) {
                         if (log.isDebugEnabled()) {
                             log.debug("Failing the request as attempting to modify username. Old username: "
-                                    + oldUser.getUserName() + ", new username: " + user.getUserName());
+                                    + oldUserName + ", new username: " + user.getUserName());
                         }
                         throw new BadRequestException("Attribute userName cannot be modified.",
                                 ResponseCodeConstants.MUTABILITY);
@@ -1231,10 +1487,6 @@ public class SCIMUserManager implements UserManager {
                 throw new CharonException("Error retrieving Userstore name. ", e);
             }
 
-            if (!validateUserExistence(user)) {
-                throw new CharonException("User name is immutable in carbon user store.");
-            }
-
             /*
             Skip groups attribute since we map groups attribute to actual groups in ldap.
             and do not update it as an attribute in user schema.
@@ -1264,7 +1516,7 @@ public class SCIMUserManager implements UserManager {
             // Resource-Type is a meta attribute of user object.
             claims.remove(SCIMConstants.CommonSchemaConstants.RESOURCE_TYPE_URI);
 
-            Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+            Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
             List<String> requiredClaims = getOnlyRequiredClaims(scimToLocalClaimsMap.keySet(), requiredAttributes);
             List<String> requiredClaimsInLocalDialect;
             if (MapUtils.isNotEmpty(scimToLocalClaimsMap)) {
@@ -1277,9 +1529,10 @@ public class SCIMUserManager implements UserManager {
                 requiredClaimsInLocalDialect = new ArrayList<>();
             }
 
-            // Get existing user claims.
-            Map<String, String> oldClaimList = carbonUM.getUserClaimValuesWithID(user.getId(),
+            // Get existing user claims. These are loaded only once and reused to build the response.
+            Map<String, String> storedClaims = carbonUM.getUserClaimValuesWithID(user.getId(),
                     requiredClaimsInLocalDialect.toArray(new String[0]), null);
+            Map<String, String> oldClaimList = new HashMap<>(storedClaims);
 
             oldClaimList.remove(LOCATION_CLAIM);
             oldClaimList.remove(LAST_MODIFIED_CLAIM);
@@ -1299,12 +1552,14 @@ public class SCIMUserManager implements UserManager {
                 carbonUM.updateCredentialByAdminWithID(user.getId(), user.getPassword());
             }
 
-            updateUserClaims(user, oldClaimList, claimValuesInLocalDialect, allSimpleMultiValuedClaimsList);
+            Map<String, String> updatedClaims = updateUserClaims(user, oldClaimList, claimValuesInLocalDialect,
+                    allSimpleMultiValuedClaimsList);
 
             if (log.isDebugEnabled()) {
                 log.debug("User: " + user.getUserName() + " updated through SCIM.");
             }
-            return getUser(user.getId(), requiredAttributes);
+            return getUpdatedSCIMUser(coreUser, requiredAttributes, requiredClaimsInLocalDialect, scimToLocalClaimsMap,
+                    getClaimsOfUpdatedUser(user.getPassword() != null, storedClaims, updatedClaims));
         } catch (UserStoreException e) {
             handleErrorsOnUserNameAndPasswordPolicy(e);
             throw resolveError(e, "Error while updating attributes of user: " + user.getUserName());
@@ -1322,6 +1577,177 @@ public class SCIMUserManager implements UserManager {
         }
     }
 
+    /**
+     * Patch a user by applying the patch operations directly as changes of the claims of the user. Only the claims
+     * touched by the patch and the claims required for the response are read, and only the changed claims are
+     * written, instead of building the patched user and updating the whole user. As in updating the user, the
+     * multi-valued claims are written as added and removed values, after which the user is read back.
+     *
+     * @param userId             ID of the user.
+     * @param patchOperations    Patch operations of the request.
+     * @param requiredAttributes A map of required attributes in SCIM schema.
+     * @return The patched user or null if the patch operations cannot be applied as claim changes, in which case the
+     * user is not changed.
+     * @throws CharonException     Exception occurred in charon level.
+     * @throws BadRequestException Exception occurred due to a bad request.
+     * @throws NotFoundException   If the user does not exist.
+     */
+    public User patchUser(String userId, List<PatchOperation> patchOperations, Map<String, Boolean> requiredAttributes)
+            throws CharonException, BadRequestException, NotFoundException {
+
+        List<PatchOperationClaimMapper.ClaimChange> claimChanges =
+                PatchOperationClaimMapper.getClaimChanges(this, patchOperations);
+        if (claimChanges == null) {
+            return null;
+        }
+        // The primary login identifier is the username of the user, hence it is updated with the username checks.
+        if (isLoginIdentifiersEnabled() && StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim())) {
+            for (PatchOperationClaimMapper.ClaimChange claimChange : claimChanges) {
+                if (getPrimaryLoginIdentifierClaim().equals(claimChange.getClaimURI())) {
+                    return null;
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Patching user: " + userId);
+        }
+
+        try {
+            /* Set thread local property to signal the downstream SCIMUserOperationListener
+               about the provisioning route. */
+            SCIMCommonUtils.setThreadLocalIsManagedThroughSCIMEP(true);
+            org.wso2.carbon.user.core.common.User coreUser =
+                    carbonUM.getUserWithID(userId, null, UserCoreConstants.DEFAULT_PROFILE);
+            if (coreUser == null) {
+                throw new NotFoundException("No user with the id : " + userId + " exists in the user store.");
+            }
+            String userStoreDomainFromSP = getUserStoreDomainFromSP();
+            if (userStoreDomainFromSP != null &&
+                    !userStoreDomainFromSP.equalsIgnoreCase(coreUser.getUserStoreDomain())) {
+                throw new CharonException(String.format("User : %s does not belong to userstore %s. Hence user " +
+                        "updating failed", getUserNameOfResponse(coreUser), userStoreDomainFromSP));
+            }
+
+            Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
+            List<String> requiredClaimsInLocalDialect = getRequiredClaimsInLocalDialect(scimToLocalClaimsMap,
+                    requiredAttributes);
+            Set<String> claimsToBeLoaded = new HashSet<>(requiredClaimsInLocalDialect);
+            for (PatchOperationClaimMapper.ClaimChange claimChange : claimChanges) {
+                claimsToBeLoaded.add(claimChange.getClaimURI());
+            }
+            Map<String, String> storedClaims = carbonUM.getUserClaimValuesWithID(userId,
+                    claimsToBeLoaded.toArray(new String[0]), null);
+            Map<String, String> patchedClaims = applyClaimChanges(storedClaims, claimChanges);
+
+            Set<String> claimsToBeDeleted = new HashSet<>();
+            Map<String, String> claimsToBeModified = new HashMap<>();
+            Map<String, List<String>> multiValuedClaimsToBeAdded = new HashMap<>();
+            Map<String, List<String>> multiValuedClaimsToBeRemoved = new HashMap<>();
+            String separator = getMultiAttributeSeparator();
+            for (PatchOperationClaimMapper.ClaimChange claimChange : claimChanges) {
+                String claimURI = claimChange.getClaimURI();
+                if (claimChange.isMultiValued()) {
+                    // Multi-valued claims are updated as added and removed values, as in updating the user.
+                    List<String> oldValues = splitClaimValue(storedClaims.get(claimURI), separator);
+                    List<String> newValues = splitClaimValue(patchedClaims.get(claimURI), separator);
+                    List<String> addedValues = (List<String>) CollectionUtils.subtract(newValues, oldValues);
+                    List<String> removedValues = (List<String>) CollectionUtils.subtract(oldValues, newValues);
+                    if (!addedValues.isEmpty()) {
+                        multiValuedClaimsToBeAdded.put(claimURI, addedValues);
+                    }
+                    if (!removedValues.isEmpty()) {
+                        multiValuedClaimsToBeRemoved.put(claimURI, removedValues);
+                    }
+                } else if (!patchedClaims.containsKey(claimURI)) {
+                    if (storedClaims.containsKey(claimURI)) {
+                        claimsToBeDeleted.add(claimURI);
+                    }
+                } else if (!patchedClaims.get(claimURI).equals(storedClaims.get(claimURI))) {
+                    claimsToBeModified.put(claimURI, patchedClaims.get(claimURI));
+                }
+            }
+
+            Map<String, String> updatedClaims = new HashMap<>(storedClaims);
+            if (!multiValuedClaimsToBeAdded.isEmpty() || !multiValuedClaimsToBeRemoved.isEmpty()) {
+                deleteUserClaims(userId, claimsToBeDeleted, updatedClaims);
+                // Multi-valued claims are merged by the user store, hence the updated values have to be read back.
+                carbonUM.setUserClaimValuesWithID(userId, convertClaimValuesToList(storedClaims),
+                        multiValuedClaimsToBeAdded, multiValuedClaimsToBeRemoved,
+                        convertClaimValuesToList(claimsToBeModified), null);
+                updatedClaims = null;
+            } else if (!claimsToBeDeleted.isEmpty() || !claimsToBeModified.isEmpty()) {
+                deleteUserClaims(userId, claimsToBeDeleted, updatedClaims);
+                Map<String, String> requestedClaims = new HashMap<>(claimsToBeModified);
+                carbonUM.setUserClaimValuesWithID(userId, claimsToBeModified, null);
+                updatedClaims = applyWrittenClaims(updatedClaims, requestedClaims, claimsToBeModified);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("User: " + userId + " patched through SCIM.");
+            }
+            return getUpdatedSCIMUser(coreUser, requiredAttributes, requiredClaimsInLocalDialect, scimToLocalClaimsMap,
+                    getClaimsOfUpdatedUser(false, storedClaims, updatedClaims));
+        } catch (UserStoreException e) {
+            handleErrorsOnUserNameAndPasswordPolicy(e);
+            throw resolveError(e, "Error while patching attributes of user: " + userId);
+        } catch (IdentityApplicationManagementException e) {
+            throw new CharonException("Error retrieving Userstore name. ", e);
+        }
+    }
+
+    /**
+     * Apply the claim changes of a patch, in order, on the given claims of the user.
+     *
+     * @param claims       Claims of the user.
+     * @param claimChanges Claim changes of the patch.
+     * @return Patched claims of the user.
+     */
+    private Map<String, String> applyClaimChanges(Map<String, String> claims,
+                                                  List<PatchOperationClaimMapper.ClaimChange> claimChanges) {
+
+        String separator = getMultiAttributeSeparator();
+        Map<String, String> patchedClaims = new HashMap<>(claims);
+        for (PatchOperationClaimMapper.ClaimChange claimChange : claimChanges) {
+            String claimURI = claimChange.getClaimURI();
+            switch (claimChange.getType()) {
+                case SET:
+                    patchedClaims.put(claimURI, claimChange.getValues().get(0));
+                    break;
+                case REMOVE:
+                    patchedClaims.remove(claimURI);
+                    break;
+                case REPLACE_VALUES:
+                    patchedClaims.put(claimURI, String.join(separator, new LinkedHashSet<>(claimChange.getValues())));
+                    break;
+                case ADD_VALUES:
+                    Set<String> values = new LinkedHashSet<>(splitClaimValue(patchedClaims.get(claimURI), separator));
+                    values.addAll(claimChange.getValues());
+                    patchedClaims.put(claimURI, String.join(separator, values));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return patchedClaims;
+    }
+
+    private String getMultiAttributeSeparator() {
+
+        String separator = FrameworkUtils.getMultiAttributeSeparator();
+        if (StringUtils.isEmpty(separator)) {
+            separator = ",";
+        }
+        return separator;
+    }
+
+    private List<String> splitClaimValue(String claimValue, String separator) {
+
+        if (StringUtils.isEmpty(claimValue)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(claimValue.split(separator)));
+    }
+
     /**
      * Method to handle limit equals NULL in a request.
      *
@@ -1410,8 +1836,12 @@ public class SCIMUserManager implements UserManager {
         domainName = resolveDomainName(domainName, node);
         int totalResults = 0;
         try {
-            // Check which APIs should the filter needs to follow.
-            if (isUseLegacyAPIs(limit)) {
+            // Check which APIs should the filter needs to follow. Cursors are only accepted for the filters and
+            // the user stores which support cursor based pagination.
+            if (isCursorPaginationRequested()) {
+                users = filterUsersWithCursor(node, null, domainName, limit, sortBy, sortOrder);
+                filteredUsers.addAll(getFilteredUserDetails(users, requiredAttributes));
+            } else if (isUseLegacyAPIs(limit)) {
                 users = filterUsersUsingLegacyAPIs(node, limit, offset, domainName);
                 filteredUsers.addAll(getFilteredUserDetails(users, requiredAttributes));
                 if (SCIMCommonUtils.isConsiderMaxLimitForTotalResultEnabled()) {
@@ -1710,32 +2140,16 @@ public class SCIMUserManager implements UserManager {
 
         // Filter users when the domain is not set in the request. Then filter through multiple domains.
         String[] userStoreDomainNames = getDomainNames();
-        Set<org.wso2.carbon.user.core.common.User> filteredUsernames;
-        if (removeDuplicateUsersInUsersResponseEnabled) {
-            filteredUsernames = new TreeSet<>(Comparator
-                    .comparing(org.wso2.carbon.user.core.common.User::getFullQualifiedUsername));
-        } else {
-            filteredUsernames = new LinkedHashSet<>();
+        ExecutorService executorService = SCIMCommonComponentHolder.getUserStoreFilteringExecutorService();
+        if (executorService != null && userStoreDomainNames.length > 1 && limit > 0) {
+            return filterUsersFromMultipleDomainsInParallel(executorService, node, userStoreDomainNames, offset,
+                    limit, sortBy, sortOrder, conditionForListingUsers);
         }
+        Set<org.wso2.carbon.user.core.common.User> filteredUsernames = createUserSet();
         Condition condition;
         for (String userStoreDomainName : userStoreDomainNames) {
 
-            // Check for a user listing scenario. (For filtering this value will be set to NULL)
-            if (conditionForListingUsers == null) {
-
-                if (isLoginIdentifiersEnabled() && SCIMConstants.UserSchemaConstants.USER_NAME_URI
-                        .equals(((ExpressionNode) node).getAttributeValue())) {
-                    try {
-                        ((ExpressionNode) node).setAttributeValue(getScimUriForPrimaryLoginIdentifier(node));
-                    } catch (org.wso2.carbon.user.core.UserStoreException e) {
-                        throw new CharonException("Error in retrieving scim to local mappings.", e);
-                    }
-                }
-                // Create filter condition for each domain for single attribute filter.
-                condition = createConditionForSingleAttributeFilter(userStoreDomainName, node);
-            } else {
-                condition = conditionForListingUsers;
-            }
+            condition = getConditionForDomain(node, userStoreDomainName, conditionForListingUsers);
 
             // Filter users for given condition and domain.
             Set<org.wso2.carbon.user.core.common.User> coreUsers;
@@ -1769,38 +2183,162 @@ public class SCIMUserManager implements UserManager {
     }
 
     /**
-     * Method to update the count(limit) when iterating a filter across all domains.
+     * Method to perform a multiple domain search by querying all the domains in parallel. Each domain is asked for
+     * the first (offset + limit - 1) matching users, and the requested page is then sliced from the domain results
+     * concatenated in the domain order. This returns the same page as the sequential search without re-counting
+     * the skipped users of each domain. Domains which fail or do not respond within the configured timeout are
+     * logged and skipped, same as in the sequential search.
      *
-     * @param limit                 Counting value (limit)
-     * @param numberOfFilteredUsers Amount of users filtered in the search
-     * @return Calculated new limit (count)
+     * @param executorService          Executor service to query the domains.
+     * @param node                     Expression or Operation node (set the value to null when method is used for
+     *                                 list users)
+     * @param userStoreDomainNames     Domains to be searched, in the order of the pagination.
+     * @param offset                   Start index value
+     * @param limit                    Count value
+     * @param sortBy                   SortBy
+     * @param sortOrder                Sort order
+     * @param conditionForListingUsers Condition for listing users when the function is used to list users except for
+     *                                 filtering. For filtering this value should be set to NULL.
+     * @return User names of the filtered users
      */
-    private int calculateLimit(int limit, int numberOfFilteredUsers) {
+    private Set<org.wso2.carbon.user.core.common.User> filterUsersFromMultipleDomainsInParallel(
+            ExecutorService executorService, Node node, String[] userStoreDomainNames, int offset, int limit,
+            String sortBy, String sortOrder, Condition conditionForListingUsers)
+            throws CharonException, BadRequestException {
 
-        int newLimit = limit - numberOfFilteredUsers;
-        if (limit < 0) {
-            newLimit = 0;
+        // Conditions are created upfront as creating them may update the filter node.
+        Map<String, Condition> domainConditions = new LinkedHashMap<>();
+        for (String userStoreDomainName : userStoreDomainNames) {
+            domainConditions.put(userStoreDomainName,
+                    getConditionForDomain(node, userStoreDomainName, conditionForListingUsers));
         }
 
-        if (log.isDebugEnabled()) {
-            log.debug(String.format("New limit: %d calculated using initial offset: %d and filtered user count: %d. ",
-                    newLimit, limit, numberOfFilteredUsers));
+        int startIndex = Math.max(offset, 1) - 1;
+        int fetchLimit = (int) Math.min((long) startIndex + limit, Integer.MAX_VALUE);
+        String contextTenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+
+        Map<String, Future<Set<org.wso2.carbon.user.core.common.User>>> domainResults = new LinkedHashMap<>();
+        for (Map.Entry<String, Condition> domainCondition : domainConditions.entrySet()) {
+            domainResults.put(domainCondition.getKey(), executorService.submit(() -> {
+                try {
+                    PrivilegedCarbonContext.startTenantFlow();
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(contextTenantDomain, true);
+                    return filterUsernames(domainCondition.getValue(), 1, fetchLimit, sortBy, sortOrder,
+                            domainCondition.getKey());
+                } finally {
+                    PrivilegedCarbonContext.endTenantFlow();
+                }
+            }));
         }
-        return newLimit;
+
+        long deadline = System.currentTimeMillis() + SCIMCommonUtils.getParallelUserStoreFilteringDomainTimeout();
+        List<org.wso2.carbon.user.core.common.User> concatenatedUsers = new ArrayList<>();
+        for (Map.Entry<String, Future<Set<org.wso2.carbon.user.core.common.User>>> domainResult :
+                domainResults.entrySet()) {
+            String userStoreDomainName = domainResult.getKey();
+            try {
+                long timeout = Math.max(deadline - System.currentTimeMillis(), 0);
+                concatenatedUsers.addAll(domainResult.getValue().get(timeout, TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof BadRequestException) {
+                    cancelDomainSearches(domainResults);
+                    throw (BadRequestException) cause;
+                }
+                log.error("Error occurred while getting the users list for domain: " + userStoreDomainName, cause);
+            } catch (TimeoutException e) {
+                domainResult.getValue().cancel(true);
+                log.error("Timed out while getting the users list for domain: " + userStoreDomainName);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelDomainSearches(domainResults);
+                throw new CharonException("Interrupted while getting the users list across all domains.", e);
+            }
+        }
+
+        Set<org.wso2.carbon.user.core.common.User> filteredUsernames = createUserSet();
+        if (startIndex < concatenatedUsers.size()) {
+            filteredUsernames.addAll(concatenatedUsers.subList(startIndex,
+                    Math.min(fetchLimit, concatenatedUsers.size())));
+        }
+        return filteredUsernames;
+    }
+
+    private void cancelDomainSearches(Map<String, Future<Set<org.wso2.carbon.user.core.common.User>>> domainResults) {
+
+        domainResults.values().forEach(result -> result.cancel(true));
     }
 
     /**
-     * Method to update the offset when iterating a filter across all domains.
+     * Get the condition to filter the users of the given domain.
      *
-     * @param condition  Condition of the single attribute filter
-     * @param offset     Starting index
-     * @param sortBy     Sort by
-     * @param sortOrder  Sort order
-     * @param domainName Domain to be filtered
-     * @return New calculated offset
-     * @throws CharonException Error while filtering the domain from index 1 to offset
+     * @param node                     Expression or Operation node (NULL when listing users)
+     * @param userStoreDomainName      Domain to be filtered
+     * @param conditionForListingUsers Condition for listing users. For filtering this value should be set to NULL.
+     * @return Condition for the domain
+     * @throws CharonException Error while creating the condition
      */
-    private int calculateOffset(Condition condition, int offset, String sortBy, String sortOrder, String domainName)
+    private Condition getConditionForDomain(Node node, String userStoreDomainName,
+                                            Condition conditionForListingUsers) throws CharonException {
+
+        // Check for a user listing scenario. (For filtering this value will be set to NULL)
+        if (conditionForListingUsers != null) {
+            return conditionForListingUsers;
+        }
+        if (isLoginIdentifiersEnabled() && SCIMConstants.UserSchemaConstants.USER_NAME_URI
+                .equals(((ExpressionNode) node).getAttributeValue())) {
+            try {
+                ((ExpressionNode) node).setAttributeValue(getScimUriForPrimaryLoginIdentifier(node));
+            } catch (org.wso2.carbon.user.core.UserStoreException e) {
+                throw new CharonException("Error in retrieving scim to local mappings.", e);
+            }
+        }
+        // Create filter condition for each domain for single attribute filter.
+        return createConditionForSingleAttributeFilter(userStoreDomainName, node);
+    }
+
+    private Set<org.wso2.carbon.user.core.common.User> createUserSet() {
+
+        if (removeDuplicateUsersInUsersResponseEnabled) {
+            return new TreeSet<>(Comparator
+                    .comparing(org.wso2.carbon.user.core.common.User::getFullQualifiedUsername));
+        }
+        return new LinkedHashSet<>();
+    }
+
+    /**
+     * Method to update the count(limit) when iterating a filter across all domains.
+     *
+     * @param limit                 Counting value (limit)
+     * @param numberOfFilteredUsers Amount of users filtered in the search
+     * @return Calculated new limit (count)
+     */
+    private int calculateLimit(int limit, int numberOfFilteredUsers) {
+
+        int newLimit = limit - numberOfFilteredUsers;
+        if (limit < 0) {
+            newLimit = 0;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("New limit: %d calculated using initial offset: %d and filtered user count: %d. ",
+                    newLimit, limit, numberOfFilteredUsers));
+        }
+        return newLimit;
+    }
+
+    /**
+     * Method to update the offset when iterating a filter across all domains.
+     *
+     * @param condition  Condition of the single attribute filter
+     * @param offset     Starting index
+     * @param sortBy     Sort by
+     * @param sortOrder  Sort order
+     * @param domainName Domain to be filtered
+     * @return New calculated offset
+     * @throws CharonException Error while filtering the domain from index 1 to offset
+     */
+    private int calculateOffset(Condition condition, int offset, String sortBy, String sortOrder, String domainName)
             throws CharonException, BadRequestException {
 
         if (log.isDebugEnabled()) {
@@ -2040,13 +2578,25 @@ public class SCIMUserManager implements UserManager {
         // Check that total user count matching the client query needs to be calculated.
         if (isJDBCUSerStore(domainName) || isAllConfiguredUserStoresJDBC() ||
                 SCIMCommonUtils.isConsiderTotalRecordsForTotalResultOfLDAPEnabled()) {
+            if (limit > 0 && isLastPageOfFilteredUsers(offset, limit, users)) {
+                // The page already contains the last matching user, hence the total is known without a count query.
+                totalResults = offset - 1 + users.size();
+                if (SCIMCommonUtils.isConsiderMaxLimitForTotalResultEnabled()) {
+                    totalResults = Math.min(totalResults, getMaxLimit(domainName));
+                }
+                return getDetailedUsers(filteredUsers, totalResults);
+            }
             int maxLimit = getMaxLimitForTotalResults(domainName);
             if (!SCIMCommonUtils.isConsiderMaxLimitForTotalResultEnabled()) {
                 maxLimit = Math.max(maxLimit, limit);
             }
             // Get total users based on the filter query.
-            totalResults += getMultiAttributeFilteredUsersWithMaxLimit(node, 1, sortBy,
-                    sortOrder, domainName, maxLimit).size();
+            if (limit > 0) {
+                totalResults += countMultiAttributeFilteredUsers(node, domainName, maxLimit);
+            } else {
+                totalResults += getMultiAttributeFilteredUsersWithMaxLimit(node, 1, sortBy,
+                        sortOrder, domainName, maxLimit).size();
+            }
         } else {
             totalResults += filteredUsers.size();
             if (totalResults == 0 && filteredUsers.size() > 1) {
@@ -2057,6 +2607,72 @@ public class SCIMUserManager implements UserManager {
     }
 
 
+    /**
+     * Check whether the given page of a filter contains the last user matching the filter. A page with fewer users
+     * than requested is the last page, unless it is empty and not the first page, or duplicate users may have been
+     * removed from it.
+     *
+     * @param offset Starting index of the page.
+     * @param limit  Number of requested users.
+     * @param users  Users of the page.
+     * @return True if the page contains the last matching user.
+     */
+    private boolean isLastPageOfFilteredUsers(int offset, int limit,
+                                              Set<org.wso2.carbon.user.core.common.User> users) {
+
+        return !removeDuplicateUsersInUsersResponseEnabled && users.size() < limit &&
+                (!users.isEmpty() || offset == 1);
+    }
+
+    /**
+     * Count the users matching a multi attribute filter in the domain the filtered page was retrieved from. Only the
+     * user identifiers are retrieved from the user store, unsorted, and they are not retained after counting.
+     *
+     * @param node       Filter condition tree.
+     * @param domainName Domain that the filter should perform.
+     * @param maxLimit   Maximum number of users to be counted.
+     * @return Number of users matching the filter.
+     * @throws CharonException Error while counting the users.
+     */
+    private int countMultiAttributeFilteredUsers(Node node, String domainName, int maxLimit) throws CharonException {
+
+        domainName = resolveMultiAttributeFilteringDomain(domainName);
+        try {
+            Condition condition = getCondition(node, getAllAttributes(domainName));
+            List<org.wso2.carbon.user.core.common.User> users = carbonUM.getUserListWithID(condition, domainName,
+                    UserCoreConstants.DEFAULT_PROFILE, maxLimit, 1, null, null);
+            if (removeDuplicateUsersInUsersResponseEnabled) {
+                return (int) users.stream().map(org.wso2.carbon.user.core.common.User::getFullQualifiedUsername)
+                        .distinct().count();
+            }
+            return users.size();
+        } catch (UserStoreException e) {
+            throw resolveError(e, "Error in counting users filtered by multi attributes in domain: " + domainName);
+        }
+    }
+
+    /**
+     * Resolve the domain to perform multi attribute filtering. The primary user store domain is used when a domain
+     * is not given.
+     *
+     * @param domainName Domain given in the request.
+     * @return Domain that the filter should perform.
+     */
+    private String resolveMultiAttributeFilteringDomain(String domainName) {
+
+        if (StringUtils.isEmpty(domainName)) {
+            domainName = carbonUM.getRealmConfiguration().getUserStoreProperty(UserCoreConstants.RealmConfig.
+                    PROPERTY_DOMAIN_NAME);
+            if (StringUtils.isEmpty(domainName)) {
+                domainName = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Primary user store DomainName picked as " + domainName);
+            }
+        }
+        return domainName;
+    }
+
     private Set<org.wso2.carbon.user.core.common.User> getMultiAttributeFilteredUsersWithMaxLimit(Node node, int offset,
                                            String sortBy, String sortOrder, String domainName, int maxLimit)
             throws CharonException, BadRequestException {
@@ -2297,16 +2913,7 @@ public class SCIMUserManager implements UserManager {
         Set<org.wso2.carbon.user.core.common.User> coreUsers;
 
         try {
-            if (StringUtils.isEmpty(domainName)) {
-                domainName = carbonUM.getRealmConfiguration().getUserStoreProperty(UserCoreConstants.RealmConfig.
-                        PROPERTY_DOMAIN_NAME);
-                if (StringUtils.isEmpty(domainName)) {
-                    domainName = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
-                }
-                if (log.isDebugEnabled()) {
-                    log.debug("Primary user store DomainName picked as " + domainName);
-                }
-            }
+            domainName = resolveMultiAttributeFilteringDomain(domainName);
             Map<String, String> attributes = getAllAttributes(domainName);
             if (log.isDebugEnabled()) {
                 log.debug("Invoking the do get user list for domain: " + domainName);
@@ -2439,7 +3046,7 @@ public class SCIMUserManager implements UserManager {
             return filteredUsers;
         } else {
             try {
-                Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+                Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
                 List<String> requiredClaims = getOnlyRequiredClaims(scimToLocalClaimsMap.keySet(), requiredAttributes);
                 List<String> requiredClaimsInLocalDialect;
                 if (MapUtils.isNotEmpty(scimToLocalClaimsMap)) {
@@ -2517,7 +3124,7 @@ public class SCIMUserManager implements UserManager {
 
         try {
             //get Claims related to SCIM claim dialect
-            Map<String, String> scimToLocalClaimsMap = SCIMCommonUtils.getSCIMtoLocalMappings();
+            Map<String, String> scimToLocalClaimsMap = new HashMap<>(SCIMCommonUtils.getSCIMtoLocalMappings());
             List<String> requiredClaims = getOnlyRequiredClaims(scimToLocalClaimsMap.keySet(), requiredAttributes);
             List<String> requiredClaimsInLocalDialect;
             if (MapUtils.isNotEmpty(scimToLocalClaimsMap)) {
@@ -2709,6 +3316,8 @@ public class SCIMUserManager implements UserManager {
         try {
             if (!isMemberAttributeRequired(requiredAttributes)) {
                 group = getGroupWithIdWithoutMembers(id);
+            } else if (!isMemberDisplayRequested(requiredAttributes)) {
+                group = getGroupWithIdWithMemberIdOnly(id);
             } else if (isMemberValueRequested(requiredAttributes)) {
                 group = getGroupWithId(id);
             } else {
@@ -2732,6 +3341,57 @@ public class SCIMUserManager implements UserManager {
         }
     }
 
+    /**
+     * Method to list the members of the requested page of a group as batches. Only the user IDs and usernames of the
+     * members are retrieved upfront, while the SCIM members are built only when each batch is requested, so that the
+     * caller can write a batch before the next one is built.
+     *
+     * @param groupId    ID of the group
+     * @param startIndex Starting index of the page
+     * @param count      Number of members in the page. NULL to list all the members from the start index
+     * @param batchSize  Number of members in a batch
+     * @return Iterator over the batches of members in the page
+     * @throws CharonException   Error while listing the members
+     * @throws NotFoundException If the group does not exist
+     */
+    public GroupMemberBatchIterator listGroupMembersInBatches(String groupId, int startIndex, Integer count,
+                                                              int batchSize)
+            throws CharonException, NotFoundException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Listing members of the group with id: " + groupId);
+        }
+        try {
+            org.wso2.carbon.user.core.common.Group retrievedGroup = carbonUM.getGroup(groupId, null);
+            if (retrievedGroup == null || StringUtils.isBlank(retrievedGroup.getGroupName())) {
+                throw new NotFoundException("Group with id: " + groupId + " not found.");
+            }
+            String userStoreDomainName = retrievedGroup.getUserStoreDomain();
+            if (!isInternalOrApplicationGroup(userStoreDomainName) && StringUtils.isNotBlank(userStoreDomainName) &&
+                    !isSCIMEnabled(userStoreDomainName)) {
+                throw new CharonException("Cannot retrieve group through scim to user store. SCIM is not " +
+                        "enabled for user store " + userStoreDomainName);
+            }
+            String groupName = UserCoreUtil.addDomainToName(retrievedGroup.getGroupName(), userStoreDomainName);
+            List<org.wso2.carbon.user.core.common.User> coreUsers = carbonUM.getUserListOfRoleWithID(groupName);
+            if (coreUsers == null) {
+                coreUsers = Collections.emptyList();
+            }
+            // Members are returned in the order of the usernames, so that the pages are stable across requests.
+            List<org.wso2.carbon.user.core.common.User> members = new ArrayList<>(coreUsers);
+            members.sort(Comparator.comparing(org.wso2.carbon.user.core.common.User::getDomainQualifiedUsername,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+            int fromIndex = Math.min(Math.max(startIndex, 1) - 1, members.size());
+            int toIndex = count == null ? members.size() : Math.min(fromIndex + Math.max(count, 0), members.size());
+            return new GroupMemberBatchIterator(this, members.subList(fromIndex, toIndex), batchSize,
+                    members.size());
+        } catch (UserStoreException e) {
+            throw resolveError(e, "Error in retrieving the members of the group: " + groupId);
+        } catch (BadRequestException e) {
+            throw new CharonException("Error in retrieving the members of the group: " + groupId, e);
+        }
+    }
+
     private boolean isGroupsAttributeRequired(Map<String, Boolean> requiredAttributes) {
 
         if (MapUtils.isEmpty(requiredAttributes)) {
@@ -2745,6 +3405,19 @@ public class SCIMUserManager implements UserManager {
         return false;
     }
 
+    private boolean isRolesAttributeRequired(Map<String, Boolean> requiredAttributes) {
+
+        if (MapUtils.isEmpty(requiredAttributes)) {
+            return true;
+        }
+        for (String attribute : requiredAttributes.keySet()) {
+            if (attribute.startsWith(SCIMConstants.UserSchemaConstants.ROLES_URI)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Group getGroupWithoutMembers(String groupName)
             throws IdentitySCIMException, UserStoreException, BadRequestException, CharonException {
 
@@ -2775,6 +3448,12 @@ public class SCIMUserManager implements UserManager {
         return doGetGroupWithGroupId(groupId, false, false);
     }
 
+    private Group getGroupWithIdWithMemberIdOnly(String groupId)
+            throws CharonException, UserStoreException, IdentitySCIMException, BadRequestException {
+
+        return doGetGroupWithGroupId(groupId, true, false, false);
+    }
+
     private boolean isMemberValueRequested(Map<String, Boolean> requiredAttributes) {
 
         if (requiredAttributes == null || requiredAttributes.isEmpty()) {
@@ -2785,6 +3464,15 @@ public class SCIMUserManager implements UserManager {
         return memberValueRequired != null && memberValueRequired;
     }
 
+    private boolean isMemberDisplayRequested(Map<String, Boolean> requiredAttributes) {
+
+        if (MapUtils.isEmpty(requiredAttributes)) {
+            return true;
+        }
+        return Boolean.TRUE.equals(requiredAttributes.get(SCIMConstants.GroupSchemaConstants.DISPLAY_URI)) ||
+                Boolean.TRUE.equals(requiredAttributes.get(SCIMConstants.GroupSchemaConstants.MEMBERS_URI));
+    }
+
     private boolean isMemberAttributeRequired(Map<String, Boolean> requiredAttributes) {
 
         if (MapUtils.isEmpty(requiredAttributes)) {
@@ -2869,7 +3557,7 @@ public class SCIMUserManager implements UserManager {
         } else if (startIndex != 1 && count >= 0) {
             throw new NotImplementedException("Pagination is not supported");
         } else if (rootNode != null) {
-            return filterGroups(rootNode, startIndex, count, sortBy, sortOrder, domainName, requiredAttributes);
+            return filterGroups(rootNode, startIndex, null, sortBy, sortOrder, domainName, requiredAttributes);
         } else {
             return listGroups(startIndex, count, sortBy, sortOrder, domainName, requiredAttributes);
         }
@@ -2880,12 +3568,11 @@ public class SCIMUserManager implements UserManager {
                                           String sortOrder, String domainName, Map<String, Boolean> requiredAttributes)
             throws CharonException, NotImplementedException, BadRequestException {
 
+        validateCursorPaginationParams(startIndex);
         // Validate NULL value for startIndex.
         startIndex = handleStartIndexEqualsNULL(startIndex);
         if (sortBy != null || sortOrder != null) {
             throw new NotImplementedException("Sorting is not supported");
-        } else if (startIndex != 1 || count != null) {
-            throw new NotImplementedException("Pagination is not supported");
         } else if (rootNode != null) {
             return filterGroups(rootNode, startIndex, count, sortBy, sortOrder, domainName, requiredAttributes);
         } else {
@@ -2929,6 +3616,7 @@ public class SCIMUserManager implements UserManager {
 
         GroupsGetResponse groupsResponse = new GroupsGetResponse(0, Collections.emptyList());
         List<Group> groupList = new ArrayList<>();
+        int totalGroups;
         try {
             Set<String> groupNames;
             if (carbonUM.isRoleAndGroupSeparationEnabled()) {
@@ -2936,28 +3624,31 @@ public class SCIMUserManager implements UserManager {
             } else {
                 groupNames = getRoleNamesForGroupsEndpoint(domainName);
             }
+            /*
+             Groups are sorted and sliced by name, hence only the groups of the requested page are built. Groups
+             without ids are removed before counting, so that totalResults is the same for all the pages.
+             */
+            NavigableSet<String> eligibleGroupNames = getGroupNamesOfSCIMEnabledDomains(groupNames);
+            removeGroupNamesWithoutIds(eligibleGroupNames);
+            Set<String> pageGroupNames;
+            if (isCursorPaginationRequested()) {
+                pageGroupNames = getGroupNamesOfCursorPage(eligibleGroupNames, count);
+            } else {
+                pageGroupNames = getGroupNamesOfPage(eligibleGroupNames, startIndex, count);
+            }
+            totalGroups = eligibleGroupNames.size();
 
-            for (String groupName : groupNames) {
-                String userStoreDomainName = IdentityUtil.extractDomainFromName(groupName);
-                if (isInternalOrApplicationGroup(userStoreDomainName) || isSCIMEnabled(userStoreDomainName)) {
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("SCIM is enabled for the user-store domain: %s. Including group with " +
-                                "name: %s in the response.", userStoreDomainName, groupName));
-                    }
-                    Group group;
-                    if (!isMemberAttributeRequired(requiredAttributes)) {
-                        group = getGroupWithoutMembers(groupName);
-                    } else {
-                        group = getGroupWithName(groupName);
-                    }
-                    if (group.getId() != null) {
-                        groupList.add(group);
-                    }
+            for (String groupName : pageGroupNames) {
+                Group group;
+                if (!isMemberAttributeRequired(requiredAttributes)) {
+                    group = getGroupWithoutMembers(groupName);
                 } else {
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("SCIM is disabled for the user-store domain: %s. Hence "
-                                + "group with name: %s is excluded in the response.", userStoreDomainName, groupName));
-                    }
+                    group = getGroupWithName(groupName);
+                }
+                if (group.getId() != null) {
+                    groupList.add(group);
+                } else if (log.isDebugEnabled()) {
+                    log.debug("Group: " + groupName + " does not have an id. Hence it is excluded in the response.");
                 }
             }
         } catch (UserStoreClientException e) {
@@ -2987,11 +3678,165 @@ public class SCIMUserManager implements UserManager {
         } catch (IdentitySCIMException | BadRequestException e) {
             throw new CharonException("Error in retrieving SCIM Group information from database.", e);
         }
-        groupsResponse.setTotalGroups(groupList.size());
+        groupsResponse.setTotalGroups(totalGroups);
         groupsResponse.setGroups(groupList);
         return groupsResponse;
     }
 
+    /**
+     * Get the group names which belong to the internal and application domains or to the user store domains where
+     * SCIM is enabled, ordered by name. SCIM enablement is evaluated once per user store domain.
+     *
+     * @param groupNames All the group names.
+     * @return Sorted group names of the domains where SCIM is enabled.
+     * @throws BadRequestException If a user store domain is invalid.
+     */
+    private NavigableSet<String> getGroupNamesOfSCIMEnabledDomains(Set<String> groupNames)
+            throws BadRequestException {
+
+        NavigableSet<String> eligibleGroupNames = new TreeSet<>();
+        Map<String, Boolean> scimEnabledDomains = new HashMap<>();
+        for (String groupName : groupNames) {
+            String userStoreDomainName = IdentityUtil.extractDomainFromName(groupName);
+            Boolean scimEnabled = scimEnabledDomains.get(userStoreDomainName);
+            if (scimEnabled == null) {
+                scimEnabled = isInternalOrApplicationGroup(userStoreDomainName) || isSCIMEnabled(userStoreDomainName);
+                scimEnabledDomains.put(userStoreDomainName, scimEnabled);
+            }
+            if (scimEnabled) {
+                eligibleGroupNames.add(groupName);
+            } else if (log.isDebugEnabled()) {
+                log.debug(String.format("SCIM is disabled for the user-store domain: %s. Hence "
+                        + "group with name: %s is excluded in the response.", userStoreDomainName, groupName));
+            }
+        }
+        return eligibleGroupNames;
+    }
+
+    /**
+     * Get the group names which belong to user stores without unique group ids. The ids of those groups are only
+     * available in the SCIM attributes of the groups. Unique group id support is evaluated once per domain.
+     *
+     * @param groupNames Group names.
+     * @return Group names of the user stores without unique group ids.
+     */
+    private Set<String> getGroupNamesWithSCIMGroupIds(Set<String> groupNames) {
+
+        Set<String> groupNamesWithSCIMGroupIds = new HashSet<>();
+        Map<String, Boolean> uniqueGroupIdDomains = new HashMap<>();
+        for (String groupName : groupNames) {
+            String userStoreDomainName = IdentityUtil.extractDomainFromName(groupName);
+            Boolean uniqueGroupIdEnabled = uniqueGroupIdDomains.get(userStoreDomainName);
+            if (uniqueGroupIdEnabled == null) {
+                uniqueGroupIdEnabled = isUniqueGroupIdEnabled(userStoreDomainName);
+                uniqueGroupIdDomains.put(userStoreDomainName, uniqueGroupIdEnabled);
+            }
+            if (!uniqueGroupIdEnabled) {
+                groupNamesWithSCIMGroupIds.add(groupName);
+            }
+        }
+        return groupNamesWithSCIMGroupIds;
+    }
+
+    /**
+     * Check whether the user store of the given domain supports unique group ids. The internal and application
+     * groups are managed by the primary user store manager.
+     *
+     * @param userStoreDomainName User store domain name.
+     * @return True if the user store supports unique group ids.
+     */
+    private boolean isUniqueGroupIdEnabled(String userStoreDomainName) {
+
+        if (isInternalOrApplicationGroup(userStoreDomainName)) {
+            return carbonUM.isUniqueGroupIdEnabled();
+        }
+        UserStoreManager userStoreManager = carbonUM.getSecondaryUserStoreManager(userStoreDomainName);
+        return userStoreManager instanceof AbstractUserStoreManager &&
+                ((AbstractUserStoreManager) userStoreManager).isUniqueGroupIdEnabled();
+    }
+
+    /**
+     * Remove the group names of the groups without ids. The groups of user stores without unique group ids get their
+     * ids from the SCIM attributes of the groups, which are read for all the groups at once.
+     *
+     * @param groupNames Group names.
+     * @throws CharonException                              If an error occurred while building the groups.
+     * @throws IdentitySCIMException                        If an error occurred while retrieving the group
+     *                                                      attributes.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     * @throws BadRequestException                          If an error occurred while building the groups.
+     */
+    private void removeGroupNamesWithoutIds(Set<String> groupNames)
+            throws CharonException, IdentitySCIMException, org.wso2.carbon.user.core.UserStoreException,
+            BadRequestException {
+
+        Set<String> groupNamesWithSCIMGroupIds = getGroupNamesWithSCIMGroupIds(groupNames);
+        Map<String, Group> groupsWithMetaAttributes = getGroupsOnlyWithMetaAttributes(groupNamesWithSCIMGroupIds);
+        groupNames.removeIf(groupName -> groupNamesWithSCIMGroupIds.contains(groupName) &&
+                (groupsWithMetaAttributes.get(groupName) == null ||
+                        groupsWithMetaAttributes.get(groupName).getId() == null));
+    }
+
+    /**
+     * Get the group names of the page defined by the start index and the count in the request.
+     *
+     * @param groupNames Sorted group names.
+     * @param startIndex 1 based start index of the page.
+     * @param count      Number of groups required for the page. All the remaining groups are returned if null.
+     * @return Group names of the page.
+     */
+    private Set<String> getGroupNamesOfPage(NavigableSet<String> groupNames, int startIndex, Integer count) {
+
+        int offset = startIndex - 1;
+        if (offset == 0 && (count == null || count >= groupNames.size())) {
+            return groupNames;
+        }
+        int pageSize = count == null ? groupNames.size() : Math.max(count, 0);
+        Set<String> pageGroupNames = new LinkedHashSet<>();
+        Iterator<String> iterator = groupNames.iterator();
+        for (int i = 0; iterator.hasNext() && pageGroupNames.size() < pageSize; i++) {
+            String groupName = iterator.next();
+            if (i >= offset) {
+                pageGroupNames.add(groupName);
+            }
+        }
+        return pageGroupNames;
+    }
+
+    /**
+     * Get the group names of the page pointed by the cursor in the request. Group names are ordered by name and the
+     * cursor holds the last group name of the previous page. The cursor of the next page is set to the thread local
+     * when there are more group names.
+     *
+     * @param groupNames Sorted group names.
+     * @param count      Number of groups required for the page.
+     * @return Group names of the page.
+     * @throws BadRequestException If the cursor is invalid.
+     */
+    private Set<String> getGroupNamesOfCursorPage(NavigableSet<String> groupNames, Integer count)
+            throws BadRequestException {
+
+        PaginationCursor cursor = PaginationCursor.decodeGroupsCursor(SCIMCommonUtils.getThreadLocalPaginationCursor());
+        NavigableSet<String> remainingGroupNames = groupNames;
+        if (cursor.getPosition() != null) {
+            remainingGroupNames = remainingGroupNames.tailSet(cursor.getPosition(), false);
+        }
+        if (count == null || count <= 0 || remainingGroupNames.size() <= count) {
+            return remainingGroupNames;
+        }
+        Set<String> pageGroupNames = new LinkedHashSet<>(count);
+        String lastGroupName = null;
+        for (String groupName : remainingGroupNames) {
+            if (pageGroupNames.size() == count) {
+                break;
+            }
+            pageGroupNames.add(groupName);
+            lastGroupName = groupName;
+        }
+        SCIMCommonUtils.setThreadLocalNextPaginationCursor(PaginationCursor.forGroups(lastGroupName).encode());
+        return pageGroupNames;
+    }
+
     /**
      * Get role names according to the given domain. If the domain is not specified, roles of all the user
      * stores will be returned.
@@ -3088,8 +3933,6 @@ public class SCIMUserManager implements UserManager {
                                       String domainName, Map<String, Boolean> requiredAttributes)
             throws NotImplementedException, CharonException, BadRequestException {
 
-        // Handle count equals NULL scenario.
-        count = handleLimitEqualsNULL(count);
         if (rootNode instanceof ExpressionNode) {
             return filterGroupsBySingleAttribute((ExpressionNode) rootNode, startIndex, count, sortBy, sortOrder,
                     domainName, requiredAttributes);
@@ -3102,11 +3945,12 @@ public class SCIMUserManager implements UserManager {
     }
 
     /**
-     * Filter groups with a single attribute.
+     * Filter groups with a single attribute. The SCIM attributes of all the matching groups are read with a single
+     * query to find the groups to be returned, and only the groups of the requested page are built.
      *
      * @param node               Expression node
      * @param startIndex         Starting index
-     * @param count              Number of results required
+     * @param count              Number of results required. All the results from the start index if NULL
      * @param sortBy             SortBy
      * @param sortOrder          Sorting order
      * @param domainName         Domain to be filtered
@@ -3114,7 +3958,8 @@ public class SCIMUserManager implements UserManager {
      * @return Filtered groups
      * @throws CharonException Error in Filtering
      */
-    private GroupsGetResponse filterGroupsBySingleAttribute(ExpressionNode node, int startIndex, int count, String sortBy,
+    private GroupsGetResponse filterGroupsBySingleAttribute(ExpressionNode node, int startIndex, Integer count,
+                                                       String sortBy,
                                                        String sortOrder, String domainName,
                                                        Map<String, Boolean> requiredAttributes)
             throws CharonException, BadRequestException {
@@ -3136,30 +3981,40 @@ public class SCIMUserManager implements UserManager {
         // value.
         domainName = resolveDomain(domainName, node);
         List<Group> filteredGroups = new ArrayList<>();
+        int totalGroups;
         try {
-            List<String> groupsList = new ArrayList<>(getGroupList(node, domainName));
-
-            // Remove roles, if the role and group separation feature is enabled.
-            if (carbonUM.isRoleAndGroupSeparationEnabled()) {
-                groupsList.removeIf(SCIMCommonUtils::isHybridRole);
+            boolean isRoleAndGroupSeparationEnabled = carbonUM.isRoleAndGroupSeparationEnabled();
+            Set<String> matchedGroupNames = new HashSet<>();
+            for (String groupName : getGroupList(node, domainName)) {
+                // Remove roles, if the role and group separation feature is enabled.
+                if (groupName == null || (isRoleAndGroupSeparationEnabled && SCIMCommonUtils.isHybridRole(groupName))) {
+                    continue;
+                }
+                // Skip internal roles.
+                if (CarbonConstants.REGISTRY_ANONNYMOUS_ROLE_NAME.equals(groupName) || UserCoreUtil
+                        .isEveryoneRole(groupName, carbonUM.getRealmConfiguration())) {
+                    continue;
+                }
+                matchedGroupNames.add(groupName);
             }
 
-            if (groupsList != null) {
-                for (String groupName : groupsList) {
-                    if (groupName != null && carbonUM.isExistingRole(groupName, false)) {
-                        // Skip internal roles.
-                        if (CarbonConstants.REGISTRY_ANONNYMOUS_ROLE_NAME.equals(groupName) || UserCoreUtil
-                                .isEveryoneRole(groupName, carbonUM.getRealmConfiguration())) {
-                            continue;
-                        }
-                        Group group = getRoleWithDefaultAttributes(groupName, requiredAttributes);
-                        if (group != null && group.getId() != null) {
-                            filteredGroups.add(group);
-                        }
-                    } else {
-                        // Returning null will send a resource not found error to client by Charon.
-                        return new GroupsGetResponse(0, null);
-                    }
+            // The group names are retrieved from the user store. Groups without ids are removed before counting, as
+            // in listing the groups, so that totalResults is the same for all the pages.
+            NavigableSet<String> eligibleGroupNames = getGroupNamesOfSCIMEnabledDomains(matchedGroupNames);
+            removeGroupNamesWithoutIds(eligibleGroupNames);
+            totalGroups = eligibleGroupNames.size();
+
+            for (String groupName : getGroupNamesOfPage(eligibleGroupNames, startIndex, count)) {
+                Group group;
+                if (!isMemberAttributeRequired(requiredAttributes)) {
+                    group = getGroupWithoutMembers(groupName);
+                } else {
+                    group = getGroupWithName(groupName);
+                }
+                if (group != null && group.getId() != null) {
+                    filteredGroups.add(group);
+                } else if (log.isDebugEnabled()) {
+                    log.debug("Group: " + groupName + " does not have an id. Hence it is excluded in the response.");
                 }
             }
         } catch (org.wso2.carbon.user.core.UserStoreException e) {
@@ -3169,8 +4024,12 @@ public class SCIMUserManager implements UserManager {
         } catch (org.wso2.carbon.user.api.UserStoreException e) {
             throw resolveError(e, "Error in filtering group with filter: " + attributeName + " + " +
                     filterOperation + " + " + attributeValue);
+        } catch (IdentitySCIMException e) {
+            String errorMsg = "Error in retrieving SCIM Group information from database.";
+            log.error(errorMsg, e);
+            throw new CharonException(errorMsg, e);
         }
-        return new GroupsGetResponse(filteredGroups.size(), filteredGroups);
+        return new GroupsGetResponse(totalGroups, filteredGroups);
     }
 
     /**
@@ -3268,45 +4127,6 @@ public class SCIMUserManager implements UserManager {
         }
     }
 
-    /**
-     * Get the role name with attributes.
-     *
-     * @param roleName           Role name
-     * @param requiredAttributes Required attributes
-     * @throws CharonException
-     * @throws UserStoreException
-     */
-    private Group getRoleWithDefaultAttributes(String roleName, Map<String, Boolean> requiredAttributes)
-            throws CharonException, UserStoreException, BadRequestException {
-
-        String userStoreDomainName = IdentityUtil.extractDomainFromName(roleName);
-        if (isInternalOrApplicationGroup(userStoreDomainName) || isSCIMEnabled(userStoreDomainName)) {
-            if (log.isDebugEnabled()) {
-                log.debug("SCIM is enabled for the user-store domain : " + userStoreDomainName + ". "
-                        + "Including group with name : " + roleName + " in the response.");
-            }
-            try {
-                if (!isMemberAttributeRequired(requiredAttributes)) {
-                    return getGroupWithoutMembers(roleName);
-                }
-                return getGroupWithName(roleName);
-            } catch (IdentitySCIMException e) {
-                String errorMsg = "Error in retrieving SCIM Group information from database.";
-                log.error(errorMsg, e);
-                throw new CharonException(errorMsg, e);
-            } catch (BadRequestException e) {
-                throw new CharonException("Error in retrieving SCIM Group.", e);
-            }
-        } else {
-            if (log.isDebugEnabled()) {
-                log.debug("SCIM is disabled for the user-store domain : " + userStoreDomainName + ". Hence "
-                        + "group with name : " + roleName + " is excluded in the response.");
-            }
-            // Return NULL implies that a group cannot be created.
-            return null;
-        }
-    }
-
     @Override
     public void updateGroup(Group oldGroup, Group newGroup) throws CharonException, BadRequestException {
 
@@ -3424,11 +4244,13 @@ public class SCIMUserManager implements UserManager {
 
             // Check for deleted members.
             Set<String> deletedMemberIdsFromUserstore =
-                    getMemberValuesFromUserstore(deletedMembers, userStoreDomainForGroup, newGroupName);
+                    getMemberValuesFromUserstore(deletedMembers, deletedMemberIds, userStoreDomainForGroup,
+                            newGroupName);
 
             // Check for added members.
             Set<String> addedMemberIdsFromUserstore =
-                    getMemberValuesFromUserstore(addedMembers, userStoreDomainForGroup, newGroupName);
+                    getMemberValuesFromUserstore(addedMembers, newlyAddedMemberIds, userStoreDomainForGroup,
+                            newGroupName);
 
             // Validate the memberIds sent in the update request against the Ids retrieved from the user store.
             if (isNotEmpty(addedMembers)) {
@@ -3605,25 +4427,55 @@ public class SCIMUserManager implements UserManager {
         */
         SCIMCommonUtils.setThreadLocalIsManagedThroughSCIMEP(true);
 
-        Set<String> membersInOldGroup = new HashSet<>(oldGroup.getMembersWithDisplayName());
-        Set<String> membersInUpdatedGroup = new HashSet<>(newGroup.getMembersWithDisplayName());
+        // Members are compared by their user IDs, hence only the added members are resolved from the user store,
+        // while the removed members are already known to be members of the group.
+        Set<String> memberIdsInOldGroup = new HashSet<>();
+        for (Object memberId : oldGroup.getMembers()) {
+            if (memberId != null) {
+                memberIdsInOldGroup.add(memberId.toString());
+            }
+        }
+        Set<String> membersWithoutId = new HashSet<>();
+        Map<String, String> membersInUpdatedGroup = getMemberDisplayNamesById(newGroup, membersWithoutId);
 
-        // Check for deleted members
-        Set<String> deletedMembers = getDeletedMemberUsernames(membersInOldGroup, membersInUpdatedGroup);
-        Set<String> deletedMemberIdsFromUserstore =
-                getMemberValuesFromUserstore(deletedMembers, userStoreDomainForGroup, oldGroup.getDisplayName());
+        Map<String, String> addedMembers = new HashMap<>();
+        Set<String> addedMemberIdsWithoutDisplayName = new HashSet<>();
+        for (Map.Entry<String, String> member : membersInUpdatedGroup.entrySet()) {
+            if (memberIdsInOldGroup.contains(member.getKey())) {
+                continue;
+            }
+            if (StringUtils.isNotBlank(member.getValue())) {
+                addedMembers.put(member.getKey(), member.getValue());
+            } else {
+                addedMemberIdsWithoutDisplayName.add(member.getKey());
+            }
+        }
+        // Members sent only with an id are resolved by the id, so that they are checked as the rest of the members.
+        addedMembers.putAll(getMemberUsernamesFromUserstore(addedMemberIdsWithoutDisplayName,
+                oldGroup.getDisplayName()));
+        Set<String> addedMemberIdsFromUserstore = new TreeSet<>(getMemberValuesFromUserstore(
+                new HashSet<>(addedMembers.values()), addedMembers.keySet(), userStoreDomainForGroup,
+                oldGroup.getDisplayName()));
 
-        // Check for added members
-        Set<String> addedMembers = getAddedMemberUsernames(membersInOldGroup, membersInUpdatedGroup);
-        Set<String> addedMemberIdsFromUserstore =
-                getMemberValuesFromUserstore(addedMembers, userStoreDomainForGroup, oldGroup.getDisplayName());
+        // Validate the memberIds sent in the update request against the Ids retrieved from the user store.
+        if (!addedMembers.isEmpty()) {
+            validateUserIds(addedMemberIdsFromUserstore, new HashSet<>(addedMembers.keySet()));
+        }
 
-        // Find out added userIds from the updated group.
-        Set<Object> newlyAddedMemberIds = getNewlyAddedMemberIds(oldGroup, newGroup);
+        // Members sent without an id are resolved by their names.
+        Set<String> memberIdsOfMembersWithoutId = getMemberValuesFromUserstore(membersWithoutId,
+                Collections.emptySet(), userStoreDomainForGroup, oldGroup.getDisplayName());
+        for (String memberId : memberIdsOfMembersWithoutId) {
+            if (!memberIdsInOldGroup.contains(memberId)) {
+                addedMemberIdsFromUserstore.add(memberId);
+            }
+        }
 
-        // Validate the memberIds sent in the update request against the Ids retrieved from the user store.
-        if (isNotEmpty(addedMembers)) {
-            validateUserIds(addedMemberIdsFromUserstore, newlyAddedMemberIds);
+        Set<String> deletedMemberIds = new TreeSet<>();
+        for (String memberId : memberIdsInOldGroup) {
+            if (!membersInUpdatedGroup.containsKey(memberId) && !memberIdsOfMembersWithoutId.contains(memberId)) {
+                deletedMemberIds.add(memberId);
+            }
         }
 
         // We do not update Identity_SCIM DB here since it is updated in SCIMUserOperationListener's methods.
@@ -3639,46 +4491,118 @@ public class SCIMUserManager implements UserManager {
         }
 
         // Update the group with added members and deleted members.
-        if (isNotEmpty(addedMembers) || isNotEmpty(deletedMembers)) {
-            carbonUM.updateUserListOfRoleWithID(newGroupDisplayName,
-                    deletedMemberIdsFromUserstore.toArray(new String[0]),
-                    addedMemberIdsFromUserstore.toArray(new String[0]));
+        if (isNotEmpty(addedMemberIdsFromUserstore) || isNotEmpty(deletedMemberIds)) {
+            updateMembersOfGroup(newGroupDisplayName, deletedMemberIds, addedMemberIdsFromUserstore);
             updated = true;
         }
 
         return updated;
     }
 
-    private Set<String> getAddedMemberUsernames(Set<String> oldMembers, Set<String> newMembers) {
+    /**
+     * Get the display names of the members of the given group by the ids of the members.
+     *
+     * @param group            Group.
+     * @param membersWithoutId Set to which the display names of the members without an id are added.
+     * @return Map of the member ids to the display names of the members.
+     */
+    private Map<String, String> getMemberDisplayNamesById(Group group, Set<String> membersWithoutId) {
+
+        Map<String, String> memberDisplayNames = new HashMap<>();
+        if (!group.isAttributeExist(SCIMConstants.GroupSchemaConstants.MEMBERS)) {
+            return memberDisplayNames;
+        }
+        MultiValuedAttribute members = (MultiValuedAttribute) group.getAttributeList().get(
+                SCIMConstants.GroupSchemaConstants.MEMBERS);
+        if (members.getAttributeValues() == null) {
+            return memberDisplayNames;
+        }
+        for (Attribute member : members.getAttributeValues()) {
+            String memberId = getSubAttributeValue(member, SCIMConstants.CommonSchemaConstants.VALUE);
+            String displayName = getSubAttributeValue(member, SCIMConstants.CommonSchemaConstants.DISPLAY);
+            if (StringUtils.isNotBlank(memberId)) {
+                memberDisplayNames.put(memberId, displayName);
+            } else if (StringUtils.isNotBlank(displayName)) {
+                membersWithoutId.add(displayName);
+            }
+        }
+        return memberDisplayNames;
+    }
+
+    private String getSubAttributeValue(Attribute attribute, String subAttributeName) {
 
-        Set<String> addedMembers = new HashSet<>(newMembers);
-        addedMembers.removeAll(oldMembers);
-        return addedMembers;
+        SimpleAttribute subAttribute = (SimpleAttribute) attribute.getSubAttribute(subAttributeName);
+        if (subAttribute == null || subAttribute.getValue() == null) {
+            return null;
+        }
+        return subAttribute.getValue().toString();
     }
 
-    private Set<String> getDeletedMemberUsernames(Set<String> oldMembers, Set<String> newMembers) {
+    /**
+     * Update the members of a group. By default the members are updated in a single user store update. When a batch
+     * size is configured, the members are removed and then added in batches of that size, so that a single user
+     * store update does not grow with the number of changed members. The batches are separate user store updates,
+     * hence a failed batch leaves the group with the changes of the earlier batches.
+     *
+     * @param groupName        Name of the group.
+     * @param deletedMemberIds Ids of the members to be removed.
+     * @param addedMemberIds   Ids of the members to be added.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while updating the members.
+     */
+    private void updateMembersOfGroup(String groupName, Set<String> deletedMemberIds, Set<String> addedMemberIds)
+            throws org.wso2.carbon.user.core.UserStoreException {
 
-        Set<String> deletedMembers = new HashSet<>(oldMembers);
-        deletedMembers.removeAll(newMembers);
-        return deletedMembers;
+        int batchSize = SCIMCommonUtils.getGroupMemberUpdateBatchSize();
+        if (batchSize <= 0 || deletedMemberIds.size() + addedMemberIds.size() <= batchSize) {
+            carbonUM.updateUserListOfRoleWithID(groupName, deletedMemberIds.toArray(new String[0]),
+                    addedMemberIds.toArray(new String[0]));
+            return;
+        }
+        updateMembersOfGroupInBatches(groupName, new ArrayList<>(deletedMemberIds), true, batchSize);
+        updateMembersOfGroupInBatches(groupName, new ArrayList<>(addedMemberIds), false, batchSize);
     }
 
-    private Set<Object> getNewlyAddedMemberIds(Group oldGroup, Group newGroup) {
+    private void updateMembersOfGroupInBatches(String groupName, List<String> memberIds, boolean isRemoval,
+                                               int batchSize) throws org.wso2.carbon.user.core.UserStoreException {
 
-        Set<Object> newlyAddedUserIds = new HashSet<>(newGroup.getMembers());
-        Set<Object> oldGroupUserIds = new HashSet<>(oldGroup.getMembers());
-        if (isNotEmpty(oldGroupUserIds)) {
-            // We will be left with the newly added userIds.
-            newlyAddedUserIds.removeAll(oldGroupUserIds);
+        for (int i = 0; i < memberIds.size(); i += batchSize) {
+            String[] batch = memberIds.subList(i, Math.min(i + batchSize, memberIds.size())).toArray(new String[0]);
+            try {
+                if (isRemoval) {
+                    carbonUM.updateUserListOfRoleWithID(groupName, batch, new String[0]);
+                } else {
+                    carbonUM.updateUserListOfRoleWithID(groupName, new String[0], batch);
+                }
+            } catch (org.wso2.carbon.user.core.UserStoreException e) {
+                log.error(String.format("Error while %s the members %d to %d of %d of the group: %s. The group is " +
+                                "partially updated, as the earlier batches of the members are already updated.",
+                        isRemoval ? "removing" : "adding", i + 1, i + batch.length, memberIds.size(), groupName));
+                throw e;
+            }
         }
-        return newlyAddedUserIds;
     }
 
-    private Set<String> getMemberValuesFromUserstore(Set<String> memberUsernames, String userStoreDomainOfGroup,
-                                                     String displayName) throws IdentitySCIMException,
-            org.wso2.carbon.user.core.UserStoreException, BadRequestException {
+    /**
+     * Resolve the user IDs of the given member usernames. The user IDs sent along with the members in the request are
+     * used to resolve the usernames in bulk, and only the usernames which cannot be resolved that way are looked up
+     * one by one.
+     *
+     * @param memberUsernames        Domain qualified usernames of the members.
+     * @param candidateMemberIds     User IDs sent along with the members in the request.
+     * @param userStoreDomainOfGroup User store domain of the group.
+     * @param displayName            Display name of the group.
+     * @return User IDs of the members.
+     * @throws BadRequestException If any of the members does not exist in the user store.
+     */
+    private Set<String> getMemberValuesFromUserstore(Set<String> memberUsernames,
+                                                     Collection<?> candidateMemberIds,
+                                                     String userStoreDomainOfGroup, String displayName)
+            throws IdentitySCIMException, org.wso2.carbon.user.core.UserStoreException, BadRequestException {
 
         Set<String> memberUserIds = new HashSet<>();
+        if (memberUsernames == null || memberUsernames.isEmpty()) {
+            return memberUserIds;
+        }
         for (String userName : memberUsernames) {
             // Compare user store domain of group and user store domain of user name, if there is a mismatch do not
             // update the group.
@@ -3688,32 +4612,83 @@ public class SCIMUserManager implements UserManager {
                 throw new IdentitySCIMException(
                         String.format("%s doesn't belongs to user store: %s", userName, userStoreDomainOfGroup));
             }
+        }
 
-            String usernameClaimUri = UserCoreClaimConstants.USERNAME_CLAIM_URI;
+        String usernameClaimUri = getMemberUsernameClaimUri();
+        Map<String, String> resolvedUserIds = new UserIDBatchResolver(carbonUM, usernameClaimUri)
+                .resolveUserIDs(memberUsernames, candidateMemberIds);
 
-            // If primary login identifier claim is enabled, search for that claim in the user store.
-            if (isLoginIdentifiersEnabled() && StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim())) {
-                usernameClaimUri = getPrimaryLoginIdentifierClaim();
-            }
-
-            UserStoreManager userStoreManager = carbonUM.getSecondaryUserStoreManager(userStoreDomainOfUser);
-            // Check if the user ids & associated user name sent in updated (new) group exist in the user store.
-            String userId = null;
-            if (userStoreManager != null) {
-                userId = ((AbstractUserStoreManager) userStoreManager)
-                        .getUserIDFromProperties(usernameClaimUri, UserCoreUtil.removeDomainFromName(userName),
-                                UserCoreConstants.DEFAULT_PROFILE);
+        Map<String, UserStoreManager> userStoreManagers = new HashMap<>();
+        List<String> nonExistingUsernames = new ArrayList<>();
+        for (String userName : memberUsernames) {
+            String userId = resolvedUserIds.get(userName);
+            if (StringUtils.isEmpty(userId)) {
+                String userStoreDomainOfUser = IdentityUtil.extractDomainFromName(userName);
+                if (!userStoreManagers.containsKey(userStoreDomainOfUser)) {
+                    userStoreManagers.put(userStoreDomainOfUser,
+                            carbonUM.getSecondaryUserStoreManager(userStoreDomainOfUser));
+                }
+                UserStoreManager userStoreManager = userStoreManagers.get(userStoreDomainOfUser);
+                // Check if the user ids & associated user name sent in updated (new) group exist in the user store.
+                if (userStoreManager != null) {
+                    userId = ((AbstractUserStoreManager) userStoreManager)
+                            .getUserIDFromProperties(usernameClaimUri, UserCoreUtil.removeDomainFromName(userName),
+                                    UserCoreConstants.DEFAULT_PROFILE);
+                }
             }
             if (StringUtils.isEmpty(userId)) {
-                String error = "User: " + userName + " doesn't exist in the user store. Hence can not update the " +
-                        "group: " + displayName;
-                throw new BadRequestException(error, ResponseCodeConstants.INVALID_VALUE);
+                nonExistingUsernames.add(userName);
+            } else {
+                memberUserIds.add(userId);
             }
-            memberUserIds.add(userId);
+        }
+        if (!nonExistingUsernames.isEmpty()) {
+            String error = "User: " + StringUtils.join(nonExistingUsernames, ", ") + " doesn't exist in the user " +
+                    "store. Hence can not update the group: " + displayName;
+            throw new BadRequestException(error, ResponseCodeConstants.INVALID_VALUE);
         }
         return memberUserIds;
     }
 
+    /**
+     * Resolve the usernames of the members sent only with their user IDs.
+     *
+     * @param memberIds   User IDs of the members.
+     * @param displayName Display name of the group.
+     * @return Map of the user IDs to the domain qualified usernames of the members.
+     * @throws BadRequestException If any of the members does not exist in the user store.
+     */
+    private Map<String, String> getMemberUsernamesFromUserstore(Set<String> memberIds, String displayName)
+            throws org.wso2.carbon.user.core.UserStoreException, BadRequestException {
+
+        if (memberIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> memberUsernames = new UserIDBatchResolver(carbonUM, getMemberUsernameClaimUri())
+                .resolveUsernames(memberIds);
+        List<String> nonExistingUserIds = new ArrayList<>();
+        for (String memberId : memberIds) {
+            if (StringUtils.isBlank(memberUsernames.get(memberId))) {
+                nonExistingUserIds.add(memberId);
+            }
+        }
+        if (!nonExistingUserIds.isEmpty()) {
+            String error = "User: " + StringUtils.join(nonExistingUserIds, ", ") + " doesn't exist in the user " +
+                    "store. Hence can not update the group: " + displayName;
+            throw new BadRequestException(error, ResponseCodeConstants.INVALID_VALUE);
+        }
+        return memberUsernames;
+    }
+
+    private String getMemberUsernameClaimUri() {
+
+        // If primary login identifier claim is enabled, search for that claim in the user store.
+        if (isLoginIdentifiersEnabled() && StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim())) {
+            return getPrimaryLoginIdentifierClaim();
+        }
+        return UserCoreClaimConstants.USERNAME_CLAIM_URI;
+    }
+
     private void validateUserIds(Set<String> addedMemberIdsFromUserstore, Set<Object> newlyAddedMemberIds) throws
             BadRequestException {
 
@@ -3894,6 +4869,26 @@ public class SCIMUserManager implements UserManager {
                              Map<String, String> scimToLocalClaimsMap, Map<String, String> userClaimValues)
             throws CharonException, BadRequestException {
 
+        return getSCIMUser(coreUser, claimURIList, scimToLocalClaimsMap, userClaimValues, false);
+    }
+
+    /**
+     * Get the SCIM user of the given user core user.
+     *
+     * @param coreUser             User of the underlying user store.
+     * @param claimURIList         Required claims in local dialect.
+     * @param scimToLocalClaimsMap SCIM to local claim mappings.
+     * @param userClaimValues      Claim values of the user.
+     * @param isClaimValuesLoaded  Whether the given claim values are the current claims of the user. Otherwise, the
+     *                             claim values are read from the user store.
+     * @return SCIM user.
+     * @throws CharonException     Error while building the user.
+     * @throws BadRequestException Error while building the user.
+     */
+    private User getSCIMUser(org.wso2.carbon.user.core.common.User coreUser, List<String> claimURIList,
+                             Map<String, String> scimToLocalClaimsMap, Map<String, String> userClaimValues,
+                             boolean isClaimValuesLoaded) throws CharonException, BadRequestException {
+
         User scimUser = null;
 
         String userStoreDomainName = coreUser.getUserStoreDomain();
@@ -3905,8 +4900,20 @@ public class SCIMUserManager implements UserManager {
         try {
             // TODO: If we can get the updated user claim values from the add user method, we don't need to do
             //  this call. Please check the status of the issue: https://github.com/wso2/product-is/issues/7160
-            userClaimValues = carbonUM.getUserClaimValuesWithID(coreUser.getUserID(),
-                    claimURIList.toArray(new String[0]), null);
+            Map<String, String> storedClaimValues = null;
+            if (!isClaimValuesLoaded && SCIMCommonUtils.isETagSupported()) {
+                // The version of the user is generated from all the stored claims of the user, so that it does not
+                // depend on the requested attributes. They are read together with the requested claims.
+                Set<String> claimsToRead = new LinkedHashSet<>(claimURIList);
+                claimsToRead.addAll(SCIMCommonUtils.getSCIMtoLocalMappings().values());
+                storedClaimValues = carbonUM.getUserClaimValuesWithID(coreUser.getUserID(),
+                        claimsToRead.toArray(new String[0]), null);
+                userClaimValues = new HashMap<>(storedClaimValues);
+                userClaimValues.keySet().retainAll(claimURIList);
+            } else if (!isClaimValuesLoaded) {
+                userClaimValues = carbonUM.getUserClaimValuesWithID(coreUser.getUserID(),
+                        claimURIList.toArray(new String[0]), null);
+            }
 
             Map<String, String> attributes = SCIMCommonUtils.convertLocalToSCIMDialect(userClaimValues,
                     scimToLocalClaimsMap);
@@ -3968,6 +4975,14 @@ public class SCIMUserManager implements UserManager {
                 attributes.put(SCIMConstants.CommonSchemaConstants.RESOURCE_TYPE_URI, SCIMConstants.USER);
             }
 
+            if (storedClaimValues != null) {
+                // With the groups vs roles separation improvements, the groups and roles are stored claims.
+                boolean isGroupsInClaims = IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled();
+                attributes.put(SCIMConstants.CommonSchemaConstants.VERSION_URI,
+                        getUserVersion(coreUser, storedClaimValues, isGroupsInClaims ? null : groupsList,
+                                isGroupsInClaims ? null : rolesList));
+            }
+
             Map<String, Group> groupMetaAttributesCache = new HashMap<>();
 
             // Construct the SCIM Object from the attributes.
@@ -4000,10 +5015,8 @@ public class SCIMUserManager implements UserManager {
                 }
                 Group groupObject = groupMetaAttributesCache.get(groupName);
                 if (groupObject == null && !groupMetaAttributesCache.containsKey(groupName)) {
-                    org.wso2.carbon.user.core.common.Group userGroup =
-                            carbonUM.getGroupByGroupName(UserCoreUtil.addDomainToName(groupName,
-                                    userStoreDomainName), null);
-                    groupObject = buildGroup(userGroup);
+                    groupObject = getGroupWithMetaAttributes(UserCoreUtil.addDomainToName(groupName,
+                            userStoreDomainName));
                     groupMetaAttributesCache.put(groupName, groupObject);
                 }
                 if (groupObject != null && isFilteringEnhancementsEnabled()) {
@@ -4032,6 +5045,70 @@ public class SCIMUserManager implements UserManager {
         return scimUser;
     }
 
+    /**
+     * Get the version of a user from the last modified time and all the stored claims of the user, together with the
+     * groups and roles of the user when they are not stored as claims. The version does not depend on the attributes
+     * requested in a response, hence an entity tag of any representation of the user can be used in If-Match.
+     *
+     * @param coreUser          User of the underlying user store.
+     * @param storedClaimValues All the stored SCIM mapped claims of the user.
+     * @param groupsList        Groups of the user, if they are not stored as claims.
+     * @param rolesList         Roles of the user, if they are not stored as claims.
+     * @return Version of the user.
+     * @throws CharonException    Error while generating the version.
+     * @throws UserStoreException Error while getting the claim mappings.
+     */
+    private String getUserVersion(org.wso2.carbon.user.core.common.User coreUser,
+                                  Map<String, String> storedClaimValues, List<String> groupsList,
+                                  List<String> rolesList) throws CharonException, UserStoreException {
+
+        StringBuilder content = new StringBuilder(coreUser.getUserID());
+        content.append(coreUser.getDomainQualifiedUsername());
+        content.append(new TreeMap<>(storedClaimValues));
+        if (groupsList != null) {
+            content.append(new TreeSet<>(groupsList));
+        }
+        if (rolesList != null) {
+            content.append(new TreeSet<>(rolesList));
+        }
+        String lastModifiedClaim = SCIMCommonUtils.getSCIMtoLocalMappings()
+                .get(SCIMConstants.CommonSchemaConstants.LAST_MODIFIED_URI);
+        return SCIMCommonUtils.generateResourceVersion(storedClaimValues.get(lastModifiedClaim), content.toString());
+    }
+
+    /**
+     * Set the version of a group, which is generated from the last modified time, the name and the members of the
+     * group. The members are taken from the user store, hence the version does not depend on whether the members are
+     * requested in the response.
+     *
+     * @param group            Group.
+     * @param lastModifiedDate Last modified time of the group.
+     * @param coreUsers        Users of the group.
+     * @throws CharonException     Error while setting the version.
+     * @throws BadRequestException Error while setting the version.
+     */
+    private void setGroupVersion(Group group, String lastModifiedDate,
+                                 List<org.wso2.carbon.user.core.common.User> coreUsers)
+            throws CharonException, BadRequestException {
+
+        Set<String> memberIds = new TreeSet<>();
+        if (coreUsers != null) {
+            for (org.wso2.carbon.user.core.common.User coreUser : coreUsers) {
+                memberIds.add(coreUser.getUserID());
+            }
+        }
+        String version = SCIMCommonUtils.generateResourceVersion(lastModifiedDate,
+                group.getId() + "\n" + group.getDisplayName() + "\n" + memberIds);
+        try {
+            AttributeMapper.constructSCIMObjectFromAttributesOfLevelTwo(this,
+                    new AbstractMap.SimpleEntry<>(SCIMConstants.CommonSchemaConstants.VERSION_URI, version), group,
+                    new String[]{SCIMConstants.CommonSchemaConstants.META, SCIMConstants.CommonSchemaConstants.VERSION},
+                    SCIMCommonConstants.GROUP);
+        } catch (NotFoundException e) {
+            throw new CharonException("Error while setting the version of the group: " + group.getId(), e);
+        }
+    }
+
     private List<String> getMultiValuedAttributeList(String userStoreDomainName, Map<String, String> attributes,
                                                      String claimURI) {
 
@@ -4062,26 +5139,24 @@ public class SCIMUserManager implements UserManager {
         List<User> scimUsers = new ArrayList<>();
 
         //obtain user claim values
-        List<UniqueIDUserClaimSearchEntry> searchEntries;
+        Map<String, UniqueIDUserClaimSearchEntry> searchEntries;
         Map<String, List<String>> usersRoles = new HashMap<>();
 
         try {
-            searchEntries = carbonUM.getUsersClaimValuesWithID(users
+            // Index the claim search entries by user ID once per page, so that the per-user lookups below do not
+            // need to scan the whole result list.
+            searchEntries = indexSearchEntriesByUserID(carbonUM.getUsersClaimValuesWithID(users
                     .stream()
                     .map(org.wso2.carbon.user.core.common.User::getUserID)
-                    .collect(Collectors.toList()), claimURIList, null);
+                    .collect(Collectors.toList()), claimURIList, null));
             if (isGroupsAttributeRequired(requiredAttributes)) {
                 if (IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled()) {
-                    usersRoles = searchEntries.stream().map(userClaimSearchEntry -> {
-                        String userID = userClaimSearchEntry.getUser().getUserID();
-                        List<String> groupsList = getGroups(userClaimSearchEntry);
-                        return new AbstractMap.SimpleEntry<>(userID, groupsList);
-                    }).collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue));
+                    usersRoles = new HashMap<>(searchEntries.size());
+                    for (Map.Entry<String, UniqueIDUserClaimSearchEntry> entry : searchEntries.entrySet()) {
+                        usersRoles.put(entry.getKey(), getGroups(entry.getValue()));
+                    }
                 } else {
-                    usersRoles = carbonUM.getRoleListOfUsersWithID(users
-                            .stream()
-                            .map(org.wso2.carbon.user.core.common.User::getUserID)
-                            .collect(Collectors.toList()));
+                    usersRoles = getRoleListOfUsers(users);
                 }
             }
         } catch (org.wso2.carbon.user.core.UserStoreException e) {
@@ -4089,7 +5164,35 @@ public class SCIMUserManager implements UserManager {
             throw resolveError(e, errorMsg);
         }
 
+        // Resolve the roles of all the users of the page at once, instead of retrieving them user by user.
+        Map<String, List<String>> usersHybridRoles = Collections.emptyMap();
+        Map<String, List<RoleBasicInfo>> usersRolesV2 = Collections.emptyMap();
+        Map<String, Group> roleMetaAttributesCache = new HashMap<>();
+        boolean isRolesAttributeSet;
+        try {
+            isRolesAttributeSet = isRolesAttributeRequired(requiredAttributes) &&
+                    (IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled() ||
+                            carbonUM.isRoleAndGroupSeparationEnabled());
+            if (isRolesAttributeSet) {
+                if (CarbonConstants.ENABLE_LEGACY_AUTHZ_RUNTIME) {
+                    usersHybridRoles = getHybridRolesOfUsers(users, searchEntries, usersRoles,
+                            isGroupsAttributeRequired(requiredAttributes));
+                    loadRolesOnlyWithMetaAttributes(usersHybridRoles.values(), roleMetaAttributesCache);
+                } else {
+                    usersRolesV2 = getRolesV2OfUsers(users);
+                }
+            }
+        } catch (org.wso2.carbon.user.core.UserStoreException e) {
+            throw resolveError(e, "Error occurred while retrieving the roles of the users.");
+        } catch (IdentitySCIMException e) {
+            throw new CharonException("Error occurred while retrieving the roles of the users.", e);
+        }
+
         Map<String, Group> groupMetaAttributesCache = new HashMap<>();
+        // Build the local to SCIM claim mappings once for the page, so that the claims of each user are converted by
+        // looking up only the claims the user has.
+        Map<String, List<String>> localToSCIMClaimsMap =
+                SCIMCommonUtils.buildLocalToSCIMMappings(scimToLocalClaimsMap);
 
         for (org.wso2.carbon.user.core.common.User user : users) {
             String userStoreDomainName = user.getUserStoreDomain();
@@ -4100,18 +5203,21 @@ public class SCIMUserManager implements UserManager {
                 }
                 User scimUser;
                 Map<String, String> userClaimValues = new HashMap<>();
-                for (UniqueIDUserClaimSearchEntry entry : searchEntries) {
-                    if (entry.getUser() != null && StringUtils.isNotBlank(entry.getUser().getUserID())
-                            && entry.getUser().getUserID().equals(user.getUserID())) {
-                        userClaimValues = entry.getClaims();
-                    }
+                UniqueIDUserClaimSearchEntry searchEntry = searchEntries.get(user.getUserID());
+                if (searchEntry != null) {
+                    userClaimValues = searchEntry.getClaims();
                 }
                 Map<String, String> attributes;
-                try {
-                    attributes = SCIMCommonUtils.convertLocalToSCIMDialect(userClaimValues, scimToLocalClaimsMap);
-                } catch (UserStoreException e) {
-                    throw resolveError(e, "Error in converting local claims to SCIM dialect for user: "
-                            + user.getUsername());
+                if (MapUtils.isNotEmpty(scimToLocalClaimsMap)) {
+                    attributes = SCIMCommonUtils.convertLocalClaimsToSCIMDialect(userClaimValues,
+                            localToSCIMClaimsMap);
+                } else {
+                    try {
+                        attributes = SCIMCommonUtils.convertLocalToSCIMDialect(userClaimValues, scimToLocalClaimsMap);
+                    } catch (UserStoreException e) {
+                        throw resolveError(e, "Error in converting local claims to SCIM dialect for user: "
+                                + user.getUsername());
+                    }
                 }
 
                 try {
@@ -4196,10 +5302,8 @@ public class SCIMUserManager implements UserManager {
 
                             Group groupObject = groupMetaAttributesCache.get(group);
                             if (groupObject == null && !groupMetaAttributesCache.containsKey(group)) {
-                                org.wso2.carbon.user.core.common.Group userGroup =
-                                        carbonUM.getGroupByGroupName(UserCoreUtil.addDomainToName(group,
-                                                userStoreDomainName), null);
-                                groupObject = buildGroup(userGroup);
+                                groupObject = getGroupWithMetaAttributes(UserCoreUtil.addDomainToName(group,
+                                        userStoreDomainName));
                                 groupMetaAttributesCache.put(group, groupObject);
                             }
                             if (groupObject != null && isFilteringEnhancementsEnabled()) {
@@ -4212,13 +5316,15 @@ public class SCIMUserManager implements UserManager {
                     }
 
                     // Set the roles attribute if the the role and group separation feature is enabled.
-                    if (IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled()) {
-                        List<String> rolesList = getRoles(searchEntries, user);
-                        setRolesOfUser(rolesList, groupMetaAttributesCache, user, scimUser);
-                    } else if (carbonUM.isRoleAndGroupSeparationEnabled()) {
-                        List<String> rolesList = carbonUM.getHybridRoleListOfUser(user.getUsername(),
-                                user.getUserStoreDomain());
-                        setRolesOfUser(rolesList, groupMetaAttributesCache, user, scimUser);
+                    if (isRolesAttributeSet) {
+                        if (CarbonConstants.ENABLE_LEGACY_AUTHZ_RUNTIME) {
+                            List<String> rolesList = usersHybridRoles.getOrDefault(user.getUserID(),
+                                    Collections.emptyList());
+                            setRolesOfUser(rolesList, roleMetaAttributesCache, user, scimUser);
+                        } else {
+                            setRolesV2OfUser(usersRolesV2.getOrDefault(user.getUserID(), Collections.emptyList()),
+                                    scimUser);
+                        }
                     }
 
                 } catch (UserStoreException e) {
@@ -4267,7 +5373,7 @@ public class SCIMUserManager implements UserManager {
                      * Here getGroupOnlyWithMetaAttributes used to get role names. Group attributes will be retrieved
                      * from the userstore.
                      */
-                    groupObject = getGroupOnlyWithMetaAttributes(roleName);
+                    groupObject = getRoleOnlyWithMetaAttributes(roleName);
                     groupMetaAttributesCache.put(roleName, groupObject);
                 }
 
@@ -4282,24 +5388,177 @@ public class SCIMUserManager implements UserManager {
             try {
                 List<RoleBasicInfo> roles = SCIMCommonComponentHolder.getRoleManagementServiceV2()
                         .getRoleListOfUser(user.getUserID(), tenantDomain);
-                for (RoleBasicInfo roleBasicInfo : roles) {
-                    RoleV2 role = new RoleV2();
-                    role.setDisplayName(roleBasicInfo.getName());
-                    role.setId(roleBasicInfo.getId());
-                    String location = SCIMCommonUtils.getSCIMRoleV2URL(roleBasicInfo.getId());
-                    role.setLocation(location);
-                    role.setAudience(roleBasicInfo.getAudienceId(), roleBasicInfo.getAudienceName(),
-                            roleBasicInfo.getAudience());
-                    scimUser.setRoleV2(role);
+                setRolesV2OfUser(roles, scimUser);
+            } catch (IdentityRoleManagementException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to retrieve roles for user : " + user.getUserID(), e);
                 }
+            }
+        }
+    }
+
+    private void setRolesV2OfUser(List<RoleBasicInfo> roles, User scimUser) throws CharonException,
+            BadRequestException {
+
+        for (RoleBasicInfo roleBasicInfo : roles) {
+            RoleV2 role = new RoleV2();
+            role.setDisplayName(roleBasicInfo.getName());
+            role.setId(roleBasicInfo.getId());
+            String location = SCIMCommonUtils.getSCIMRoleV2URL(roleBasicInfo.getId());
+            role.setLocation(location);
+            role.setAudience(roleBasicInfo.getAudienceId(), roleBasicInfo.getAudienceName(),
+                    roleBasicInfo.getAudience());
+            scimUser.setRoleV2(role);
+        }
+    }
+
+    /**
+     * Get the roles and groups of the users of a page from the user store. The users are queried in chunks, so that
+     * a single user store query is not built for an unbounded number of users.
+     *
+     * @param users Users of the page.
+     * @return Map of user ID to the roles and groups of the user.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while retrieving the roles.
+     */
+    private Map<String, List<String>> getRoleListOfUsers(Set<org.wso2.carbon.user.core.common.User> users)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        List<String> userIds = users.stream().map(org.wso2.carbon.user.core.common.User::getUserID)
+                .collect(Collectors.toList());
+        if (userIds.size() <= MAX_USERS_PER_ROLE_QUERY) {
+            return carbonUM.getRoleListOfUsersWithID(userIds);
+        }
+        Map<String, List<String>> usersRoles = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i += MAX_USERS_PER_ROLE_QUERY) {
+            List<String> chunk = userIds.subList(i, Math.min(i + MAX_USERS_PER_ROLE_QUERY, userIds.size()));
+            Map<String, List<String>> chunkRoles = carbonUM.getRoleListOfUsersWithID(chunk);
+            if (chunkRoles != null) {
+                usersRoles.putAll(chunkRoles);
+            }
+        }
+        return usersRoles;
+    }
+
+    /**
+     * Get the hybrid roles of the users of a page. The roles are read from the retrieved claims when the groups vs
+     * roles separation improvements are enabled. Otherwise the roles of all the users are retrieved at once and only
+     * the hybrid roles are kept.
+     *
+     * @param users                Users of the page.
+     * @param searchEntries        Claim search entries of the users indexed by user ID.
+     * @param usersRoles           Roles of the users already retrieved for the groups attribute.
+     * @param isGroupsAttributeSet Whether the roles of the users were retrieved for the groups attribute.
+     * @return Map of user ID to the hybrid roles of the user.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while retrieving the roles.
+     * @throws CharonException                              If an error occurred while reading the roles claim.
+     */
+    private Map<String, List<String>> getHybridRolesOfUsers(Set<org.wso2.carbon.user.core.common.User> users,
+                                                            Map<String, UniqueIDUserClaimSearchEntry> searchEntries,
+                                                            Map<String, List<String>> usersRoles,
+                                                            boolean isGroupsAttributeSet)
+            throws org.wso2.carbon.user.core.UserStoreException, CharonException {
+
+        Map<String, List<String>> usersHybridRoles = new HashMap<>(users.size() * 4 / 3 + 1);
+        if (IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled()) {
+            for (org.wso2.carbon.user.core.common.User user : users) {
+                usersHybridRoles.put(user.getUserID(), getRoles(searchEntries, user));
+            }
+            return usersHybridRoles;
+        }
+        // The role list of a user contains the hybrid roles of the user along with the groups.
+        Map<String, List<String>> rolesOfUsers = isGroupsAttributeSet ? usersRoles : getRoleListOfUsers(users);
+        if (rolesOfUsers == null) {
+            return usersHybridRoles;
+        }
+        for (Map.Entry<String, List<String>> entry : rolesOfUsers.entrySet()) {
+            if (entry.getValue() != null) {
+                usersHybridRoles.put(entry.getKey(), entry.getValue().stream().filter(SCIMCommonUtils::isHybridRole)
+                        .collect(Collectors.toList()));
+            }
+        }
+        return usersHybridRoles;
+    }
+
+    /**
+     * Get the roles of the users of a page from the role management service. The roles are only retrieved for the
+     * users of the user store domains where SCIM is enabled, as the other users are excluded from the response.
+     *
+     * @param users Users of the page.
+     * @return Map of user ID to the roles of the user.
+     * @throws BadRequestException If a user store domain is invalid.
+     */
+    private Map<String, List<RoleBasicInfo>> getRolesV2OfUsers(Set<org.wso2.carbon.user.core.common.User> users)
+            throws BadRequestException {
+
+        Map<String, List<RoleBasicInfo>> usersRoles = new HashMap<>(users.size() * 4 / 3 + 1);
+        Map<String, Boolean> scimEnabledDomains = new HashMap<>();
+        for (org.wso2.carbon.user.core.common.User user : users) {
+            Boolean scimEnabled = scimEnabledDomains.get(user.getUserStoreDomain());
+            if (scimEnabled == null) {
+                scimEnabled = isSCIMEnabled(user.getUserStoreDomain());
+                scimEnabledDomains.put(user.getUserStoreDomain(), scimEnabled);
+            }
+            if (!scimEnabled || usersRoles.containsKey(user.getUserID())) {
+                continue;
+            }
+            try {
+                usersRoles.put(user.getUserID(), SCIMCommonComponentHolder.getRoleManagementServiceV2()
+                        .getRoleListOfUser(user.getUserID(), tenantDomain));
             } catch (IdentityRoleManagementException e) {
                 if (log.isDebugEnabled()) {
                     log.debug("Failed to retrieve roles for user : " + user.getUserID(), e);
                 }
             }
         }
+        return usersRoles;
+    }
+
+    /**
+     * Load the roles of the users of a page with only their meta attributes. The roles found in the tenant level group
+     * metadata cache are taken from it and the attributes of the rest of the roles are retrieved at once.
+     *
+     * @param rolesOfUsers            Roles of the users of the page.
+     * @param roleMetaAttributesCache Map to which the roles are loaded, against the role names.
+     * @throws CharonException                              If an error occurred while building the roles.
+     * @throws IdentitySCIMException                        If an error occurred while retrieving the attributes.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     * @throws BadRequestException                          If an error occurred while building the roles.
+     */
+    private void loadRolesOnlyWithMetaAttributes(Collection<List<String>> rolesOfUsers,
+                                                 Map<String, Group> roleMetaAttributesCache)
+            throws CharonException, IdentitySCIMException, org.wso2.carbon.user.core.UserStoreException,
+            BadRequestException {
+
+        long groupMetadataGeneration = getGroupMetadataCacheGeneration();
+        SCIMGroupMetadataCacheEntry groupMetadataCacheEntry = getGroupMetadataCacheEntry();
+        Set<String> roleNames = new LinkedHashSet<>();
+        for (List<String> rolesOfUser : rolesOfUsers) {
+            for (String roleName : rolesOfUser) {
+                if (CarbonConstants.REGISTRY_ANONNYMOUS_ROLE_NAME.equalsIgnoreCase(roleName) ||
+                        roleMetaAttributesCache.containsKey(roleName)) {
+                    continue;
+                }
+                SCIMGroupMetadataCacheEntry.GroupMetadata roleMetadata =
+                        groupMetadataCacheEntry == null ? null : groupMetadataCacheEntry.getRole(roleName);
+                if (roleMetadata != null) {
+                    roleMetaAttributesCache.put(roleName, buildRoleOnlyWithMetaAttributes(roleMetadata));
+                } else {
+                    roleNames.add(roleName);
+                }
+            }
+        }
+        Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> loadedRoles = new HashMap<>();
+        for (Map.Entry<String, Group> entry : getGroupsOnlyWithMetaAttributes(roleNames).entrySet()) {
+            roleMetaAttributesCache.put(entry.getKey(), entry.getValue());
+            if (entry.getValue().getId() != null) {
+                loadedRoles.put(entry.getKey(), new SCIMGroupMetadataCacheEntry.GroupMetadata(
+                        entry.getValue().getDisplayName(), entry.getValue().getId(), null, null, null));
+            }
+        }
+        addToGroupMetadataCache(groupMetadataGeneration, Collections.emptyMap(), loadedRoles);
     }
 
+
     /**
      * Get group with only meta attributes.
      *
@@ -4318,6 +5577,150 @@ public class SCIMUserManager implements UserManager {
         return groupHandler.getGroupWithAttributes(group, groupName);
     }
 
+    /**
+     * Get a group of a user with its meta attributes from the user store. The meta attributes are read from the
+     * tenant level group metadata cache when it is enabled.
+     *
+     * @param groupName Domain qualified name of the group.
+     * @return Group or null if the group does not exist in the user store.
+     * @throws UserStoreException  If an error occurred while retrieving the group.
+     * @throws CharonException     If an error occurred while building the group.
+     * @throws BadRequestException If an error occurred while building the group.
+     */
+    private Group getGroupWithMetaAttributes(String groupName) throws UserStoreException, CharonException,
+            BadRequestException {
+
+        long groupMetadataGeneration = getGroupMetadataCacheGeneration();
+        SCIMGroupMetadataCacheEntry groupMetadataCacheEntry = getGroupMetadataCacheEntry();
+        if (groupMetadataCacheEntry != null) {
+            SCIMGroupMetadataCacheEntry.GroupMetadata groupMetadata = groupMetadataCacheEntry.getGroup(groupName);
+            if (groupMetadata != null) {
+                return buildGroup(groupMetadata.getName(), groupMetadata.getId(), groupMetadata.getLocation(),
+                        groupMetadata.getCreatedDate(), groupMetadata.getLastModifiedDate());
+            }
+        }
+        org.wso2.carbon.user.core.common.Group userGroup = carbonUM.getGroupByGroupName(groupName, null);
+        if (userGroup != null) {
+            addToGroupMetadataCache(groupMetadataGeneration, Collections.singletonMap(groupName,
+                    new SCIMGroupMetadataCacheEntry.GroupMetadata(userGroup.getGroupName(), userGroup.getGroupID(),
+                            userGroup.getLocation(), userGroup.getCreatedDate(), userGroup.getLastModifiedDate())),
+                    Collections.emptyMap());
+        }
+        return buildGroup(userGroup);
+    }
+
+    /**
+     * Get a role of a user with only the meta attributes used in the roles attribute. The meta attributes are read
+     * from the tenant level group metadata cache when it is enabled.
+     *
+     * @param roleName Name of the role.
+     * @return Role as a group.
+     * @throws CharonException                              If an error occurred while building the group.
+     * @throws IdentitySCIMException                        If an error occurred while retrieving the attributes.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     * @throws BadRequestException                          If an error occurred while building the group.
+     */
+    private Group getRoleOnlyWithMetaAttributes(String roleName) throws CharonException, IdentitySCIMException,
+            org.wso2.carbon.user.core.UserStoreException, BadRequestException {
+
+        long groupMetadataGeneration = getGroupMetadataCacheGeneration();
+        SCIMGroupMetadataCacheEntry groupMetadataCacheEntry = getGroupMetadataCacheEntry();
+        if (groupMetadataCacheEntry != null) {
+            SCIMGroupMetadataCacheEntry.GroupMetadata roleMetadata = groupMetadataCacheEntry.getRole(roleName);
+            if (roleMetadata != null) {
+                return buildRoleOnlyWithMetaAttributes(roleMetadata);
+            }
+        }
+        Group group = getGroupOnlyWithMetaAttributes(roleName);
+        if (group.getId() != null) {
+            addToGroupMetadataCache(groupMetadataGeneration, Collections.emptyMap(),
+                    Collections.singletonMap(roleName, new SCIMGroupMetadataCacheEntry.GroupMetadata(
+                            group.getDisplayName(), group.getId(), null, null, null)));
+        }
+        return group;
+    }
+
+    private Group buildRoleOnlyWithMetaAttributes(SCIMGroupMetadataCacheEntry.GroupMetadata roleMetadata)
+            throws CharonException, BadRequestException {
+
+        Group group = new Group();
+        group.setDisplayName(roleMetadata.getName());
+        group.setId(roleMetadata.getId());
+        return group;
+    }
+
+    /**
+     * Get the group metadata cache entry of the tenant.
+     *
+     * @return Cache entry or null if the group metadata cache is not enabled or the tenant does not have an entry.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     */
+    private SCIMGroupMetadataCacheEntry getGroupMetadataCacheEntry()
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        if (!SCIMCommonUtils.isGroupMetadataCacheEnabled()) {
+            return null;
+        }
+        return SCIMGroupMetadataCache.getInstance().getGroupMetadataByTenant(carbonUM.getTenantId());
+    }
+
+    /**
+     * Get the generation of the group metadata cache of the tenant, which is read before loading the metadata from
+     * the user store.
+     *
+     * @return Generation of the group metadata cache of the tenant, or 0 if the group metadata cache is not enabled.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     */
+    private long getGroupMetadataCacheGeneration() throws org.wso2.carbon.user.core.UserStoreException {
+
+        if (!SCIMCommonUtils.isGroupMetadataCacheEnabled()) {
+            return 0;
+        }
+        return SCIMGroupMetadataCache.getInstance().getGenerationByTenant(carbonUM.getTenantId());
+    }
+
+    /**
+     * Add the meta attributes of groups and roles loaded from the user store to the group metadata cache of the
+     * tenant, when the cache is enabled. They are not added if the cache was cleared after they were loaded.
+     *
+     * @param generation Generation of the group metadata cache of the tenant when the metadata was loaded.
+     * @param groups     Meta attributes of the groups, against the domain qualified group names.
+     * @param roles      Meta attributes of the roles, against the role names.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     */
+    private void addToGroupMetadataCache(long generation, Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> groups,
+                                         Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> roles)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        if (!SCIMCommonUtils.isGroupMetadataCacheEnabled()) {
+            return;
+        }
+        SCIMGroupMetadataCache.getInstance().addGroupMetadataByTenant(carbonUM.getTenantId(), generation, groups,
+                roles, SCIMCommonUtils.getGroupMetadataCacheMaxSize());
+    }
+
+    /**
+     * Get groups with only meta attributes. The meta attributes of all the groups are retrieved at once.
+     *
+     * @param groupNames Names of the groups.
+     * @return Map of the group names and the groups.
+     * @throws CharonException                              If an error occurred while building the groups.
+     * @throws IdentitySCIMException                        If an error occurred while retrieving the group
+     *                                                      attributes.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the tenant id.
+     * @throws BadRequestException                          If an error occurred while building the groups.
+     */
+    private Map<String, Group> getGroupsOnlyWithMetaAttributes(Collection<String> groupNames)
+            throws CharonException, IdentitySCIMException, org.wso2.carbon.user.core.UserStoreException,
+            BadRequestException {
+
+        if (groupNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        SCIMGroupHandler groupHandler = new SCIMGroupHandler(carbonUM.getTenantId());
+        return groupHandler.getGroupsWithAttributes(groupNames);
+    }
+
     /**
      * returns whether particular user store domain is application or internal.
      *
@@ -4384,6 +5787,14 @@ public class SCIMUserManager implements UserManager {
             throws CharonException, org.wso2.carbon.user.core.UserStoreException, IdentitySCIMException,
             BadRequestException {
 
+        return doGetGroupWithGroupId(groupId, isMemberIdRequired, excludeMembers, true);
+    }
+
+    private Group doGetGroupWithGroupId(String groupId, boolean isMemberIdRequired, boolean excludeMembers,
+                                        boolean isMemberDisplayRequired)
+            throws CharonException, org.wso2.carbon.user.core.UserStoreException, IdentitySCIMException,
+            BadRequestException {
+
         // Requested attributes are handled from Charon. Therefore we can retrieve the group with meta.
         org.wso2.carbon.user.core.common.Group retrievedGroup =
                 carbonUM.getGroup(groupId, null);
@@ -4402,12 +5813,21 @@ public class SCIMUserManager implements UserManager {
         }
         // Build the response group object with the group returned from the user core.
         Group group = buildGroup(retrievedGroup);
+        boolean isETagSupported = SCIMCommonUtils.isETagSupported();
+        List<org.wso2.carbon.user.core.common.User> coreUsers = null;
+        if (!excludeMembers || isETagSupported) {
+            // The members are also required for the version of the group, even if they are excluded.
+            coreUsers = carbonUM.getUserListOfRoleWithID(group.getDisplayName());
+        }
         if (!excludeMembers) {
             // Add users from the user store who has the given group.
-            addUsersToTheGroup(group);
+            addUsersToTheGroup(group, coreUsers, isMemberDisplayRequired);
         }
         // Set roles of the group.
         setGroupRoles(group);
+        if (isETagSupported) {
+            setGroupVersion(group, retrievedGroup.getLastModifiedDate(), coreUsers);
+        }
         return group;
     }
 
@@ -4448,39 +5868,129 @@ public class SCIMUserManager implements UserManager {
     private void addUsersToTheGroup(Group group) throws org.wso2.carbon.user.core.UserStoreException,
             CharonException, BadRequestException {
 
+        addUsersToTheGroup(group, true);
+    }
+
+    /**
+     * Add the users for the group who has assigned to the provided group.
+     *
+     * @param group                   Group.
+     * @param isMemberDisplayRequired Whether the display names of the members are requested. If not, the primary
+     *                                login identifiers of the members are not retrieved.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while adding users.
+     * @throws CharonException                              If an error occurred while adding users.
+     * @throws BadRequestException                          If an error occurred while adding users.
+     */
+    private void addUsersToTheGroup(Group group, boolean isMemberDisplayRequired)
+            throws org.wso2.carbon.user.core.UserStoreException, CharonException, BadRequestException {
+
         String groupName = group.getDisplayName();
-        List<org.wso2.carbon.user.core.common.User> coreUsers = carbonUM.getUserListOfRoleWithID(groupName);
+        addUsersToTheGroup(group, carbonUM.getUserListOfRoleWithID(groupName), isMemberDisplayRequired);
+    }
+
+    /**
+     * Add the given users of the group as the members of the group.
+     *
+     * @param group                   Group.
+     * @param coreUsers               Users of the group.
+     * @param isMemberDisplayRequired Whether the display names of the members are requested.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while adding users.
+     * @throws CharonException                              If an error occurred while adding users.
+     * @throws BadRequestException                          If an error occurred while adding users.
+     */
+    private void addUsersToTheGroup(Group group, List<org.wso2.carbon.user.core.common.User> coreUsers,
+                                    boolean isMemberDisplayRequired)
+            throws org.wso2.carbon.user.core.UserStoreException, CharonException, BadRequestException {
 
         // Get the ids of the users and set them in the group with id + display name.
         if (coreUsers != null && coreUsers.size() != 0) {
-            for (org.wso2.carbon.user.core.common.User coreUser : coreUsers) {
-                String userId = coreUser.getUserID();
-                String userName;
-                String primaryLoginIdentifier;
-                if (isLoginIdentifiersEnabled() && StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim()) &&
-                        StringUtils.isNotBlank(primaryLoginIdentifier = carbonUM.getUserClaimValue(
-                                coreUser.getUsername(), getPrimaryLoginIdentifierClaim(), null))) {
-                    userName = getDomainQualifiedUsername(primaryLoginIdentifier, coreUser);
-                } else {
-                    userName = coreUser.getDomainQualifiedUsername();
+            for (User user : buildGroupMembers(coreUsers, isMemberDisplayRequired)) {
+                group.setMember(user);
+            }
+        }
+    }
+
+    /**
+     * Build the members of a group with the id, display name and location of the given users. When the primary
+     * login identifiers are enabled, the primary login identifiers of all the users are retrieved in bulk to build
+     * the display names.
+     *
+     * @param coreUsers               Users of the group.
+     * @param isMemberDisplayRequired Whether the display names of the members are requested. If not, the primary
+     *                                login identifiers of the members are not retrieved.
+     * @return Members of the group.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while retrieving the claims.
+     * @throws CharonException                              If an error occurred while building the members.
+     * @throws BadRequestException                          If an error occurred while building the members.
+     */
+    List<User> buildGroupMembers(List<org.wso2.carbon.user.core.common.User> coreUsers,
+                                 boolean isMemberDisplayRequired)
+            throws org.wso2.carbon.user.core.UserStoreException, CharonException, BadRequestException {
+
+        Map<String, String> primaryLoginIdentifiers = Collections.emptyMap();
+        if (isMemberDisplayRequired && isLoginIdentifiersEnabled() &&
+                StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim())) {
+            primaryLoginIdentifiers = getClaimValueOfUsers(coreUsers, getPrimaryLoginIdentifierClaim());
+        }
+        boolean isDomainMandated = mandateDomainForUsernamesAndGroupNamesInResponse();
+        List<User> members = new ArrayList<>(coreUsers.size());
+        for (org.wso2.carbon.user.core.common.User coreUser : coreUsers) {
+            String userId = coreUser.getUserID();
+            String userName;
+            String primaryLoginIdentifier = primaryLoginIdentifiers.get(userId);
+            if (StringUtils.isNotBlank(primaryLoginIdentifier)) {
+                userName = isDomainMandated ? prependDomain(primaryLoginIdentifier) :
+                        getDomainQualifiedUsername(primaryLoginIdentifier, coreUser);
+            } else {
+                userName = coreUser.getDomainQualifiedUsername();
+                if (isDomainMandated) {
+                    userName = prependDomain(userName);
                 }
-                if (mandateDomainForUsernamesAndGroupNamesInResponse()) {
-                    if (isLoginIdentifiersEnabled() && StringUtils.isNotBlank(getPrimaryLoginIdentifierClaim()) &&
-                            StringUtils.isNotBlank(primaryLoginIdentifier = carbonUM.getUserClaimValue(
-                                    coreUser.getUsername(), getPrimaryLoginIdentifierClaim(), null))) {
-                        userName = prependDomain(primaryLoginIdentifier);
-                    } else {
-                        userName = prependDomain(userName);
-                    }
+            }
+            String locationURI = SCIMCommonUtils.getSCIMUserURL(userId);
+            User user = new User();
+            user.setUserName(userName);
+            user.setId(userId);
+            user.setLocation(locationURI);
+            members.add(user);
+        }
+        return members;
+    }
+
+    /**
+     * Get the value of the given claim of the given users. The claim values are retrieved in chunks, with a single
+     * user store query per chunk.
+     *
+     * @param coreUsers Users.
+     * @param claimURI  Claim URI.
+     * @return Map of user IDs to the claim values. Users without a value for the claim are not included.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while retrieving the claim values.
+     */
+    private Map<String, String> getClaimValueOfUsers(List<org.wso2.carbon.user.core.common.User> coreUsers,
+                                                     String claimURI)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        List<String> userIds = new ArrayList<>(coreUsers.size());
+        for (org.wso2.carbon.user.core.common.User coreUser : coreUsers) {
+            if (StringUtils.isNotBlank(coreUser.getUserID())) {
+                userIds.add(coreUser.getUserID());
+            }
+        }
+        Map<String, String> claimValues = new HashMap<>();
+        List<String> claims = Collections.singletonList(claimURI);
+        for (int i = 0; i < userIds.size(); i += MAX_USERS_PER_CLAIM_QUERY) {
+            List<String> chunk = userIds.subList(i, Math.min(i + MAX_USERS_PER_CLAIM_QUERY, userIds.size()));
+            List<UniqueIDUserClaimSearchEntry> searchEntries = carbonUM.getUsersClaimValuesWithID(chunk, claims,
+                    null);
+            for (Map.Entry<String, UniqueIDUserClaimSearchEntry> searchEntry :
+                    indexSearchEntriesByUserID(searchEntries).entrySet()) {
+                Map<String, String> userClaims = searchEntry.getValue().getClaims();
+                if (userClaims != null && StringUtils.isNotBlank(userClaims.get(claimURI))) {
+                    claimValues.put(searchEntry.getKey(), userClaims.get(claimURI));
                 }
-                String locationURI = SCIMCommonUtils.getSCIMUserURL(userId);
-                User user = new User();
-                user.setUserName(userName);
-                user.setId(userId);
-                user.setLocation(locationURI);
-                group.setMember(user);
             }
         }
+        return claimValues;
     }
 
     /**
@@ -4496,26 +6006,24 @@ public class SCIMUserManager implements UserManager {
             CharonException, IdentitySCIMException, BadRequestException {
 
         String groupName = group.getDisplayName();
-        Map<String, Group> groupMetaAttributesCache = new HashMap<>();
         if (CarbonConstants.ENABLE_LEGACY_AUTHZ_RUNTIME) {
             List<String> rolesOfGroup = carbonUM.getHybridRoleListOfGroup(UserCoreUtil.removeDomainFromName(groupName),
                     UserCoreUtil.extractDomainFromName(groupName));
-            // Add roles of group.
+            // Carbon specific roles do not possess SCIM info, hence skipping them.
+            Set<String> scimRolesOfGroup = new LinkedHashSet<>();
             for (String roleName : rolesOfGroup) {
-                if (CarbonConstants.REGISTRY_ANONNYMOUS_ROLE_NAME.equalsIgnoreCase(roleName)) {
-                    // Carbon specific roles do not possess SCIM info, hence skipping them.
-                    continue;
+                if (!CarbonConstants.REGISTRY_ANONNYMOUS_ROLE_NAME.equalsIgnoreCase(roleName)) {
+                    scimRolesOfGroup.add(roleName);
                 }
-
+            }
+            /*
+             * Group attributes of all the roles are retrieved at once. Role names will be retrieved from the
+             * userstore.
+             */
+            Map<String, Group> groupMetaAttributesCache = getGroupsOnlyWithMetaAttributes(scimRolesOfGroup);
+            // Add roles of group.
+            for (String roleName : scimRolesOfGroup) {
                 Group groupObject = groupMetaAttributesCache.get(roleName);
-                if (groupObject == null && !groupMetaAttributesCache.containsKey(roleName)) {
-                    /*
-                     * Here getGroupOnlyWithMetaAttributes used to get role names. Group attributes will be retrieved
-                     * from the userstore.
-                     */
-                    groupObject = getGroupOnlyWithMetaAttributes(roleName);
-                    groupMetaAttributesCache.put(roleName, groupObject);
-                }
 
                 Role role = new Role();
                 role.setDisplayName(removeInternalDomain(groupObject.getDisplayName()));
@@ -5135,25 +6643,41 @@ public class SCIMUserManager implements UserManager {
     /**
      * Check whether claim is an immutable claim.
      *
-     * @param claim claim URI.
+     * @param claim                claim URI.
+     * @param immutableLocalClaims Local claims mapped to immutable SCIM claims of the tenant.
      * @return
      */
-    private boolean isImmutableClaim(String claim) throws UserStoreException {
+    private boolean isImmutableClaim(String claim, Set<String> immutableLocalClaims) {
 
-        Map<String, String> claimMappings = SCIMCommonUtils.getSCIMtoLocalMappings();
-
-        return claim.equals(claimMappings.get(SCIMConstants.CommonSchemaConstants.ID_URI)) ||
-                claim.equals(claimMappings.get(SCIMConstants.UserSchemaConstants.USER_NAME_URI)) ||
-                claim.equals(claimMappings.get(SCIMConstants.UserSchemaConstants.ROLES_URI + "."
-                        + SCIMConstants.DEFAULT)) ||
-                claim.equals(claimMappings.get(SCIMConstants.CommonSchemaConstants.CREATED_URI)) ||
-                claim.equals(claimMappings.get(SCIMConstants.CommonSchemaConstants.LAST_MODIFIED_URI)) ||
-                claim.equals(claimMappings.get(SCIMConstants.CommonSchemaConstants.LOCATION_URI)) ||
-                claim.equals(claimMappings.get(SCIMConstants.UserSchemaConstants.FAMILY_NAME_URI)) ||
-                claim.equals(claimMappings.get(SCIMConstants.UserSchemaConstants.GROUP_URI)) ||
+        return immutableLocalClaims.contains(claim) ||
                 claim.contains(UserCoreConstants.ClaimTypeURIs.IDENTITY_CLAIM_URI_PREFIX);
     }
 
+    /**
+     * Remove the given claims of the user, except the immutable claims, in a single user store operation.
+     *
+     * @param userId            ID of the user.
+     * @param claimsToBeDeleted Claims to be removed.
+     * @param claimList         User claim list, from which the removed claims are removed.
+     * @throws UserStoreException Error while accessing the user store.
+     */
+    private void deleteUserClaims(String userId, Set<String> claimsToBeDeleted, Map<String, String> claimList)
+            throws UserStoreException {
+
+        Set<String> immutableLocalClaims = SCIMCommonUtils.getImmutableLocalClaims();
+        List<String> deletableClaims = new ArrayList<>();
+        for (String claim : claimsToBeDeleted) {
+            if (!isImmutableClaim(claim, immutableLocalClaims)) {
+                deletableClaims.add(claim);
+            }
+        }
+        if (deletableClaims.isEmpty()) {
+            return;
+        }
+        carbonUM.deleteUserClaimValuesWithID(userId, deletableClaims.toArray(new String[0]), null);
+        claimList.keySet().removeAll(deletableClaims);
+    }
+
     /**
      * Get the local claims mapped to the required scim claims.
      */
@@ -5182,11 +6706,13 @@ public class SCIMUserManager implements UserManager {
      * @param user         {@link User} object.
      * @param oldClaimList User claim list for the user's existing state.
      * @param newClaimList User claim list for the user's new state.
+     * @return User claim list for the user's updated state or null if it has to be read from the user store.
      * @throws UserStoreException Error while accessing the user store.
      * @throws CharonException    {@link CharonException}.
      */
-    private void updateUserClaims(User user, Map<String, String> oldClaimList,
-                                  Map<String, String> newClaimList) throws UserStoreException, CharonException {
+    private Map<String, String> updateUserClaims(User user, Map<String, String> oldClaimList,
+                                                 Map<String, String> newClaimList)
+            throws UserStoreException, CharonException {
 
         Map<String, String> userClaimsToBeAdded = new HashMap<>(newClaimList);
         Map<String, String> userClaimsToBeDeleted = new HashMap<>(oldClaimList);
@@ -5207,15 +6733,38 @@ public class SCIMUserManager implements UserManager {
         }
 
         // Remove user claims.
-        for (Map.Entry<String, String> entry : userClaimsToBeDeleted.entrySet()) {
-            if (!isImmutableClaim(entry.getKey())) {
-                carbonUM.deleteUserClaimValueWithID(user.getId(), entry.getKey(), null);
-            }
-        }
+        Map<String, String> updatedClaimList = new HashMap<>(oldClaimList);
+        deleteUserClaims(user.getId(), userClaimsToBeDeleted.keySet(), updatedClaimList);
 
         // Update user claims.
         userClaimsToBeModified.putAll(userClaimsToBeAdded);
+        Map<String, String> requestedClaims = new HashMap<>(userClaimsToBeModified);
         carbonUM.setUserClaimValuesWithID(user.getId(), userClaimsToBeModified, null);
+        return applyWrittenClaims(updatedClaimList, requestedClaims, userClaimsToBeModified);
+    }
+
+    /**
+     * Apply the claims written to the user store on top of the user's claims. The listeners of the user store manager
+     * receive the same claim map, hence the claims they add (i.e. the last modified time) are available in it. If a
+     * listener dropped or changed any of the requested claims, the written state is not known.
+     *
+     * @param claimList       User claim list before writing the claims.
+     * @param requestedClaims Claims requested to be written.
+     * @param writtenClaims   Claim map after it has been passed to the user store manager.
+     * @return User claim list after writing the claims or null if it has to be read from the user store.
+     */
+    private Map<String, String> applyWrittenClaims(Map<String, String> claimList, Map<String, String> requestedClaims,
+                                                   Map<String, String> writtenClaims) {
+
+        if (!writtenClaims.entrySet().containsAll(requestedClaims.entrySet())) {
+            if (log.isDebugEnabled()) {
+                log.debug("User claims were modified by a listener while updating. Hence the claims of the updated " +
+                        "user will be read from the user store.");
+            }
+            return null;
+        }
+        claimList.putAll(writtenClaims);
+        return claimList;
     }
 
     /**
@@ -5227,11 +6776,13 @@ public class SCIMUserManager implements UserManager {
      * @param newClaimList                   User claim list for the user's new state.
      * @param allSimpleMultiValuedClaimsList User claim list which maps to simple multi-valued attributes in SCIM
      *                                       schema.
+     * @return User claim list for the user's updated state or null if it has to be read from the user store.
      * @throws UserStoreException Error while accessing the user store.
      * @throws CharonException    {@link CharonException}.
      */
-    private void updateUserClaims(User user, Map<String, String> oldClaimList,
-                                  Map<String, String> newClaimList, Map<String, String> allSimpleMultiValuedClaimsList)
+    private Map<String, String> updateUserClaims(User user, Map<String, String> oldClaimList,
+                                                 Map<String, String> newClaimList,
+                                                 Map<String, String> allSimpleMultiValuedClaimsList)
             throws UserStoreException, CharonException {
 
         Map<String, List<String>> simpleMultiValuedClaimsToBeAdded = new HashMap<>();
@@ -5291,23 +6842,23 @@ public class SCIMUserManager implements UserManager {
         }
 
         // Remove user claims.
-        for (Map.Entry<String, String> entry : userClaimsToBeDeleted.entrySet()) {
-            if (!isImmutableClaim(entry.getKey())) {
-                carbonUM.deleteUserClaimValueWithID(user.getId(), entry.getKey(), null);
-            }
-        }
+        Map<String, String> updatedClaimList = new HashMap<>(oldClaimList);
+        deleteUserClaims(user.getId(), userClaimsToBeDeleted.keySet(), updatedClaimList);
 
         // Update user claims.
         userClaimsToBeModified.putAll(userClaimsToBeAdded);
         if (MapUtils.isEmpty(simpleMultiValuedClaimsToBeAdded) &&
                 MapUtils.isEmpty(simpleMultiValuedClaimsToBeRemoved)) {
             // If no multi-valued attribute is modified.
+            Map<String, String> requestedClaims = new HashMap<>(userClaimsToBeModified);
             carbonUM.setUserClaimValuesWithID(user.getId(), userClaimsToBeModified, null);
-        } else {
-            carbonUM.setUserClaimValuesWithID(user.getId(), convertClaimValuesToList(oldClaimList),
-                    simpleMultiValuedClaimsToBeAdded, simpleMultiValuedClaimsToBeRemoved,
-                    convertClaimValuesToList(userClaimsToBeModified), null);
+            return applyWrittenClaims(updatedClaimList, requestedClaims, userClaimsToBeModified);
         }
+        // Multi-valued claims are merged by the user store, hence the updated values have to be read back.
+        carbonUM.setUserClaimValuesWithID(user.getId(), convertClaimValuesToList(oldClaimList),
+                simpleMultiValuedClaimsToBeAdded, simpleMultiValuedClaimsToBeRemoved,
+                convertClaimValuesToList(userClaimsToBeModified), null);
+        return null;
     }
 
     /**
@@ -5331,21 +6882,101 @@ public class SCIMUserManager implements UserManager {
     }
 
     /**
-     * Validate whether the user exists in a userstore.
+     * Get the user core user of the user being updated.
      *
      * @param user User object.
-     * @return Whether the user exists in the userstore.
-     * @throws org.wso2.carbon.user.core.UserStoreException Error occurred while checking user existence by id.
-     * @throws CharonException                              Error occurred while checking user existence by username.
+     * @return User core user.
+     * @throws org.wso2.carbon.user.core.UserStoreException Error occurred while retrieving the user.
+     * @throws CharonException                              If the user does not exist in the userstore.
      */
-    private boolean validateUserExistence(User user)
+    private org.wso2.carbon.user.core.common.User getExistingCoreUser(User user)
             throws org.wso2.carbon.user.core.UserStoreException, CharonException {
 
+        org.wso2.carbon.user.core.common.User coreUser;
         if (StringUtils.isNotEmpty(user.getId())) {
-            return carbonUM.isExistingUserWithID(user.getId());
+            coreUser = carbonUM.getUserWithID(user.getId(), null, UserCoreConstants.DEFAULT_PROFILE);
         } else {
-            return carbonUM.isExistingUser(user.getUserName());
+            coreUser = carbonUM.getUser(null, user.getUserName());
+        }
+        if (coreUser == null) {
+            throw new CharonException("User name is immutable in carbon user store.");
+        }
+        return coreUser;
+    }
+
+    /**
+     * Get the username of the user as it is set in the SCIM response, when the primary login identifier is not used
+     * as the username.
+     *
+     * @param coreUser User core user.
+     * @return Username of the user.
+     */
+    private String getUserNameOfResponse(org.wso2.carbon.user.core.common.User coreUser) {
+
+        if (mandateDomainForUsernamesAndGroupNamesInResponse()) {
+            return prependDomain(coreUser.getDomainQualifiedUsername());
+        }
+        return coreUser.getDomainQualifiedUsername();
+    }
+
+    /**
+     * Get the claims of the updated user from the claims loaded before the update and the claims written during the
+     * update. The meta claims, which are not updated through SCIM, are taken from the loaded claims.
+     *
+     * @param isPasswordUpdated Whether the password of the user is updated.
+     * @param storedClaims      User claims loaded before the update.
+     * @param updatedClaims     User claims after the update or null if they are not known.
+     * @return Claims of the updated user or null if they have to be read from the user store.
+     */
+    private Map<String, String> getClaimsOfUpdatedUser(boolean isPasswordUpdated, Map<String, String> storedClaims,
+                                                       Map<String, String> updatedClaims) {
+
+        // Listeners of the credential update can modify the claims of the user.
+        if (updatedClaims == null || isPasswordUpdated) {
+            return null;
+        }
+        for (String metaClaim : Arrays.asList(LOCATION_CLAIM, LAST_MODIFIED_CLAIM, RESOURCE_TYPE_CLAIM)) {
+            if (storedClaims.containsKey(metaClaim) && !updatedClaims.containsKey(metaClaim)) {
+                updatedClaims.put(metaClaim, storedClaims.get(metaClaim));
+            }
+        }
+        return updatedClaims;
+    }
+
+    /**
+     * Build the SCIM user of the response of a user update. The user is built from the claims of the updated user
+     * when they are known, otherwise the user is read from the user store.
+     *
+     * @param coreUser                     User core user.
+     * @param requiredAttributes           A map of required attributes in SCIM schema.
+     * @param requiredClaimsInLocalDialect Required claims in local dialect.
+     * @param scimToLocalClaimsMap         SCIM to local claim mappings of the required claims.
+     * @param updatedClaims                Claims of the updated user or null if they are not known.
+     * @return The updated user.
+     * @throws CharonException     Error while building the user.
+     * @throws BadRequestException Error while building the user.
+     */
+    private User getUpdatedSCIMUser(org.wso2.carbon.user.core.common.User coreUser,
+                                    Map<String, Boolean> requiredAttributes, List<String> requiredClaimsInLocalDialect,
+                                    Map<String, String> scimToLocalClaimsMap, Map<String, String> updatedClaims)
+            throws CharonException, BadRequestException {
+
+        // The version of the user is generated from the stored claims, which include the claims updated by the user
+        // operation listeners, hence the user is read from the user store when entity tags are supported.
+        if (updatedClaims == null || SCIMCommonUtils.isETagSupported()) {
+            return getUser(coreUser.getUserID(), requiredAttributes);
+        }
+        updatedClaims.keySet().retainAll(requiredClaimsInLocalDialect);
+        User scimUser = this.getSCIMUser(coreUser, requiredClaimsInLocalDialect, scimToLocalClaimsMap,
+                updatedClaims, true);
+        if (scimUser != null) {
+            try {
+                scimUser.setSchemas(this);
+            } catch (NotImplementedException e) {
+                throw new CharonException("Error in getting user information from Carbon User Store", e);
+            }
         }
+        return scimUser;
     }
 
     /**
@@ -5488,6 +7119,11 @@ public class SCIMUserManager implements UserManager {
     @Override
     public List<Attribute> getCoreSchema() throws CharonException {
 
+        List<Attribute> cachedSchemaAttributes = getCachedSchemaAttributes(SCIMCommonConstants.SCIM_CORE_CLAIM_DIALECT);
+        if (cachedSchemaAttributes != null) {
+            return cachedSchemaAttributes;
+        }
+        long schemaBuildStartTime = System.currentTimeMillis();
         Map<ExternalClaim, LocalClaim> scimClaimToLocalClaimMap =
                 getMappedLocalClaimsForDialect(SCIMCommonConstants.SCIM_CORE_CLAIM_DIALECT, tenantDomain);
         Map<String, Attribute> filteredFlatAttributeMap = getFilteredSchemaAttributes(scimClaimToLocalClaimMap);
@@ -5498,6 +7134,8 @@ public class SCIMUserManager implements UserManager {
         if (log.isDebugEnabled()) {
             logSchemaAttributes(coreSchemaAttributesList);
         }
+        cacheSchemaAttributes(SCIMCommonConstants.SCIM_CORE_CLAIM_DIALECT, coreSchemaAttributesList,
+                schemaBuildStartTime);
 
         return coreSchemaAttributesList;
     }
@@ -5505,6 +7143,11 @@ public class SCIMUserManager implements UserManager {
     @Override
     public List<Attribute> getUserSchema() throws CharonException {
 
+        List<Attribute> cachedSchemaAttributes = getCachedSchemaAttributes(SCIMCommonConstants.SCIM_USER_CLAIM_DIALECT);
+        if (cachedSchemaAttributes != null) {
+            return cachedSchemaAttributes;
+        }
+        long schemaBuildStartTime = System.currentTimeMillis();
         Map<ExternalClaim, LocalClaim> scimClaimToLocalClaimMap =
                 getMappedLocalClaimsForDialect(SCIMCommonConstants.SCIM_USER_CLAIM_DIALECT, tenantDomain);
 
@@ -5516,6 +7159,8 @@ public class SCIMUserManager implements UserManager {
         if (log.isDebugEnabled()) {
             logSchemaAttributes(userSchemaAttributesList);
         }
+        cacheSchemaAttributes(SCIMCommonConstants.SCIM_USER_CLAIM_DIALECT, userSchemaAttributesList,
+                schemaBuildStartTime);
 
         return userSchemaAttributesList;
     }
@@ -5532,6 +7177,12 @@ public class SCIMUserManager implements UserManager {
         List<Attribute> enterpriseUserSchemaAttributesList = null;
 
         if (SCIMCommonUtils.isEnterpriseUserExtensionEnabled()) {
+            List<Attribute> cachedSchemaAttributes =
+                    getCachedSchemaAttributes(SCIMCommonConstants.SCIM_ENTERPRISE_USER_CLAIM_DIALECT);
+            if (cachedSchemaAttributes != null) {
+                return cachedSchemaAttributes;
+            }
+            long schemaBuildStartTime = System.currentTimeMillis();
             Map<ExternalClaim, LocalClaim> scimClaimToLocalClaimMap =
                     getMappedLocalClaimsForDialect(SCIMCommonConstants.SCIM_ENTERPRISE_USER_CLAIM_DIALECT,
                             tenantDomain);
@@ -5546,6 +7197,8 @@ public class SCIMUserManager implements UserManager {
             if (log.isDebugEnabled()) {
                 logSchemaAttributes(enterpriseUserSchemaAttributesList);
             }
+            cacheSchemaAttributes(SCIMCommonConstants.SCIM_ENTERPRISE_USER_CLAIM_DIALECT,
+                    enterpriseUserSchemaAttributesList, schemaBuildStartTime);
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("Enterprise user schema support disabled.");
@@ -5554,6 +7207,48 @@ public class SCIMUserManager implements UserManager {
         return enterpriseUserSchemaAttributesList;
     }
 
+    /**
+     * Get the cached attributes of the schema of the given claim dialect of the tenant.
+     *
+     * @param schemaDialect Claim dialect of the schema.
+     * @return Copy of the cached schema attributes or null if the schema is not cached.
+     */
+    private List<Attribute> getCachedSchemaAttributes(String schemaDialect) {
+
+        if (tenantDomain == null) {
+            return null;
+        }
+        SCIMUserSchemaCacheEntry cacheEntry = SCIMUserSchemaCache.getInstance()
+                .getUserSchema(IdentityTenantUtil.getTenantId(tenantDomain), schemaDialect);
+        if (cacheEntry == null) {
+            return null;
+        }
+        return new ArrayList<>(cacheEntry.getSchemaAttributes());
+    }
+
+    /**
+     * Add the attributes of the schema of the given claim dialect of the tenant to the cache. The schema is cached
+     * till the claims of the tenant are changed, hence the time taken to build the schema is logged to track how
+     * often and how long the schema is rebuilt.
+     *
+     * @param schemaDialect        Claim dialect of the schema.
+     * @param schemaAttributes     Attributes of the schema.
+     * @param schemaBuildStartTime Time the schema build was started.
+     */
+    private void cacheSchemaAttributes(String schemaDialect, List<Attribute> schemaAttributes,
+                                       long schemaBuildStartTime) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Built the schema of the dialect: " + schemaDialect + " for the tenant: " + tenantDomain +
+                    " in " + (System.currentTimeMillis() - schemaBuildStartTime) + " ms.");
+        }
+        if (tenantDomain == null) {
+            return;
+        }
+        SCIMUserSchemaCache.getInstance().addUserSchema(IdentityTenantUtil.getTenantId(tenantDomain), schemaDialect,
+                new SCIMUserSchemaCacheEntry(schemaAttributes));
+    }
+
     /**
      * Get mapped local claims for the claims in specified external claim dialect.
      *
@@ -6153,15 +7848,15 @@ public class SCIMUserManager implements UserManager {
         return addDomainToNames(userStoreDomainName, groupsList);
     }
 
-    private List<String> getRoles(List<UniqueIDUserClaimSearchEntry> searchEntries,
+    private List<String> getRoles(Map<String, UniqueIDUserClaimSearchEntry> searchEntries,
                                   org.wso2.carbon.user.core.common.User user) throws CharonException {
 
-        // Because user ID is a UUID there is only one match in the search entries, thus safe to use
-        // the `findAny` method with the advantage of a faster search time.
-        UniqueIDUserClaimSearchEntry searchEntry = searchEntries.stream().filter(
-                entry -> entry.getUser().getUserID().equals(user.getUserID())).findAny().get();
-        String roles = searchEntry.getClaims().get(INTERNAL_ROLES_CLAIM);
+        UniqueIDUserClaimSearchEntry searchEntry = searchEntries.get(user.getUserID());
         List<String> rolesList = new ArrayList<>();
+        if (searchEntry == null || searchEntry.getClaims() == null) {
+            return rolesList;
+        }
+        String roles = searchEntry.getClaims().get(INTERNAL_ROLES_CLAIM);
         if (StringUtils.isNotBlank(roles)) {
             String multivaluedAttributeSeparator = getMultivaluedAttributeSeparator(
                     user.getUserStoreDomain());
@@ -6170,6 +7865,28 @@ public class SCIMUserManager implements UserManager {
         return rolesList;
     }
 
+    /**
+     * Index the claim search entries returned from the user store by user ID. Entries without a user ID are
+     * skipped as they cannot be matched to a user of the page.
+     *
+     * @param searchEntries Claim search entries returned from the user store.
+     * @return Map of user ID to the claim search entry of the user.
+     */
+    private Map<String, UniqueIDUserClaimSearchEntry> indexSearchEntriesByUserID(
+            List<UniqueIDUserClaimSearchEntry> searchEntries) {
+
+        if (CollectionUtils.isEmpty(searchEntries)) {
+            return Collections.emptyMap();
+        }
+        Map<String, UniqueIDUserClaimSearchEntry> searchEntryIndex = new HashMap<>(searchEntries.size() * 4 / 3 + 1);
+        for (UniqueIDUserClaimSearchEntry entry : searchEntries) {
+            if (entry.getUser() != null && StringUtils.isNotBlank(entry.getUser().getUserID())) {
+                searchEntryIndex.put(entry.getUser().getUserID(), entry);
+            }
+        }
+        return searchEntryIndex;
+    }
+
     /**
      * Return list of attributes in the custom schema of the tenant.
      *
@@ -6185,7 +7902,11 @@ public class SCIMUserManager implements UserManager {
             }
             return null;
         }
-        List<Attribute> customUserSchemaAttributesList = null;
+        List<Attribute> customUserSchemaAttributesList = getCachedSchemaAttributes(getCustomSchemaURI());
+        if (customUserSchemaAttributesList != null) {
+            return customUserSchemaAttributesList;
+        }
+        long schemaBuildStartTime = System.currentTimeMillis();
 
         Map<ExternalClaim, LocalClaim> scimClaimToLocalClaimMap =
                 getMappedLocalClaimsForDialect(getCustomSchemaURI(), tenantDomain);
@@ -6200,6 +7921,7 @@ public class SCIMUserManager implements UserManager {
         if (log.isDebugEnabled()) {
             logSchemaAttributes(customUserSchemaAttributesList);
         }
+        cacheSchemaAttributes(getCustomSchemaURI(), customUserSchemaAttributesList, schemaBuildStartTime);
         return customUserSchemaAttributesList;
     }
 
@@ -6251,7 +7973,13 @@ public class SCIMUserManager implements UserManager {
         if (group == null) {
             return null;
         }
-        String groupName = group.getGroupName();
+        return buildGroup(group.getGroupName(), group.getGroupID(), group.getLocation(), group.getCreatedDate(),
+                group.getLastModifiedDate());
+    }
+
+    private Group buildGroup(String groupName, String groupId, String location, String createdDate,
+                             String lastModifiedDate) throws BadRequestException, CharonException {
+
         Group scimGroup = new Group();
         if (mandateDomainForUsernamesAndGroupNamesInResponse()) {
             groupName = prependDomain(groupName);
@@ -6262,24 +7990,23 @@ public class SCIMUserManager implements UserManager {
         } else {
             scimGroup.setDisplayName(groupName);
         }
-        scimGroup.setId(group.getGroupID());
-        if (StringUtils.isBlank(group.getLocation())) {
+        scimGroup.setId(groupId);
+        if (StringUtils.isBlank(location)) {
             // Location has not been sent from the user core. Therefore we need to use the group id to build location.
-            scimGroup.setLocation(SCIMCommonUtils.getSCIMGroupURL(group.getGroupID()));
+            scimGroup.setLocation(SCIMCommonUtils.getSCIMGroupURL(groupId));
         } else {
-            scimGroup.setLocation(group.getLocation());
+            scimGroup.setLocation(location);
         }
         // Validate dates.
-        if (StringUtils.isNotBlank(group.getCreatedDate())) {
-            scimGroup.setCreatedInstant(Date.from(AttributeUtil.parseDateTime(group.getCreatedDate())).toInstant());
+        if (StringUtils.isNotBlank(createdDate)) {
+            scimGroup.setCreatedInstant(Date.from(AttributeUtil.parseDateTime(createdDate)).toInstant());
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("Group created date is not specified for group: " + groupName);
             }
         }
-        if (StringUtils.isNotBlank(group.getLastModifiedDate())) {
-            scimGroup.setLastModifiedInstant(
-                    Date.from(AttributeUtil.parseDateTime(group.getLastModifiedDate())).toInstant());
+        if (StringUtils.isNotBlank(lastModifiedDate)) {
+            scimGroup.setLastModifiedInstant(Date.from(AttributeUtil.parseDateTime(lastModifiedDate)).toInstant());
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("Group last modified date is not specified for group: " + groupName);
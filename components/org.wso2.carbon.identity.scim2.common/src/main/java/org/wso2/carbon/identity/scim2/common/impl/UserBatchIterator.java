@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.impl;
+
+import org.wso2.charon3.core.exceptions.BadRequestException;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.objects.User;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Pull based iterator over the users of a page of the Users listing. The SCIM users of a batch are built from the
+ * user store only when the batch is requested, hence only a single batch of users is held in memory at a time.
+ */
+public class UserBatchIterator {
+
+    private final SCIMUserManager scimUserManager;
+    private final Iterator<org.wso2.carbon.user.core.common.User> coreUsers;
+    private final Map<String, Boolean> requiredAttributes;
+    private final int batchSize;
+    private final int totalResults;
+
+    UserBatchIterator(SCIMUserManager scimUserManager, Set<org.wso2.carbon.user.core.common.User> coreUsers,
+                      Map<String, Boolean> requiredAttributes, int batchSize, int totalResults) {
+
+        this.scimUserManager = scimUserManager;
+        this.coreUsers = coreUsers.iterator();
+        this.requiredAttributes = requiredAttributes;
+        this.batchSize = Math.max(batchSize, 1);
+        this.totalResults = totalResults;
+    }
+
+    /**
+     * Get the total number of results of the listing.
+     *
+     * @return Total number of results.
+     */
+    public int getTotalResults() {
+
+        return totalResults;
+    }
+
+    /**
+     * Check whether there are more users to be retrieved.
+     *
+     * @return True if there are more users.
+     */
+    public boolean hasNext() {
+
+        return coreUsers.hasNext();
+    }
+
+    /**
+     * Build the SCIM users of the next batch. The returned batch can be empty if none of the users of the batch are
+     * eligible to be returned.
+     *
+     * @return SCIM users of the next batch.
+     * @throws CharonException     Error while retrieving the users.
+     * @throws BadRequestException Error while retrieving the users.
+     */
+    public List<User> nextBatch() throws CharonException, BadRequestException {
+
+        if (!coreUsers.hasNext()) {
+            throw new NoSuchElementException("No more users to be retrieved.");
+        }
+        Set<org.wso2.carbon.user.core.common.User> batch = new LinkedHashSet<>();
+        while (coreUsers.hasNext() && batch.size() < batchSize) {
+            batch.add(coreUsers.next());
+        }
+        List<User> users = scimUserManager.getUserDetails(batch, requiredAttributes);
+        return users == null ? Collections.emptyList() : users;
+    }
+}
@@ -122,6 +122,14 @@ public class SCIMCommonComponent {
             ctx.getBundleContext().registerService(GroupResolver.class.getName(),
                     new SCIMGroupResolver(), null);
 
+            if (SCIMCommonUtils.isParallelUserStoreFilteringEnabled()) {
+                SCIMCommonComponentHolder.setUserStoreFilteringExecutorService(
+                        Executors.newFixedThreadPool(SCIMCommonUtils.getParallelUserStoreFilteringPoolSize()));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Parallel user store filtering is enabled for SCIM user listing.");
+                }
+            }
+
             //Update super tenant user/group attributes.
             AdminAttributeUtil.updateAdminUser(MultitenantConstants.SUPER_TENANT_ID, true);
             AdminAttributeUtil.updateAdminGroup(MultitenantConstants.SUPER_TENANT_ID);
@@ -371,5 +379,12 @@ public class SCIMCommonComponent {
         if (userOperationEventListenerServiceReg != null) {
             userOperationEventListenerServiceReg.unregister();
         }
+
+        ExecutorService userStoreFilteringExecutorService =
+                SCIMCommonComponentHolder.getUserStoreFilteringExecutorService();
+        if (userStoreFilteringExecutorService != null) {
+            userStoreFilteringExecutorService.shutdown();
+            SCIMCommonComponentHolder.setUserStoreFilteringExecutorService(null);
+        }
     }
 }
@@ -29,6 +29,7 @@ import org.wso2.carbon.identity.role.mgt.core.RoleManagementService;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * SCIM service holder class.
@@ -44,6 +45,7 @@ public class SCIMCommonComponentHolder {
     private static OrganizationManager organizationManager;
     private static IdpManager idpManager;
     private static final List<SCIMUserStoreErrorResolver> scimUserStoreErrorResolvers = new ArrayList<>();
+    private static ExecutorService userStoreFilteringExecutorService;
 
     /**
      * Get realm service.
@@ -192,6 +194,26 @@ public class SCIMCommonComponentHolder {
         return idpManager;
     }
 
+    /**
+     * Get the executor service used to filter users across user store domains in parallel.
+     *
+     * @return Executor service or null if parallel user store filtering is not enabled.
+     */
+    public static ExecutorService getUserStoreFilteringExecutorService() {
+
+        return userStoreFilteringExecutorService;
+    }
+
+    /**
+     * Set the executor service used to filter users across user store domains in parallel.
+     *
+     * @param executorService Executor service.
+     */
+    public static void setUserStoreFilteringExecutorService(ExecutorService executorService) {
+
+        SCIMCommonComponentHolder.userStoreFilteringExecutorService = executorService;
+    }
+
     public static void addScimUserStoreErrorResolver(SCIMUserStoreErrorResolver scimUserStoreErrorResolver) {
 
         scimUserStoreErrorResolvers.add(scimUserStoreErrorResolver);
@@ -44,6 +44,8 @@ import org.wso2.carbon.user.core.model.OperationalCondition;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.charon3.core.schema.SCIMConstants;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -410,9 +412,11 @@ public class SCIMGroupResolver extends AbstractIdentityGroupResolver {
                 }
                 return true;
             }
-            // Get details of the groups.
+            // Get details of all the groups at once.
+            Map<String, Map<String, String>> groupAttributes =
+                    groupDAO.getSCIMGroupAttributesOfGroups(tenantId, Arrays.asList(groupNames));
             for (String groupName : groupNames) {
-                Map<String, String> attributes = groupDAO.getSCIMGroupAttributes(tenantId, groupName);
+                Map<String, String> attributes = groupAttributes.getOrDefault(groupName, Collections.emptyMap());
                 String groupId = attributes.get(SCIMConstants.CommonSchemaConstants.ID_URI);
                 String domainName = UserCoreUtil.extractDomainFromName(groupName);
                 Group group = new Group(groupId, resolveGroupName(groupName, domainName));
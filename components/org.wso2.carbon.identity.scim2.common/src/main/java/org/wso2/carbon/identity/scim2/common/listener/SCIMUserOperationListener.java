@@ -33,6 +33,8 @@ import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMGroupMetadataCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMUserCountCache;
 import org.wso2.carbon.identity.scim2.common.exceptions.IdentitySCIMException;
 import org.wso2.carbon.identity.scim2.common.group.SCIMGroupHandler;
 import org.wso2.carbon.identity.scim2.common.internal.SCIMCommonComponentHolder;
@@ -108,7 +110,11 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
             if (SCIMCommonUtils.isRegexValidationForUserClaimEnabled()) {
                 validateClaimValue(claims, userStoreManager);
             }
-            this.populateSCIMAttributes(userID, claims);
+            /*
+             The SCIM ID, created and lastModified claims are written with the initial insert of the user. User stores
+             with unique user IDs generate the SCIM ID themselves, hence it is not generated for them.
+             */
+            this.populateSCIMAttributes(claims, !isUniqueUserIdEnabled(userStoreManager));
             return true;
         } catch (org.wso2.carbon.user.api.UserStoreException e) {
             throw new UserStoreException("Error while reading isScimEnabled from userstore manager", e);
@@ -120,17 +126,27 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
                                        String profile, UserStoreManager userStoreManager) throws UserStoreException {
 
         try {
-            if (!isEnable() || userStoreManager == null || !userStoreManager.isSCIMEnabled()) {
+            if (!isEnable() || userStoreManager == null) {
+                return true;
+            }
+            adjustUserCount(userStoreManager, 1);
+            if (!userStoreManager.isSCIMEnabled()) {
                 return true;
             }
-
-            Map<String, String> scimToLocalMappings = SCIMCommonUtils.getSCIMtoLocalMappings();
-            String userIdLocalClaimUri = scimToLocalMappings.get(SCIMConstants.CommonSchemaConstants.ID_URI);
 
             // If the SCIM ID claims is already there, we don't need to re-generate it.
             if (StringUtils.isBlank(user.getUserID())) {
+                Map<String, String> scimToLocalMappings = SCIMCommonUtils.getSCIMtoLocalMappings();
+                String userIdLocalClaimUri = scimToLocalMappings.get(SCIMConstants.CommonSchemaConstants.ID_URI);
+                // The SCIM ID is added with the initial insert in doPreAddUserWithID, unless the user was added
+                // without claims.
+                if (claims != null && StringUtils.isNotBlank(claims.get(userIdLocalClaimUri))) {
+                    return true;
+                }
                 String userId = UUID.randomUUID().toString();
-                claims.put(userIdLocalClaimUri, userId);
+                if (claims != null) {
+                    claims.put(userIdLocalClaimUri, userId);
+                }
                 userStoreManager.setUserClaimValue(user.getUsername(), userIdLocalClaimUri, userId,
                         UserCoreConstants.DEFAULT_PROFILE);
             }
@@ -140,6 +156,17 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
         }
     }
 
+    @Override
+    public boolean doPostDeleteUserWithID(String userID, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        if (!isEnable() || userStoreManager == null) {
+            return true;
+        }
+        adjustUserCount(userStoreManager, -1);
+        return true;
+    }
+
     @Override
     public boolean doPostUpdateCredentialWithID(String userId, Object credential, UserStoreManager userStoreManager)
             throws UserStoreException {
@@ -591,6 +618,7 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
 
         try {
 
+            clearGroupMetadataCache(userStoreManager);
             SCIMGroupHandler scimGroupHandler = new SCIMGroupHandler(userStoreManager.getTenantId());
 
             String domainName = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
@@ -668,6 +696,23 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
         }
     }
 
+    @Override
+    public boolean doPostDeleteInternalRole(String roleName, UserStoreManager userStoreManager) throws
+            UserStoreException {
+
+        return doPostDeleteRole(roleName, userStoreManager);
+    }
+
+    @Override
+    public boolean doPostDeleteRole(String roleName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        // Groups of all the user stores are cached, hence the cache is cleared even if SCIM is disabled in the store.
+        if (isEnable() && userStoreManager != null) {
+            clearGroupMetadataCache(userStoreManager);
+        }
+        return true;
+    }
+
     @Override
     public boolean doPostUpdateInternalRoleName(String roleName, String newRoleName, UserStoreManager userStoreManager)
             throws UserStoreException {
@@ -679,8 +724,13 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     public boolean doPostUpdateRoleName(String roleName, String newRoleName, UserStoreManager userStoreManager)
             throws UserStoreException {
 
+        if (!isEnable() || userStoreManager == null) {
+            return true;
+        }
+        // Groups of all the user stores are cached, hence the cache is cleared even if SCIM is disabled in the store.
+        clearGroupMetadataCache(userStoreManager);
         try {
-            if (!isEnable() || userStoreManager == null || !userStoreManager.isSCIMEnabled()) {
+            if (!userStoreManager.isSCIMEnabled()) {
                 return true;
             }
         } catch (org.wso2.carbon.user.api.UserStoreException e) {
@@ -722,6 +772,20 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
      */
     public Map<String, String> populateSCIMAttributes(String userId, Map<String, String> claimsMap) {
 
+        return populateSCIMAttributes(claimsMap, false);
+    }
+
+    /**
+     * Populate SCIM Attributes map. When requested, a SCIM ID is generated if the claims do not already have one, so
+     * that it is written with the initial insert of the user. The username given to the pre add listener is never
+     * used as the SCIM ID.
+     *
+     * @param claimsMap     claimsMap
+     * @param addSCIMUserId Whether a SCIM ID should be generated for the user which is being added.
+     * @return attributes map
+     */
+    private Map<String, String> populateSCIMAttributes(Map<String, String> claimsMap, boolean addSCIMUserId) {
+
         Map<String, String> attributes;
         if (claimsMap != null) {
             attributes = claimsMap;
@@ -741,6 +805,11 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
             attributes.put(createdLocalClaimUri, createdDate);
             attributes.put(modifiedLocalClaimUri, createdDate);
             attributes.put(resourceTypeLocalClaimUri, SCIMConstants.USER);
+
+            String idLocalClaimUri = scimToLocalMappings.get(SCIMConstants.CommonSchemaConstants.ID_URI);
+            if (addSCIMUserId && idLocalClaimUri != null && StringUtils.isBlank(attributes.get(idLocalClaimUri))) {
+                attributes.put(idLocalClaimUri, UUID.randomUUID().toString());
+            }
         } catch (UserStoreException ex) {
             log.error("Error occurred while retrieving SCIM-to-Local claims map.", ex);
         }
@@ -775,6 +844,48 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
         return true;
     }
 
+    /**
+     * Check whether the given user store generates the unique user IDs of its users, which are also the SCIM IDs.
+     *
+     * @param userStoreManager User store manager.
+     * @return True if the user store has unique user IDs.
+     */
+    private boolean isUniqueUserIdEnabled(UserStoreManager userStoreManager) {
+
+        return userStoreManager instanceof AbstractUserStoreManager &&
+                ((AbstractUserStoreManager) userStoreManager).isUniqueUserIdEnabled();
+    }
+
+    /**
+     * Adjust the cached user count of the user store domain of the given user store manager.
+     *
+     * @param userStoreManager User store manager of the added or deleted user.
+     * @param delta            Number of users added. Negative for deleted users.
+     * @throws UserStoreException If an error occurred while getting the tenant of the user store manager.
+     */
+    private void adjustUserCount(UserStoreManager userStoreManager, long delta) throws UserStoreException {
+
+        if (!SCIMCommonUtils.isUserCountCacheEnabled()) {
+            return;
+        }
+        String domainName = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
+        SCIMUserCountCache.getInstance().adjustUserCount(userStoreManager.getTenantId(), domainName, delta);
+    }
+
+    /**
+     * Clear the cached meta attributes of the groups and roles of the tenant of the given user store manager.
+     *
+     * @param userStoreManager User store manager of the added, deleted or renamed role.
+     * @throws UserStoreException If an error occurred while getting the tenant of the user store manager.
+     */
+    private void clearGroupMetadataCache(UserStoreManager userStoreManager) throws UserStoreException {
+
+        if (!SCIMCommonUtils.isGroupMetadataCacheEnabled()) {
+            return;
+        }
+        SCIMGroupMetadataCache.getInstance().clearGroupMetadataByTenant(userStoreManager.getTenantId());
+    }
+
     private boolean isIdentityClaimsUpdate(Map<String, String> claims) {
 
         return claims.entrySet().stream().anyMatch(claim -> isIdentityClaimUpdate(claim.getKey()));
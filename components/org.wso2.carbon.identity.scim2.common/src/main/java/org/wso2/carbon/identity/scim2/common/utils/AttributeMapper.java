@@ -24,6 +24,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMAttributeSchemaIndexCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMAttributeSchemaIndexCacheEntry;
 import org.wso2.charon3.core.attributes.AbstractAttribute;
 import org.wso2.charon3.core.attributes.Attribute;
 import org.wso2.charon3.core.attributes.ComplexAttribute;
@@ -268,6 +270,8 @@ public class AttributeMapper {
             default:
                 break;
         }
+        // Resolve the attribute schemas once for the object instead of walking the resource schema per attribute.
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(userManager, scimObjectType);
         for (Map.Entry<String, String> attributeEntry : attributes.entrySet()) {
             if (log.isDebugEnabled()) {
                 log.debug("AttributeKey: " + attributeEntry.getKey() + " AttributeValue:" +
@@ -297,17 +301,17 @@ public class AttributeMapper {
             try {
                 if (attributeNames.length == 1) {
 
-                    constructSCIMObjectFromAttributesOfLevelOne(userManager, attributeEntry, scimObject, attributeNames,
+                    constructSCIMObjectFromAttributesOfLevelOne(schemaIndex, attributeEntry, scimObject, attributeNames,
                             scimObjectType);
 
                 } else if (attributeNames.length == 2) {
 
-                    constructSCIMObjectFromAttributesOfLevelTwo(userManager, attributeEntry, scimObject, attributeNames,
+                    constructSCIMObjectFromAttributesOfLevelTwo(schemaIndex, attributeEntry, scimObject, attributeNames,
                             scimObjectType);
 
                 } else if (attributeNames.length == 3) {
 
-                    constructSCIMObjectFromAttributesOfLevelThree(userManager, attributeEntry, scimObject,
+                    constructSCIMObjectFromAttributesOfLevelThree(schemaIndex, attributeEntry, scimObject,
                             attributeNames, scimObjectType);
                 }
             } catch (CharonException e) {
@@ -333,8 +337,18 @@ public class AttributeMapper {
                                                                    int scimObjectType) throws BadRequestException,
             CharonException, NotFoundException {
 
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(userManager, scimObjectType);
+        constructSCIMObjectFromAttributesOfLevelOne(schemaIndex, attributeEntry, scimObject, attributeNames,
+                scimObjectType);
+    }
+
+    private static void constructSCIMObjectFromAttributesOfLevelOne(
+            SCIMAttributeSchemaIndexCacheEntry schemaIndex, Map.Entry<String, String> attributeEntry,
+            SCIMObject scimObject, String[] attributeNames, int scimObjectType)
+            throws BadRequestException, CharonException, NotFoundException {
+
         //get attribute schema
-        AttributeSchema attributeSchema = getAttributeSchema(userManager, attributeEntry.getKey(), scimObjectType);
+        AttributeSchema attributeSchema = schemaIndex.getAttributeSchema(attributeEntry.getKey());
         if (attributeSchema != null) {
             //either simple valued or multi-valued with simple attributes
             if (attributeSchema.getMultiValued()) {
@@ -400,7 +414,9 @@ public class AttributeMapper {
                                                                    SCIMObject scimObject, String[] attributeNames,
                                                                    int scimObjectType)
             throws BadRequestException, CharonException, NotFoundException {
-        constructSCIMObjectFromAttributesOfLevelOne(null, attributeEntry, scimObject, attributeNames, scimObjectType);
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(null, scimObjectType);
+        constructSCIMObjectFromAttributesOfLevelOne(schemaIndex, attributeEntry, scimObject, attributeNames,
+                scimObjectType);
     }
 
     /**
@@ -420,6 +436,16 @@ public class AttributeMapper {
                                                                    int scimObjectType)
             throws BadRequestException, CharonException, NotFoundException {
 
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(userManager, scimObjectType);
+        constructSCIMObjectFromAttributesOfLevelTwo(schemaIndex, attributeEntry, scimObject, attributeNames,
+                scimObjectType);
+    }
+
+    private static void constructSCIMObjectFromAttributesOfLevelTwo(
+            SCIMAttributeSchemaIndexCacheEntry schemaIndex, Map.Entry<String, String> attributeEntry,
+            SCIMObject scimObject, String[] attributeNames, int scimObjectType)
+            throws BadRequestException, CharonException, NotFoundException {
+
         boolean isComplexMultivaluedSupportEnabled = Boolean.parseBoolean(IdentityUtil.getProperty
                 (SCIM_COMPLEX_MULTIVALUED_ATTRIBUTE_SUPPORT_ENABLED));
 
@@ -432,7 +458,7 @@ public class AttributeMapper {
                 (ADVANCED_ATTRIBUTE_IDENTIFIER)) {
             String[] parentAttributeNames = parentAttributeURI.split(ADVANCED_ATTRIBUTE_IDENTIFIER);
             parentAttributeName = parentAttributeNames[0];
-            AttributeSchema parentAttributeSchema = getAttributeSchema(userManager, parentAttributeName, scimObjectType);
+            AttributeSchema parentAttributeSchema = schemaIndex.getAttributeSchema(parentAttributeName);
 
             if (parentAttributeSchema == null) {
                 if (log.isDebugEnabled()) {
@@ -448,7 +474,7 @@ public class AttributeMapper {
                     parentType);
 
             String typeAttributeURI = parentAttributeName + "." + SCIMConstants.CommonSchemaConstants.TYPE;
-            AttributeSchema typeAttributeSchema = getAttributeSchema(userManager, typeAttributeURI, scimObjectType);
+            AttributeSchema typeAttributeSchema = schemaIndex.getAttributeSchema(typeAttributeURI);
             if (typeAttributeSchema == null) {
                 if (log.isDebugEnabled()) {
                     log.debug("No Type attribute schema found :" + typeAttributeURI);
@@ -458,7 +484,7 @@ public class AttributeMapper {
             DefaultAttributeFactory.createAttribute(typeAttributeSchema, typeSimpleAttribute);
 
             String valueAttributeURI = parentAttributeName + "." + attributeName;
-            AttributeSchema valueSubAttributeSchema = getAttributeSchema(userManager, valueAttributeURI, scimObjectType);
+            AttributeSchema valueSubAttributeSchema = schemaIndex.getAttributeSchema(valueAttributeURI);
 
             if (valueSubAttributeSchema == null) {
                 if (log.isDebugEnabled()) {
@@ -505,7 +531,7 @@ public class AttributeMapper {
             if (parentAttributeURI.equals(attributeEntry.getKey())) {
                 parentAttributeURI = attributeEntry.getKey().replace(":" + attributeNames[1], "");
             }
-            AttributeSchema parentAttributeSchema = getAttributeSchema(userManager, parentAttributeURI, scimObjectType);
+            AttributeSchema parentAttributeSchema = schemaIndex.getAttributeSchema(parentAttributeURI);
 
             if (parentAttributeSchema == null) {
                 if (log.isDebugEnabled()) {
@@ -521,10 +547,10 @@ public class AttributeMapper {
                 AttributeSchema valueSubAttributeSchema = null;
                 if (valueAttributeURI.equals(SCIMConstants.UserSchemaConstants.ADDRESSES_URI)) {
                     valueAttributeURI = valueAttributeURI + ".formatted";
-                    valueSubAttributeSchema = getAttributeSchema(userManager, valueAttributeURI, scimObjectType);
+                    valueSubAttributeSchema = schemaIndex.getAttributeSchema(valueAttributeURI);
                 } else {
                     valueAttributeURI = valueAttributeURI + ".value";
-                    valueSubAttributeSchema = getAttributeSchema(userManager, valueAttributeURI, scimObjectType);
+                    valueSubAttributeSchema = schemaIndex.getAttributeSchema(valueAttributeURI);
                 }
                 //create map with complex value
                 SimpleAttribute typeSimpleAttribute = new SimpleAttribute(SCIMConstants.CommonSchemaConstants.TYPE,
@@ -532,7 +558,7 @@ public class AttributeMapper {
 
                 String typeAttributeURI = attributeEntry.getKey().replace("." + attributeNames[1], "");
                 typeAttributeURI = typeAttributeURI + ".type";
-                AttributeSchema typeAttributeSchema = getAttributeSchema(userManager, typeAttributeURI, scimObjectType);
+                AttributeSchema typeAttributeSchema = schemaIndex.getAttributeSchema(typeAttributeURI);
                 DefaultAttributeFactory.createAttribute(typeAttributeSchema, typeSimpleAttribute);
                 SimpleAttribute valueSimpleAttribute = new SimpleAttribute(valueSubAttributeSchema.getName(),
                         AttributeUtil.getAttributeValueFromString(attributeEntry.getValue(),
@@ -579,7 +605,7 @@ public class AttributeMapper {
                 }
             } else {
                 // Sub attribute of a complex attribute.
-                AttributeSchema subAttributeSchema = getAttributeSchema(userManager, attributeEntry.getKey(), scimObjectType);
+                AttributeSchema subAttributeSchema = schemaIndex.getAttributeSchema(attributeEntry.getKey());
                 AbstractAttribute attribute;
 
                 if (subAttributeSchema.getMultiValued()) {
@@ -635,7 +661,9 @@ public class AttributeMapper {
                                                                    int scimObjectType)
             throws BadRequestException, CharonException, NotFoundException {
 
-        constructSCIMObjectFromAttributesOfLevelTwo(null, attributeEntry, scimObject, attributeNames, scimObjectType);
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(null, scimObjectType);
+        constructSCIMObjectFromAttributesOfLevelTwo(schemaIndex, attributeEntry, scimObject, attributeNames,
+                scimObjectType);
     }
 
     private static void updateComplexAttribute(SCIMObject scimObject, String parentAttributeName, SimpleAttribute
@@ -682,29 +710,39 @@ public class AttributeMapper {
                                                                      SCIMObject scimObject, String[] attributeNames,
                                                                      int scimObjectType)
             throws BadRequestException, CharonException {
+
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(userManager, scimObjectType);
+        constructSCIMObjectFromAttributesOfLevelThree(schemaIndex, attributeEntry, scimObject, attributeNames,
+                scimObjectType);
+    }
+
+    private static void constructSCIMObjectFromAttributesOfLevelThree(
+            SCIMAttributeSchemaIndexCacheEntry schemaIndex, Map.Entry<String, String> attributeEntry,
+            SCIMObject scimObject, String[] attributeNames, int scimObjectType)
+            throws BadRequestException, CharonException {
         String parentAttribute = attributeNames[0];
         //get immediate parent attribute name
         String immediateParentAttributeName = attributeNames[1];
 
         String subAttributeURI = attributeEntry.getKey().replace("." + attributeNames[2], "");
-        AttributeSchema subAttributeSchema = getAttributeSchema(userManager, subAttributeURI, scimObjectType);
+        AttributeSchema subAttributeSchema = schemaIndex.getAttributeSchema(subAttributeURI);
 
         String parentAttributeURI = subAttributeURI.replace(":" + attributeNames[1], "");
-        AttributeSchema attributeSchema = getAttributeSchema(userManager, parentAttributeURI, scimObjectType);
+        AttributeSchema attributeSchema = schemaIndex.getAttributeSchema(parentAttributeURI);
 
         // Differentiate between sub attribute of Complex attribute and a Multivalued attribute with complex value.
         if (subAttributeSchema.getMultiValued()) {
 
             SimpleAttribute typeSimpleAttribute = new SimpleAttribute(SCIMConstants.CommonSchemaConstants.TYPE,
                     attributeNames[2]);
-            AttributeSchema typeAttributeSchema = getAttributeSchema(userManager, subAttributeSchema.getURI()
-                    + ".type", scimObjectType);
+            AttributeSchema typeAttributeSchema = schemaIndex.getAttributeSchema(subAttributeSchema.getURI()
+                    + ".type");
             if (typeAttributeSchema != null) {
                 DefaultAttributeFactory.createAttribute(typeAttributeSchema, typeSimpleAttribute);
             }
 
-            AttributeSchema valueAttributeSchema = getAttributeSchema(userManager, subAttributeSchema.getURI()
-                    + ".value", scimObjectType);
+            AttributeSchema valueAttributeSchema = schemaIndex.getAttributeSchema(subAttributeSchema.getURI()
+                    + ".value");
             SimpleAttribute valueSimpleAttribute = null;
             if (valueAttributeSchema != null) {
                 valueSimpleAttribute = new SimpleAttribute(SCIMConstants.CommonSchemaConstants.VALUE,
@@ -759,7 +797,7 @@ public class AttributeMapper {
             }
         } else {
 
-            AttributeSchema subSubAttributeSchema = getAttributeSchema(userManager, attributeEntry.getKey(), scimObjectType);
+            AttributeSchema subSubAttributeSchema = schemaIndex.getAttributeSchema(attributeEntry.getKey());
             AbstractAttribute attribute;
 
             if (subSubAttributeSchema.getMultiValued()) {
@@ -835,56 +873,49 @@ public class AttributeMapper {
                                                                      int scimObjectType)
             throws BadRequestException, CharonException {
 
-        constructSCIMObjectFromAttributesOfLevelThree(null, attributeEntry, scimObject, attributeNames, scimObjectType);
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex = getAttributeSchemaIndex(null, scimObjectType);
+        constructSCIMObjectFromAttributesOfLevelThree(schemaIndex, attributeEntry, scimObject, attributeNames,
+                scimObjectType);
     }
 
     /**
-     * Return the attribute schema for the asked attribute URI.
+     * Return the schema of a user attribute of the tenant.
      *
-     * @param attributeURI   URI of the SCIM attribute.
+     * @param userManager  User manager used to build the user schema.
+     * @param attributeURI URI of the user attribute.
+     * @return Schema of the attribute or null if there is no user attribute with the given URI.
+     * @throws BadRequestException Error while building the user schema.
+     * @throws CharonException     Error while building the user schema.
+     */
+    public static AttributeSchema getUserAttributeSchema(UserManager userManager, String attributeURI)
+            throws BadRequestException, CharonException {
+
+        return getAttributeSchemaIndex(userManager, SCIMCommonConstants.USER).getAttributeSchema(attributeURI);
+    }
+
+    /**
+     * Return the attribute schema index of the resource type schema of the given SCIM object type. The index of the
+     * user schema of a tenant is cached, as building the user schema requires reading the claims of the tenant.
+     *
+     * @param userManager    User manager used to build the user schema.
      * @param scimObjectType Type of the SCIM object.
-     * @return Schema of the SCIM attribute belonging to the specified attributeURI and scimObjectType.
+     * @return Attribute schema index of the resource type schema.
      */
-    private static AttributeSchema getAttributeSchema(UserManager userManager, String attributeURI, int scimObjectType)
+    private static SCIMAttributeSchemaIndexCacheEntry getAttributeSchemaIndex(UserManager userManager,
+                                                                              int scimObjectType)
             throws BadRequestException, CharonException {
 
-        ResourceTypeSchema resourceSchema = getResourceSchema(userManager, scimObjectType);
-        if (resourceSchema != null) {
-            List<AttributeSchema> attributeSchemas = resourceSchema.getAttributesList();
-            for (AttributeSchema attributeSchema : attributeSchemas) {
-                if (attributeURI.equals(attributeSchema.getURI())) {
-                    return attributeSchema;
-                }
-                if (attributeSchema.getType().equals(SCIMDefinitions.DataType.COMPLEX)) {
-                    if (attributeSchema.getMultiValued()) {
-                        List<AttributeSchema> subAttributeSchemaList = attributeSchema.getSubAttributeSchemas();
-                        for (AttributeSchema subAttributeSchema : subAttributeSchemaList) {
-                            if (attributeURI.equals(subAttributeSchema.getURI())) {
-                                return subAttributeSchema;
-                            }
-                        }
-                    } else {
-                        List<AttributeSchema> subAttributeSchemaList = attributeSchema.getSubAttributeSchemas();
-                        for (AttributeSchema subAttributeSchema : subAttributeSchemaList) {
-                            if (attributeURI.equals(subAttributeSchema.getURI())) {
-                                return subAttributeSchema;
-                            }
-                            if (subAttributeSchema.getType().equals(SCIMDefinitions.DataType.COMPLEX)) {
-                                // This is only valid for extension schema.
-                                List<AttributeSchema> subSubAttributeSchemaList = subAttributeSchema
-                                        .getSubAttributeSchemas();
-                                for (AttributeSchema subSubAttributeSchema : subSubAttributeSchemaList) {
-                                    if (attributeURI.equals(subSubAttributeSchema.getURI())) {
-                                        return subSubAttributeSchema;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        if (userManager == null || scimObjectType != SCIMCommonConstants.USER) {
+            return new SCIMAttributeSchemaIndexCacheEntry(getResourceSchema(userManager, scimObjectType));
+        }
+        int tenantId = SCIMCommonUtils.getTenantId();
+        SCIMAttributeSchemaIndexCacheEntry schemaIndex =
+                SCIMAttributeSchemaIndexCache.getInstance().getAttributeSchemaIndexByTenant(tenantId);
+        if (schemaIndex == null) {
+            schemaIndex = new SCIMAttributeSchemaIndexCacheEntry(getResourceSchema(userManager, scimObjectType));
+            SCIMAttributeSchemaIndexCache.getInstance().addAttributeSchemaIndex(tenantId, schemaIndex);
         }
-        return null;
+        return schemaIndex;
     }
 
     /**
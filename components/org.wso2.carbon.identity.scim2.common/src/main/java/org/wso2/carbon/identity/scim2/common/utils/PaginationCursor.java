@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.charon3.core.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor used for cursor based pagination of the Users and Groups endpoints. A users cursor points to a
+ * position inside a user store domain, identified by the name of the domain and the 1 based index of the next user
+ * inside that domain. A groups cursor holds the last returned group name.
+ */
+public class PaginationCursor {
+
+    private static final String CURSOR_VERSION = "1";
+    private static final String USERS_CURSOR = "users";
+    private static final String GROUPS_CURSOR = "groups";
+    private static final String SEPARATOR = ":";
+
+    private final String domainName;
+    private final String position;
+
+    private PaginationCursor(String domainName, String position) {
+
+        this.domainName = domainName;
+        this.position = position;
+    }
+
+    /**
+     * Create a users cursor.
+     *
+     * @param domainName User store domain name.
+     * @param index      1 based index of the next user inside the domain.
+     * @return Users cursor.
+     */
+    public static PaginationCursor forUsers(String domainName, int index) {
+
+        return new PaginationCursor(domainName, String.valueOf(index));
+    }
+
+    /**
+     * Create a groups cursor.
+     *
+     * @param lastGroupName Last group name of the page.
+     * @return Groups cursor.
+     */
+    public static PaginationCursor forGroups(String lastGroupName) {
+
+        return new PaginationCursor(null, lastGroupName);
+    }
+
+    /**
+     * Decode the users cursor sent in the request. An empty cursor requests the first page.
+     *
+     * @param cursor Cursor value in the request.
+     * @return Decoded cursor.
+     * @throws BadRequestException If the cursor is not a valid users cursor.
+     */
+    public static PaginationCursor decodeUsersCursor(String cursor) throws BadRequestException {
+
+        if (StringUtils.isEmpty(cursor)) {
+            return new PaginationCursor(null, null);
+        }
+        String[] cursorParts = decode(cursor, USERS_CURSOR).split(SEPARATOR, 2);
+        if (cursorParts.length != 2 || StringUtils.isEmpty(cursorParts[1])) {
+            throw new BadRequestException("Invalid cursor: " + cursor, SCIMCommonConstants.INVALID_CURSOR);
+        }
+        PaginationCursor paginationCursor = new PaginationCursor(cursorParts[1], cursorParts[0]);
+        // Validate the position of the cursor.
+        paginationCursor.getPositionAsIndex();
+        return paginationCursor;
+    }
+
+    /**
+     * Decode the groups cursor sent in the request. An empty cursor requests the first page.
+     *
+     * @param cursor Cursor value in the request.
+     * @return Decoded cursor.
+     * @throws BadRequestException If the cursor is not a valid groups cursor.
+     */
+    public static PaginationCursor decodeGroupsCursor(String cursor) throws BadRequestException {
+
+        if (StringUtils.isEmpty(cursor)) {
+            return new PaginationCursor(null, null);
+        }
+        return new PaginationCursor(null, StringUtils.defaultIfEmpty(decode(cursor, GROUPS_CURSOR), null));
+    }
+
+    private static String decode(String cursor, String cursorType) throws BadRequestException {
+
+        try {
+            String decodedCursor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String prefix = CURSOR_VERSION + SEPARATOR + cursorType + SEPARATOR;
+            if (!decodedCursor.startsWith(prefix)) {
+                throw new BadRequestException("Invalid cursor: " + cursor, SCIMCommonConstants.INVALID_CURSOR);
+            }
+            return decodedCursor.substring(prefix.length());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor, SCIMCommonConstants.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Encode the cursor to be sent in the response.
+     *
+     * @return Encoded cursor.
+     */
+    public String encode() {
+
+        String cursor;
+        if (domainName != null) {
+            cursor = CURSOR_VERSION + SEPARATOR + USERS_CURSOR + SEPARATOR + position + SEPARATOR + domainName;
+        } else {
+            cursor = CURSOR_VERSION + SEPARATOR + GROUPS_CURSOR + SEPARATOR + StringUtils.defaultString(position);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the user store domain name of a users cursor.
+     *
+     * @return Domain name or null if the cursor points to the first page.
+     */
+    public String getDomainName() {
+
+        return domainName;
+    }
+
+    public String getPosition() {
+
+        return position;
+    }
+
+    /**
+     * Get the position of the cursor as a 1 based index inside the domain.
+     *
+     * @return Index of the next entry inside the domain.
+     * @throws BadRequestException If the position is not a valid index.
+     */
+    public int getPositionAsIndex() throws BadRequestException {
+
+        if (position == null) {
+            return 1;
+        }
+        try {
+            int index = Integer.parseInt(position);
+            if (index < 1) {
+                throw new BadRequestException("Invalid cursor position: " + position,
+                        SCIMCommonConstants.INVALID_CURSOR);
+            }
+            return index;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor position: " + position, SCIMCommonConstants.INVALID_CURSOR);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.wso2.charon3.core.exceptions.BadRequestException;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.extensions.UserManager;
+import org.wso2.charon3.core.schema.AttributeSchema;
+import org.wso2.charon3.core.schema.SCIMConstants;
+import org.wso2.charon3.core.schema.SCIMDefinitions;
+import org.wso2.charon3.core.utils.codeutils.PatchOperation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the operations of a user PATCH request to changes of the claims of the user, so that the patch can be applied
+ * without building the patched user. Only the operations on simple attributes and singular complex attributes, which
+ * are mapped to claims, are supported. Operations with value filters, and operations on multi-valued complex
+ * attributes, the username, the password or read only attributes are not mapped.
+ */
+public class PatchOperationClaimMapper {
+
+    private static final Log log = LogFactory.getLog(PatchOperationClaimMapper.class);
+    private static final String URN_PREFIX = "urn:";
+    private static final String VALUE_FILTER_START = "[";
+    private static final List<String> NON_PATCHABLE_ATTRIBUTES = Arrays.asList(
+            SCIMConstants.UserSchemaConstants.USER_NAME_URI, SCIMConstants.UserSchemaConstants.PASSWORD_URI);
+
+    private PatchOperationClaimMapper() {
+
+    }
+
+    /**
+     * Map the patch operations of a user to claim changes. The claim changes are returned in the order of the patch
+     * operations.
+     *
+     * @param userManager     User manager used to build the user schema.
+     * @param patchOperations Patch operations of the request.
+     * @return Claim changes of the patch operations or null if any of the operations is not supported.
+     * @throws BadRequestException Error while building the user schema.
+     * @throws CharonException     Error while building the user schema.
+     */
+    public static List<ClaimChange> getClaimChanges(UserManager userManager, List<PatchOperation> patchOperations)
+            throws BadRequestException, CharonException {
+
+        Map<String, String> scimToLocalClaims = SCIMCommonUtils.getSCIMtoLocalMappings();
+        List<ClaimChange> claimChanges = new ArrayList<>();
+        for (PatchOperation patchOperation : patchOperations) {
+            if (!addClaimChanges(userManager, patchOperation, scimToLocalClaims, claimChanges)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Patch operation: " + patchOperation.getOperation() + " on path: " +
+                            patchOperation.getPath() + " cannot be applied as claim changes.");
+                }
+                return null;
+            }
+        }
+        return claimChanges;
+    }
+
+    private static boolean addClaimChanges(UserManager userManager, PatchOperation patchOperation,
+                                           Map<String, String> scimToLocalClaims, List<ClaimChange> claimChanges)
+            throws BadRequestException, CharonException {
+
+        String operation = patchOperation.getOperation();
+        Object value = JSONObject.NULL.equals(patchOperation.getValues()) ? null : patchOperation.getValues();
+        String path = patchOperation.getPath();
+        if (StringUtils.isBlank(path)) {
+            // Without a path, the value contains the attributes to be added or replaced.
+            if (isOperation(SCIMConstants.OperationalConstants.REMOVE, operation) || !(value instanceof JSONObject)) {
+                return false;
+            }
+            JSONObject attributes = (JSONObject) value;
+            for (String attributeName : attributes.keySet()) {
+                if (!addClaimChanges(operation, AttributeMapper.getUserAttributeSchema(userManager,
+                        getAttributeURI(attributeName)), attributes.get(attributeName), scimToLocalClaims,
+                        claimChanges)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (path.contains(VALUE_FILTER_START)) {
+            return false;
+        }
+        String attributeURI = getAttributeURI(path);
+        if (isInMultiValuedAttribute(userManager, attributeURI)) {
+            return false;
+        }
+        return addClaimChanges(operation, AttributeMapper.getUserAttributeSchema(userManager, attributeURI), value,
+                scimToLocalClaims, claimChanges);
+    }
+
+    private static boolean addClaimChanges(String operation, AttributeSchema attributeSchema, Object value,
+                                           Map<String, String> scimToLocalClaims, List<ClaimChange> claimChanges) {
+
+        if (attributeSchema == null || !isMutable(attributeSchema)) {
+            return false;
+        }
+        boolean isRemove = isOperation(SCIMConstants.OperationalConstants.REMOVE, operation);
+        if (!isRemove && !isOperation(SCIMConstants.OperationalConstants.ADD, operation) &&
+                !isOperation(SCIMConstants.OperationalConstants.REPLACE, operation)) {
+            return false;
+        }
+        if (SCIMDefinitions.DataType.COMPLEX.equals(attributeSchema.getType())) {
+            if (attributeSchema.getMultiValued()) {
+                return false;
+            }
+            if (isRemove) {
+                return value == null && addRemovedClaims(attributeSchema, scimToLocalClaims, claimChanges);
+            }
+            // The given sub attributes are added or replaced, while the rest of the sub attributes are left unchanged.
+            if (!(value instanceof JSONObject)) {
+                return false;
+            }
+            JSONObject subAttributes = (JSONObject) value;
+            for (String subAttributeName : subAttributes.keySet()) {
+                if (!addClaimChanges(operation, attributeSchema.getSubAttributeSchema(subAttributeName),
+                        subAttributes.get(subAttributeName), scimToLocalClaims, claimChanges)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String claimURI = scimToLocalClaims.get(attributeSchema.getURI());
+        if (claimURI == null || NON_PATCHABLE_ATTRIBUTES.contains(attributeSchema.getURI())) {
+            return false;
+        }
+        if (isRemove) {
+            if (value != null || attributeSchema.getRequired()) {
+                return false;
+            }
+            claimChanges.add(new ClaimChange(ClaimChange.Type.REMOVE, claimURI, Collections.emptyList(),
+                    attributeSchema.getMultiValued()));
+            return true;
+        }
+        if (attributeSchema.getMultiValued()) {
+            List<String> values = getStringValues(attributeSchema, value);
+            if (values == null) {
+                return false;
+            }
+            ClaimChange.Type type = isOperation(SCIMConstants.OperationalConstants.ADD, operation) ?
+                    ClaimChange.Type.ADD_VALUES : ClaimChange.Type.REPLACE_VALUES;
+            claimChanges.add(new ClaimChange(type, claimURI, values, true));
+            return true;
+        }
+        String stringValue = getStringValue(attributeSchema, value);
+        if (stringValue == null) {
+            return false;
+        }
+        claimChanges.add(new ClaimChange(ClaimChange.Type.SET, claimURI, Collections.singletonList(stringValue),
+                false));
+        return true;
+    }
+
+    private static boolean addRemovedClaims(AttributeSchema attributeSchema, Map<String, String> scimToLocalClaims,
+                                            List<ClaimChange> claimChanges) {
+
+        if (attributeSchema.getSubAttributeSchemas() == null) {
+            return true;
+        }
+        for (AttributeSchema subAttributeSchema : attributeSchema.getSubAttributeSchemas()) {
+            if (SCIMDefinitions.DataType.COMPLEX.equals(subAttributeSchema.getType())) {
+                if (subAttributeSchema.getMultiValued() ||
+                        !addRemovedClaims(subAttributeSchema, scimToLocalClaims, claimChanges)) {
+                    return false;
+                }
+                continue;
+            }
+            // Sub attributes which are not mapped to claims do not have values to be removed.
+            if (scimToLocalClaims.containsKey(subAttributeSchema.getURI()) &&
+                    !addClaimChanges(SCIMConstants.OperationalConstants.REMOVE, subAttributeSchema, null,
+                            scimToLocalClaims, claimChanges)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getAttributeURI(String attributeName) {
+
+        if (attributeName.startsWith(URN_PREFIX)) {
+            return attributeName;
+        }
+        return SCIMConstants.USER_CORE_SCHEMA_URI + ":" + attributeName;
+    }
+
+    /**
+     * Check whether the attribute is a sub attribute of a multi-valued or an unknown attribute. The parent of a sub
+     * attribute is separated by a dot, while the attributes of a schema are separated from the schema URI by a colon.
+     */
+    private static boolean isInMultiValuedAttribute(UserManager userManager, String attributeURI)
+            throws BadRequestException, CharonException {
+
+        String parentURI = attributeURI;
+        while (parentURI.lastIndexOf('.') > parentURI.lastIndexOf(':')) {
+            parentURI = parentURI.substring(0, parentURI.lastIndexOf('.'));
+            AttributeSchema parentSchema = AttributeMapper.getUserAttributeSchema(userManager, parentURI);
+            if (parentSchema == null || parentSchema.getMultiValued()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isMutable(AttributeSchema attributeSchema) {
+
+        return SCIMDefinitions.Mutability.READ_WRITE.equals(attributeSchema.getMutability()) ||
+                SCIMDefinitions.Mutability.WRITE_ONLY.equals(attributeSchema.getMutability());
+    }
+
+    private static boolean isOperation(String expectedOperation, String operation) {
+
+        return expectedOperation.equalsIgnoreCase(operation);
+    }
+
+    private static String getStringValue(AttributeSchema attributeSchema, Object value) {
+
+        if (SCIMDefinitions.DataType.STRING.equals(attributeSchema.getType()) && value instanceof String &&
+                StringUtils.isNotBlank((String) value)) {
+            return (String) value;
+        }
+        if (SCIMDefinitions.DataType.BOOLEAN.equals(attributeSchema.getType()) && value instanceof Boolean) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    private static List<String> getStringValues(AttributeSchema attributeSchema, Object value) {
+
+        if (!SCIMDefinitions.DataType.STRING.equals(attributeSchema.getType())) {
+            return null;
+        }
+        if (!(value instanceof JSONArray)) {
+            String stringValue = getStringValue(attributeSchema, value);
+            return stringValue == null ? null : Collections.singletonList(stringValue);
+        }
+        JSONArray valueArray = (JSONArray) value;
+        if (valueArray.length() == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < valueArray.length(); i++) {
+            String stringValue = getStringValue(attributeSchema, valueArray.get(i));
+            if (stringValue == null) {
+                return null;
+            }
+            values.add(stringValue);
+        }
+        return values;
+    }
+
+    /**
+     * A change of a claim of the user, derived from a patch operation.
+     */
+    public static class ClaimChange {
+
+        /**
+         * Type of the claim change.
+         */
+        public enum Type {
+            SET, ADD_VALUES, REPLACE_VALUES, REMOVE
+        }
+
+        private final Type type;
+        private final String claimURI;
+        private final List<String> values;
+        private final boolean multiValued;
+
+        public ClaimChange(Type type, String claimURI, List<String> values, boolean multiValued) {
+
+            this.type = type;
+            this.claimURI = claimURI;
+            this.values = values;
+            this.multiValued = multiValued;
+        }
+
+        public Type getType() {
+
+            return type;
+        }
+
+        public String getClaimURI() {
+
+            return claimURI;
+        }
+
+        public List<String> getValues() {
+
+            return values;
+        }
+
+        /**
+         * Whether the claim is mapped to a multi-valued attribute, whose values are updated as added and removed
+         * values.
+         *
+         * @return True if the claim is multi-valued.
+         */
+        public boolean isMultiValued() {
+
+            return multiValued;
+        }
+    }
+}
@@ -38,6 +38,7 @@ public class SCIMCommonConstants {
     public static final String ROLES_V2 = "/v2/Roles";
     public static final String SERVICE_PROVIDER_CONFIG = "/ServiceProviderConfig";
     public static final String RESOURCE_TYPE = "/ResourceTypes";
+    public static final String SCHEMAS = "/Schemas";
     public static final String DEFAULT = "default";
 
     public static final int USER = 1;
@@ -111,6 +112,29 @@ public class SCIMCommonConstants {
             "SCIM2.RemoveDuplicateUsersInUsersResponse";
     public static final String SCIM2_COMPLEX_MULTI_ATTRIBUTE_FILTERING_ENABLED =
             "SCIM2MultiAttributeFiltering.UsePagination";
+    public static final String SCIM_ENABLE_PARALLEL_USER_STORE_FILTERING = "SCIM2.ParallelUserStoreFiltering.Enable";
+    public static final String SCIM_PARALLEL_USER_STORE_FILTERING_POOL_SIZE =
+            "SCIM2.ParallelUserStoreFiltering.PoolSize";
+    public static final String SCIM_PARALLEL_USER_STORE_FILTERING_DOMAIN_TIMEOUT =
+            "SCIM2.ParallelUserStoreFiltering.DomainTimeout";
+    public static final int DEFAULT_PARALLEL_USER_STORE_FILTERING_POOL_SIZE = 10;
+    public static final long DEFAULT_PARALLEL_USER_STORE_FILTERING_DOMAIN_TIMEOUT = 30000L;
+    public static final String SCIM_ENABLE_STREAMING_LIST_RESPONSE = "SCIM2.StreamingListResponse.Enable";
+    public static final String SCIM_STREAMING_LIST_RESPONSE_BATCH_SIZE = "SCIM2.StreamingListResponse.BatchSize";
+    public static final int DEFAULT_STREAMING_LIST_RESPONSE_BATCH_SIZE = 100;
+    public static final String SCIM_MAX_COUNT = "SCIM2.MaxCount";
+    public static final String SCIM_ENABLE_USER_COUNT_CACHE = "SCIM2.UserCountCache.Enable";
+    public static final String SCIM_USER_COUNT_CACHE_REFRESH_INTERVAL = "SCIM2.UserCountCache.RefreshInterval";
+    public static final long DEFAULT_USER_COUNT_CACHE_REFRESH_INTERVAL = 300000L;
+    public static final String SCIM_ENABLE_GROUP_METADATA_CACHE = "SCIM2.GroupMetadataCache.Enable";
+    public static final String SCIM_GROUP_METADATA_CACHE_MAX_SIZE = "SCIM2.GroupMetadataCache.MaxSize";
+    public static final int DEFAULT_GROUP_METADATA_CACHE_MAX_SIZE = 1000;
+    // Members of a group are updated in a single user store update unless a batch size is set. Batches are separate
+    // user store updates, hence a failed batch leaves the group partially updated.
+    public static final String SCIM_GROUP_MEMBER_UPDATE_BATCH_SIZE = "SCIM2.GroupMemberUpdate.BatchSize";
+
+    // Cursor based pagination.
+    public static final String INVALID_CURSOR = "invalidCursor";
 
     public static final String URL_SEPERATOR = "/";
     public static final String TENANT_URL_SEPERATOR = "/t/";
@@ -36,6 +36,8 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.handler.event.account.lock.constants.AccountConstants;
 import org.wso2.carbon.identity.role.mgt.core.IdentityRoleManagementException;
 import org.wso2.carbon.identity.role.mgt.core.util.UserIDResolver;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMClaimMappingsCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMClaimMappingsCacheEntry;
 import org.wso2.carbon.identity.scim2.common.cache.SCIMCustomAttributeSchemaCache;
 import org.wso2.carbon.identity.scim2.common.exceptions.IdentitySCIMException;
 import org.wso2.carbon.identity.scim2.common.group.SCIMGroupHandler;
@@ -53,12 +55,19 @@ import org.wso2.charon3.core.exceptions.InternalErrorException;
 import org.wso2.charon3.core.schema.AttributeSchema;
 import org.wso2.charon3.core.schema.SCIMConstants;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.wso2.charon3.core.schema.SCIMConstants.CUSTOM_USER_SCHEMA_URI;
 
@@ -69,6 +78,9 @@ import static org.wso2.charon3.core.schema.SCIMConstants.CUSTOM_USER_SCHEMA_URI;
 public class SCIMCommonUtils {
 
     private static final Log log = LogFactory.getLog(SCIMCommonUtils.class);
+    private static final String RESOURCE_VERSION_DIGEST_ALGORITHM = "SHA-256";
+    private static final String ANY_ETAG = "*";
+    private static final String WEAK_ETAG_PREFIX = "W/";
 
     /**
      * Since we need perform provisioning through UserOperationEventListener implementation -
@@ -86,6 +98,13 @@ public class SCIMCommonUtils {
      * Therefore we need this thread local to signal the SCIMUserOperationListener to take the decision.
      */
     private static ThreadLocal<Boolean> threadLocalIsManagedThroughSCIMEP = new ThreadLocal<>();
+    /**
+     * Charon does not carry the cursor of cursor based pagination to the user manager or the next cursor back to the
+     * endpoint. Therefore the endpoint sets the requested cursor in this thread local and the user manager sets the
+     * cursor of the next page in the other.
+     */
+    private static ThreadLocal<String> threadLocalPaginationCursor = new ThreadLocal<>();
+    private static ThreadLocal<String> threadLocalNextPaginationCursor = new ThreadLocal<>();
 
     public static String getSCIMUserURL(String id) {
         return StringUtils.isNotBlank(id) ? getSCIMUserURL() + SCIMCommonConstants.URL_SEPERATOR + id : null;
@@ -345,6 +364,30 @@ public class SCIMCommonUtils {
         threadLocalIsManagedThroughSCIMEP.set(value);
     }
 
+    public static void unsetThreadLocalPaginationCursor() {
+        threadLocalPaginationCursor.remove();
+    }
+
+    public static String getThreadLocalPaginationCursor() {
+        return threadLocalPaginationCursor.get();
+    }
+
+    public static void setThreadLocalPaginationCursor(String cursor) {
+        threadLocalPaginationCursor.set(cursor);
+    }
+
+    public static void unsetThreadLocalNextPaginationCursor() {
+        threadLocalNextPaginationCursor.remove();
+    }
+
+    public static String getThreadLocalNextPaginationCursor() {
+        return threadLocalNextPaginationCursor.get();
+    }
+
+    public static void setThreadLocalNextPaginationCursor(String cursor) {
+        threadLocalNextPaginationCursor.set(cursor);
+    }
+
     public static String getGlobalConsumerId() {
         return getTenantDomainFromContext();
     }
@@ -406,8 +449,8 @@ public class SCIMCommonUtils {
             scimToLocalClaimMappings) throws UserStoreException {
 
         if (MapUtils.isEmpty(scimToLocalClaimMappings)) {
-            // Retrieve Local to SCIM Claim Mappings from db.
-            scimToLocalClaimMappings = getSCIMtoLocalMappings();
+            // Use the cached Local to SCIM Claim Mappings of the tenant.
+            return convertLocalClaimsToSCIMDialect(claimsMap, getLocalToSCIMMappings());
         }
 
         Map<String, String> claimsInSCIMDialect = new HashMap<>();
@@ -424,14 +467,141 @@ public class SCIMCommonUtils {
     }
 
     /**
-     * Retrieves SCIM to Local Claim Mappings.
+     * Converts claims in local WSO2 dialect to SCIM dialect using the local to SCIM claim mappings. Only the claims of
+     * the given map are looked up, hence the cost depends on the number of claims instead of the number of mappings.
      *
-     * @return Map of SCIM claims and corresponding Local WSO2 claims.
+     * @param claimsMap                Map of local claims and claim values.
+     * @param localToSCIMClaimMappings Map of local claims and the SCIM claims mapped to them.
+     * @return map of SCIM claims and corresponding claim values.
+     */
+    public static Map<String, String> convertLocalClaimsToSCIMDialect(Map<String, String> claimsMap,
+                                                                      Map<String, List<String>>
+                                                                              localToSCIMClaimMappings) {
+
+        if (MapUtils.isEmpty(claimsMap) || MapUtils.isEmpty(localToSCIMClaimMappings)) {
+            return new HashMap<>();
+        }
+        Map<String, String> claimsInSCIMDialect = new HashMap<>((int) (claimsMap.size() / 0.75f) + 1);
+        for (Map.Entry<String, String> entry : claimsMap.entrySet()) {
+            if (StringUtils.isEmpty(entry.getValue())) {
+                continue;
+            }
+            List<String> scimClaimUris = localToSCIMClaimMappings.get(entry.getKey());
+            if (scimClaimUris != null) {
+                for (String scimClaimUri : scimClaimUris) {
+                    claimsInSCIMDialect.put(scimClaimUri, entry.getValue());
+                }
+            }
+        }
+        return claimsInSCIMDialect;
+    }
+
+    /**
+     * Build the local to SCIM claim mappings from the SCIM to local claim mappings. A local claim can be mapped to
+     * more than one SCIM claim, hence a list of SCIM claims is kept for each local claim.
+     *
+     * @param scimToLocalClaimMappings Map of SCIM claims and corresponding Local WSO2 claims.
+     * @return Map of Local WSO2 claims and the corresponding SCIM claims.
+     */
+    public static Map<String, List<String>> buildLocalToSCIMMappings(Map<String, String> scimToLocalClaimMappings) {
+
+        Map<String, List<String>> localToSCIMClaimMappings = new HashMap<>();
+        if (MapUtils.isEmpty(scimToLocalClaimMappings)) {
+            return localToSCIMClaimMappings;
+        }
+        for (Map.Entry<String, String> entry : scimToLocalClaimMappings.entrySet()) {
+            if (entry.getValue() != null) {
+                localToSCIMClaimMappings.computeIfAbsent(entry.getValue(), k -> new ArrayList<>(1))
+                        .add(entry.getKey());
+            }
+        }
+        return localToSCIMClaimMappings;
+    }
+
+    /**
+     * Build the set of local claims which cannot be removed from a user through SCIM, from the SCIM to local claim
+     * mappings.
+     *
+     * @param scimToLocalClaimMappings Map of SCIM claims and corresponding Local WSO2 claims.
+     * @return Set of local claims mapped to immutable SCIM claims.
+     */
+    public static Set<String> buildImmutableLocalClaims(Map<String, String> scimToLocalClaimMappings) {
+
+        Set<String> immutableLocalClaims = new HashSet<>();
+        if (MapUtils.isEmpty(scimToLocalClaimMappings)) {
+            return immutableLocalClaims;
+        }
+        String[] immutableSCIMClaims = {SCIMConstants.CommonSchemaConstants.ID_URI,
+                SCIMConstants.UserSchemaConstants.USER_NAME_URI,
+                SCIMConstants.UserSchemaConstants.ROLES_URI + "." + SCIMConstants.DEFAULT,
+                SCIMConstants.CommonSchemaConstants.CREATED_URI,
+                SCIMConstants.CommonSchemaConstants.LAST_MODIFIED_URI,
+                SCIMConstants.CommonSchemaConstants.LOCATION_URI,
+                SCIMConstants.UserSchemaConstants.FAMILY_NAME_URI,
+                SCIMConstants.UserSchemaConstants.GROUP_URI};
+        for (String scimClaim : immutableSCIMClaims) {
+            String localClaim = scimToLocalClaimMappings.get(scimClaim);
+            if (localClaim != null) {
+                immutableLocalClaims.add(localClaim);
+            }
+        }
+        return immutableLocalClaims;
+    }
+
+    /**
+     * Retrieves SCIM to Local Claim Mappings. The mappings are cached per tenant until a claim or claim dialect of
+     * the tenant is changed.
+     *
+     * @return Read only map of SCIM claims and corresponding Local WSO2 claims.
      * @throws UserStoreException
      */
     public static Map<String, String> getSCIMtoLocalMappings() throws UserStoreException {
 
+        return getSCIMClaimMappings().getSCIMToLocalMappings();
+    }
+
+    /**
+     * Retrieves Local to SCIM Claim Mappings. A local claim can be mapped to more than one SCIM claim.
+     *
+     * @return Read only map of Local WSO2 claims and the corresponding SCIM claims.
+     * @throws UserStoreException
+     */
+    public static Map<String, List<String>> getLocalToSCIMMappings() throws UserStoreException {
+
+        return getSCIMClaimMappings().getLocalToSCIMMappings();
+    }
+
+    /**
+     * Retrieves the local claims which cannot be removed from a user through SCIM.
+     *
+     * @return Read only set of local claims mapped to immutable SCIM claims.
+     * @throws UserStoreException
+     */
+    public static Set<String> getImmutableLocalClaims() throws UserStoreException {
+
+        return getSCIMClaimMappings().getImmutableLocalClaims();
+    }
+
+    /**
+     * Get the claim mappings of the tenant from the cache, or build and cache them if they are not cached.
+     *
+     * @return Claim mappings of the tenant.
+     * @throws UserStoreException
+     */
+    private static SCIMClaimMappingsCacheEntry getSCIMClaimMappings() throws UserStoreException {
+
         String tenantDomain = getTenantDomain();
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        SCIMClaimMappingsCacheEntry claimMappings =
+                SCIMClaimMappingsCache.getInstance().getClaimMappingsByTenant(tenantId);
+        if (claimMappings == null) {
+            claimMappings = new SCIMClaimMappingsCacheEntry(buildSCIMtoLocalMappings(tenantDomain));
+            SCIMClaimMappingsCache.getInstance().addClaimMappings(tenantId, claimMappings);
+        }
+        return claimMappings;
+    }
+
+    private static Map<String, String> buildSCIMtoLocalMappings(String tenantDomain) throws UserStoreException {
 
         Map<String, String> scimToLocalClaimMap = new HashMap<>();
         try {
@@ -455,10 +625,9 @@ public class SCIMCommonUtils {
                 scimToLocalClaimMap.putAll(extensionClaims);
             }
 
-            String userTenantDomain = getTenantDomain();
             Map<String, String> customExtensionClaims =
                     ClaimMetadataHandler.getInstance().getMappingsMapFromOtherDialectToCarbon(getCustomSchemaURI(),
-                            null, userTenantDomain, false);
+                            null, tenantDomain, false);
             scimToLocalClaimMap.putAll(customExtensionClaims);
 
             return scimToLocalClaimMap;
@@ -468,6 +637,16 @@ public class SCIMCommonUtils {
         }
     }
 
+    /**
+     * This is used to get the tenant id of the tenant domain of the request.
+     *
+     * @return user's tenant id.
+     */
+    static int getTenantId() {
+
+        return IdentityTenantUtil.getTenantId(getTenantDomain());
+    }
+
     /**
      * This is used to get tenant domain.
      *
@@ -619,6 +798,77 @@ public class SCIMCommonUtils {
                 .getProperty(SCIMCommonConstants.ENTERPRISE_USER_EXTENSION_ENABLED));
     }
 
+    /**
+     * Check if the entity tags of the SCIM resources have been enabled. If enabled, the version of the Users and Groups
+     * resources is populated and used for the conditional requests.
+     *
+     * @return True if 'etag-supported' property is enabled in charon-config.xml.
+     */
+    public static boolean isETagSupported() {
+
+        return Boolean.parseBoolean(SCIMConfigProcessor.getInstance().getProperty(SCIMCommonConstants.ETAG_SUPPORTED));
+    }
+
+    /**
+     * Generate the version of a SCIM resource from its last modified time and a digest of its content. The version is
+     * a strong entity tag, as the content is the full stored state of the resource, independent of the attributes
+     * requested in a response.
+     *
+     * @param lastModified Last modified time of the resource.
+     * @param content      Content of the resource.
+     * @return Version of the resource.
+     * @throws CharonException If the digest algorithm is not available.
+     */
+    public static String generateResourceVersion(String lastModified, String content) throws CharonException {
+
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(RESOURCE_VERSION_DIGEST_ALGORITHM);
+            messageDigest.update(StringUtils.defaultString(lastModified).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(StringUtils.defaultString(content).getBytes(StandardCharsets.UTF_8));
+            return "\"" + String.format("%064x", new BigInteger(1, messageDigest.digest())) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new CharonException("Error while generating the version of the resource.", e);
+        }
+    }
+
+    /**
+     * Check whether an entity tag matches the value of an If-Match or If-None-Match header, as defined in RFC 7232.
+     * The strong comparison, which is required for If-Match, never matches a weak entity tag. The weak comparison,
+     * which is used for If-None-Match, ignores the weak indicator of both entity tags.
+     *
+     * @param eTag               Current entity tag of the resource.
+     * @param conditionHeader    Value of the If-Match or If-None-Match header.
+     * @param isStrongComparison Whether the strong comparison is used.
+     * @return True if the entity tag matches any of the entity tags of the header.
+     */
+    public static boolean isETagMatched(String eTag, String conditionHeader, boolean isStrongComparison) {
+
+        if (StringUtils.isBlank(eTag) || StringUtils.isBlank(conditionHeader)) {
+            return false;
+        }
+        if (isStrongComparison && eTag.startsWith(WEAK_ETAG_PREFIX)) {
+            return false;
+        }
+        String opaqueTag = StringUtils.removeStart(eTag, WEAK_ETAG_PREFIX);
+        for (String requestedETag : conditionHeader.split(",")) {
+            requestedETag = requestedETag.trim();
+            if (ANY_ETAG.equals(requestedETag)) {
+                return true;
+            }
+            if (requestedETag.startsWith(WEAK_ETAG_PREFIX)) {
+                if (isStrongComparison) {
+                    continue;
+                }
+                requestedETag = requestedETag.substring(WEAK_ETAG_PREFIX.length());
+            }
+            if (opaqueTag.equals(requestedETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks whether the identity.xml config is available to notify userstore availability.
      *
@@ -629,6 +879,206 @@ public class SCIMCommonUtils {
         return Boolean.parseBoolean(IdentityUtil.getProperty(SCIMCommonConstants.SCIM_NOTIFY_USERSTORE_STATUS));
     }
 
+    /**
+     * Checks whether the identity.xml config is available to filter users across user store domains in parallel.
+     *
+     * @return whether 'ParallelUserStoreFiltering.Enable' property is enabled in the identity.xml.
+     */
+    public static boolean isParallelUserStoreFilteringEnabled() {
+
+        return Boolean.parseBoolean(IdentityUtil.getProperty(
+                SCIMCommonConstants.SCIM_ENABLE_PARALLEL_USER_STORE_FILTERING));
+    }
+
+    /**
+     * Get the number of threads used to filter users across user store domains in parallel.
+     *
+     * @return Configured pool size or the default pool size if the config is not valid.
+     */
+    public static int getParallelUserStoreFilteringPoolSize() {
+
+        String poolSize = IdentityUtil.getProperty(SCIMCommonConstants.SCIM_PARALLEL_USER_STORE_FILTERING_POOL_SIZE);
+        if (StringUtils.isNotBlank(poolSize)) {
+            try {
+                int value = Integer.parseInt(poolSize.trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + poolSize + " configured for " +
+                        SCIMCommonConstants.SCIM_PARALLEL_USER_STORE_FILTERING_POOL_SIZE + ". Using the default value.");
+            }
+        }
+        return SCIMCommonConstants.DEFAULT_PARALLEL_USER_STORE_FILTERING_POOL_SIZE;
+    }
+
+    /**
+     * Get the maximum time in milliseconds to wait for a single user store domain when filtering users across user
+     * store domains in parallel.
+     *
+     * @return Configured timeout or the default timeout if the config is not valid.
+     */
+    public static long getParallelUserStoreFilteringDomainTimeout() {
+
+        String timeout =
+                IdentityUtil.getProperty(SCIMCommonConstants.SCIM_PARALLEL_USER_STORE_FILTERING_DOMAIN_TIMEOUT);
+        if (StringUtils.isNotBlank(timeout)) {
+            try {
+                long value = Long.parseLong(timeout.trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + timeout + " configured for " +
+                        SCIMCommonConstants.SCIM_PARALLEL_USER_STORE_FILTERING_DOMAIN_TIMEOUT +
+                        ". Using the default value.");
+            }
+        }
+        return SCIMCommonConstants.DEFAULT_PARALLEL_USER_STORE_FILTERING_DOMAIN_TIMEOUT;
+    }
+
+    /**
+     * Checks whether the identity.xml config is available to stream the list response of the Users endpoint.
+     *
+     * @return whether 'StreamingListResponse.Enable' property is enabled in identity.xml.
+     */
+    public static boolean isStreamingListResponseEnabled() {
+
+        return Boolean.parseBoolean(IdentityUtil.getProperty(SCIMCommonConstants.SCIM_ENABLE_STREAMING_LIST_RESPONSE));
+    }
+
+    /**
+     * Get the number of users to be built and written at a time when streaming the list response of the Users
+     * endpoint.
+     *
+     * @return Configured batch size or the default batch size if the config is not valid.
+     */
+    public static int getStreamingListResponseBatchSize() {
+
+        String batchSize = IdentityUtil.getProperty(SCIMCommonConstants.SCIM_STREAMING_LIST_RESPONSE_BATCH_SIZE);
+        if (StringUtils.isNotBlank(batchSize)) {
+            try {
+                int value = Integer.parseInt(batchSize.trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + batchSize + " configured for " +
+                        SCIMCommonConstants.SCIM_STREAMING_LIST_RESPONSE_BATCH_SIZE + ". Using the default value.");
+            }
+        }
+        return SCIMCommonConstants.DEFAULT_STREAMING_LIST_RESPONSE_BATCH_SIZE;
+    }
+
+    /**
+     * Get the maximum number of resources returned in a page of a list response.
+     *
+     * @return Configured maximum count or null if the count is not limited.
+     */
+    public static Integer getMaxCount() {
+
+        String maxCount = IdentityUtil.getProperty(SCIMCommonConstants.SCIM_MAX_COUNT);
+        if (StringUtils.isNotBlank(maxCount)) {
+            try {
+                int value = Integer.parseInt(maxCount.trim());
+                if (value >= 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + maxCount + " configured for " + SCIMCommonConstants.SCIM_MAX_COUNT +
+                        ". Hence the count is not limited.");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the identity.xml config is available to cache the user counts of the user store domains.
+     *
+     * @return whether 'UserCountCache.Enable' property is enabled in identity.xml.
+     */
+    public static boolean isUserCountCacheEnabled() {
+
+        return Boolean.parseBoolean(IdentityUtil.getProperty(SCIMCommonConstants.SCIM_ENABLE_USER_COUNT_CACHE));
+    }
+
+    /**
+     * Get the maximum time in milliseconds a cached user count is used before it is read again from the user store.
+     *
+     * @return Configured refresh interval or the default refresh interval if the config is not valid.
+     */
+    public static long getUserCountCacheRefreshInterval() {
+
+        String refreshInterval = IdentityUtil.getProperty(SCIMCommonConstants.SCIM_USER_COUNT_CACHE_REFRESH_INTERVAL);
+        if (StringUtils.isNotBlank(refreshInterval)) {
+            try {
+                long value = Long.parseLong(refreshInterval.trim());
+                if (value >= 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + refreshInterval + " configured for " +
+                        SCIMCommonConstants.SCIM_USER_COUNT_CACHE_REFRESH_INTERVAL + ". Using the default value.");
+            }
+        }
+        return SCIMCommonConstants.DEFAULT_USER_COUNT_CACHE_REFRESH_INTERVAL;
+    }
+
+    /**
+     * Checks whether the identity.xml config is available to cache the meta attributes of the groups and roles of
+     * users across requests.
+     *
+     * @return whether 'GroupMetadataCache.Enable' property is enabled in identity.xml.
+     */
+    public static boolean isGroupMetadataCacheEnabled() {
+
+        return Boolean.parseBoolean(IdentityUtil.getProperty(SCIMCommonConstants.SCIM_ENABLE_GROUP_METADATA_CACHE));
+    }
+
+    /**
+     * Get the maximum number of groups and roles of which the meta attributes are cached for a tenant.
+     *
+     * @return Configured maximum size or the default maximum size if the config is not valid.
+     */
+    public static int getGroupMetadataCacheMaxSize() {
+
+        String maxSize = IdentityUtil.getProperty(SCIMCommonConstants.SCIM_GROUP_METADATA_CACHE_MAX_SIZE);
+        if (StringUtils.isNotBlank(maxSize)) {
+            try {
+                int value = Integer.parseInt(maxSize.trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + maxSize + " configured for " +
+                        SCIMCommonConstants.SCIM_GROUP_METADATA_CACHE_MAX_SIZE + ". Using the default value.");
+            }
+        }
+        return SCIMCommonConstants.DEFAULT_GROUP_METADATA_CACHE_MAX_SIZE;
+    }
+
+    /**
+     * Get the maximum number of members added to or removed from a group in a single user store update, when the
+     * members of a group are replaced. The batches are not applied atomically, hence a failure leaves the group with
+     * the members updated by the earlier batches. The members are updated in a single user store update by default.
+     *
+     * @return Configured batch size, or 0 if the members are to be updated in a single user store update.
+     */
+    public static int getGroupMemberUpdateBatchSize() {
+
+        String batchSize = IdentityUtil.getProperty(SCIMCommonConstants.SCIM_GROUP_MEMBER_UPDATE_BATCH_SIZE);
+        if (StringUtils.isNotBlank(batchSize)) {
+            try {
+                return Math.max(Integer.parseInt(batchSize.trim()), 0);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + batchSize + " configured for " +
+                        SCIMCommonConstants.SCIM_GROUP_MEMBER_UPDATE_BATCH_SIZE + ". Members will be updated in a " +
+                        "single update.");
+            }
+        }
+        return 0;
+    }
+
     public static Map<ExternalClaim, LocalClaim> getMappedLocalClaimsForDialect(String externalClaimDialect,
                                                                                 String tenantDomain) throws
             CharonException {
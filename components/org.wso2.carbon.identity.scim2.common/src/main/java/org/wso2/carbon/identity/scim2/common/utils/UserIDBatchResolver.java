@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.common.User;
+import org.wso2.carbon.user.core.constants.UserCoreClaimConstants;
+import org.wso2.carbon.user.core.model.UniqueIDUserClaimSearchEntry;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resolves the user IDs of the usernames of group and role members in bulk. The members of a SCIM request carry the
+ * user IDs along with the usernames, hence the users of the given user IDs are retrieved in chunks with a single user
+ * store query per chunk, and each username is matched against the usernames of the retrieved users. Usernames which
+ * cannot be matched are left to be resolved one by one by the caller. The usernames of members sent only with their
+ * user IDs are resolved the same way.
+ */
+public class UserIDBatchResolver {
+
+    private static final int MAX_USERS_PER_QUERY = 100;
+
+    private final AbstractUserStoreManager userStoreManager;
+    private final String usernameClaimUri;
+
+    /**
+     * @param userStoreManager User store manager of the tenant.
+     * @param usernameClaimUri Claim which holds the usernames, i.e. the username claim or the primary login
+     *                         identifier claim.
+     */
+    public UserIDBatchResolver(AbstractUserStoreManager userStoreManager, String usernameClaimUri) {
+
+        this.userStoreManager = userStoreManager;
+        this.usernameClaimUri = usernameClaimUri;
+    }
+
+    /**
+     * Resolve the user IDs of the given usernames.
+     *
+     * @param usernames        Usernames, optionally qualified with the user store domain.
+     * @param candidateUserIds User IDs sent along with the members in the request.
+     * @return Map of the resolved usernames to the user IDs. Usernames which could not be resolved are not included.
+     * @throws UserStoreException If an error occurred while retrieving the users.
+     */
+    public Map<String, String> resolveUserIDs(Collection<String> usernames, Collection<?> candidateUserIds)
+            throws UserStoreException {
+
+        if (usernames == null || usernames.isEmpty() || candidateUserIds == null || candidateUserIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> userIdsOfUsernames = new HashMap<>();
+        for (UniqueIDUserClaimSearchEntry searchEntry : getUsers(candidateUserIds)) {
+            String username = getUsername(searchEntry);
+            if (StringUtils.isNotBlank(username)) {
+                User user = searchEntry.getUser();
+                userIdsOfUsernames.put(buildKey(user.getUserStoreDomain(), username), user.getUserID());
+            }
+        }
+
+        Map<String, String> resolvedUserIds = new HashMap<>();
+        for (String username : usernames) {
+            String userId = userIdsOfUsernames.get(buildKey(IdentityUtil.extractDomainFromName(username),
+                    UserCoreUtil.removeDomainFromName(username)));
+            if (userId != null) {
+                resolvedUserIds.put(username, userId);
+            }
+        }
+        return resolvedUserIds;
+    }
+
+    /**
+     * Resolve the usernames of the given user IDs.
+     *
+     * @param userIds User IDs.
+     * @return Map of the resolved user IDs to the domain qualified usernames. User IDs of users which do not exist are
+     * not included.
+     * @throws UserStoreException If an error occurred while retrieving the users.
+     */
+    public Map<String, String> resolveUsernames(Collection<String> userIds) throws UserStoreException {
+
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> usernamesOfUserIds = new HashMap<>();
+        for (UniqueIDUserClaimSearchEntry searchEntry : getUsers(userIds)) {
+            String username = getUsername(searchEntry);
+            if (StringUtils.isNotBlank(username)) {
+                User user = searchEntry.getUser();
+                usernamesOfUserIds.put(user.getUserID(), IdentityUtil.addDomainToName(username,
+                        StringUtils.isBlank(user.getUserStoreDomain()) ? IdentityUtil.getPrimaryDomainName() :
+                                user.getUserStoreDomain()));
+            }
+        }
+        return usernamesOfUserIds;
+    }
+
+    /**
+     * Retrieve the users of the given user IDs along with the username claim, in chunks of a single user store query.
+     *
+     * @param userIds User IDs.
+     * @return Users which exist in the user store.
+     * @throws UserStoreException If an error occurred while retrieving the users.
+     */
+    private List<UniqueIDUserClaimSearchEntry> getUsers(Collection<?> userIds) throws UserStoreException {
+
+        Set<String> distinctUserIds = new LinkedHashSet<>();
+        for (Object userId : userIds) {
+            if (userId != null && StringUtils.isNotBlank(userId.toString())) {
+                distinctUserIds.add(userId.toString());
+            }
+        }
+
+        List<UniqueIDUserClaimSearchEntry> users = new ArrayList<>();
+        List<String> userIdList = new ArrayList<>(distinctUserIds);
+        List<String> claims = Collections.singletonList(usernameClaimUri);
+        for (int i = 0; i < userIdList.size(); i += MAX_USERS_PER_QUERY) {
+            List<String> chunk = userIdList.subList(i, Math.min(i + MAX_USERS_PER_QUERY, userIdList.size()));
+            List<UniqueIDUserClaimSearchEntry> searchEntries =
+                    userStoreManager.getUsersClaimValuesWithID(chunk, claims, null);
+            if (searchEntries == null) {
+                continue;
+            }
+            for (UniqueIDUserClaimSearchEntry searchEntry : searchEntries) {
+                User user = searchEntry.getUser();
+                if (user != null && StringUtils.isNotBlank(user.getUserID())) {
+                    users.add(searchEntry);
+                }
+            }
+        }
+        return users;
+    }
+
+    private String getUsername(UniqueIDUserClaimSearchEntry searchEntry) {
+
+        if (Objects.equals(UserCoreClaimConstants.USERNAME_CLAIM_URI, usernameClaimUri)) {
+            return searchEntry.getUser().getUsername();
+        }
+        return searchEntry.getClaims() == null ? null : searchEntry.getClaims().get(usernameClaimUri);
+    }
+
+    private String buildKey(String domainName, String username) {
+
+        String domain = StringUtils.isBlank(domainName) ? IdentityUtil.getPrimaryDomainName() : domainName;
+        return domain.toUpperCase(Locale.ENGLISH) + UserCoreConstants.DOMAIN_SEPARATOR + username;
+    }
+}
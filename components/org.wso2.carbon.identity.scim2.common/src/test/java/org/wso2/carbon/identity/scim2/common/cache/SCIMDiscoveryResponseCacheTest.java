@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+@PrepareForTest({IdentityUtil.class})
+@PowerMockIgnore({"javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*"})
+public class SCIMDiscoveryResponseCacheTest extends PowerMockTestCase {
+
+    private static final int TENANT_ID = 1;
+    private static final String SCHEMAS_KEY = "https://localhost:9443/scim2/Schemas";
+    private static final String RESOURCE_TYPES_KEY = "https://localhost:9443/scim2/ResourceTypes";
+
+    private SCIMDiscoveryResponseCache discoveryResponseCache;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+        discoveryResponseCache = spy(SCIMDiscoveryResponseCache.getInstance());
+        doNothing().when(discoveryResponseCache).addToCache(any(), any());
+        doNothing().when(discoveryResponseCache).clearCacheEntry(any());
+    }
+
+    @Test
+    public void testAddDiscoveryResponseWithoutCacheEntry() {
+
+        doReturn(null).when(discoveryResponseCache).getValueFromCache(any());
+
+        discoveryResponseCache.addDiscoveryResponse(TENANT_ID, discoveryResponseCache.getGenerationByTenant(TENANT_ID),
+                SCHEMAS_KEY, "schemas", "\"schemas-etag\"", null);
+
+        ArgumentCaptor<SCIMDiscoveryResponseCacheEntry> cacheEntry =
+                ArgumentCaptor.forClass(SCIMDiscoveryResponseCacheEntry.class);
+        verify(discoveryResponseCache).addToCache(eq(new SCIMDiscoveryResponseCacheKey(TENANT_ID)),
+                cacheEntry.capture());
+        assertEquals(cacheEntry.getValue().getResponseBody(SCHEMAS_KEY), "schemas");
+        assertEquals(cacheEntry.getValue().getETag(SCHEMAS_KEY), "\"schemas-etag\"");
+        assertEquals(cacheEntry.getValue().getResponseHeaders(SCHEMAS_KEY), Collections.emptyMap());
+    }
+
+    @Test
+    public void testAddDiscoveryResponseWithCacheEntry() {
+
+        SCIMDiscoveryResponseCacheEntry existingCacheEntry = new SCIMDiscoveryResponseCacheEntry()
+                .withResponse(SCHEMAS_KEY, "schemas", "\"schemas-etag\"", null);
+        doReturn(existingCacheEntry).when(discoveryResponseCache).getValueFromCache(any());
+
+        discoveryResponseCache.addDiscoveryResponse(TENANT_ID, discoveryResponseCache.getGenerationByTenant(TENANT_ID),
+                RESOURCE_TYPES_KEY, "resourceTypes", "\"resource-types-etag\"", null);
+
+        // The responses of the other resources are kept, and the cached entry is not changed.
+        ArgumentCaptor<SCIMDiscoveryResponseCacheEntry> cacheEntry =
+                ArgumentCaptor.forClass(SCIMDiscoveryResponseCacheEntry.class);
+        verify(discoveryResponseCache).addToCache(eq(new SCIMDiscoveryResponseCacheKey(TENANT_ID)),
+                cacheEntry.capture());
+        assertEquals(cacheEntry.getValue().getResponseBody(SCHEMAS_KEY), "schemas");
+        assertEquals(cacheEntry.getValue().getResponseBody(RESOURCE_TYPES_KEY), "resourceTypes");
+        assertNull(existingCacheEntry.getResponseBody(RESOURCE_TYPES_KEY));
+    }
+
+    @Test
+    public void testAddDiscoveryResponseAfterClear() {
+
+        doReturn(null).when(discoveryResponseCache).getValueFromCache(any());
+        long generation = discoveryResponseCache.getGenerationByTenant(TENANT_ID);
+
+        // A response rendered before the clear can be stale, hence it is not added.
+        discoveryResponseCache.clearDiscoveryResponsesByTenant(TENANT_ID);
+        discoveryResponseCache.addDiscoveryResponse(TENANT_ID, generation, SCHEMAS_KEY, "schemas",
+                "\"schemas-etag\"", null);
+        verify(discoveryResponseCache, never()).addToCache(any(), any());
+
+        discoveryResponseCache.addDiscoveryResponse(TENANT_ID, discoveryResponseCache.getGenerationByTenant(TENANT_ID),
+                SCHEMAS_KEY, "schemas", "\"schemas-etag\"", null);
+        verify(discoveryResponseCache).addToCache(eq(new SCIMDiscoveryResponseCacheKey(TENANT_ID)),
+                any(SCIMDiscoveryResponseCacheEntry.class));
+    }
+
+    @Test
+    public void testClearDiscoveryResponsesByTenantDuringAdd() throws Exception {
+
+        Thread clearingThread = new Thread(() -> discoveryResponseCache.clearDiscoveryResponsesByTenant(TENANT_ID));
+        // The tenant entry is cleared while it is being read to add the response.
+        doAnswer(invocation -> {
+            clearingThread.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (clearingThread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return null;
+        }).when(discoveryResponseCache).getValueFromCache(any());
+
+        discoveryResponseCache.addDiscoveryResponse(TENANT_ID, discoveryResponseCache.getGenerationByTenant(TENANT_ID),
+                SCHEMAS_KEY, "schemas", "\"schemas-etag\"", null);
+        clearingThread.join();
+
+        // The clear waits for the add to complete, hence the added response is cleared.
+        InOrder inOrder = inOrder(discoveryResponseCache);
+        inOrder.verify(discoveryResponseCache).addToCache(eq(new SCIMDiscoveryResponseCacheKey(TENANT_ID)),
+                any(SCIMDiscoveryResponseCacheEntry.class));
+        inOrder.verify(discoveryResponseCache).clearCacheEntry(new SCIMDiscoveryResponseCacheKey(TENANT_ID));
+    }
+
+    @Test
+    public void testClearDiscoveryResponsesByTenant() {
+
+        discoveryResponseCache.clearDiscoveryResponsesByTenant(TENANT_ID);
+
+        verify(discoveryResponseCache).clearCacheEntry(new SCIMDiscoveryResponseCacheKey(TENANT_ID));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class SCIMGroupMetadataCacheEntryTest {
+
+    @Test
+    public void testWithGroupsAndRoles() {
+
+        SCIMGroupMetadataCacheEntry cacheEntry = new SCIMGroupMetadataCacheEntry(
+                Collections.singletonMap("PRIMARY/group1", buildGroupMetadata("group1")),
+                Collections.singletonMap("role1", buildGroupMetadata("role1")));
+
+        SCIMGroupMetadataCacheEntry newCacheEntry = cacheEntry.withGroupsAndRoles(
+                Collections.singletonMap("PRIMARY/group2", buildGroupMetadata("group2")),
+                Collections.singletonMap("role2", buildGroupMetadata("role2")), 10);
+
+        assertEquals(newCacheEntry.getGroup("PRIMARY/group1").getId(), "group1-id");
+        assertEquals(newCacheEntry.getGroup("PRIMARY/group2").getId(), "group2-id");
+        assertEquals(newCacheEntry.getRole("role1").getId(), "role1-id");
+        assertEquals(newCacheEntry.getRole("role2").getId(), "role2-id");
+        // The existing entry is never changed, as it can be shared by the readers of the cache.
+        assertNull(cacheEntry.getGroup("PRIMARY/group2"));
+        assertNull(cacheEntry.getRole("role2"));
+    }
+
+    @Test
+    public void testWithGroupsAndRolesEvictsEarliestAddedGroups() {
+
+        Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> groups = new LinkedHashMap<>();
+        groups.put("group1", buildGroupMetadata("group1"));
+        groups.put("group2", buildGroupMetadata("group2"));
+        SCIMGroupMetadataCacheEntry cacheEntry = new SCIMGroupMetadataCacheEntry(groups, Collections.emptyMap());
+
+        // Adding a cached group again moves it to the end, hence it is evicted after the other groups.
+        Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> addedGroups = new LinkedHashMap<>();
+        addedGroups.put("group1", buildGroupMetadata("group1"));
+        addedGroups.put("group3", buildGroupMetadata("group3"));
+        SCIMGroupMetadataCacheEntry newCacheEntry = cacheEntry.withGroupsAndRoles(addedGroups,
+                Collections.emptyMap(), 2);
+
+        assertNull(newCacheEntry.getGroup("group2"));
+        assertNotNull(newCacheEntry.getGroup("group1"));
+        assertNotNull(newCacheEntry.getGroup("group3"));
+    }
+
+    @Test
+    public void testCacheEntryIsNotChangedThroughTheGivenMaps() {
+
+        Map<String, SCIMGroupMetadataCacheEntry.GroupMetadata> groups = new LinkedHashMap<>();
+        groups.put("group1", buildGroupMetadata("group1"));
+        SCIMGroupMetadataCacheEntry cacheEntry = new SCIMGroupMetadataCacheEntry(groups, Collections.emptyMap());
+
+        groups.put("group2", buildGroupMetadata("group2"));
+        groups.remove("group1");
+        assertNull(cacheEntry.getGroup("group2"));
+        assertNotNull(cacheEntry.getGroup("group1"));
+
+        // Evicting all the groups of a new entry does not evict them from the existing entry.
+        assertNull(cacheEntry.withGroupsAndRoles(Collections.emptyMap(), Collections.emptyMap(), 0)
+                .getGroup("group1"));
+        assertNotNull(cacheEntry.getGroup("group1"));
+    }
+
+    private SCIMGroupMetadataCacheEntry.GroupMetadata buildGroupMetadata(String name) {
+
+        return new SCIMGroupMetadataCacheEntry.GroupMetadata(name, name + "-id", null, null, null);
+    }
+}
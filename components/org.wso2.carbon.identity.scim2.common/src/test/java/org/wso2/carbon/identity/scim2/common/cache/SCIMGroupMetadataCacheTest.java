@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+
+@PrepareForTest({IdentityUtil.class})
+@PowerMockIgnore({"javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*"})
+public class SCIMGroupMetadataCacheTest extends PowerMockTestCase {
+
+    private static final int TENANT_ID = 1;
+
+    private SCIMGroupMetadataCache groupMetadataCache;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+        groupMetadataCache = spy(SCIMGroupMetadataCache.getInstance());
+        doNothing().when(groupMetadataCache).addToCache(any(), any());
+        doNothing().when(groupMetadataCache).clearCacheEntry(any());
+    }
+
+    @Test
+    public void testAddGroupMetadataByTenantWithoutCacheEntry() {
+
+        doReturn(null).when(groupMetadataCache).getValueFromCache(any());
+
+        groupMetadataCache.addGroupMetadataByTenant(TENANT_ID, groupMetadataCache.getGenerationByTenant(TENANT_ID),
+                Collections.singletonMap("PRIMARY/group1", buildGroupMetadata("group1")), Collections.emptyMap(), 10);
+
+        ArgumentCaptor<SCIMGroupMetadataCacheEntry> cacheEntry =
+                ArgumentCaptor.forClass(SCIMGroupMetadataCacheEntry.class);
+        verify(groupMetadataCache).addToCache(eq(new SCIMGroupMetadataCacheKey(TENANT_ID)), cacheEntry.capture());
+        assertEquals(cacheEntry.getValue().getGroup("PRIMARY/group1").getId(), "group1-id");
+    }
+
+    @Test
+    public void testAddGroupMetadataByTenantWithCacheEntry() {
+
+        SCIMGroupMetadataCacheEntry existingCacheEntry = new SCIMGroupMetadataCacheEntry(
+                Collections.singletonMap("PRIMARY/group1", buildGroupMetadata("group1")), Collections.emptyMap());
+        doReturn(existingCacheEntry).when(groupMetadataCache).getValueFromCache(any());
+
+        groupMetadataCache.addGroupMetadataByTenant(TENANT_ID, groupMetadataCache.getGenerationByTenant(TENANT_ID),
+                Collections.emptyMap(), Collections.singletonMap("role1", buildGroupMetadata("role1")), 10);
+
+        // A new entry replaces the cached entry, which is not changed.
+        ArgumentCaptor<SCIMGroupMetadataCacheEntry> cacheEntry =
+                ArgumentCaptor.forClass(SCIMGroupMetadataCacheEntry.class);
+        verify(groupMetadataCache).addToCache(eq(new SCIMGroupMetadataCacheKey(TENANT_ID)), cacheEntry.capture());
+        assertEquals(cacheEntry.getValue().getGroup("PRIMARY/group1").getId(), "group1-id");
+        assertEquals(cacheEntry.getValue().getRole("role1").getId(), "role1-id");
+        assertNull(existingCacheEntry.getRole("role1"));
+    }
+
+    @Test
+    public void testAddGroupMetadataByTenantWithoutGroups() {
+
+        groupMetadataCache.addGroupMetadataByTenant(TENANT_ID, groupMetadataCache.getGenerationByTenant(TENANT_ID),
+                Collections.emptyMap(), Collections.emptyMap(), 10);
+
+        verify(groupMetadataCache, never()).addToCache(any(), any());
+    }
+
+    @Test
+    public void testAddGroupMetadataByTenantAfterClear() {
+
+        doReturn(null).when(groupMetadataCache).getValueFromCache(any());
+        long generation = groupMetadataCache.getGenerationByTenant(TENANT_ID);
+
+        // Metadata loaded before the clear can be stale, hence it is not added.
+        groupMetadataCache.clearGroupMetadataByTenant(TENANT_ID);
+        groupMetadataCache.addGroupMetadataByTenant(TENANT_ID, generation,
+                Collections.singletonMap("PRIMARY/group1", buildGroupMetadata("group1")), Collections.emptyMap(), 10);
+        verify(groupMetadataCache, never()).addToCache(any(), any());
+
+        groupMetadataCache.addGroupMetadataByTenant(TENANT_ID, groupMetadataCache.getGenerationByTenant(TENANT_ID),
+                Collections.singletonMap("PRIMARY/group1", buildGroupMetadata("group1")), Collections.emptyMap(), 10);
+        verify(groupMetadataCache).addToCache(eq(new SCIMGroupMetadataCacheKey(TENANT_ID)),
+                any(SCIMGroupMetadataCacheEntry.class));
+    }
+
+    @Test
+    public void testClearGroupMetadataByTenantDuringAdd() throws Exception {
+
+        Thread clearingThread = new Thread(() -> groupMetadataCache.clearGroupMetadataByTenant(TENANT_ID));
+        // The tenant entry is cleared while it is being read to add the metadata.
+        doAnswer(invocation -> {
+            clearingThread.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (clearingThread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return null;
+        }).when(groupMetadataCache).getValueFromCache(any());
+
+        groupMetadataCache.addGroupMetadataByTenant(TENANT_ID, groupMetadataCache.getGenerationByTenant(TENANT_ID),
+                Collections.singletonMap("PRIMARY/group1", buildGroupMetadata("group1")), Collections.emptyMap(), 10);
+        clearingThread.join();
+
+        // The clear waits for the add to complete, hence the added metadata is cleared.
+        InOrder inOrder = inOrder(groupMetadataCache);
+        inOrder.verify(groupMetadataCache).addToCache(eq(new SCIMGroupMetadataCacheKey(TENANT_ID)),
+                any(SCIMGroupMetadataCacheEntry.class));
+        inOrder.verify(groupMetadataCache).clearCacheEntry(new SCIMGroupMetadataCacheKey(TENANT_ID));
+    }
+
+    @Test
+    public void testClearGroupMetadataByTenant() {
+
+        groupMetadataCache.clearGroupMetadataByTenant(TENANT_ID);
+
+        verify(groupMetadataCache).clearCacheEntry(new SCIMGroupMetadataCacheKey(TENANT_ID));
+    }
+
+    @Test
+    public void testCacheKey() {
+
+        SCIMGroupMetadataCacheKey cacheKey = new SCIMGroupMetadataCacheKey(TENANT_ID);
+
+        assertEquals(cacheKey.getTenantId(), TENANT_ID);
+        assertEquals(cacheKey, new SCIMGroupMetadataCacheKey(TENANT_ID));
+        assertEquals(cacheKey.hashCode(), new SCIMGroupMetadataCacheKey(TENANT_ID).hashCode());
+        assertNotEquals(cacheKey, new SCIMGroupMetadataCacheKey(TENANT_ID + 1));
+        assertNotEquals(cacheKey, null);
+    }
+
+    private SCIMGroupMetadataCacheEntry.GroupMetadata buildGroupMetadata(String name) {
+
+        return new SCIMGroupMetadataCacheEntry.GroupMetadata(name, name + "-id", null, null, null);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.cache;
+
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+@PrepareForTest({IdentityUtil.class})
+@PowerMockIgnore({"javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*"})
+public class SCIMUserCountCacheTest extends PowerMockTestCase {
+
+    private static final int TENANT_ID = 1;
+    private static final String DOMAIN_NAME = "SECONDARY";
+
+    private SCIMUserCountCache userCountCache;
+    private Map<SCIMUserCountCacheKey, SCIMUserCountCacheEntry> cacheEntries;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+        userCountCache = spy(SCIMUserCountCache.getInstance());
+        cacheEntries = new HashMap<>();
+        doAnswer(invocation -> cacheEntries.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(userCountCache).addToCache(any(), any());
+        doAnswer(invocation -> cacheEntries.get(invocation.getArgument(0)))
+                .when(userCountCache).getValueFromCache(any());
+        doAnswer(invocation -> cacheEntries.remove(invocation.getArgument(0)))
+                .when(userCountCache).clearCacheEntry(any());
+    }
+
+    @DataProvider(name = "userCountAdjustments")
+    public Object[][] userCountAdjustments() {
+
+        return new Object[][]{
+                {10, 1, 11},
+                {10, -1, 9},
+                {0, -1, 0}
+        };
+    }
+
+    @Test(dataProvider = "userCountAdjustments")
+    public void testAdjustUserCount(long userCount, long delta, long expectedUserCount) {
+
+        userCountCache.addUserCount(TENANT_ID, DOMAIN_NAME,
+                userCountCache.getGenerationByDomain(TENANT_ID, DOMAIN_NAME), userCount);
+        long refreshedTime = userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME).getRefreshedTime();
+
+        userCountCache.adjustUserCount(TENANT_ID, DOMAIN_NAME.toLowerCase(), delta);
+
+        SCIMUserCountCacheEntry cacheEntry = userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME);
+        assertEquals(cacheEntry.getUserCount(), expectedUserCount);
+        assertEquals(cacheEntry.getRefreshedTime(), refreshedTime);
+    }
+
+    @Test
+    public void testAdjustUserCountWithoutCacheEntry() {
+
+        userCountCache.adjustUserCount(TENANT_ID, DOMAIN_NAME, 1);
+
+        // The count is read from the user store on the next request, hence nothing is added.
+        verify(userCountCache, never()).addToCache(any(), any());
+        assertNull(userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME));
+    }
+
+    @Test
+    public void testAdjustUserCountConcurrently() throws Exception {
+
+        userCountCache.addUserCount(TENANT_ID, DOMAIN_NAME,
+                userCountCache.getGenerationByDomain(TENANT_ID, DOMAIN_NAME), 1000);
+
+        Thread addingThread = new Thread(() -> {
+            for (int i = 0; i < 500; i++) {
+                userCountCache.adjustUserCount(TENANT_ID, DOMAIN_NAME, 1);
+            }
+        });
+        Thread deletingThread = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                userCountCache.adjustUserCount(TENANT_ID, DOMAIN_NAME, -1);
+            }
+        });
+        addingThread.start();
+        deletingThread.start();
+        addingThread.join();
+        deletingThread.join();
+
+        assertEquals(userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME).getUserCount(), 1300);
+    }
+
+    @Test
+    public void testAddUserCountAfterAdjustment() {
+
+        long generation = userCountCache.getGenerationByDomain(TENANT_ID, DOMAIN_NAME);
+
+        // A count read while a user was added can miss the user, hence it is not added.
+        userCountCache.adjustUserCount(TENANT_ID, DOMAIN_NAME, 1);
+        userCountCache.addUserCount(TENANT_ID, DOMAIN_NAME, generation, 10);
+        assertNull(userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME));
+
+        userCountCache.addUserCount(TENANT_ID, DOMAIN_NAME,
+                userCountCache.getGenerationByDomain(TENANT_ID, DOMAIN_NAME), 11);
+        assertEquals(userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME).getUserCount(), 11);
+    }
+
+    @Test
+    public void testClearUserCount() {
+
+        userCountCache.addUserCount(TENANT_ID, DOMAIN_NAME,
+                userCountCache.getGenerationByDomain(TENANT_ID, DOMAIN_NAME), 10);
+        long generation = userCountCache.getGenerationByDomain(TENANT_ID, DOMAIN_NAME);
+
+        userCountCache.clearUserCount(TENANT_ID, DOMAIN_NAME);
+
+        assertNull(userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME));
+        userCountCache.addUserCount(TENANT_ID, DOMAIN_NAME, generation, 10);
+        assertNull(userCountCache.getUserCount(TENANT_ID, DOMAIN_NAME));
+    }
+}
@@ -36,7 +36,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Calendar;
@@ -233,6 +235,31 @@ public class SCIMGroupHandlerTest extends PowerMockTestCase {
         assertEquals(new SCIMGroupHandler(1).getGroupWithAttributes(group, "EXISTING_GROUP_NAME"), group);
     }
 
+    @Test
+    public void testGetGroupsWithAttributes() throws Exception {
+
+        mockStatic(SCIMCommonUtils.class);
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        String today = formatter.format(Calendar.getInstance().getTime());
+        Map<String, String> attributes = new HashMap<String, String>();
+        attributes.put("urn:ietf:params:scim:schemas:core:2.0:id", "100");
+        attributes.put("urn:ietf:params:scim:schemas:core:2.0:meta.created", today);
+        attributes.put("urn:ietf:params:scim:schemas:core:2.0:meta.lastModified", today);
+        Map<String, Map<String, String>> groupAttributes = new HashMap<>();
+        groupAttributes.put("EXISTING_GROUP_NAME", attributes);
+
+        List<String> groupNames = Arrays.asList("EXISTING_GROUP_NAME", "NON_EXISTING_GROUP_NAME");
+        whenNew(GroupDAO.class).withNoArguments().thenReturn(mockedGroupDAO);
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(1, groupNames)).thenReturn(groupAttributes);
+
+        Map<String, Group> groups = new SCIMGroupHandler(1).getGroupsWithAttributes(groupNames);
+        assertEquals(groups.size(), 2);
+        assertEquals(groups.get("EXISTING_GROUP_NAME").getId(), "100");
+        assertEquals(groups.get("EXISTING_GROUP_NAME").getDisplayName(), "EXISTING_GROUP_NAME");
+        assertNull(groups.get("NON_EXISTING_GROUP_NAME").getId());
+        assertEquals(groups.get("NON_EXISTING_GROUP_NAME").getDisplayName(), "NON_EXISTING_GROUP_NAME");
+    }
+
     @Test
     public void testIsGroupExisting() throws Exception {
         ResultSet resultSet = mock(ResultSet.class);
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.impl;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.common.User;
+import org.wso2.charon3.core.exceptions.CharonException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class GroupMemberBatchIteratorTest {
+
+    private SCIMUserManager scimUserManager;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        scimUserManager = mock(SCIMUserManager.class);
+        // A SCIM member is built for each of the users of the batch.
+        when(scimUserManager.buildGroupMembers(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            List<org.wso2.charon3.core.objects.User> members = new ArrayList<>();
+            for (User coreUser : (List<User>) invocation.getArgument(0)) {
+                org.wso2.charon3.core.objects.User member = new org.wso2.charon3.core.objects.User();
+                member.setId(coreUser.getUserID());
+                members.add(member);
+            }
+            return members;
+        });
+    }
+
+    @Test
+    public void testNextBatch() throws Exception {
+
+        List<User> coreUsers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            coreUsers.add(new User("id-" + i, "user" + i, "user" + i));
+        }
+        GroupMemberBatchIterator memberBatchIterator = new GroupMemberBatchIterator(scimUserManager, coreUsers, 2,
+                12);
+
+        assertEquals(memberBatchIterator.getMemberCount(), 12);
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> memberIds = new ArrayList<>();
+        while (memberBatchIterator.hasNext()) {
+            List<org.wso2.charon3.core.objects.User> batch = memberBatchIterator.nextBatch();
+            batchSizes.add(batch.size());
+            for (org.wso2.charon3.core.objects.User member : batch) {
+                memberIds.add(member.getId());
+            }
+        }
+        assertEquals(batchSizes, Arrays.asList(2, 2, 1));
+        assertEquals(memberIds, Arrays.asList("id-0", "id-1", "id-2", "id-3", "id-4"));
+        // Members of a batch are built only when the batch is requested.
+        verify(scimUserManager).buildGroupMembers(coreUsers.subList(4, 5), true);
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextBatchWithoutMembers() throws Exception {
+
+        GroupMemberBatchIterator memberBatchIterator = new GroupMemberBatchIterator(scimUserManager,
+                Collections.emptyList(), 2, 12);
+
+        assertFalse(memberBatchIterator.hasNext());
+        memberBatchIterator.nextBatch();
+    }
+
+    @Test
+    public void testNextBatchWithInvalidBatchSize() throws Exception {
+
+        GroupMemberBatchIterator memberBatchIterator = new GroupMemberBatchIterator(scimUserManager,
+                Collections.singletonList(new User("id-0", "user0", "user0")), 0, 1);
+
+        assertTrue(memberBatchIterator.hasNext());
+        assertEquals(memberBatchIterator.nextBatch().size(), 1);
+        assertFalse(memberBatchIterator.hasNext());
+    }
+
+    @Test(expectedExceptions = CharonException.class)
+    public void testNextBatchWithUserStoreError() throws Exception {
+
+        when(scimUserManager.buildGroupMembers(anyList(), anyBoolean())).thenThrow(new UserStoreException());
+        GroupMemberBatchIterator memberBatchIterator = new GroupMemberBatchIterator(scimUserManager,
+                Collections.singletonList(new User("id-0", "user0", "user0")), 2, 1);
+
+        memberBatchIterator.nextBatch();
+    }
+}
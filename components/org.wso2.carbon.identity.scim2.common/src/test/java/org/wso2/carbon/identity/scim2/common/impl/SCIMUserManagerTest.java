@@ -34,6 +34,7 @@ import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.model.InboundProvisioningConfig;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
@@ -52,6 +53,7 @@ import org.wso2.charon3.core.objects.plainobjects.UsersGetResponse;
 import org.wso2.charon3.core.objects.plainobjects.GroupsGetResponse;
 import org.wso2.carbon.identity.scim2.common.test.utils.CommonTestUtils;
 import org.wso2.carbon.identity.scim2.common.utils.AttributeMapper;
+import org.wso2.carbon.identity.scim2.common.utils.PatchOperationClaimMapper;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
 import org.wso2.carbon.identity.testutil.Whitebox;
@@ -70,6 +72,7 @@ import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.mgt.RolePermissionManagementService;
 import org.wso2.charon3.core.attributes.Attribute;
 import org.wso2.charon3.core.attributes.MultiValuedAttribute;
+import org.wso2.charon3.core.attributes.SimpleAttribute;
 import org.wso2.charon3.core.config.SCIMUserSchemaExtensionBuilder;
 import org.wso2.charon3.core.exceptions.AbstractCharonException;
 import org.wso2.charon3.core.exceptions.BadRequestException;
@@ -107,6 +110,9 @@ import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.doReturn;
@@ -116,6 +122,7 @@ import static org.powermock.api.mockito.PowerMockito.spy;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
@@ -126,7 +133,7 @@ import static org.testng.Assert.assertTrue;
         SCIMAttributeSchema.class, AttributeMapper.class, ClaimMetadataHandler.class, SCIMCommonUtils.class,
         IdentityTenantUtil.class, AbstractUserStoreManager.class, Group.class, UserCoreUtil.class,
         ApplicationManagementService.class, RolePermissionManagementService.class, SCIMCommonComponentHolder.class,
-        SCIMUserManager.class, CarbonConstants.class})
+        SCIMUserManager.class, CarbonConstants.class, PatchOperationClaimMapper.class, FrameworkUtils.class})
 @PowerMockIgnore({"java.sql.*","javax.xml.*","org.w3c.dom.*","org.xml.sax.*"})
 public class SCIMUserManagerTest extends PowerMockTestCase {
 
@@ -403,6 +410,8 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         mockStatic(IdentityUtil.class);
         when(mockedGroupDAO.isExistingGroup("testRole", 0)).thenReturn(true);
         when(mockedGroupDAO.getSCIMGroupAttributes(0, "testRole")).thenReturn(attributes);
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any()))
+                .thenReturn(Collections.singletonMap(roleName, attributes));
         when(IdentityUtil.extractDomainFromName(anyString())).thenReturn(userStoreDomain);
 
         mockedUserStoreManager = PowerMockito.mock(AbstractUserStoreManager.class);
@@ -897,6 +906,17 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
                         }},
                         false, false, "SECONDARY", 1, 4, 1, 2},
 
+                // The page has fewer users than requested, hence the total is taken from the page without
+                // running the count query.
+                {users, "name.givenName sw testUser and name.givenName co New",
+                        new ArrayList<org.wso2.carbon.user.core.common.User>() {{
+                            add(testUser4);
+                        }},
+                        new ArrayList<org.wso2.carbon.user.core.common.User>() {{
+                            add(testUser4);
+                            add(testUser5);
+                        }},
+                        true, false, "PRIMARY", 2, 4, 1, 1},
         };
     }
 
@@ -967,6 +987,11 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
         when(mockedGroupDAO.isExistingGroup(anyString(), anyInt())).thenReturn(true);
         when(mockedGroupDAO.getSCIMGroupAttributes(anyInt(), anyString())).thenReturn(attributes);
+        Map<String, Map<String, String>> attributesOfGroups = new HashMap<>();
+        for (String role : roles) {
+            attributesOfGroups.put(role, attributes);
+        }
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(attributesOfGroups);
         mockStatic(UserCoreUtil.class);
         when(UserCoreUtil.isEveryoneRole("role", mockedRealmConfig)).thenReturn(false);
         mockStatic(SCIMCommonUtils.class);
@@ -981,6 +1006,83 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         assertEquals(groupsResponse.getGroups().size(), 2);
     }
 
+    @Test(dataProvider = "listApplicationRoles")
+    public void testListApplicationRolesWithPagination(Map<String, Boolean> requiredAttributes, String[] roles,
+                                                       Map<String, String> attributes) throws Exception {
+
+        AbstractUserStoreManager abstractUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(abstractUserStoreManager.getRoleNames(anyString(), anyInt(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenReturn(roles);
+        for (String role : roles) {
+            when(abstractUserStoreManager.getGroupByGroupName(role, null)).
+                    thenReturn(buildUserCoreGroupResponse(role, "123456789", null));
+        }
+        whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
+        when(mockedGroupDAO.isExistingGroup(anyString(), anyInt())).thenReturn(true);
+        when(mockedGroupDAO.getSCIMGroupAttributes(anyInt(), anyString())).thenReturn(attributes);
+        Map<String, Map<String, String>> attributesOfGroups = new HashMap<>();
+        for (String role : roles) {
+            attributesOfGroups.put(role, attributes);
+        }
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(attributesOfGroups);
+        mockStatic(UserCoreUtil.class);
+        when(UserCoreUtil.isEveryoneRole("role", mockedRealmConfig)).thenReturn(false);
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMGroupURL()).thenReturn("https://localhost:9443/scim2/Groups");
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(abstractUserStoreManager, mockedClaimManager);
+        GroupsGetResponse groupsResponse = scimUserManager
+                .listGroupsWithGET(null, 2, 1, null, null, "Application", requiredAttributes);
+
+        assertEquals(groupsResponse.getGroups().size(), 1);
+        assertEquals(groupsResponse.getGroups().get(0).getDisplayName(), "Application/MyApp");
+        assertEquals(groupsResponse.getTotalGroups(), 2);
+        verify(abstractUserStoreManager, never()).getGroupByGroupName("Application/Apple", null);
+    }
+
+    @DataProvider(name = "groupPagesWithGroupWithoutId")
+    public Object[][] groupPagesWithGroupWithoutId() {
+
+        return new Object[][]{
+                {1, "Application/Apple"},
+                {2, "Application/MyApp"}
+        };
+    }
+
+    @Test(dataProvider = "groupPagesWithGroupWithoutId")
+    public void testListGroupsWithGroupWithoutId(int startIndex, String expectedGroupName) throws Exception {
+
+        String[] roles = {"Application/Apple", "Application/Banana", "Application/MyApp"};
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("urn:ietf:params:scim:schemas:core:2.0:id", "25850849-eb62-476a-a3ff-641b81cbd251");
+        AbstractUserStoreManager abstractUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(abstractUserStoreManager.getRoleNames(anyString(), anyInt(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenReturn(roles);
+        for (String role : roles) {
+            when(abstractUserStoreManager.getGroupByGroupName(role, null)).
+                    thenReturn(buildUserCoreGroupResponse(role, "123456789", null));
+        }
+        whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
+        // The Application/Banana group does not have SCIM attributes, hence it does not have an id.
+        Map<String, Map<String, String>> attributesOfGroups = new HashMap<>();
+        attributesOfGroups.put("Application/Apple", attributes);
+        attributesOfGroups.put("Application/MyApp", attributes);
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(attributesOfGroups);
+        mockStatic(UserCoreUtil.class);
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMGroupURL()).thenReturn("https://localhost:9443/scim2/Groups");
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(abstractUserStoreManager, mockedClaimManager);
+        GroupsGetResponse groupsResponse = scimUserManager
+                .listGroupsWithGET(null, startIndex, 1, null, null, "Application", null);
+
+        // The group without an id is excluded before paging, hence all the pages have the same totalResults.
+        assertEquals(groupsResponse.getTotalGroups(), 2);
+        assertEquals(groupsResponse.getGroups().size(), 1);
+        assertEquals(groupsResponse.getGroups().get(0).getDisplayName(), expectedGroupName);
+        verify(abstractUserStoreManager, never()).getGroupByGroupName("Application/Banana", null);
+    }
+
     @DataProvider(name = "listApplicationRoles")
     public Object[][] listApplicationRoles() {
 
@@ -1026,6 +1128,11 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
         when(mockedGroupDAO.isExistingGroup(anyString(), anyInt())).thenReturn(true);
         when(mockedGroupDAO.getSCIMGroupAttributes(anyInt(), anyString())).thenReturn(attributes);
+        Map<String, Map<String, String>> attributesOfGroups = new HashMap<>();
+        for (String role : roles) {
+            attributesOfGroups.put(role, attributes);
+        }
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(attributesOfGroups);
         mockStatic(SCIMCommonUtils.class);
         when(SCIMCommonUtils.getSCIMGroupURL()).thenReturn("https://localhost:9443/scim2/Groups");
 
@@ -1040,6 +1147,114 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         assertEquals(groupsResponse.getGroups().size(), 1);
     }
 
+    @Test
+    public void testFilterApplicationRolesWithPagination() throws Exception {
+
+        ExpressionNode node = new ExpressionNode("filter urn:ietf:params:scim:schemas:core:2.0:Group:displayName sw A");
+        String[] roles = {"Application/MyApp", "Application/Apple"};
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("urn:ietf:params:scim:schemas:core:2.0:id", "25850849-eb62-476a-a3ff-641b81cbd251");
+        AbstractUserStoreManager abstractUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(abstractUserStoreManager.getRoleNames(anyString(), anyInt(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenReturn(roles);
+        Map<String, Map<String, String>> attributesOfGroups = new HashMap<>();
+        for (String role : roles) {
+            when(abstractUserStoreManager.getGroupByGroupName(role, null)).
+                    thenReturn(buildUserCoreGroupResponse(role, "123456", "dummyDomain"));
+            attributesOfGroups.put(role, attributes);
+        }
+        mockStatic(UserCoreUtil.class);
+        whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
+        when(mockedGroupDAO.isExistingGroup(anyString(), anyInt())).thenReturn(true);
+        when(mockedGroupDAO.getSCIMGroupAttributes(anyInt(), anyString())).thenReturn(attributes);
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(attributesOfGroups);
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMGroupURL()).thenReturn("https://localhost:9443/scim2/Groups");
+
+        mockStatic(CarbonConstants.class);
+        CarbonConstants.ENABLE_LEGACY_AUTHZ_RUNTIME = true;
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(abstractUserStoreManager, mockedClaimManager);
+        GroupsGetResponse groupsResponse = scimUserManager
+                .listGroupsWithGET(node, 2, 1, null, null, "Application", null);
+
+        assertEquals(groupsResponse.getTotalGroups(), 2);
+        assertEquals(groupsResponse.getGroups().size(), 1);
+        assertEquals(groupsResponse.getGroups().get(0).getDisplayName(), "Application/MyApp");
+        verify(abstractUserStoreManager, never()).getGroupByGroupName("Application/Apple", null);
+        verify(abstractUserStoreManager, never()).isExistingRole(anyString(), anyBoolean());
+    }
+
+    @Test(dataProvider = "groupPagesWithGroupWithoutId")
+    public void testFilterGroupsWithGroupWithoutId(int startIndex, String expectedGroupName) throws Exception {
+
+        ExpressionNode node = new ExpressionNode("filter urn:ietf:params:scim:schemas:core:2.0:Group:displayName sw A");
+        String[] roles = {"Application/Apple", "Application/Banana", "Application/MyApp"};
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("urn:ietf:params:scim:schemas:core:2.0:id", "25850849-eb62-476a-a3ff-641b81cbd251");
+        AbstractUserStoreManager abstractUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(abstractUserStoreManager.getRoleNames(anyString(), anyInt(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenReturn(roles);
+        for (String role : roles) {
+            when(abstractUserStoreManager.getGroupByGroupName(role, null)).
+                    thenReturn(buildUserCoreGroupResponse(role, "123456", "dummyDomain"));
+        }
+        mockStatic(UserCoreUtil.class);
+        whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
+        // The Application/Banana group does not have SCIM attributes, hence it does not have an id.
+        Map<String, Map<String, String>> attributesOfGroups = new HashMap<>();
+        attributesOfGroups.put("Application/Apple", attributes);
+        attributesOfGroups.put("Application/MyApp", attributes);
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(attributesOfGroups);
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMGroupURL()).thenReturn("https://localhost:9443/scim2/Groups");
+
+        mockStatic(CarbonConstants.class);
+        CarbonConstants.ENABLE_LEGACY_AUTHZ_RUNTIME = true;
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(abstractUserStoreManager, mockedClaimManager);
+        GroupsGetResponse groupsResponse = scimUserManager
+                .listGroupsWithGET(node, startIndex, 1, null, null, "Application", null);
+
+        // The group without an id is excluded before paging, hence all the pages have the same totalResults.
+        assertEquals(groupsResponse.getTotalGroups(), 2);
+        assertEquals(groupsResponse.getGroups().size(), 1);
+        assertEquals(groupsResponse.getGroups().get(0).getDisplayName(), expectedGroupName);
+        verify(abstractUserStoreManager, never()).getGroupByGroupName("Application/Banana", null);
+    }
+
+    @Test
+    public void testFilterGroupsOfUniqueGroupIdUserStore() throws Exception {
+
+        ExpressionNode node = new ExpressionNode("filter urn:ietf:params:scim:schemas:core:2.0:Group:displayName sw A");
+        String[] roles = {"Application/MyApp", "Application/Apple"};
+        AbstractUserStoreManager abstractUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(abstractUserStoreManager.getRoleNames(anyString(), anyInt(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenReturn(roles);
+        when(abstractUserStoreManager.isUniqueGroupIdEnabled()).thenReturn(true);
+        for (String role : roles) {
+            when(abstractUserStoreManager.getGroupByGroupName(role, null)).
+                    thenReturn(buildUserCoreGroupResponse(role, "123456", "dummyDomain"));
+        }
+        mockStatic(UserCoreUtil.class);
+        whenNew(GroupDAO.class).withAnyArguments().thenReturn(mockedGroupDAO);
+        // Groups of user stores with unique group ids do not have SCIM attributes in the IDN_SCIM_GROUP table.
+        when(mockedGroupDAO.getSCIMGroupAttributesOfGroups(anyInt(), any())).thenReturn(Collections.emptyMap());
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMGroupURL()).thenReturn("https://localhost:9443/scim2/Groups");
+
+        mockStatic(CarbonConstants.class);
+        CarbonConstants.ENABLE_LEGACY_AUTHZ_RUNTIME = true;
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(abstractUserStoreManager, mockedClaimManager);
+        GroupsGetResponse groupsResponse = scimUserManager
+                .listGroupsWithGET(node, 1, null, null, null, "Application", null);
+
+        assertEquals(groupsResponse.getTotalGroups(), 2);
+        assertEquals(groupsResponse.getGroups().size(), 2);
+        verify(mockedGroupDAO, never()).getSCIMGroupAttributesOfGroups(anyInt(), any());
+    }
+
     @DataProvider(name = "applicationDomainWithFilters")
     public Object[][] applicationDomainWithFilters() {
 
@@ -1130,8 +1345,9 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         // When IS supports username change through SCIM user
         // update this test will no longer be needed.
 
-        User oldUser = new User();
-        oldUser.setUserName("oldUser");
+        org.wso2.carbon.user.core.common.User oldUser = new org.wso2.carbon.user.core.common.User("newUserId",
+                "oldUser", "oldUser");
+        oldUser.setUserStoreDomain("PRIMARY");
 
         User newUser = new User();
         newUser.setUserName("newUser");
@@ -1143,7 +1359,8 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
 
         SCIMUserManager scimUserManager = spy(new SCIMUserManager(mockedUserStoreManager,
                 mockClaimMetadataManagementService, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME));
-        doReturn(oldUser).when(scimUserManager).getUser(anyString(), anyMap());
+        when(mockedUserStoreManager.getUserWithID("newUserId", null, UserCoreConstants.DEFAULT_PROFILE))
+                .thenReturn(oldUser);
         mockStatic(IdentityUtil.class);
         when(IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString())).thenReturn(true);
 
@@ -1407,6 +1624,292 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         assertEquals(scimUser.getRoles().size(), expectedNoOfRoles);
     }
 
+    @Test
+    public void testGetUserVersionIsIndependentOfRequestedAttributes() throws Exception {
+
+        String userId = "b53fe2f0-054d-43b5-a8f7-50043adb2198";
+        Map<String, String> storedClaims = new HashMap<>();
+        storedClaims.put(USERNAME_LOCAL_CLAIM, "user");
+        storedClaims.put(USERID_LOCAL_CLAIM, userId);
+        storedClaims.put(EMAIL_ADDRESS_LOCAL_CLAIM, "user@wso2.com");
+        storedClaims.put(LASTNAME_LOCAL_CLAIM, "Administrator");
+
+        Map<String, String> scimToLocalClaimsMap = new HashMap<>();
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.ID_URI, USERID_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.EMAILS_URI, EMAIL_ADDRESS_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.USER_NAME_URI, USERNAME_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.FAMILY_NAME_URI, LASTNAME_LOCAL_CLAIM);
+
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMtoLocalMappings()).thenReturn(scimToLocalClaimsMap);
+        when(SCIMCommonUtils.convertLocalToSCIMDialect(anyMap(), anyMap())).thenCallRealMethod();
+        when(SCIMCommonUtils.isETagSupported()).thenReturn(true);
+        when(SCIMCommonUtils.generateResourceVersion(nullable(String.class), anyString())).thenCallRealMethod();
+
+        org.wso2.carbon.user.core.common.User user = mock(org.wso2.carbon.user.core.common.User.class);
+        when(user.getUserStoreDomain()).thenReturn("PRIMARY");
+        when(user.getUsername()).thenReturn("user");
+        when(user.getDomainQualifiedUsername()).thenReturn("user");
+        when(user.getUserID()).thenReturn(userId);
+
+        mockedUserStoreManager = PowerMockito.mock(AbstractUserStoreManager.class);
+        when(mockedUserStoreManager.getUserWithID(anyString(), nullable(String[].class), anyString())).thenReturn(user);
+        // Only the claims which are read are returned, as in the user store.
+        when(mockedUserStoreManager.getUserClaimValuesWithID(anyString(), any(), nullable(String.class)))
+                .thenAnswer(invocation -> {
+                    Map<String, String> claimValues = new HashMap<>(storedClaims);
+                    claimValues.keySet().retainAll(Arrays.asList((String[]) invocation.getArguments()[1]));
+                    return claimValues;
+                });
+        when(mockedUserStoreManager.getRealmConfiguration()).thenReturn(mockedRealmConfig);
+        when(mockedUserStoreManager.getSecondaryUserStoreManager(anyString())).thenReturn(secondaryUserStoreManager);
+        when(secondaryUserStoreManager.isSCIMEnabled()).thenReturn(true);
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled()).thenReturn(true);
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantId("carbon.super")).thenReturn(-1234);
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(mockedUserStoreManager,
+                mockClaimMetadataManagementService, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+        Map<String, Boolean> allAttributes = new HashMap<>();
+        allAttributes.put(SCIMConstants.CommonSchemaConstants.ID_URI, true);
+        allAttributes.put(SCIMConstants.UserSchemaConstants.EMAILS_URI, true);
+        allAttributes.put(SCIMConstants.UserSchemaConstants.USER_NAME_URI, true);
+        allAttributes.put(SCIMConstants.UserSchemaConstants.FAMILY_NAME_URI, true);
+        Map<String, Boolean> someAttributes = new HashMap<>();
+        someAttributes.put(SCIMConstants.CommonSchemaConstants.ID_URI, true);
+        someAttributes.put(SCIMConstants.UserSchemaConstants.USER_NAME_URI, true);
+
+        String version = getVersion(scimUserManager.getUser(userId, allAttributes));
+        assertNotNull(version);
+        assertEquals(getVersion(scimUserManager.getUser(userId, someAttributes)), version);
+
+        // The version changes when any stored claim of the user changes, even if it is not requested.
+        storedClaims.put(EMAIL_ADDRESS_LOCAL_CLAIM, "changed@wso2.com");
+        assertNotEquals(getVersion(scimUserManager.getUser(userId, someAttributes)), version);
+    }
+
+    private String getVersion(User scimUser) throws Exception {
+
+        Attribute versionAttribute = scimUser.getAttribute(SCIMConstants.CommonSchemaConstants.META)
+                .getSubAttribute(SCIMConstants.CommonSchemaConstants.VERSION);
+        return String.valueOf(((SimpleAttribute) versionAttribute).getValue());
+    }
+
+    @Test
+    public void testPatchUserWithSingleValuedClaims() throws Exception {
+
+        String userId = "b53fe2f0-054d-43b5-a8f7-50043adb2198";
+        Map<String, String> storedClaims = new HashMap<>();
+        storedClaims.put(LASTNAME_LOCAL_CLAIM, "Doe");
+        storedClaims.put(NICK_AME_LOCAL_CLAIM, "Johnny");
+        SCIMUserManager scimUserManager = getSCIMUserManagerForPatch(userId, storedClaims, Arrays.asList(
+                new PatchOperationClaimMapper.ClaimChange(PatchOperationClaimMapper.ClaimChange.Type.SET,
+                        LASTNAME_LOCAL_CLAIM, Collections.singletonList("Smith"), false),
+                new PatchOperationClaimMapper.ClaimChange(PatchOperationClaimMapper.ClaimChange.Type.REMOVE,
+                        NICK_AME_LOCAL_CLAIM, Collections.emptyList(), false)));
+
+        assertNotNull(scimUserManager.patchUser(userId, new ArrayList<>(), getPatchRequiredAttributes()));
+        verify(mockedUserStoreManager).deleteUserClaimValuesWithID(eq(userId),
+                eq(new String[]{NICK_AME_LOCAL_CLAIM}), nullable(String.class));
+        verify(mockedUserStoreManager).setUserClaimValuesWithID(eq(userId),
+                eq(Collections.singletonMap(LASTNAME_LOCAL_CLAIM, "Smith")), nullable(String.class));
+        verify(mockedUserStoreManager, never()).setUserClaimValuesWithID(anyString(), anyMap(), anyMap(), anyMap(),
+                anyMap(), nullable(String.class));
+        // The patched user is built from the written claims without reading the user back.
+        verify(mockedUserStoreManager, times(1)).getUserClaimValuesWithID(anyString(), any(),
+                nullable(String.class));
+    }
+
+    @DataProvider(name = "multiValuedClaimChanges")
+    public Object[][] multiValuedClaimChanges() {
+
+        return new Object[][]{
+                {PatchOperationClaimMapper.ClaimChange.Type.ADD_VALUES, Collections.singletonList("c@wso2.com"),
+                        Collections.singletonList("c@wso2.com"), Collections.emptyList()},
+                {PatchOperationClaimMapper.ClaimChange.Type.REPLACE_VALUES, Arrays.asList("b@wso2.com", "c@wso2.com"),
+                        Collections.singletonList("c@wso2.com"), Collections.singletonList("a@wso2.com")},
+                {PatchOperationClaimMapper.ClaimChange.Type.REMOVE, Collections.emptyList(),
+                        Collections.emptyList(), Arrays.asList("a@wso2.com", "b@wso2.com")}
+        };
+    }
+
+    @Test(dataProvider = "multiValuedClaimChanges")
+    public void testPatchUserWithMultiValuedClaims(PatchOperationClaimMapper.ClaimChange.Type type,
+                                                   List<String> values, List<String> expectedAddedValues,
+                                                   List<String> expectedRemovedValues) throws Exception {
+
+        String userId = "b53fe2f0-054d-43b5-a8f7-50043adb2198";
+        Map<String, String> storedClaims = new HashMap<>();
+        storedClaims.put(EMAIL_ADDRESS_LOCAL_CLAIM, "a@wso2.com,b@wso2.com");
+        SCIMUserManager scimUserManager = getSCIMUserManagerForPatch(userId, storedClaims, Collections.singletonList(
+                new PatchOperationClaimMapper.ClaimChange(type, EMAIL_ADDRESS_LOCAL_CLAIM, values, true)));
+
+        Map<String, List<String>> expectedAddedClaims = new HashMap<>();
+        if (!expectedAddedValues.isEmpty()) {
+            expectedAddedClaims.put(EMAIL_ADDRESS_LOCAL_CLAIM, expectedAddedValues);
+        }
+        Map<String, List<String>> expectedRemovedClaims = new HashMap<>();
+        if (!expectedRemovedValues.isEmpty()) {
+            expectedRemovedClaims.put(EMAIL_ADDRESS_LOCAL_CLAIM, expectedRemovedValues);
+        }
+
+        assertNotNull(scimUserManager.patchUser(userId, new ArrayList<>(), getPatchRequiredAttributes()));
+        verify(mockedUserStoreManager).setUserClaimValuesWithID(eq(userId), anyMap(), eq(expectedAddedClaims),
+                eq(expectedRemovedClaims), eq(Collections.emptyMap()), nullable(String.class));
+        verify(mockedUserStoreManager, never()).setUserClaimValuesWithID(anyString(), anyMap(),
+                nullable(String.class));
+        verify(mockedUserStoreManager, never()).deleteUserClaimValuesWithID(anyString(), any(String[].class),
+                nullable(String.class));
+        // Multi-valued claims are merged by the user store, hence the patched user is read back.
+        verify(mockedUserStoreManager, times(2)).getUserClaimValuesWithID(anyString(), any(),
+                nullable(String.class));
+    }
+
+    @Test
+    public void testPatchUserWithoutClaimChanges() throws Exception {
+
+        String userId = "b53fe2f0-054d-43b5-a8f7-50043adb2198";
+        Map<String, String> storedClaims = new HashMap<>();
+        storedClaims.put(LASTNAME_LOCAL_CLAIM, "Doe");
+        storedClaims.put(EMAIL_ADDRESS_LOCAL_CLAIM, "a@wso2.com,b@wso2.com");
+        SCIMUserManager scimUserManager = getSCIMUserManagerForPatch(userId, storedClaims, Arrays.asList(
+                new PatchOperationClaimMapper.ClaimChange(PatchOperationClaimMapper.ClaimChange.Type.SET,
+                        LASTNAME_LOCAL_CLAIM, Collections.singletonList("Doe"), false),
+                new PatchOperationClaimMapper.ClaimChange(PatchOperationClaimMapper.ClaimChange.Type.ADD_VALUES,
+                        EMAIL_ADDRESS_LOCAL_CLAIM, Collections.singletonList("b@wso2.com"), true),
+                new PatchOperationClaimMapper.ClaimChange(PatchOperationClaimMapper.ClaimChange.Type.REMOVE,
+                        NICK_AME_LOCAL_CLAIM, Collections.emptyList(), false)));
+
+        assertNotNull(scimUserManager.patchUser(userId, new ArrayList<>(), getPatchRequiredAttributes()));
+        verify(mockedUserStoreManager, never()).setUserClaimValuesWithID(anyString(), anyMap(),
+                nullable(String.class));
+        verify(mockedUserStoreManager, never()).setUserClaimValuesWithID(anyString(), anyMap(), anyMap(), anyMap(),
+                anyMap(), nullable(String.class));
+        verify(mockedUserStoreManager, never()).deleteUserClaimValuesWithID(anyString(), any(String[].class),
+                nullable(String.class));
+    }
+
+    private SCIMUserManager getSCIMUserManagerForPatch(String userId, Map<String, String> storedClaims,
+                                                       List<PatchOperationClaimMapper.ClaimChange> claimChanges)
+            throws Exception {
+
+        storedClaims.put(USERNAME_LOCAL_CLAIM, "user");
+        storedClaims.put(USERID_LOCAL_CLAIM, userId);
+
+        Map<String, String> scimToLocalClaimsMap = new HashMap<>();
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.ID_URI, USERID_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.USER_NAME_URI, USERNAME_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.EMAILS_URI, EMAIL_ADDRESS_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.FAMILY_NAME_URI, LASTNAME_LOCAL_CLAIM);
+        scimToLocalClaimsMap.put(SCIMConstants.UserSchemaConstants.NICK_NAME_URI, NICK_AME_LOCAL_CLAIM);
+
+        mockStatic(PatchOperationClaimMapper.class);
+        when(PatchOperationClaimMapper.getClaimChanges(any(), any())).thenReturn(claimChanges);
+        mockStatic(FrameworkUtils.class);
+        when(FrameworkUtils.getMultiAttributeSeparator()).thenReturn(",");
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMtoLocalMappings()).thenReturn(scimToLocalClaimsMap);
+        when(SCIMCommonUtils.convertLocalToSCIMDialect(anyMap(), anyMap())).thenCallRealMethod();
+        when(SCIMCommonUtils.isETagSupported()).thenReturn(false);
+        mockStatic(ApplicationManagementService.class);
+        when(ApplicationManagementService.getInstance()).thenReturn(applicationManagementService);
+        when(applicationManagementService.getServiceProvider(anyString(), anyString())).thenReturn(null);
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.isGroupsVsRolesSeparationImprovementsEnabled()).thenReturn(true);
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantId("carbon.super")).thenReturn(-1234);
+
+        org.wso2.carbon.user.core.common.User user = mock(org.wso2.carbon.user.core.common.User.class);
+        when(user.getUserStoreDomain()).thenReturn("PRIMARY");
+        when(user.getUsername()).thenReturn("user");
+        when(user.getDomainQualifiedUsername()).thenReturn("user");
+        when(user.getUserID()).thenReturn(userId);
+
+        mockedUserStoreManager = PowerMockito.mock(AbstractUserStoreManager.class);
+        when(mockedUserStoreManager.getUserWithID(anyString(), nullable(String[].class), anyString())).thenReturn(user);
+        // Only the claims which are read are returned, as in the user store.
+        when(mockedUserStoreManager.getUserClaimValuesWithID(anyString(), any(), nullable(String.class)))
+                .thenAnswer(invocation -> {
+                    Map<String, String> claimValues = new HashMap<>(storedClaims);
+                    claimValues.keySet().retainAll(Arrays.asList((String[]) invocation.getArguments()[1]));
+                    return claimValues;
+                });
+        when(mockedUserStoreManager.getRealmConfiguration()).thenReturn(mockedRealmConfig);
+        when(mockedUserStoreManager.getSecondaryUserStoreManager(anyString())).thenReturn(secondaryUserStoreManager);
+        when(secondaryUserStoreManager.isSCIMEnabled()).thenReturn(true);
+
+        return new SCIMUserManager(mockedUserStoreManager, mockClaimMetadataManagementService,
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    private Map<String, Boolean> getPatchRequiredAttributes() {
+
+        Map<String, Boolean> requiredAttributes = new HashMap<>();
+        requiredAttributes.put(SCIMConstants.CommonSchemaConstants.ID_URI, true);
+        requiredAttributes.put(SCIMConstants.UserSchemaConstants.USER_NAME_URI, true);
+        requiredAttributes.put(SCIMConstants.UserSchemaConstants.FAMILY_NAME_URI, true);
+        return requiredAttributes;
+    }
+
+    @DataProvider(name = "groupMemberPages")
+    public Object[][] groupMemberPages() {
+
+        return new Object[][]{
+                {1, null, Arrays.asList("id-1", "id-2", "id-3")},
+                {2, 1, Collections.singletonList("id-2")},
+                {2, 5, Arrays.asList("id-2", "id-3")},
+                {1, 0, Collections.emptyList()},
+                {5, 2, Collections.emptyList()}
+        };
+    }
+
+    @Test(dataProvider = "groupMemberPages")
+    public void testListGroupMembersInBatches(int startIndex, Integer count, List<String> expectedMemberIds)
+            throws Exception {
+
+        when(mockedUserStoreManager.getGroup("group-id", null))
+                .thenReturn(buildUserCoreGroupResponse("group1", "group-id", "PRIMARY"));
+        when(mockedUserStoreManager.getSecondaryUserStoreManager("PRIMARY")).thenReturn(secondaryUserStoreManager);
+        when(secondaryUserStoreManager.isSCIMEnabled()).thenReturn(true);
+        // Members are returned by the user store in no particular order.
+        when(mockedUserStoreManager.getUserListOfRoleWithID(anyString())).thenReturn(Arrays.asList(
+                new org.wso2.carbon.user.core.common.User("id-3", "user3", "user3"),
+                new org.wso2.carbon.user.core.common.User("id-1", "user1", "user1"),
+                new org.wso2.carbon.user.core.common.User("id-2", "user2", "user2")));
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMUserURL(anyString())).thenAnswer(invocation ->
+                "https://localhost:9443/scim2/Users/" + invocation.getArgument(0));
+        mockStatic(IdentityUtil.class);
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(mockedUserStoreManager,
+                mockClaimMetadataManagementService, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        GroupMemberBatchIterator memberBatchIterator = scimUserManager.listGroupMembersInBatches("group-id",
+                startIndex, count, 2);
+
+        // The total number of members of the group is returned irrespective of the page.
+        assertEquals(memberBatchIterator.getMemberCount(), 3);
+        List<String> memberIds = new ArrayList<>();
+        while (memberBatchIterator.hasNext()) {
+            for (User member : memberBatchIterator.nextBatch()) {
+                memberIds.add(member.getId());
+            }
+        }
+        assertEquals(memberIds, expectedMemberIds);
+    }
+
+    @Test(expectedExceptions = NotFoundException.class)
+    public void testListGroupMembersInBatchesOfNonExistingGroup() throws Exception {
+
+        when(mockedUserStoreManager.getGroup("group-id", null)).thenReturn(null);
+
+        SCIMUserManager scimUserManager = new SCIMUserManager(mockedUserStoreManager,
+                mockClaimMetadataManagementService, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        scimUserManager.listGroupMembersInBatches("group-id", 1, null, 2);
+    }
+
     @DataProvider(name = "exceptionHandlingConfigurations")
     public Object[][] exceptionHandlingConfigurations() {
 
@@ -1551,6 +2054,34 @@ public class SCIMUserManagerTest extends PowerMockTestCase {
         // This method is for testing of throwing CharonException, hence no assertion.
     }
 
+    @DataProvider(name = "unsupportedCursorPagination")
+    public Object[][] unsupportedCursorPagination() {
+
+        return new Object[][]{
+                {"false", null},
+                {"true", "groups eq admin"},
+                {"true", "userName sw user and name.givenName eq user"}
+        };
+    }
+
+    @Test(dataProvider = "unsupportedCursorPagination", expectedExceptions = BadRequestException.class)
+    public void testListUsersWithUnsupportedCursor(String enablePaginatedUserStore, String filter) throws Exception {
+
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getThreadLocalPaginationCursor()).thenReturn("");
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty("SCIM.EnablePaginatedUserStore")).thenReturn(enablePaginatedUserStore);
+        Node node = null;
+        if (filter != null) {
+            node = new FilterTreeManager(filter, SCIMResourceSchemaManager.getInstance().getUserResourceSchema())
+                    .buildTree();
+        }
+        SCIMUserManager scimUserManager = new SCIMUserManager(mockedUserStoreManager, mockedClaimManager);
+
+        // The cursor is rejected instead of returning the users without cursor based pagination.
+        scimUserManager.listUsersWithGET(node, 1, 10, null, null, null, null);
+    }
+
     @Test(expectedExceptions = BadRequestException.class)
     public void testCreateUserWithInvalidUserStoreName() throws Exception {
 
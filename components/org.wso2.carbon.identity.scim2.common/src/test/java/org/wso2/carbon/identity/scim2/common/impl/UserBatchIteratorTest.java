@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.impl;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.user.core.common.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UserBatchIteratorTest {
+
+    private SCIMUserManager scimUserManager;
+    private Map<String, Boolean> requiredAttributes;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        scimUserManager = mock(SCIMUserManager.class);
+        requiredAttributes = Collections.singletonMap("urn:ietf:params:scim:schemas:core:2.0:User:userName", true);
+        // A SCIM user is built for each of the users of the batch.
+        when(scimUserManager.getUserDetails(anySet(), any())).thenAnswer(invocation -> {
+            List<org.wso2.charon3.core.objects.User> users = new ArrayList<>();
+            for (User coreUser : (Set<User>) invocation.getArgument(0)) {
+                org.wso2.charon3.core.objects.User user = new org.wso2.charon3.core.objects.User();
+                user.setId(coreUser.getUserID());
+                users.add(user);
+            }
+            return users;
+        });
+    }
+
+    @Test
+    public void testNextBatch() throws Exception {
+
+        List<User> coreUserList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            coreUserList.add(new User("id-" + i, "user" + i, "user" + i));
+        }
+        Set<User> coreUsers = new LinkedHashSet<>(coreUserList);
+        UserBatchIterator userBatchIterator = new UserBatchIterator(scimUserManager, coreUsers, requiredAttributes,
+                2, 12);
+
+        assertEquals(userBatchIterator.getTotalResults(), 12);
+        // Users are built only when a batch is requested.
+        verify(scimUserManager, never()).getUserDetails(anySet(), any());
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> userIds = new ArrayList<>();
+        while (userBatchIterator.hasNext()) {
+            List<org.wso2.charon3.core.objects.User> batch = userBatchIterator.nextBatch();
+            batchSizes.add(batch.size());
+            for (org.wso2.charon3.core.objects.User user : batch) {
+                userIds.add(user.getId());
+            }
+        }
+        assertEquals(batchSizes, Arrays.asList(2, 2, 1));
+        assertEquals(userIds, Arrays.asList("id-0", "id-1", "id-2", "id-3", "id-4"));
+        verify(scimUserManager).getUserDetails(Collections.singleton(coreUserList.get(4)), requiredAttributes);
+    }
+
+    @Test
+    public void testNextBatchWithBatchSizeOfPage() throws Exception {
+
+        Set<User> coreUsers = new LinkedHashSet<>(Arrays.asList(new User("id-0", "user0", "user0"),
+                new User("id-1", "user1", "user1")));
+        UserBatchIterator userBatchIterator = new UserBatchIterator(scimUserManager, coreUsers, requiredAttributes,
+                2, 2);
+
+        assertEquals(userBatchIterator.nextBatch().size(), 2);
+        assertFalse(userBatchIterator.hasNext());
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextBatchWithoutUsers() throws Exception {
+
+        UserBatchIterator userBatchIterator = new UserBatchIterator(scimUserManager, Collections.emptySet(),
+                requiredAttributes, 2, 0);
+
+        assertFalse(userBatchIterator.hasNext());
+        userBatchIterator.nextBatch();
+    }
+
+    @Test
+    public void testNextBatchWithInvalidBatchSize() throws Exception {
+
+        UserBatchIterator userBatchIterator = new UserBatchIterator(scimUserManager,
+                Collections.singleton(new User("id-0", "user0", "user0")), requiredAttributes, 0, 1);
+
+        assertTrue(userBatchIterator.hasNext());
+        assertEquals(userBatchIterator.nextBatch().size(), 1);
+        assertFalse(userBatchIterator.hasNext());
+    }
+
+    @Test
+    public void testNextBatchWithoutEligibleUsers() throws Exception {
+
+        when(scimUserManager.getUserDetails(anySet(), any())).thenReturn(null);
+        UserBatchIterator userBatchIterator = new UserBatchIterator(scimUserManager,
+                Collections.singleton(new User("id-0", "user0", "user0")), requiredAttributes, 2, 1);
+
+        assertTrue(userBatchIterator.nextBatch().isEmpty());
+        assertFalse(userBatchIterator.hasNext());
+    }
+}
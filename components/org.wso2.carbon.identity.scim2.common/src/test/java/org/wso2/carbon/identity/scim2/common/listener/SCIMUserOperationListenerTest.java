@@ -40,11 +40,13 @@ import org.wso2.carbon.user.api.Permission;
 import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.common.User;
 import org.wso2.carbon.user.core.common.UserStore;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.charon3.core.schema.SCIMConstants;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -54,12 +56,17 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.spy;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 @PrepareForTest({UserCoreUtil.class, SCIMGroupHandler.class, SCIMCommonUtils.class, IdentityUtil.class,
@@ -172,6 +179,95 @@ public class SCIMUserOperationListenerTest extends PowerMockTestCase {
                 userStoreManager));
     }
 
+    @Test
+    public void testAddUserWithSCIMIdInInitialInsert() throws Exception {
+
+        Map<String, String> scimToLocalClaimsMap = new HashMap<>();
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.ID_URI, "http://wso2.org/claims/userid");
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.CREATED_URI, "http://wso2.org/claims/created");
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.LAST_MODIFIED_URI,
+                "http://wso2.org/claims/modified");
+        when(SCIMCommonUtils.getSCIMtoLocalMappings()).thenReturn(scimToLocalClaimsMap);
+        when(scimUserOperationListener.isEnable()).thenReturn(true);
+        when(userStoreManager.isSCIMEnabled()).thenReturn(true);
+
+        Map<String, String> userClaims = new HashMap<>();
+        assertTrue(scimUserOperationListener.doPreAddUserWithID(userName, credential, roleList, userClaims, profile,
+                userStoreManager));
+        String scimId = userClaims.get("http://wso2.org/claims/userid");
+        assertNotNull(scimId);
+        assertNotEquals(scimId, userName);
+        assertEquals(UUID.fromString(scimId).toString(), scimId);
+        assertNotNull(userClaims.get("http://wso2.org/claims/created"));
+        assertNotNull(userClaims.get("http://wso2.org/claims/modified"));
+
+        // The SCIM ID is already written with the initial insert, hence it should not be written again.
+        User user = new User(null, userName, userName);
+        assertTrue(scimUserOperationListener.doPostAddUserWithID(user, credential, roleList, userClaims, profile,
+                userStoreManager));
+        verify(userStoreManager, never()).setUserClaimValue(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @DataProvider(name = "userStoreKinds")
+    public Object[][] userStoreKinds() {
+
+        return new Object[][]{
+                {true},
+                {false}
+        };
+    }
+
+    @Test(dataProvider = "userStoreKinds")
+    public void testAddUserWithUniqueUserIdUserStore(boolean isUniqueUserIdEnabled) throws Exception {
+
+        Map<String, String> scimToLocalClaimsMap = new HashMap<>();
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.ID_URI, "http://wso2.org/claims/userid");
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.CREATED_URI, "http://wso2.org/claims/created");
+        scimToLocalClaimsMap.put(SCIMConstants.CommonSchemaConstants.LAST_MODIFIED_URI,
+                "http://wso2.org/claims/modified");
+        when(SCIMCommonUtils.getSCIMtoLocalMappings()).thenReturn(scimToLocalClaimsMap);
+        when(scimUserOperationListener.isEnable()).thenReturn(true);
+        AbstractUserStoreManager abstractUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(abstractUserStoreManager.isSCIMEnabled()).thenReturn(true);
+        when(abstractUserStoreManager.isUniqueUserIdEnabled()).thenReturn(isUniqueUserIdEnabled);
+
+        Map<String, String> userClaims = new HashMap<>();
+        assertTrue(scimUserOperationListener.doPreAddUserWithID(userName, credential, roleList, userClaims, profile,
+                abstractUserStoreManager));
+        assertNotNull(userClaims.get("http://wso2.org/claims/created"));
+        if (isUniqueUserIdEnabled) {
+            // The user store generates the unique user ID, which is also the SCIM ID.
+            assertNull(userClaims.get("http://wso2.org/claims/userid"));
+            User user = new User(userId, userName, userName);
+            assertTrue(scimUserOperationListener.doPostAddUserWithID(user, credential, roleList, userClaims, profile,
+                    abstractUserStoreManager));
+        } else {
+            String scimId = userClaims.get("http://wso2.org/claims/userid");
+            assertEquals(UUID.fromString(scimId).toString(), scimId);
+            User user = new User(null, userName, userName);
+            assertTrue(scimUserOperationListener.doPostAddUserWithID(user, credential, roleList, userClaims, profile,
+                    abstractUserStoreManager));
+        }
+        verify(abstractUserStoreManager, never()).setUserClaimValue(anyString(), anyString(), anyString(),
+                anyString());
+    }
+
+    @Test
+    public void testAddUserWithoutClaims() throws Exception {
+
+        when(SCIMCommonUtils.getSCIMtoLocalMappings()).thenReturn(Collections.singletonMap(
+                SCIMConstants.CommonSchemaConstants.ID_URI, "http://wso2.org/claims/userid"));
+        when(scimUserOperationListener.isEnable()).thenReturn(true);
+        when(userStoreManager.isSCIMEnabled()).thenReturn(true);
+
+        // Users added without claims and without a user ID get the SCIM ID written after the user is added.
+        User user = new User(null, userName, userName);
+        assertTrue(scimUserOperationListener.doPostAddUserWithID(user, credential, roleList, null, profile,
+                userStoreManager));
+        verify(userStoreManager).setUserClaimValue(eq(userName), eq("http://wso2.org/claims/userid"), anyString(),
+                anyString());
+    }
+
     @Test
     public void testDoPreUpdateCredential() throws Exception {
         assertTrue(scimUserOperationListener.doPreUpdateCredentialWithID(userId, credential, credential,
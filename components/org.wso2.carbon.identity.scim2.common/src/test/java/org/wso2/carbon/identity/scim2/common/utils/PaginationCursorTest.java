@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.utils;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.charon3.core.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class PaginationCursorTest {
+
+    @Test
+    public void testUsersCursor() throws Exception {
+
+        PaginationCursor cursor = PaginationCursor.decodeUsersCursor(
+                PaginationCursor.forUsers("SECONDARY", 11).encode());
+
+        assertEquals(cursor.getDomainName(), "SECONDARY");
+        assertEquals(cursor.getPositionAsIndex(), 11);
+    }
+
+    @Test
+    public void testGroupsCursor() throws Exception {
+
+        PaginationCursor cursor = PaginationCursor.decodeGroupsCursor(
+                PaginationCursor.forGroups("PRIMARY/group:1").encode());
+
+        assertNull(cursor.getDomainName());
+        assertEquals(cursor.getPosition(), "PRIMARY/group:1");
+    }
+
+    @Test
+    public void testEmptyCursor() throws Exception {
+
+        PaginationCursor usersCursor = PaginationCursor.decodeUsersCursor("");
+        assertNull(usersCursor.getDomainName());
+        assertEquals(usersCursor.getPositionAsIndex(), 1);
+        assertNull(PaginationCursor.decodeGroupsCursor("").getPosition());
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testGroupsCursorForUsers() throws Exception {
+
+        PaginationCursor.decodeUsersCursor(PaginationCursor.forGroups("PRIMARY/group1").encode());
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testUsersCursorForGroups() throws Exception {
+
+        PaginationCursor.decodeGroupsCursor(PaginationCursor.forUsers("PRIMARY", 1).encode());
+    }
+
+    @DataProvider(name = "invalidUsersCursors")
+    public Object[][] invalidUsersCursors() {
+
+        return new Object[][]{
+                {"not a cursor"},
+                {encode("1:users:0:PRIMARY")},
+                {encode("1:users:a:PRIMARY")},
+                {encode("1:users:1:")},
+                {encode("1:users:1")},
+                {encode("0:users:1:PRIMARY")}
+        };
+    }
+
+    @Test(dataProvider = "invalidUsersCursors", expectedExceptions = BadRequestException.class)
+    public void testInvalidUsersCursor(String cursor) throws Exception {
+
+        PaginationCursor.decodeUsersCursor(cursor);
+    }
+
+    private String encode(String cursor) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+}
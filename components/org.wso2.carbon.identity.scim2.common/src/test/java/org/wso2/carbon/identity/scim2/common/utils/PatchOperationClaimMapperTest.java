@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.utils;
+
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.charon3.core.encoder.JSONDecoder;
+import org.wso2.charon3.core.utils.codeutils.PatchOperation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+@PrepareForTest({SCIMCommonUtils.class})
+@PowerMockIgnore({"javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*"})
+public class PatchOperationClaimMapperTest extends PowerMockTestCase {
+
+    private static final String USER_CORE_SCHEMA = "urn:ietf:params:scim:schemas:core:2.0:User";
+    private static final String USERNAME_LOCAL_CLAIM = "http://wso2.org/claims/username";
+    private static final String NICK_NAME_LOCAL_CLAIM = "http://wso2.org/claims/nickname";
+    private static final String GIVEN_NAME_LOCAL_CLAIM = "http://wso2.org/claims/givenname";
+    private static final String EMAIL_ADDRESS_LOCAL_CLAIM = "http://wso2.org/claims/emailaddress";
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        Map<String, String> scimToLocalClaims = new HashMap<>();
+        scimToLocalClaims.put(USER_CORE_SCHEMA + ":userName", USERNAME_LOCAL_CLAIM);
+        scimToLocalClaims.put(USER_CORE_SCHEMA + ":nickName", NICK_NAME_LOCAL_CLAIM);
+        scimToLocalClaims.put(USER_CORE_SCHEMA + ":name.givenName", GIVEN_NAME_LOCAL_CLAIM);
+        scimToLocalClaims.put(USER_CORE_SCHEMA + ":emails", EMAIL_ADDRESS_LOCAL_CLAIM);
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getSCIMtoLocalMappings()).thenReturn(scimToLocalClaims);
+    }
+
+    @Test
+    public void testGetClaimChanges() throws Exception {
+
+        List<PatchOperationClaimMapper.ClaimChange> claimChanges = PatchOperationClaimMapper.getClaimChanges(null,
+                decodePatchOperations("{\"op\":\"replace\",\"path\":\"nickName\",\"value\":\"Babs\"}," +
+                        "{\"op\":\"add\",\"value\":{\"name\":{\"givenName\":\"Barbara\"}}}," +
+                        "{\"op\":\"remove\",\"path\":\"" + USER_CORE_SCHEMA + ":nickName\"}"));
+
+        assertNotNull(claimChanges);
+        assertEquals(claimChanges.size(), 3);
+        assertEquals(claimChanges.get(0).getType(), PatchOperationClaimMapper.ClaimChange.Type.SET);
+        assertEquals(claimChanges.get(0).getClaimURI(), NICK_NAME_LOCAL_CLAIM);
+        assertEquals(claimChanges.get(0).getValues().get(0), "Babs");
+        assertFalse(claimChanges.get(0).isMultiValued());
+        assertEquals(claimChanges.get(1).getType(), PatchOperationClaimMapper.ClaimChange.Type.SET);
+        assertEquals(claimChanges.get(1).getClaimURI(), GIVEN_NAME_LOCAL_CLAIM);
+        assertEquals(claimChanges.get(1).getValues().get(0), "Barbara");
+        assertEquals(claimChanges.get(2).getType(), PatchOperationClaimMapper.ClaimChange.Type.REMOVE);
+        assertEquals(claimChanges.get(2).getClaimURI(), NICK_NAME_LOCAL_CLAIM);
+    }
+
+    @DataProvider(name = "unsupportedPatchOperations")
+    public Object[][] unsupportedPatchOperations() {
+
+        return new Object[][]{
+                {"{\"op\":\"replace\",\"path\":\"userName\",\"value\":\"newUser\"}"},
+                {"{\"op\":\"replace\",\"path\":\"id\",\"value\":\"newId\"}"},
+                {"{\"op\":\"replace\",\"path\":\"title\",\"value\":\"Manager\"}"},
+                {"{\"op\":\"add\",\"path\":\"emails\",\"value\":[{\"value\":\"babs@jensen.org\"}]}"},
+                {"{\"op\":\"replace\",\"path\":\"emails[type eq \\\"work\\\"].value\",\"value\":\"babs@jensen.org\"}"},
+                {"{\"op\":\"replace\",\"path\":\"nickName\",\"value\":{\"value\":\"Babs\"}}"}
+        };
+    }
+
+    @Test(dataProvider = "unsupportedPatchOperations")
+    public void testGetClaimChangesWithUnsupportedOperation(String patchOperation) throws Exception {
+
+        assertNull(PatchOperationClaimMapper.getClaimChanges(null, decodePatchOperations(
+                "{\"op\":\"replace\",\"path\":\"nickName\",\"value\":\"Babs\"}," + patchOperation)));
+    }
+
+    private List<PatchOperation> decodePatchOperations(String operations) throws Exception {
+
+        return new JSONDecoder().decodeRequest("{\"schemas\":[\"urn:ietf:params:scim:api:messages:2.0:PatchOp\"]," +
+                "\"Operations\":[" + operations + "]}");
+    }
+}
@@ -39,13 +39,21 @@ import org.wso2.carbon.identity.scim2.common.test.utils.CommonTestUtils;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 
 @PrepareForTest({IdentityUtil.class, UserCoreUtil.class, IdentityTenantUtil.class, ServiceURLBuilder.class})
@@ -262,6 +270,96 @@ public class SCIMCommonUtilsTest extends PowerMockTestCase {
         assertEquals(SCIMCommonUtils.getUserConsumerId(), userConsumerId);
     }
 
+    @Test
+    public void testConvertLocalClaimsToSCIMDialect() throws Exception {
+
+        Map<String, String> scimToLocalClaimMappings = new HashMap<>();
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:User:userName",
+                "http://wso2.org/claims/username");
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:User:emails",
+                "http://wso2.org/claims/emailaddress");
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:User:emails.work",
+                "http://wso2.org/claims/emailaddress");
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:User:name.givenName",
+                "http://wso2.org/claims/givenname");
+
+        Map<String, String> claims = new HashMap<>();
+        claims.put("http://wso2.org/claims/username", "testUser");
+        claims.put("http://wso2.org/claims/emailaddress", "testUser@wso2.com");
+        claims.put("http://wso2.org/claims/givenname", "");
+        claims.put("http://wso2.org/claims/country", "Sri Lanka");
+
+        Map<String, String> expectedClaims = new HashMap<>();
+        expectedClaims.put("urn:ietf:params:scim:schemas:core:2.0:User:userName", "testUser");
+        expectedClaims.put("urn:ietf:params:scim:schemas:core:2.0:User:emails", "testUser@wso2.com");
+        expectedClaims.put("urn:ietf:params:scim:schemas:core:2.0:User:emails.work", "testUser@wso2.com");
+
+        Map<String, List<String>> localToSCIMClaimMappings =
+                SCIMCommonUtils.buildLocalToSCIMMappings(scimToLocalClaimMappings);
+        assertEquals(localToSCIMClaimMappings.get("http://wso2.org/claims/emailaddress").size(), 2);
+        assertEquals(SCIMCommonUtils.convertLocalClaimsToSCIMDialect(claims, localToSCIMClaimMappings),
+                expectedClaims);
+        assertEquals(SCIMCommonUtils.convertLocalToSCIMDialect(claims, scimToLocalClaimMappings), expectedClaims);
+    }
+
+    @Test
+    public void testBuildImmutableLocalClaims() {
+
+        Map<String, String> scimToLocalClaimMappings = new HashMap<>();
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:id", "http://wso2.org/claims/userid");
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:User:userName",
+                "http://wso2.org/claims/username");
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:meta.created",
+                "http://wso2.org/claims/created");
+        scimToLocalClaimMappings.put("urn:ietf:params:scim:schemas:core:2.0:User:name.givenName",
+                "http://wso2.org/claims/givenname");
+
+        Set<String> immutableLocalClaims = SCIMCommonUtils.buildImmutableLocalClaims(scimToLocalClaimMappings);
+        assertEquals(immutableLocalClaims.size(), 3);
+        assertTrue(immutableLocalClaims.contains("http://wso2.org/claims/userid"));
+        assertTrue(immutableLocalClaims.contains("http://wso2.org/claims/created"));
+        assertFalse(immutableLocalClaims.contains("http://wso2.org/claims/givenname"));
+    }
+
+    @Test
+    public void testGenerateResourceVersion() throws Exception {
+
+        String version = SCIMCommonUtils.generateResourceVersion("2024-01-01T00:00:00Z", "content");
+        assertTrue(version.startsWith("\"") && version.endsWith("\""));
+        assertEquals(SCIMCommonUtils.generateResourceVersion("2024-01-01T00:00:00Z", "content"), version);
+        assertNotEquals(SCIMCommonUtils.generateResourceVersion("2024-01-01T00:00:00Z", "changed"), version);
+        assertNotEquals(SCIMCommonUtils.generateResourceVersion("2024-01-02T00:00:00Z", "content"), version);
+    }
+
+    @DataProvider(name = "eTagMatchData")
+    public Object[][] eTagMatchData() {
+
+        return new Object[][]{
+                // If-Match with the strong comparison.
+                {"\"v1\"", "\"v1\"", true, true},
+                {"\"v1\"", "\"v2\"", true, false},
+                {"\"v1\"", "\"v2\", \"v1\"", true, true},
+                {"\"v1\"", "W/\"v1\"", true, false},
+                {"W/\"v1\"", "W/\"v1\"", true, false},
+                {"\"v1\"", "*", true, true},
+                {"\"v1\"", null, true, false},
+                // If-None-Match with the weak comparison.
+                {"\"v1\"", "\"v1\"", false, true},
+                {"\"v1\"", "W/\"v1\"", false, true},
+                {"W/\"v1\"", "\"v1\"", false, true},
+                {"\"v1\"", "\"v2\"", false, false},
+                {"\"v1\"", "*", false, true},
+                {"\"v1\"", "", false, false}
+        };
+    }
+
+    @Test(dataProvider = "eTagMatchData")
+    public void testIsETagMatched(String eTag, String conditionHeader, boolean isStrongComparison,
+                                  boolean expectedResult) {
+
+        assertEquals(SCIMCommonUtils.isETagMatched(eTag, conditionHeader, isStrongComparison), expectedResult);
+    }
+
     @DataProvider(name = "tenantURLQualifyData")
     public Object[][] tenantURLQualifyData() {
         return new Object[][]{
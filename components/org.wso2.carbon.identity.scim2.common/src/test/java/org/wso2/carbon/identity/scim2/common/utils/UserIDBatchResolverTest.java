@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.common.utils;
+
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.common.User;
+import org.wso2.carbon.user.core.constants.UserCoreClaimConstants;
+import org.wso2.carbon.user.core.model.UniqueIDUserClaimSearchEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@PrepareForTest({IdentityUtil.class})
+@PowerMockIgnore({"javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*"})
+public class UserIDBatchResolverTest extends PowerMockTestCase {
+
+    private static final String EMAIL_ADDRESS_LOCAL_CLAIM = "http://wso2.org/claims/emailaddress";
+
+    private AbstractUserStoreManager userStoreManager;
+    private Map<String, UniqueIDUserClaimSearchEntry> usersById;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getPrimaryDomainName()).thenReturn("PRIMARY");
+        when(IdentityUtil.extractDomainFromName(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            return name.contains("/") ? name.substring(0, name.indexOf('/')).toUpperCase() : "PRIMARY";
+        });
+        when(IdentityUtil.addDomainToName(anyString(), anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            String domain = invocation.getArgument(1);
+            return "PRIMARY".equalsIgnoreCase(domain) ? name : domain.toUpperCase() + "/" + name;
+        });
+
+        usersById = new HashMap<>();
+        userStoreManager = PowerMockito.mock(AbstractUserStoreManager.class);
+        // Only the users which exist are returned, as in the user store.
+        when(userStoreManager.getUsersClaimValuesWithID(anyList(), anyList(), nullable(String.class)))
+                .thenAnswer(invocation -> {
+                    List<UniqueIDUserClaimSearchEntry> searchEntries = new ArrayList<>();
+                    for (String userId : (List<String>) invocation.getArgument(0)) {
+                        if (usersById.containsKey(userId)) {
+                            searchEntries.add(usersById.get(userId));
+                        }
+                    }
+                    return searchEntries;
+                });
+    }
+
+    @Test
+    public void testResolveUserIDs() throws Exception {
+
+        addUser("id-1", "user1", "PRIMARY", null);
+        addUser("id-2", "user2", "SECONDARY", null);
+
+        Map<String, String> userIds = new UserIDBatchResolver(userStoreManager,
+                UserCoreClaimConstants.USERNAME_CLAIM_URI).resolveUserIDs(
+                Arrays.asList("user1", "secondary/user2", "user3"), Arrays.asList("id-1", "id-2", "id-3"));
+
+        assertEquals(userIds.size(), 2);
+        assertEquals(userIds.get("user1"), "id-1");
+        assertEquals(userIds.get("secondary/user2"), "id-2");
+    }
+
+    @Test
+    public void testResolveUserIDsInBatches() throws Exception {
+
+        List<String> usernames = new ArrayList<>();
+        List<String> candidateUserIds = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            addUser("id-" + i, "user" + i, "PRIMARY", null);
+            usernames.add("user" + i);
+            candidateUserIds.add("id-" + i);
+        }
+
+        Map<String, String> userIds = new UserIDBatchResolver(userStoreManager,
+                UserCoreClaimConstants.USERNAME_CLAIM_URI).resolveUserIDs(usernames, candidateUserIds);
+
+        assertEquals(userIds.size(), 150);
+        assertEquals(userIds.get("user149"), "id-149");
+        // The users are retrieved with a single user store query per 100 users.
+        verify(userStoreManager, times(2)).getUsersClaimValuesWithID(anyList(), anyList(), nullable(String.class));
+        verify(userStoreManager).getUsersClaimValuesWithID(argThat(chunk -> chunk.size() == 100), anyList(),
+                nullable(String.class));
+        verify(userStoreManager).getUsersClaimValuesWithID(argThat(chunk -> chunk.size() == 50), anyList(),
+                nullable(String.class));
+    }
+
+    @Test
+    public void testResolveUserIDsWithoutCandidateUserIds() throws Exception {
+
+        assertTrue(new UserIDBatchResolver(userStoreManager, UserCoreClaimConstants.USERNAME_CLAIM_URI)
+                .resolveUserIDs(Collections.singletonList("user1"), Collections.emptyList()).isEmpty());
+        verify(userStoreManager, never()).getUsersClaimValuesWithID(anyList(), anyList(), any());
+    }
+
+    @Test
+    public void testResolveUserIDsWithPrimaryLoginIdentifier() throws Exception {
+
+        addUser("id-1", "user1", "PRIMARY", Collections.singletonMap(EMAIL_ADDRESS_LOCAL_CLAIM, "user1@wso2.com"));
+
+        Map<String, String> userIds = new UserIDBatchResolver(userStoreManager, EMAIL_ADDRESS_LOCAL_CLAIM)
+                .resolveUserIDs(Arrays.asList("user1@wso2.com", "user1"), Collections.singletonList("id-1"));
+
+        assertEquals(userIds.size(), 1);
+        assertEquals(userIds.get("user1@wso2.com"), "id-1");
+    }
+
+    @Test
+    public void testResolveUsernames() throws Exception {
+
+        addUser("id-1", "user1", "PRIMARY", null);
+        addUser("id-2", "user2", "SECONDARY", null);
+
+        Map<String, String> usernames = new UserIDBatchResolver(userStoreManager,
+                UserCoreClaimConstants.USERNAME_CLAIM_URI).resolveUsernames(Arrays.asList("id-1", "id-2", "id-3"));
+
+        assertEquals(usernames.size(), 2);
+        assertEquals(usernames.get("id-1"), "user1");
+        assertEquals(usernames.get("id-2"), "SECONDARY/user2");
+    }
+
+    private void addUser(String userId, String username, String userStoreDomain, Map<String, String> claims) {
+
+        User user = new User(userId, username, username);
+        user.setUserStoreDomain(userStoreDomain);
+        UniqueIDUserClaimSearchEntry searchEntry = new UniqueIDUserClaimSearchEntry();
+        searchEntry.setUser(user);
+        searchEntry.setClaims(claims);
+        usersById.put(userId, searchEntry);
+    }
+}
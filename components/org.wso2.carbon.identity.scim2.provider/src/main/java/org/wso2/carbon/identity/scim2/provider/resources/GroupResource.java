@@ -27,9 +27,12 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.jaxrs.designator.PATCH;
+import org.wso2.carbon.identity.scim2.common.impl.GroupMemberBatchIterator;
 import org.wso2.carbon.identity.scim2.common.impl.IdentitySCIMManager;
 import org.wso2.carbon.identity.scim2.common.impl.SCIMUserManager;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
+import org.wso2.carbon.identity.scim2.provider.util.GroupMemberListStreamingOutput;
 import org.wso2.carbon.identity.scim2.provider.util.SCIMProviderConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SupportUtils;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -38,10 +41,19 @@ import org.wso2.charon3.core.encoder.JSONDecoder;
 import org.wso2.charon3.core.exceptions.BadRequestException;
 import org.wso2.charon3.core.exceptions.CharonException;
 import org.wso2.charon3.core.exceptions.FormatNotSupportedException;
+import org.wso2.charon3.core.exceptions.NotFoundException;
+import org.wso2.charon3.core.exceptions.NotImplementedException;
+import org.wso2.charon3.core.extensions.UserManager;
+import org.wso2.charon3.core.objects.Group;
 import org.wso2.charon3.core.protocol.ResponseCodeConstants;
 import org.wso2.charon3.core.protocol.SCIMResponse;
+import org.wso2.charon3.core.protocol.endpoints.AbstractResourceManager;
 import org.wso2.charon3.core.protocol.endpoints.GroupResourceManager;
 import org.wso2.charon3.core.schema.SCIMConstants;
+import org.wso2.charon3.core.schema.SCIMResourceSchemaManager;
+import org.wso2.charon3.core.schema.SCIMResourceTypeSchema;
+import org.wso2.charon3.core.utils.CopyUtil;
+import org.wso2.charon3.core.utils.ResourceManagerUtil;
 import org.wso2.charon3.core.utils.codeutils.PatchOperation;
 
 import java.util.ArrayList;
@@ -75,7 +87,8 @@ public class GroupResource extends AbstractResource {
     public Response getGroup(@PathParam(SCIMConstants.CommonSchemaConstants.ID) String id,
                              @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
                              @QueryParam(SCIMProviderConstants.ATTRIBUTES) String attribute,
-                             @QueryParam(SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String excludedAttributes) {
+                             @QueryParam(SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String excludedAttributes,
+                             @HeaderParam(SCIMProviderConstants.IF_NONE_MATCH) String ifNoneMatch) {
 
         try {
             if (!isValidOutputFormat(outputFormat)) {
@@ -93,10 +106,62 @@ public class GroupResource extends AbstractResource {
         requestAttributes.put(SCIMProviderConstants.HTTP_VERB, GET.class.getSimpleName());
         requestAttributes.put(SCIMProviderConstants.ATTRIBUTES, attribute);
         requestAttributes.put(SCIMProviderConstants.EXCLUDE_ATTRIBUTES, excludedAttributes);
+        requestAttributes.put(SCIMProviderConstants.IF_NONE_MATCH, ifNoneMatch);
         requestAttributes.put(SCIMProviderConstants.SEARCH, "0");
         return processRequest(requestAttributes);
     }
 
+    /**
+     * List a page of the members of a group. The members are streamed to the response batch by batch, and the total
+     * number of members of the group is returned as the total results.
+     *
+     * @param id           ID of the group.
+     * @param outputFormat Accept header of the request.
+     * @param startIndex   Start index of the page.
+     * @param count        Number of members in the page. All the members from the start index are returned if
+     *                     omitted, while only the total number of members is returned if 0.
+     * @return Streamed list response of the members.
+     */
+    @GET
+    @Path("{id}/members")
+    @Produces({MediaType.APPLICATION_JSON, SCIMProviderConstants.APPLICATION_SCIM_JSON})
+    public Response getGroupMembers(@PathParam(SCIMConstants.CommonSchemaConstants.ID) String id,
+                                    @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
+                                    @QueryParam(SCIMProviderConstants.START_INDEX) String startIndex,
+                                    @QueryParam(SCIMProviderConstants.COUNT) String count) {
+
+        try {
+            if (!isValidOutputFormat(outputFormat)) {
+                String error = outputFormat + " is not supported.";
+                throw new FormatNotSupportedException(error);
+            }
+            UserManager userManager = IdentitySCIMManager.getInstance().getUserManager();
+            // The members sub-resource is only supported by the SCIM user manager of the product.
+            if (!(userManager instanceof SCIMUserManager)) {
+                throw new NotImplementedException("Listing the members of a group is not supported.");
+            }
+            Integer memberStartIndex = convertStringPaginationParamsToInteger(startIndex,
+                    SCIMProviderConstants.START_INDEX);
+            Integer memberCount = convertStringPaginationParamsToInteger(count, SCIMProviderConstants.COUNT);
+            if (memberStartIndex == null || memberStartIndex < 1) {
+                memberStartIndex = 1;
+            }
+            if (memberCount != null && memberCount < 0) {
+                memberCount = 0;
+            }
+            GroupMemberBatchIterator memberBatchIterator = ((SCIMUserManager) userManager).listGroupMembersInBatches(
+                    id, memberStartIndex, memberCount, SCIMCommonUtils.getStreamingListResponseBatchSize());
+            return Response.ok(new GroupMemberListStreamingOutput(memberBatchIterator, memberStartIndex))
+                    .type(SCIMProviderConstants.APPLICATION_SCIM_JSON).build();
+        } catch (FormatNotSupportedException e) {
+            return handleFormatNotSupportedException(e);
+        } catch (CharonException e) {
+            return handleCharonException(e);
+        } catch (NotFoundException | NotImplementedException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
+        }
+    }
+
     @GET
     @Path("{id}/permissions")
     @Produces({MediaType.APPLICATION_JSON, SCIMProviderConstants.APPLICATION_SCIM_JSON})
@@ -269,7 +334,8 @@ public class GroupResource extends AbstractResource {
                              @QueryParam(SCIMProviderConstants.COUNT) String count,
                              @QueryParam(SCIMProviderConstants.SORT_BY) String sortBy,
                              @QueryParam(SCIMProviderConstants.SORT_ORDER) String sortOrder,
-                             @QueryParam(SCIMProviderConstants.DOMAIN) String domainName) {
+                             @QueryParam(SCIMProviderConstants.DOMAIN) String domainName,
+                             @QueryParam(SCIMProviderConstants.CURSOR) String cursor) {
 
         try {
             if (!isValidOutputFormat(outputFormat)) {
@@ -290,6 +356,7 @@ public class GroupResource extends AbstractResource {
         requestAttributes.put(SCIMProviderConstants.SORT_BY, sortBy);
         requestAttributes.put(SCIMProviderConstants.SORT_ORDER, sortOrder);
         requestAttributes.put(SCIMProviderConstants.DOMAIN, domainName);
+        requestAttributes.put(SCIMProviderConstants.CURSOR, cursor);
         requestAttributes.put(SCIMProviderConstants.SEARCH, "0");
         return processRequest(requestAttributes);
     }
@@ -297,7 +364,8 @@ public class GroupResource extends AbstractResource {
     @DELETE
     @Path("{id}")
     public Response deleteGroup(@PathParam(SCIMConstants.CommonSchemaConstants.ID) String id,
-                                @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat) {
+                                @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
+                                @HeaderParam(SCIMProviderConstants.IF_MATCH) String ifMatch) {
 
         try {
             if (!isValidOutputFormat(outputFormat)) {
@@ -311,6 +379,7 @@ public class GroupResource extends AbstractResource {
         Map<String, String> requestAttributes = new HashMap<>();
         requestAttributes.put(SCIMProviderConstants.ID, id);
         requestAttributes.put(SCIMProviderConstants.HTTP_VERB, DELETE.class.getSimpleName());
+        requestAttributes.put(SCIMProviderConstants.IF_MATCH, ifMatch);
         requestAttributes.put(SCIMProviderConstants.SEARCH, "0");
         return processRequest(requestAttributes);
     }
@@ -322,6 +391,7 @@ public class GroupResource extends AbstractResource {
                                 @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
                                 @QueryParam(SCIMProviderConstants.ATTRIBUTES) String attribute,
                                 @QueryParam(SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String excludedAttributes,
+                                @HeaderParam(SCIMProviderConstants.IF_MATCH) String ifMatch,
                                 String resourceString) {
 
         try {
@@ -352,6 +422,7 @@ public class GroupResource extends AbstractResource {
         requestAttributes.put(SCIMProviderConstants.RESOURCE_STRING, resourceString);
         requestAttributes.put(SCIMProviderConstants.ATTRIBUTES, attribute);
         requestAttributes.put(SCIMProviderConstants.EXCLUDE_ATTRIBUTES, excludedAttributes);
+        requestAttributes.put(SCIMProviderConstants.IF_MATCH, ifMatch);
         requestAttributes.put(SCIMProviderConstants.SEARCH, "0");
         return processRequest(requestAttributes);
     }
@@ -363,6 +434,7 @@ public class GroupResource extends AbstractResource {
                                @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
                                @QueryParam(SCIMProviderConstants.ATTRIBUTES) String attribute,
                                @QueryParam(SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String excludedAttributes,
+                               @HeaderParam(SCIMProviderConstants.IF_MATCH) String ifMatch,
                                String resourceString) {
 
         try {
@@ -393,6 +465,7 @@ public class GroupResource extends AbstractResource {
         requestAttributes.put(SCIMProviderConstants.RESOURCE_STRING, resourceString);
         requestAttributes.put(SCIMProviderConstants.ATTRIBUTES, attribute);
         requestAttributes.put(SCIMProviderConstants.EXCLUDE_ATTRIBUTES, excludedAttributes);
+        requestAttributes.put(SCIMProviderConstants.IF_MATCH, ifMatch);
         requestAttributes.put(SCIMProviderConstants.SEARCH, "0");
         return processRequest(requestAttributes);
     }
@@ -428,6 +501,14 @@ public class GroupResource extends AbstractResource {
                         requestAttributes.get(SCIMProviderConstants.START_INDEX), SCIMProviderConstants.START_INDEX);
                 Integer count = convertStringPaginationParamsToInteger(requestAttributes.get(SCIMProviderConstants
                         .COUNT), SCIMProviderConstants.COUNT);
+                String cursor = requestAttributes.get(SCIMProviderConstants.CURSOR);
+                if (cursor != null) {
+                    SCIMCommonUtils.setThreadLocalPaginationCursor(cursor);
+                    scimResponse = groupResourceManager
+                            .listWithGET(userManager, filter, startIndex, count, sortBy, sortOrder, domainName,
+                                    attributes, excludedAttributes);
+                    return SupportUtils.buildCursorPaginatedResponse(scimResponse);
+                }
                 scimResponse = groupResourceManager
                         .listWithGET(userManager, filter, startIndex, count, sortBy, sortOrder, domainName, attributes,
                                 excludedAttributes);
@@ -443,11 +524,16 @@ public class GroupResource extends AbstractResource {
                             excludedAttributes));
                 }
             } else if (GET.class.getSimpleName().equals(httpVerb)) {
+                if (SCIMCommonUtils.isETagSupported()) {
+                    return getVersionedGroup(userManager, id, attributes, excludedAttributes,
+                            requestAttributes.get(SCIMProviderConstants.IF_NONE_MATCH));
+                }
                 scimResponse = groupResourceManager.get(id, userManager, attributes, excludedAttributes);
             } else if (POST.class.getSimpleName().equals(httpVerb) && search.equals("1")) {
                 scimResponse = groupResourceManager.listWithPOST(resourceString, userManager);
             } else if (POST.class.getSimpleName().equals(httpVerb)) {
                 scimResponse = groupResourceManager.create(resourceString, userManager, attributes, excludedAttributes);
+                return SupportUtils.buildVersionedResponse(scimResponse);
             } else if (PUT.class.getSimpleName().equals(httpVerb) && isGroupPermissionsRequest(requestAttributes)) {
                 try {
                     groupName = getGroupName(id, userManager, groupResourceManager, excludedAttributes);
@@ -464,9 +550,14 @@ public class GroupResource extends AbstractResource {
                 }
 
             } else if (PUT.class.getSimpleName().equals(httpVerb)) {
-
+                Response preconditionFailedResponse = checkGroupVersion(userManager, id,
+                        requestAttributes.get(SCIMProviderConstants.IF_MATCH));
+                if (preconditionFailedResponse != null) {
+                    return preconditionFailedResponse;
+                }
                 scimResponse = groupResourceManager
                         .updateWithPUT(id, resourceString, userManager, attributes, excludedAttributes);
+                return SupportUtils.buildVersionedResponse(scimResponse);
             } else if (PATCH.class.getSimpleName().equals(httpVerb) && isGroupPermissionsRequest(requestAttributes)) {
                 try {
                     groupName = getGroupName(id, userManager, groupResourceManager, excludedAttributes);
@@ -483,13 +574,24 @@ public class GroupResource extends AbstractResource {
                             excludedAttributes));
                 }
             } else if (PATCH.class.getSimpleName().equals(httpVerb)) {
+                Response preconditionFailedResponse = checkGroupVersion(userManager, id,
+                        requestAttributes.get(SCIMProviderConstants.IF_MATCH));
+                if (preconditionFailedResponse != null) {
+                    return preconditionFailedResponse;
+                }
                 if (isGroupReturnedInPatchResponse() || isAttributesRequested(attributes)) {
                     scimResponse = groupResourceManager
                             .updateWithPATCH(id, resourceString, userManager, attributes, excludedAttributes);
+                    return SupportUtils.buildVersionedResponse(scimResponse);
                 } else {
                     scimResponse = groupResourceManager.updateWithPATCH(id, resourceString, userManager);
                 }
             } else if (DELETE.class.getSimpleName().equals(httpVerb)) {
+                Response preconditionFailedResponse = checkGroupVersion(userManager, id,
+                        requestAttributes.get(SCIMProviderConstants.IF_MATCH));
+                if (preconditionFailedResponse != null) {
+                    return preconditionFailedResponse;
+                }
                 scimResponse = groupResourceManager.delete(id, userManager);
             }
             return SupportUtils.buildResponse(Objects.requireNonNull(scimResponse));
@@ -502,6 +604,67 @@ public class GroupResource extends AbstractResource {
         } catch (UserStoreException | RolePermissionException e) {
             return handleCharonException(new CharonException("Error occurred when getting the permissions from server",
                     e));
+        } finally {
+            SCIMCommonUtils.unsetThreadLocalPaginationCursor();
+            SCIMCommonUtils.unsetThreadLocalNextPaginationCursor();
+        }
+    }
+
+    /**
+     * Get a group with the version of the group as the entity tag. The group is not encoded if the version matches
+     * the If-None-Match header.
+     *
+     * @param userManager        SCIM user manager.
+     * @param id                 ID of the group.
+     * @param attributes         Requested attributes.
+     * @param excludedAttributes Excluded attributes.
+     * @param ifNoneMatch        Value of the If-None-Match header.
+     * @return Group response or not modified response.
+     * @throws CharonException Error while retrieving the group.
+     */
+    private Response getVersionedGroup(SCIMUserManager userManager, String id, String attributes,
+                                       String excludedAttributes, String ifNoneMatch) throws CharonException {
+
+        try {
+            SCIMResourceTypeSchema schema = SCIMResourceSchemaManager.getInstance().getGroupResourceSchema();
+            Group group = userManager.getGroup(id, ResourceManagerUtil.getOnlyRequiredAttributesURIs(
+                    (SCIMResourceTypeSchema) CopyUtil.deepCopy(schema), attributes, excludedAttributes));
+            if (group == null) {
+                return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(
+                        new NotFoundException("Group " + id + " not found in the user store.")));
+            }
+            return SupportUtils.buildVersionedResourceResponse(group, schema, attributes, excludedAttributes,
+                    SCIMCommonUtils.getSCIMGroupURL(id), ifNoneMatch);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
+        }
+    }
+
+    /**
+     * Check the If-Match header of a conditional request against the current version of the group.
+     *
+     * @param userManager SCIM user manager.
+     * @param id          ID of the group.
+     * @param ifMatch     Value of the If-Match header.
+     * @return Precondition failed response or null if the request can be processed.
+     * @throws CharonException Error while retrieving the group.
+     */
+    private Response checkGroupVersion(SCIMUserManager userManager, String id, String ifMatch)
+            throws CharonException {
+
+        if (StringUtils.isBlank(ifMatch) || !SCIMCommonUtils.isETagSupported()) {
+            return null;
+        }
+        try {
+            SCIMResourceTypeSchema schema = SCIMResourceSchemaManager.getInstance().getGroupResourceSchema();
+            Group group = userManager.getGroup(id, ResourceManagerUtil.getOnlyRequiredAttributesURIs(
+                    (SCIMResourceTypeSchema) CopyUtil.deepCopy(schema), null, null));
+            if (group == null) {
+                return null;
+            }
+            return SupportUtils.buildPreconditionFailedResponse(SupportUtils.getResourceVersion(group), ifMatch);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
         }
     }
 
@@ -19,12 +19,14 @@
 package org.wso2.carbon.identity.scim2.provider.resources;
 
 import org.wso2.carbon.identity.scim2.common.impl.IdentityResourceTypeResourceManager;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SCIMProviderConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SupportUtils;
 import org.wso2.charon3.core.protocol.SCIMResponse;
 import org.wso2.charon3.core.protocol.endpoints.ResourceTypeResourceManager;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
@@ -34,13 +36,21 @@ import javax.ws.rs.core.Response;
 public class ResourceTypesResource extends AbstractResource {
     @GET
     @Produces({MediaType.APPLICATION_JSON, SCIMProviderConstants.APPLICATION_SCIM_JSON})
-    public Response getUser() {
+    public Response getUser(@HeaderParam(SCIMProviderConstants.IF_NONE_MATCH) String ifNoneMatch) {
+
+        long cacheGeneration = SupportUtils.getDiscoveryResponseCacheGeneration();
+        Response cachedResponse = SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.RESOURCE_TYPE,
+                ifNoneMatch);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
         // create charon-SCIM service provider config endpoint and hand-over the request.
         IdentityResourceTypeResourceManager resourceTypeResourceManager = new IdentityResourceTypeResourceManager();
 
         SCIMResponse scimResponse = resourceTypeResourceManager.get(null, null, null, null);
         // needs to check the code of the response and return 200 0k or other error codes
         // appropriately.
-        return SupportUtils.buildResponse(scimResponse);
+        return SupportUtils.buildDiscoveryResponse(SCIMCommonConstants.RESOURCE_TYPE, ifNoneMatch, cacheGeneration,
+                scimResponse);
     }
 }
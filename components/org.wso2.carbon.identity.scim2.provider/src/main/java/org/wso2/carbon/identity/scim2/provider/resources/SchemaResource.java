@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.scim2.common.impl.IdentitySCIMManager;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SCIMProviderConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SupportUtils;
 import org.wso2.charon3.core.exceptions.CharonException;
@@ -31,6 +32,7 @@ import org.wso2.charon3.core.protocol.endpoints.SchemaResourceManager;
 import org.wso2.charon3.core.schema.SCIMConstants;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -45,8 +47,13 @@ public class SchemaResource extends AbstractResource {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getSchemas() {
+    public Response getSchemas(@HeaderParam(SCIMProviderConstants.IF_NONE_MATCH) String ifNoneMatch) {
 
+        long cacheGeneration = SupportUtils.getDiscoveryResponseCacheGeneration();
+        Response cachedResponse = SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SCHEMAS, ifNoneMatch);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
         try {
             UserManager userManager = IdentitySCIMManager.getInstance().getUserManager();
 
@@ -54,7 +61,8 @@ public class SchemaResource extends AbstractResource {
             SchemaResourceManager schemaResourceManager = new SchemaResourceManager();
             SCIMResponse scimResponse = schemaResourceManager.get(null, userManager, null, null);
 
-            return SupportUtils.buildResponse(scimResponse);
+            return SupportUtils.buildDiscoveryResponse(SCIMCommonConstants.SCHEMAS, ifNoneMatch, cacheGeneration,
+                    scimResponse);
 
         } catch (CharonException e) {
             return handleCharonException(e);
@@ -64,8 +72,15 @@ public class SchemaResource extends AbstractResource {
     @GET
     @Path("/{id}")
     @Produces({MediaType.APPLICATION_JSON, SCIMProviderConstants.APPLICATION_SCIM_JSON})
-    public Response getSchemasById(@PathParam(SCIMConstants.CommonSchemaConstants.ID) String id) {
-
+    public Response getSchemasById(@PathParam(SCIMConstants.CommonSchemaConstants.ID) String id,
+                                   @HeaderParam(SCIMProviderConstants.IF_NONE_MATCH) String ifNoneMatch) {
+
+        String resourcePath = SCIMCommonConstants.SCHEMAS + "/" + id;
+        long cacheGeneration = SupportUtils.getDiscoveryResponseCacheGeneration();
+        Response cachedResponse = SupportUtils.buildCachedDiscoveryResponse(resourcePath, ifNoneMatch);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
         try {
             UserManager userManager = IdentitySCIMManager.getInstance().getUserManager();
 
@@ -77,7 +92,7 @@ public class SchemaResource extends AbstractResource {
             SchemaResourceManager schemaResourceManager = new SchemaResourceManager();
             SCIMResponse scimResponse = schemaResourceManager.get(id, userManager, null, null);
 
-            return SupportUtils.buildResponse(scimResponse);
+            return SupportUtils.buildDiscoveryResponse(resourcePath, ifNoneMatch, cacheGeneration, scimResponse);
         } catch (CharonException e) {
             return handleCharonException(e);
         }
@@ -19,6 +19,8 @@
 
 package org.wso2.carbon.identity.scim2.provider.resources;
 
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
+import org.wso2.carbon.identity.scim2.provider.util.SCIMProviderConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SupportUtils;
 import org.wso2.charon3.core.protocol.SCIMResponse;
 import org.wso2.charon3.core.protocol.endpoints.ServiceProviderConfigResourceManager;
@@ -31,7 +33,14 @@ import javax.ws.rs.core.Response;
 public class ServiceProviderConfigResource extends AbstractResource {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getUser() {
+    public Response getUser(@HeaderParam(SCIMProviderConstants.IF_NONE_MATCH) String ifNoneMatch) {
+
+        long cacheGeneration = SupportUtils.getDiscoveryResponseCacheGeneration();
+        Response cachedResponse = SupportUtils.buildCachedDiscoveryResponse(
+                SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, ifNoneMatch);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
         // create charon-SCIM service provider config endpoint and hand-over the request.
         ServiceProviderConfigResourceManager serviceProviderConfigResourceManager =
                 new ServiceProviderConfigResourceManager();
@@ -39,6 +48,7 @@ public class ServiceProviderConfigResource extends AbstractResource {
         SCIMResponse scimResponse = serviceProviderConfigResourceManager.get(null, null, null, null);
         // needs to check the code of the response and return 200 0k or other error codes
         // appropriately.
-        return SupportUtils.buildResponse(scimResponse);
+        return SupportUtils.buildDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, ifNoneMatch,
+                cacheGeneration, scimResponse);
     }
 }
\ No newline at end of file
@@ -18,27 +18,45 @@
 
 package org.wso2.carbon.identity.scim2.provider.resources;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.jaxrs.designator.PATCH;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
 import org.wso2.carbon.identity.scim2.common.impl.IdentitySCIMManager;
+import org.wso2.carbon.identity.scim2.common.impl.SCIMUserManager;
+import org.wso2.carbon.identity.scim2.common.impl.UserBatchIterator;
 import org.wso2.carbon.identity.scim2.common.utils.AdminAttributeUtil;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
 import org.wso2.carbon.identity.scim2.provider.util.SCIMProviderConstants;
 import org.wso2.carbon.identity.scim2.provider.util.SupportUtils;
+import org.wso2.carbon.identity.scim2.provider.util.UserListStreamingOutput;
+import org.wso2.charon3.core.encoder.JSONDecoder;
+import org.wso2.charon3.core.exceptions.BadRequestException;
 import org.wso2.charon3.core.exceptions.CharonException;
 import org.wso2.charon3.core.exceptions.FormatNotSupportedException;
+import org.wso2.charon3.core.exceptions.NotFoundException;
+import org.wso2.charon3.core.exceptions.NotImplementedException;
 import org.wso2.charon3.core.extensions.UserManager;
+import org.wso2.charon3.core.objects.User;
 import org.wso2.charon3.core.protocol.SCIMResponse;
+import org.wso2.charon3.core.protocol.endpoints.AbstractResourceManager;
 import org.wso2.charon3.core.protocol.endpoints.UserResourceManager;
 import org.wso2.charon3.core.schema.SCIMConstants;
+import org.wso2.charon3.core.schema.SCIMResourceSchemaManager;
+import org.wso2.charon3.core.schema.SCIMResourceTypeSchema;
+import org.wso2.charon3.core.utils.CopyUtil;
+import org.wso2.charon3.core.utils.ResourceManagerUtil;
+import org.wso2.charon3.core.utils.codeutils.PatchOperation;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.wso2.carbon.identity.scim2.provider.util.SupportUtils.buildCustomSchema;
 import static org.wso2.carbon.identity.scim2.provider.util.SupportUtils.getTenantId;
 
@@ -53,7 +71,8 @@ public class UserResource extends AbstractResource {
     public Response getUser(@PathParam(SCIMConstants.CommonSchemaConstants.ID) String id,
                             @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
                             @QueryParam(SCIMProviderConstants.ATTRIBUTES) String attribute,
-                            @QueryParam(SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String  excludedAttributes) {
+                            @QueryParam(SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String  excludedAttributes,
+                            @HeaderParam(SCIMProviderConstants.IF_NONE_MATCH) String ifNoneMatch) {
 
         try {
             if(!isValidOutputFormat(outputFormat)){
@@ -70,6 +89,10 @@ public class UserResource extends AbstractResource {
             // Build Custom schema
             buildCustomSchema(userManager, getTenantId());
 
+            if (userManager instanceof SCIMUserManager && SCIMCommonUtils.isETagSupported()) {
+                return getVersionedUser((SCIMUserManager) userManager, id, attribute, excludedAttributes,
+                        ifNoneMatch);
+            }
             SCIMResponse scimResponse = userResourceManager.get(id, userManager,attribute, excludedAttributes);
             // needs to check the code of the response and return 200 0k or other error codes
             // appropriately.
@@ -79,7 +102,79 @@ public class UserResource extends AbstractResource {
             return handleCharonException(e);
         } catch (FormatNotSupportedException e) {
             return handleFormatNotSupportedException(e);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
+        }
+    }
+
+    /**
+     * Get a user with the version of the user as the entity tag. The user is not encoded if the version matches the
+     * If-None-Match header.
+     *
+     * @param userManager        SCIM user manager.
+     * @param id                 ID of the user.
+     * @param attribute          Requested attributes.
+     * @param excludedAttributes Excluded attributes.
+     * @param ifNoneMatch        Value of the If-None-Match header.
+     * @return User response or not modified response.
+     * @throws CharonException     Error while retrieving the user.
+     * @throws BadRequestException If the request is not valid.
+     */
+    private Response getVersionedUser(SCIMUserManager userManager, String id, String attribute,
+                                      String excludedAttributes, String ifNoneMatch)
+            throws CharonException, BadRequestException {
+
+        SCIMResourceTypeSchema schema = getUserResourceSchema(userManager);
+        User user = userManager.getUser(id, getRequiredAttributes(schema, attribute, excludedAttributes));
+        if (user == null) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(
+                    new NotFoundException("No user with the id : " + id + " exists in the user store.")));
+        }
+        return SupportUtils.buildVersionedResourceResponse(user, schema, attribute, excludedAttributes,
+                SCIMCommonUtils.getSCIMUserURL(id), ifNoneMatch);
+    }
+
+    /**
+     * Check the If-Match header of a conditional request against the current version of the user.
+     *
+     * @param userManager User manager.
+     * @param id          ID of the user.
+     * @param ifMatch     Value of the If-Match header.
+     * @return Precondition failed response or null if the request can be processed.
+     * @throws CharonException     Error while retrieving the user.
+     * @throws BadRequestException If the request is not valid.
+     */
+    private Response checkUserVersion(UserManager userManager, String id, String ifMatch)
+            throws CharonException, BadRequestException {
+
+        if (StringUtils.isBlank(ifMatch) || !(userManager instanceof SCIMUserManager) ||
+                !SCIMCommonUtils.isETagSupported()) {
+            return null;
+        }
+        SCIMResourceTypeSchema schema = getUserResourceSchema(userManager);
+        User user = ((SCIMUserManager) userManager).getUser(id, getRequiredAttributes(schema, null, null));
+        if (user == null) {
+            return null;
         }
+        return SupportUtils.buildPreconditionFailedResponse(SupportUtils.getResourceVersion(user), ifMatch);
+    }
+
+    private SCIMResourceTypeSchema getUserResourceSchema(UserManager userManager)
+            throws CharonException, BadRequestException {
+
+        try {
+            return SCIMResourceSchemaManager.getInstance().getUserResourceSchema(userManager);
+        } catch (NotImplementedException e) {
+            return SCIMResourceSchemaManager.getInstance().getUserResourceSchema();
+        }
+    }
+
+    private Map<String, Boolean> getRequiredAttributes(SCIMResourceTypeSchema schema, String attribute,
+                                                       String excludedAttributes)
+            throws CharonException, BadRequestException {
+
+        return ResourceManagerUtil.getOnlyRequiredAttributesURIs(
+                (SCIMResourceTypeSchema) CopyUtil.deepCopy(schema), attribute, excludedAttributes);
     }
 
     @POST
@@ -123,7 +218,7 @@ public class UserResource extends AbstractResource {
             SCIMResponse response = userResourceManager.create(resourceString, userManager,
                     attribute, excludedAttributes);
 
-            return SupportUtils.buildCreateUserResponse(response);
+            return SupportUtils.addResourceVersion(SupportUtils.buildCreateUserResponse(response), response);
 
         } catch (CharonException e) {
             return handleCharonException(e);
@@ -137,7 +232,8 @@ public class UserResource extends AbstractResource {
     @DELETE
     @Path("{id}")
     public Response deleteUser(@PathParam(SCIMProviderConstants.ID) String id,
-                               @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String format) {
+                               @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String format,
+                               @HeaderParam(SCIMProviderConstants.IF_MATCH) String ifMatch) {
 
         try {
             // defaults to application/scim+json.
@@ -160,6 +256,11 @@ public class UserResource extends AbstractResource {
                 return Response.status(Response.Status.FORBIDDEN).build();
             }
 
+            Response preconditionFailedResponse = checkUserVersion(userManager, id, ifMatch);
+            if (preconditionFailedResponse != null) {
+                return preconditionFailedResponse;
+            }
+
             // create charon-SCIM user resource manager and hand-over the request.
             UserResourceManager userResourceManager = new UserResourceManager();
 
@@ -172,6 +273,8 @@ public class UserResource extends AbstractResource {
             return handleCharonException(e);
         } catch (FormatNotSupportedException e) {
             return handleFormatNotSupportedException(e);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
         }
     }
 
@@ -185,7 +288,8 @@ public class UserResource extends AbstractResource {
                             @QueryParam (SCIMProviderConstants.COUNT) Integer count,
                             @QueryParam (SCIMProviderConstants.SORT_BY) String sortBy,
                             @QueryParam (SCIMProviderConstants.SORT_ORDER) String sortOrder,
-                            @QueryParam (SCIMProviderConstants.DOMAIN) String domainName) {
+                            @QueryParam (SCIMProviderConstants.DOMAIN) String domainName,
+                            @QueryParam (SCIMProviderConstants.CURSOR) String cursor) {
 
         try {
             // defaults to application/scim+json.
@@ -208,14 +312,81 @@ public class UserResource extends AbstractResource {
 
             SCIMResponse scimResponse;
 
+            if (cursor == null && filter == null && sortBy == null && sortOrder == null &&
+                    userManager instanceof SCIMUserManager && SCIMCommonUtils.isStreamingListResponseEnabled()) {
+                return listUsersAsStream((SCIMUserManager) userManager, attribute, excludedAttributes, startIndex,
+                        count, domainName);
+            }
+            if (cursor != null) {
+                SCIMCommonUtils.setThreadLocalPaginationCursor(cursor);
+            }
             scimResponse = userResourceManager.listWithGET(userManager, filter, startIndex, count,
                     sortBy, sortOrder, domainName, attribute, excludedAttributes);
+            if (cursor != null) {
+                return SupportUtils.buildCursorPaginatedResponse(scimResponse);
+            }
             return SupportUtils.buildResponse(scimResponse);
         } catch (CharonException e) {
             return handleCharonException(e);
         } catch (FormatNotSupportedException e) {
             return handleFormatNotSupportedException(e);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
+        } finally {
+            SCIMCommonUtils.unsetThreadLocalPaginationCursor();
+            SCIMCommonUtils.unsetThreadLocalNextPaginationCursor();
+        }
+    }
+
+    /**
+     * List the users as a streamed list response. The usernames of the page are resolved before the response is
+     * committed, hence errors in resolving the page are still returned as SCIM errors, while the users are built and
+     * written batch by batch.
+     *
+     * @param userManager        SCIM user manager.
+     * @param attribute          Requested attributes.
+     * @param excludedAttributes Excluded attributes.
+     * @param startIndex         Start index of the page.
+     * @param count              Number of users in the page.
+     * @param domainName         User store domain to list users from.
+     * @return Streamed list response.
+     * @throws CharonException     Error while listing users.
+     * @throws BadRequestException If the request is not valid.
+     */
+    private Response listUsersAsStream(SCIMUserManager userManager, String attribute, String excludedAttributes,
+                                       Integer startIndex, Integer count, String domainName)
+            throws CharonException, BadRequestException {
+
+        SCIMResourceTypeSchema schema = getUserResourceSchema(userManager);
+        Map<String, Boolean> requiredAttributes = getRequiredAttributes(schema, attribute, excludedAttributes);
+        if (startIndex == null || startIndex < 1) {
+            startIndex = 1;
+        }
+        count = getCountOfPage(count);
+        UserBatchIterator userBatchIterator = userManager.listUsersInBatches(startIndex, count, domainName,
+                requiredAttributes, SCIMCommonUtils.getStreamingListResponseBatchSize());
+        return Response.ok(new UserListStreamingOutput(userBatchIterator, schema, startIndex, attribute,
+                excludedAttributes)).type(SCIMProviderConstants.APPLICATION_SCIM_JSON).build();
+    }
+
+    /**
+     * Get the number of users in a streamed page. The default count and the maximum count are applied as for the
+     * list responses built by charon.
+     *
+     * @param count Requested number of users in the page.
+     * @return Number of users in the page or null to list all users.
+     */
+    private Integer getCountOfPage(Integer count) {
+
+        count = ResourceManagerUtil.processCount(count);
+        if (count != null && count < 0) {
+            count = 0;
         }
+        Integer maxCount = SCIMCommonUtils.getMaxCount();
+        if (maxCount != null && (count == null || count > maxCount)) {
+            count = maxCount;
+        }
+        return count;
     }
 
     @POST
@@ -272,6 +443,7 @@ public class UserResource extends AbstractResource {
                                @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
                                @QueryParam (SCIMProviderConstants.ATTRIBUTES) String attribute,
                                @QueryParam (SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String excludedAttributes,
+                               @HeaderParam(SCIMProviderConstants.IF_MATCH) String ifMatch,
                                String resourceString) {
 
         try {
@@ -298,18 +470,25 @@ public class UserResource extends AbstractResource {
             // Build Custom schema
             buildCustomSchema(userManager, getTenantId());
 
+            Response preconditionFailedResponse = checkUserVersion(userManager, id, ifMatch);
+            if (preconditionFailedResponse != null) {
+                return preconditionFailedResponse;
+            }
+
             // create charon-SCIM user endpoint and hand-over the request.
             UserResourceManager userResourceEndpoint = new UserResourceManager();
 
             SCIMResponse response = userResourceEndpoint.updateWithPUT(
                     id, resourceString, userManager, attribute, excludedAttributes);
 
-            return SupportUtils.buildResponse(response);
+            return SupportUtils.buildVersionedResponse(response);
 
         } catch (CharonException e) {
             return handleCharonException(e);
         } catch (FormatNotSupportedException e) {
             return handleFormatNotSupportedException(e);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
         }
     }
 
@@ -320,6 +499,7 @@ public class UserResource extends AbstractResource {
                               @HeaderParam(SCIMProviderConstants.ACCEPT_HEADER) String outputFormat,
                               @QueryParam (SCIMProviderConstants.ATTRIBUTES) String attribute,
                               @QueryParam (SCIMProviderConstants.EXCLUDE_ATTRIBUTES) String excludedAttributes,
+                              @HeaderParam(SCIMProviderConstants.IF_MATCH) String ifMatch,
                               String resourceString) {
 
 
@@ -355,19 +535,73 @@ public class UserResource extends AbstractResource {
             // Build Custom schema
             buildCustomSchema(userManager, getTenantId());
 
+            Response preconditionFailedResponse = checkUserVersion(userManager, id, ifMatch);
+            if (preconditionFailedResponse != null) {
+                return preconditionFailedResponse;
+            }
+
+            if (userManager instanceof SCIMUserManager) {
+                Response patchResponse = patchUserWithClaimChanges((SCIMUserManager) userManager, id,
+                        resourceString, attribute, excludedAttributes);
+                if (patchResponse != null) {
+                    return patchResponse;
+                }
+            }
+
             // create charon-SCIM user endpoint and hand-over the request.
             UserResourceManager userResourceEndpoint = new UserResourceManager();
 
             SCIMResponse response = userResourceEndpoint.updateWithPATCH(
                     id, resourceString, userManager, attribute, excludedAttributes);
 
-            return SupportUtils.buildResponse(response);
+            return SupportUtils.buildVersionedResponse(response);
 
         } catch (CharonException e) {
             return handleCharonException(e);
         } catch (FormatNotSupportedException e) {
             return handleFormatNotSupportedException(e);
+        } catch (BadRequestException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
+        }
+    }
+
+    /**
+     * Patch a user by applying the patch operations directly as claim changes of the user. The request is left to the
+     * charon patch flow if it cannot be decoded, or if any of the operations cannot be applied as claim changes, so
+     * that such requests are validated and reported by charon as before.
+     *
+     * @param userManager        SCIM user manager.
+     * @param id                 ID of the user.
+     * @param resourceString     Patch request.
+     * @param attribute          Requested attributes.
+     * @param excludedAttributes Excluded attributes.
+     * @return Patched user response or null if the patch has to be applied by charon.
+     * @throws CharonException     Error while patching the user.
+     * @throws BadRequestException If the request is not valid.
+     */
+    private Response patchUserWithClaimChanges(SCIMUserManager userManager, String id, String resourceString,
+                                               String attribute, String excludedAttributes)
+            throws CharonException, BadRequestException {
+
+        List<PatchOperation> patchOperations;
+        try {
+            patchOperations = new JSONDecoder().decodeRequest(resourceString);
+        } catch (BadRequestException e) {
+            return null;
+        }
+        SCIMResourceTypeSchema schema = getUserResourceSchema(userManager);
+        User user;
+        try {
+            user = userManager.patchUser(id, patchOperations,
+                    getRequiredAttributes(schema, attribute, excludedAttributes));
+        } catch (NotFoundException e) {
+            return SupportUtils.buildResponse(AbstractResourceManager.encodeSCIMException(e));
+        }
+        if (user == null) {
+            return null;
         }
+        return SupportUtils.buildVersionedResourceResponse(user, schema, attribute, excludedAttributes,
+                SCIMCommonUtils.getSCIMUserURL(id), null);
     }
 
     /**
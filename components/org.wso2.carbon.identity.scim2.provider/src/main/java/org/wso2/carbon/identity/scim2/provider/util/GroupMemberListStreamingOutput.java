@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.provider.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONObject;
+import org.wso2.carbon.identity.scim2.common.impl.GroupMemberBatchIterator;
+import org.wso2.charon3.core.exceptions.BadRequestException;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.objects.User;
+import org.wso2.charon3.core.schema.SCIMConstants;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a page of the members of a group to the response stream as a list response. The total number of members of
+ * the group is returned as the total results, and each batch of members is encoded and flushed as soon as it is
+ * built, so that the members of a large group are never held in memory as a single string.
+ */
+public class GroupMemberListStreamingOutput implements StreamingOutput {
+
+    private static final Log log = LogFactory.getLog(GroupMemberListStreamingOutput.class);
+    private static final String REF = "$ref";
+
+    private final GroupMemberBatchIterator memberBatchIterator;
+    private final int startIndex;
+
+    public GroupMemberListStreamingOutput(GroupMemberBatchIterator memberBatchIterator, int startIndex) {
+
+        this.memberBatchIterator = memberBatchIterator;
+        this.startIndex = startIndex;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write("{" + JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.TOTAL_RESULTS) + ":" +
+                memberBatchIterator.getMemberCount() + "," +
+                JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.START_INDEX) + ":" + startIndex + "," +
+                JSONObject.quote(SCIMConstants.CommonSchemaConstants.SCHEMAS) + ":[" +
+                JSONObject.quote(SCIMConstants.LISTED_RESOURCE_CORE_SCHEMA_URI) + "]," +
+                JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.RESOURCES) + ":[");
+
+        int itemsPerPage = 0;
+        try {
+            while (memberBatchIterator.hasNext()) {
+                for (User member : memberBatchIterator.nextBatch()) {
+                    JSONObject memberObject = new JSONObject();
+                    memberObject.put(SCIMConstants.CommonSchemaConstants.VALUE, member.getId());
+                    memberObject.put(SCIMConstants.GroupSchemaConstants.DISPLAY, member.getUserName());
+                    memberObject.put(REF, member.getLocation());
+                    if (itemsPerPage > 0) {
+                        writer.write(",");
+                    }
+                    writer.write(memberObject.toString());
+                    itemsPerPage++;
+                }
+                writer.flush();
+            }
+        } catch (CharonException | BadRequestException e) {
+            // The status line is already committed at this point, hence the response can only be aborted.
+            log.error("Error while writing the members of the group.", e);
+            throw new IOException("Error while writing the members of the group.", e);
+        }
+
+        writer.write("]," + JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.ITEMS_PER_PAGE) + ":" +
+                itemsPerPage + "}");
+        writer.flush();
+    }
+}
@@ -38,6 +38,11 @@ public class SCIMProviderConstants {
     public static final String ACCEPT_HEADER = "Accept";
     public static final String ID = "id";
     public static final String DOMAIN = "domain";
+    public static final String CURSOR = "cursor";
+    public static final String NEXT_CURSOR = "nextCursor";
+    public static final String IF_NONE_MATCH = "If-None-Match";
+    public static final String IF_MATCH = "If-Match";
+    public static final String ETAG = "ETag";
 
     public static final String RESOURCE_STRING = "RESOURCE_STRING";
     public static final String HTTP_VERB = "HTTP_VERB";
@@ -30,25 +30,38 @@ import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
 import org.wso2.carbon.identity.scim2.common.cache.SCIMCustomAttributeSchemaCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMDiscoveryResponseCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMDiscoveryResponseCacheEntry;
 import org.wso2.carbon.identity.scim2.common.exceptions.IdentitySCIMException;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
 import org.wso2.carbon.identity.scim2.common.utils.SCIMCustomSchemaProcessor;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+import org.wso2.charon3.core.attributes.Attribute;
 import org.wso2.charon3.core.attributes.SCIMCustomAttribute;
+import org.wso2.charon3.core.attributes.SimpleAttribute;
 import org.wso2.charon3.core.config.SCIMCustomSchemaExtensionBuilder;
+import org.wso2.charon3.core.encoder.JSONEncoder;
 import org.wso2.charon3.core.exceptions.BadRequestException;
 import org.wso2.charon3.core.exceptions.CharonException;
 import org.wso2.charon3.core.exceptions.InternalErrorException;
 import org.wso2.charon3.core.exceptions.NotImplementedException;
 import org.wso2.charon3.core.extensions.UserManager;
+import org.wso2.charon3.core.objects.AbstractSCIMObject;
 import org.wso2.charon3.core.protocol.ResponseCodeConstants;
 import org.wso2.charon3.core.protocol.SCIMResponse;
 import org.wso2.charon3.core.schema.AttributeSchema;
+import org.wso2.charon3.core.schema.SCIMConstants;
+import org.wso2.charon3.core.schema.SCIMResourceTypeSchema;
+import org.wso2.charon3.core.schema.ServerSideValidator;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Map;
 
@@ -63,6 +76,7 @@ public class SupportUtils {
     private static final Log log = LogFactory.getLog(SupportUtils.class);
     private static final String ASK_PASSWORD_CONFIRMATION_CODE_HEADER_NAME = "Ask-Password-Confirmation-Code";
     private static final String ASK_PASSWORD_KEY = "askPassword";
+    private static final String ETAG_DIGEST_ALGORITHM = "SHA-256";
 
     private SupportUtils() {}
 
@@ -89,6 +103,31 @@ public class SupportUtils {
         return responseBuilder.build();
     }
 
+    /**
+     * Build the jaxrs response of a list request which used cursor based pagination. The cursor of the next page, if
+     * available, is added to the list response.
+     *
+     * @param scimResponse SCIM response.
+     * @return Jaxrs response.
+     */
+    public static Response buildCursorPaginatedResponse(SCIMResponse scimResponse) {
+
+        String nextCursor = SCIMCommonUtils.getThreadLocalNextPaginationCursor();
+        if (scimResponse.getResponseStatus() != ResponseCodeConstants.CODE_OK || StringUtils.isEmpty(nextCursor) ||
+                scimResponse.getResponseMessage() == null) {
+            return buildResponse(scimResponse);
+        }
+        try {
+            JSONObject listResponse = new JSONObject(scimResponse.getResponseMessage());
+            listResponse.put(SCIMProviderConstants.NEXT_CURSOR, nextCursor);
+            return buildResponse(new SCIMResponse(scimResponse.getResponseStatus(), listResponse.toString(),
+                    scimResponse.getHeaderParamMap()));
+        } catch (JSONException e) {
+            log.error("Error while adding the next cursor to the list response.", e);
+            return buildResponse(scimResponse);
+        }
+    }
+
     /**
      * decode the base64 encoded string
      * @param encodedString
@@ -214,6 +253,230 @@ public class SupportUtils {
         return null;
     }
 
+    /**
+     * Get the current generation of the rendered responses of the discovery endpoints of the tenant. The generation
+     * is to be read before the response of a discovery endpoint is built.
+     *
+     * @return Current generation of the discovery responses of the tenant.
+     */
+    public static long getDiscoveryResponseCacheGeneration() {
+
+        return SCIMDiscoveryResponseCache.getInstance().getGenerationByTenant(getTenantId());
+    }
+
+    /**
+     * Build the jaxrs response of a discovery endpoint from the response rendered earlier for the tenant. A not
+     * modified response is returned if the entity tag of the rendered response matches the If-None-Match header.
+     *
+     * @param resourcePath Path of the requested resource.
+     * @param ifNoneMatch  Value of the If-None-Match header of the request.
+     * @return Jaxrs response or null if there is no rendered response for the resource.
+     */
+    public static Response buildCachedDiscoveryResponse(String resourcePath, String ifNoneMatch) {
+
+        SCIMDiscoveryResponseCacheEntry cacheEntry =
+                SCIMDiscoveryResponseCache.getInstance().getDiscoveryResponsesByTenant(getTenantId());
+        if (cacheEntry == null) {
+            return null;
+        }
+        String resourceKey = getDiscoveryResourceKey(resourcePath);
+        if (cacheEntry.getResponseBody(resourceKey) == null) {
+            return null;
+        }
+        return buildDiscoveryResponse(cacheEntry.getResponseBody(resourceKey), cacheEntry.getETag(resourceKey),
+                cacheEntry.getResponseHeaders(resourceKey), ifNoneMatch);
+    }
+
+    /**
+     * Build the jaxrs response of a discovery endpoint and keep the rendered response of the tenant, so that the
+     * following requests are served without building the response again. Only the successful responses are kept,
+     * and only if the discovery responses of the tenant were not cleared after the given generation.
+     *
+     * @param resourcePath    Path of the requested resource.
+     * @param ifNoneMatch     Value of the If-None-Match header of the request.
+     * @param cacheGeneration Generation of the discovery responses of the tenant before the response was built.
+     * @param scimResponse    SCIM response.
+     * @return Jaxrs response.
+     */
+    public static Response buildDiscoveryResponse(String resourcePath, String ifNoneMatch, long cacheGeneration,
+                                                  SCIMResponse scimResponse) {
+
+        String responseBody = scimResponse.getResponseMessage();
+        if (scimResponse.getResponseStatus() != ResponseCodeConstants.CODE_OK || responseBody == null) {
+            return buildResponse(scimResponse);
+        }
+        String eTag;
+        try {
+            eTag = generateETag(responseBody);
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error while generating the entity tag of the response of: " + resourcePath, e);
+            return buildResponse(scimResponse);
+        }
+
+        SCIMDiscoveryResponseCache.getInstance().addDiscoveryResponse(getTenantId(), cacheGeneration,
+                getDiscoveryResourceKey(resourcePath), responseBody, eTag, scimResponse.getHeaderParamMap());
+        return buildDiscoveryResponse(responseBody, eTag, scimResponse.getHeaderParamMap(), ifNoneMatch);
+    }
+
+    /**
+     * Get the key of a discovery resource in the rendered responses of the tenant. The locations in the responses are
+     * built from the SCIM endpoint URL of the request, which differs with the host and the organization the request
+     * is served for. Hence the endpoint URLs are a part of the key along with the path of the resource.
+     *
+     * @param resourcePath Path of the requested resource.
+     * @return Key of the resource.
+     */
+    private static String getDiscoveryResourceKey(String resourcePath) {
+
+        return SCIMCommonUtils.getSCIMUserURL() + " " + SCIMCommonUtils.getSCIMServiceProviderConfigURL() + " " +
+                resourcePath;
+    }
+
+    private static Response buildDiscoveryResponse(String responseBody, String eTag, Map<String, String> httpHeaders,
+                                                   String ifNoneMatch) {
+
+        if (SCIMCommonUtils.isETagMatched(eTag, ifNoneMatch, false)) {
+            return Response.status(Response.Status.NOT_MODIFIED).header(SCIMProviderConstants.ETAG, eTag).build();
+        }
+        Response.ResponseBuilder responseBuilder = Response.status(ResponseCodeConstants.CODE_OK);
+        if (MapUtils.isNotEmpty(httpHeaders)) {
+            for (Map.Entry<String, String> entry : httpHeaders.entrySet()) {
+                responseBuilder.header(entry.getKey(), entry.getValue());
+            }
+        }
+        responseBuilder.header(SCIMProviderConstants.ETAG, eTag);
+        return responseBuilder.entity(responseBody).build();
+    }
+
+    /**
+     * Generate a strong entity tag from the digest of the response body. The same body always gets the same entity
+     * tag, hence the entity tags known by the clients stay valid when the cached response is rebuilt.
+     *
+     * @param responseBody Response body.
+     * @return Quoted entity tag.
+     * @throws NoSuchAlgorithmException If the digest algorithm is not available.
+     */
+    private static String generateETag(String responseBody) throws NoSuchAlgorithmException {
+
+        byte[] digest = MessageDigest.getInstance(ETAG_DIGEST_ALGORITHM)
+                .digest(responseBody.getBytes(StandardCharsets.UTF_8));
+        return "\"" + String.format("%064x", new BigInteger(1, digest)) + "\"";
+    }
+
+    /**
+     * Get the version of a SCIM resource from the meta attribute of the resource.
+     *
+     * @param scimObject SCIM resource.
+     * @return Version of the resource or null if the version is not set.
+     */
+    public static String getResourceVersion(AbstractSCIMObject scimObject) {
+
+        Attribute metaAttribute = scimObject.getAttribute(SCIMConstants.CommonSchemaConstants.META);
+        if (metaAttribute == null) {
+            return null;
+        }
+        Attribute versionAttribute = metaAttribute.getSubAttribute(SCIMConstants.CommonSchemaConstants.VERSION);
+        if (!(versionAttribute instanceof SimpleAttribute) || ((SimpleAttribute) versionAttribute).getValue() == null) {
+            return null;
+        }
+        return ((SimpleAttribute) versionAttribute).getValue().toString();
+    }
+
+    /**
+     * Build the jaxrs response of a SCIM resource with its version as the entity tag. A not modified response is
+     * returned without encoding the resource if the version matches the If-None-Match header.
+     *
+     * @param scimObject         SCIM resource.
+     * @param schema             Schema of the resource.
+     * @param attributes         Requested attributes.
+     * @param excludedAttributes Excluded attributes.
+     * @param location           Location of the resource.
+     * @param ifNoneMatch        Value of the If-None-Match header of the request.
+     * @return Jaxrs response.
+     * @throws CharonException     Error while encoding the resource.
+     * @throws BadRequestException Error while validating the resource against the requested attributes.
+     */
+    public static Response buildVersionedResourceResponse(AbstractSCIMObject scimObject, SCIMResourceTypeSchema schema,
+                                                          String attributes, String excludedAttributes,
+                                                          String location, String ifNoneMatch)
+            throws CharonException, BadRequestException {
+
+        String version = getResourceVersion(scimObject);
+        if (version != null && SCIMCommonUtils.isETagMatched(version, ifNoneMatch, false)) {
+            return Response.status(Response.Status.NOT_MODIFIED).header(SCIMProviderConstants.ETAG, version).build();
+        }
+        ServerSideValidator.validateRetrievedSCIMObject(scimObject, schema, attributes, excludedAttributes);
+        Response.ResponseBuilder responseBuilder = Response.status(ResponseCodeConstants.CODE_OK)
+                .header(SCIMProviderConstants.CONTENT_TYPE, SCIMProviderConstants.APPLICATION_SCIM_JSON)
+                .header(HttpHeaders.LOCATION, location);
+        if (version != null) {
+            responseBuilder.header(SCIMProviderConstants.ETAG, version);
+        }
+        return responseBuilder.entity(new JSONEncoder().encodeSCIMObject(scimObject)).build();
+    }
+
+    /**
+     * Build the precondition failed response of a conditional request, if the current version of the resource does
+     * not match the If-Match header.
+     *
+     * @param version Current version of the resource.
+     * @param ifMatch Value of the If-Match header of the request.
+     * @return Precondition failed response or null if the precondition is satisfied.
+     */
+    public static Response buildPreconditionFailedResponse(String version, String ifMatch) {
+
+        // If-Match requires the strong comparison, hence a weak entity tag in the header never matches.
+        if (StringUtils.isBlank(ifMatch) || version == null || SCIMCommonUtils.isETagMatched(version, ifMatch, true)) {
+            return null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("The current version: " + version + " of the resource does not match the If-Match header: " +
+                    ifMatch);
+        }
+        return Response.status(Response.Status.PRECONDITION_FAILED).header(SCIMProviderConstants.ETAG, version)
+                .build();
+    }
+
+    /**
+     * Build the jaxrs response of a request which returns a SCIM resource, with the version of the resource as the
+     * entity tag.
+     *
+     * @param scimResponse SCIM response.
+     * @return Jaxrs response.
+     */
+    public static Response buildVersionedResponse(SCIMResponse scimResponse) {
+
+        return addResourceVersion(buildResponse(scimResponse), scimResponse);
+    }
+
+    /**
+     * Add the version of the SCIM resource in the response as the entity tag of the jaxrs response.
+     *
+     * @param response     Jaxrs response.
+     * @param scimResponse SCIM response.
+     * @return Jaxrs response with the entity tag.
+     */
+    public static Response addResourceVersion(Response response, SCIMResponse scimResponse) {
+
+        if (!SCIMCommonUtils.isETagSupported() || scimResponse.getResponseMessage() == null ||
+                (scimResponse.getResponseStatus() != ResponseCodeConstants.CODE_OK &&
+                        scimResponse.getResponseStatus() != ResponseCodeConstants.CODE_CREATED)) {
+            return response;
+        }
+        try {
+            JSONObject meta = new JSONObject(scimResponse.getResponseMessage())
+                    .optJSONObject(SCIMConstants.CommonSchemaConstants.META);
+            String version = meta == null ? null : meta.optString(SCIMConstants.CommonSchemaConstants.VERSION, null);
+            if (StringUtils.isEmpty(version)) {
+                return response;
+            }
+            return Response.fromResponse(response).header(SCIMProviderConstants.ETAG, version).build();
+        } catch (JSONException e) {
+            log.error("Error while reading the version of the resource from the response.", e);
+            return response;
+        }
+    }
+
     /**
      * To build response after creating a user resource.
      *
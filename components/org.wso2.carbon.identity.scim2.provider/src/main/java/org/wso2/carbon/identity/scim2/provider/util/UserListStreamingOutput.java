@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.provider.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONObject;
+import org.wso2.carbon.identity.scim2.common.impl.UserBatchIterator;
+import org.wso2.charon3.core.encoder.JSONEncoder;
+import org.wso2.charon3.core.exceptions.BadRequestException;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.objects.User;
+import org.wso2.charon3.core.schema.SCIMConstants;
+import org.wso2.charon3.core.schema.SCIMResourceTypeSchema;
+import org.wso2.charon3.core.schema.ServerSideValidator;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the list response of the Users endpoint to the response stream. The ListResponse envelope is written first
+ * and each batch of users is encoded and flushed as soon as it is retrieved, so that the whole page is never held in
+ * memory as a single string.
+ */
+public class UserListStreamingOutput implements StreamingOutput {
+
+    private static final Log log = LogFactory.getLog(UserListStreamingOutput.class);
+
+    private final UserBatchIterator userBatchIterator;
+    private final SCIMResourceTypeSchema schema;
+    private final int startIndex;
+    private final String attributes;
+    private final String excludedAttributes;
+
+    public UserListStreamingOutput(UserBatchIterator userBatchIterator, SCIMResourceTypeSchema schema, int startIndex,
+                                   String attributes, String excludedAttributes) {
+
+        this.userBatchIterator = userBatchIterator;
+        this.schema = schema;
+        this.startIndex = startIndex;
+        this.attributes = attributes;
+        this.excludedAttributes = excludedAttributes;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write("{" + JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.TOTAL_RESULTS) + ":" +
+                userBatchIterator.getTotalResults() + "," +
+                JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.START_INDEX) + ":" + startIndex + "," +
+                JSONObject.quote(SCIMConstants.CommonSchemaConstants.SCHEMAS) + ":[" +
+                JSONObject.quote(SCIMConstants.LISTED_RESOURCE_CORE_SCHEMA_URI) + "]," +
+                JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.RESOURCES) + ":[");
+
+        JSONEncoder encoder = new JSONEncoder();
+        int itemsPerPage = 0;
+        try {
+            while (userBatchIterator.hasNext()) {
+                for (User user : userBatchIterator.nextBatch()) {
+                    ServerSideValidator.validateRetrievedSCIMObjectInList(user, schema, attributes,
+                            excludedAttributes);
+                    if (itemsPerPage > 0) {
+                        writer.write(",");
+                    }
+                    writer.write(encoder.encodeSCIMObject(user));
+                    itemsPerPage++;
+                }
+                writer.flush();
+            }
+        } catch (CharonException | BadRequestException e) {
+            // The status line is already committed at this point, hence the response can only be aborted.
+            log.error("Error while writing the users of the list response.", e);
+            throw new IOException("Error while writing the users of the list response.", e);
+        }
+
+        writer.write("]," + JSONObject.quote(SCIMConstants.ListedResourceSchemaConstants.ITEMS_PER_PAGE) + ":" +
+                itemsPerPage + "}");
+        writer.flush();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.provider.util;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.scim2.common.impl.GroupMemberBatchIterator;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.objects.User;
+import org.wso2.charon3.core.schema.SCIMConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class GroupMemberListStreamingOutputTest {
+
+    @Test
+    public void testWrite() throws Exception {
+
+        GroupMemberBatchIterator memberBatchIterator = mock(GroupMemberBatchIterator.class);
+        when(memberBatchIterator.getMemberCount()).thenReturn(10);
+        when(memberBatchIterator.hasNext()).thenReturn(true, true, false);
+        when(memberBatchIterator.nextBatch()).thenReturn(
+                Arrays.asList(buildMember("id-3", "user3"), buildMember("id-4", "user4")),
+                Collections.singletonList(buildMember("id-5", "user5")));
+
+        JSONObject response = write(new GroupMemberListStreamingOutput(memberBatchIterator, 3));
+
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.TOTAL_RESULTS), 10);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.START_INDEX), 3);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.ITEMS_PER_PAGE), 3);
+        assertEquals(response.getJSONArray(SCIMConstants.CommonSchemaConstants.SCHEMAS).getString(0),
+                SCIMConstants.LISTED_RESOURCE_CORE_SCHEMA_URI);
+        JSONArray members = response.getJSONArray(SCIMConstants.ListedResourceSchemaConstants.RESOURCES);
+        assertEquals(members.length(), 3);
+        assertEquals(members.getJSONObject(0).getString(SCIMConstants.CommonSchemaConstants.VALUE), "id-3");
+        assertEquals(members.getJSONObject(0).getString(SCIMConstants.GroupSchemaConstants.DISPLAY), "user3");
+        assertEquals(members.getJSONObject(0).getString("$ref"), "https://localhost:9443/scim2/Users/id-3");
+        assertEquals(members.getJSONObject(2).getString(SCIMConstants.CommonSchemaConstants.VALUE), "id-5");
+    }
+
+    @Test
+    public void testWriteOnlyMemberCount() throws Exception {
+
+        GroupMemberBatchIterator memberBatchIterator = mock(GroupMemberBatchIterator.class);
+        when(memberBatchIterator.getMemberCount()).thenReturn(10);
+        when(memberBatchIterator.hasNext()).thenReturn(false);
+
+        JSONObject response = write(new GroupMemberListStreamingOutput(memberBatchIterator, 1));
+
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.TOTAL_RESULTS), 10);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.ITEMS_PER_PAGE), 0);
+        assertEquals(response.getJSONArray(SCIMConstants.ListedResourceSchemaConstants.RESOURCES).length(), 0);
+        verify(memberBatchIterator, never()).nextBatch();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testWriteWithErrorInBatch() throws Exception {
+
+        GroupMemberBatchIterator memberBatchIterator = mock(GroupMemberBatchIterator.class);
+        when(memberBatchIterator.hasNext()).thenReturn(true);
+        when(memberBatchIterator.nextBatch()).thenThrow(new CharonException("Error in retrieving the members."));
+
+        new GroupMemberListStreamingOutput(memberBatchIterator, 1).write(new ByteArrayOutputStream());
+    }
+
+    private JSONObject write(GroupMemberListStreamingOutput streamingOutput) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        streamingOutput.write(outputStream);
+        return new JSONObject(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private User buildMember(String userId, String userName) throws Exception {
+
+        User member = new User();
+        member.setId(userId);
+        member.setUserName(userName);
+        member.setLocation("https://localhost:9443/scim2/Users/" + userId);
+        return member;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.provider.util;
+
+import org.mockito.ArgumentCaptor;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMDiscoveryResponseCache;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMDiscoveryResponseCacheEntry;
+import org.wso2.carbon.identity.scim2.common.cache.SCIMDiscoveryResponseCacheKey;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonConstants;
+import org.wso2.carbon.identity.scim2.common.utils.SCIMCommonUtils;
+import org.wso2.charon3.core.protocol.ResponseCodeConstants;
+import org.wso2.charon3.core.protocol.SCIMResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.RuntimeDelegate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+@PrepareForTest({IdentityUtil.class, IdentityTenantUtil.class, SCIMCommonUtils.class,
+        SCIMDiscoveryResponseCache.class})
+@PowerMockIgnore({"javax.xml.*", "org.w3c.dom.*", "org.xml.sax.*"})
+public class SupportUtilsTest extends PowerMockTestCase {
+
+    private static final int TENANT_ID = -1234;
+    private static final String SCIM_URL = "https://localhost:9443/scim2";
+    private static final String ORGANIZATION_SCIM_URL = "https://localhost:9443/o/org-id/scim2";
+    private static final String RESPONSE_BODY = "{\"schemas\":[],\"meta\":{\"location\":\"" + SCIM_URL +
+            "/ServiceProviderConfig\"}}";
+
+    private Response.ResponseBuilder responseBuilder;
+    private SCIMDiscoveryResponseCache discoveryResponseCache;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+        discoveryResponseCache = spy(SCIMDiscoveryResponseCache.getInstance());
+        Map<SCIMDiscoveryResponseCacheKey, SCIMDiscoveryResponseCacheEntry> cacheEntries = new HashMap<>();
+        doAnswer(invocation -> cacheEntries.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(discoveryResponseCache).addToCache(any(), any());
+        doAnswer(invocation -> cacheEntries.get(invocation.getArgument(0)))
+                .when(discoveryResponseCache).getValueFromCache(any());
+        doAnswer(invocation -> cacheEntries.remove(invocation.getArgument(0)))
+                .when(discoveryResponseCache).clearCacheEntry(any());
+        mockStatic(SCIMDiscoveryResponseCache.class);
+        when(SCIMDiscoveryResponseCache.getInstance()).thenReturn(discoveryResponseCache);
+
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.isTenantQualifiedUrlsEnabled()).thenReturn(true);
+        when(IdentityTenantUtil.getTenantId("carbon.super")).thenReturn(TENANT_ID);
+        mockStatic(SCIMCommonUtils.class);
+        when(SCIMCommonUtils.getTenantDomainFromContext()).thenReturn("carbon.super");
+        when(SCIMCommonUtils.getSCIMUserURL()).thenReturn(SCIM_URL + SCIMCommonConstants.USERS);
+        when(SCIMCommonUtils.getSCIMServiceProviderConfigURL())
+                .thenReturn(SCIM_URL + SCIMCommonConstants.SERVICE_PROVIDER_CONFIG);
+        when(SCIMCommonUtils.isETagMatched(any(), any(), anyBoolean())).thenCallRealMethod();
+
+        responseBuilder = mock(Response.ResponseBuilder.class, RETURNS_SELF);
+        when(responseBuilder.build()).thenReturn(mock(Response.class));
+        RuntimeDelegate runtimeDelegate = mock(RuntimeDelegate.class);
+        when(runtimeDelegate.createResponseBuilder()).thenReturn(responseBuilder);
+        RuntimeDelegate.setInstance(runtimeDelegate);
+    }
+
+    @Test
+    public void testBuildCachedDiscoveryResponseWithoutResponse() {
+
+        assertNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null));
+    }
+
+    @Test
+    public void testBuildCachedDiscoveryResponse() {
+
+        String eTag = buildDiscoveryResponse();
+
+        assertNotNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null));
+        verify(responseBuilder).entity(RESPONSE_BODY);
+        verify(responseBuilder).header(SCIMProviderConstants.ETAG, eTag);
+    }
+
+    @Test
+    public void testBuildCachedDiscoveryResponseWithMatchingETag() {
+
+        String eTag = buildDiscoveryResponse();
+
+        assertNotNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, eTag));
+        // A not modified response carries the entity tag, but not the body.
+        verify(responseBuilder).header(SCIMProviderConstants.ETAG, eTag);
+        verify(responseBuilder, never()).entity(any());
+
+        reset(responseBuilder);
+        when(responseBuilder.build()).thenReturn(mock(Response.class));
+        assertNotNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG,
+                "\"another-etag\""));
+        verify(responseBuilder).entity(RESPONSE_BODY);
+    }
+
+    @Test
+    public void testBuildCachedDiscoveryResponseForAnotherEndpointURL() {
+
+        buildDiscoveryResponse();
+
+        // The locations of the cached response are built with the endpoint URL of another request context.
+        when(SCIMCommonUtils.getSCIMUserURL()).thenReturn(ORGANIZATION_SCIM_URL + SCIMCommonConstants.USERS);
+        assertNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null));
+    }
+
+    @Test
+    public void testBuildCachedDiscoveryResponseAfterClaimsChanged() {
+
+        buildDiscoveryResponse();
+        long cacheGeneration = SupportUtils.getDiscoveryResponseCacheGeneration();
+
+        // Claim changes clear the discovery responses of the tenant.
+        discoveryResponseCache.clearDiscoveryResponsesByTenant(TENANT_ID);
+        assertNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null));
+
+        // A response built before the claim changes is not cached.
+        SupportUtils.buildDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null, cacheGeneration,
+                new SCIMResponse(ResponseCodeConstants.CODE_OK, RESPONSE_BODY, Collections.emptyMap()));
+        assertNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null));
+    }
+
+    @Test
+    public void testBuildDiscoveryResponseWithError() {
+
+        SupportUtils.buildDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null,
+                SupportUtils.getDiscoveryResponseCacheGeneration(),
+                new SCIMResponse(ResponseCodeConstants.CODE_BAD_REQUEST, "{}", Collections.emptyMap()));
+
+        verify(discoveryResponseCache, never()).addDiscoveryResponse(eq(TENANT_ID), anyLong(), any(), any(),
+                any(), any());
+        assertNull(SupportUtils.buildCachedDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null));
+    }
+
+    /**
+     * Build the response of the service provider config endpoint, which caches the rendered response.
+     *
+     * @return Entity tag of the response.
+     */
+    private String buildDiscoveryResponse() {
+
+        SupportUtils.buildDiscoveryResponse(SCIMCommonConstants.SERVICE_PROVIDER_CONFIG, null,
+                SupportUtils.getDiscoveryResponseCacheGeneration(),
+                new SCIMResponse(ResponseCodeConstants.CODE_OK, RESPONSE_BODY, Collections.emptyMap()));
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(responseBuilder, atLeastOnce()).header(eq(SCIMProviderConstants.ETAG), eTag.capture());
+        reset(responseBuilder);
+        when(responseBuilder.build()).thenReturn(mock(Response.class));
+        return eTag.getValue();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2024, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim2.provider.util;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.scim2.common.impl.UserBatchIterator;
+import org.wso2.charon3.core.exceptions.CharonException;
+import org.wso2.charon3.core.objects.User;
+import org.wso2.charon3.core.schema.SCIMConstants;
+import org.wso2.charon3.core.schema.SCIMSchemaDefinitions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class UserListStreamingOutputTest {
+
+    @Test
+    public void testWrite() throws Exception {
+
+        UserBatchIterator userBatchIterator = mock(UserBatchIterator.class);
+        when(userBatchIterator.getTotalResults()).thenReturn(10);
+        when(userBatchIterator.hasNext()).thenReturn(true, true, true, false);
+        // None of the users of the second batch are eligible to be returned.
+        when(userBatchIterator.nextBatch()).thenReturn(
+                Arrays.asList(buildUser("id-3", "user3"), buildUser("id-4", "user4")),
+                Collections.emptyList(),
+                Collections.singletonList(buildUser("id-5", "user5")));
+
+        JSONObject response = write(new UserListStreamingOutput(userBatchIterator,
+                SCIMSchemaDefinitions.SCIM_USER_SCHEMA, 3, null, null));
+
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.TOTAL_RESULTS), 10);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.START_INDEX), 3);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.ITEMS_PER_PAGE), 3);
+        assertEquals(response.getJSONArray(SCIMConstants.CommonSchemaConstants.SCHEMAS).getString(0),
+                SCIMConstants.LISTED_RESOURCE_CORE_SCHEMA_URI);
+        JSONArray users = response.getJSONArray(SCIMConstants.ListedResourceSchemaConstants.RESOURCES);
+        assertEquals(users.length(), 3);
+        assertEquals(users.getJSONObject(0).getString(SCIMConstants.CommonSchemaConstants.ID), "id-3");
+        assertEquals(users.getJSONObject(0).getString(SCIMConstants.UserSchemaConstants.USER_NAME), "user3");
+        assertEquals(users.getJSONObject(1).getString(SCIMConstants.CommonSchemaConstants.ID), "id-4");
+        assertEquals(users.getJSONObject(2).getString(SCIMConstants.CommonSchemaConstants.ID), "id-5");
+    }
+
+    @Test
+    public void testWriteWithoutUsers() throws Exception {
+
+        UserBatchIterator userBatchIterator = mock(UserBatchIterator.class);
+        when(userBatchIterator.getTotalResults()).thenReturn(10);
+        when(userBatchIterator.hasNext()).thenReturn(false);
+
+        JSONObject response = write(new UserListStreamingOutput(userBatchIterator,
+                SCIMSchemaDefinitions.SCIM_USER_SCHEMA, 11, null, null));
+
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.TOTAL_RESULTS), 10);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.START_INDEX), 11);
+        assertEquals(response.getInt(SCIMConstants.ListedResourceSchemaConstants.ITEMS_PER_PAGE), 0);
+        assertEquals(response.getJSONArray(SCIMConstants.ListedResourceSchemaConstants.RESOURCES).length(), 0);
+        verify(userBatchIterator, never()).nextBatch();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testWriteWithErrorInBatch() throws Exception {
+
+        UserBatchIterator userBatchIterator = mock(UserBatchIterator.class);
+        when(userBatchIterator.hasNext()).thenReturn(true);
+        when(userBatchIterator.nextBatch()).thenThrow(new CharonException("Error in retrieving the users."));
+
+        new UserListStreamingOutput(userBatchIterator, SCIMSchemaDefinitions.SCIM_USER_SCHEMA, 1, null, null)
+                .write(new ByteArrayOutputStream());
+    }
+
+    private JSONObject write(UserListStreamingOutput streamingOutput) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        streamingOutput.write(outputStream);
+        return new JSONObject(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private User buildUser(String userId, String userName) throws Exception {
+
+        User user = new User();
+        user.setId(userId);
+        user.setUserName(userName);
+        return user;
+    }
+}